@@ -20,7 +20,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 
 /**
  * Encloses classes related to the compression and decompression of messages.
@@ -31,6 +30,9 @@ public interface Codec extends Compressor, Decompressor {
   /**
    * A gzip compressor and decompressor.  In the future this will likely support other
    * compression methods, such as compression level.
+   *
+   * <p>Compressing streams reuse pooled deflaters, which are returned to the pool when the stream
+   * is closed.
    */
   final class Gzip implements Codec {
     @Override
@@ -40,7 +42,7 @@ public interface Codec extends Compressor, Decompressor {
 
     @Override
     public OutputStream compress(OutputStream os) throws IOException {
-      return new GZIPOutputStream(os);
+      return new PooledGzipOutputStream(os);
     }
 
     @Override
@@ -71,6 +71,12 @@ public abstract class ForwardingChannelBuilder<T extends ForwardingChannelBuilde
     return thisT();
   }
 
+  @Override
+  public T virtualThreadExecutor() {
+    delegate().virtualThreadExecutor();
+    return thisT();
+  }
+
   @Override
   public T offloadExecutor(Executor executor) {
     delegate().offloadExecutor(executor);
@@ -246,6 +252,12 @@ public abstract class ForwardingChannelBuilder<T extends ForwardingChannelBuilde
     return thisT();
   }
 
+  @Override
+  public T callbackBatchSize(int maxCallbacks) {
+    delegate().callbackBatchSize(maxCallbacks);
+    return thisT();
+  }
+
   /**
    * Returns the {@link ManagedChannel} built by the delegate by default. Overriding method can
    * return different value.
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc;
+
+import java.nio.ByteBuffer;
+import javax.annotation.Nullable;
+
+/**
+ * Extension to an {@link java.io.InputStream} whose content can be accessed as {@link
+ * ByteBuffer}s.
+ *
+ * <p>This can be used for optimizing the case where the consumer of the input stream can read
+ * from {@link ByteBuffer}s directly. Instead of copying the content to a byte array through
+ * {@code read()}, the consumer can read the transport's buffers in place.
+ */
+@ExperimentalApi("There is no plan to make this API stable, given transport API instability")
+public interface HasByteBuffer {
+
+  /**
+   * Indicates whether or not {@link #getByteBuffer} is supported.
+   */
+  boolean byteBufferSupported();
+
+  /**
+   * Gets a {@link ByteBuffer} containing some of the bytes next to be read, or {@code null} if the
+   * end of the content has been reached. The number of bytes in the returned buffer is
+   * implementation specific. Calling this method does not change the position of the stream; the
+   * returned buffer must not be modified, but its position, limit and mark may be changed freely.
+   *
+   * <p>The returned buffer is only valid until the stream is closed. This is an optional method,
+   * so callers should first check {@link #byteBufferSupported}.
+   *
+   * @throws UnsupportedOperationException if this operation is not supported
+   */
+  @Nullable
+  ByteBuffer getByteBuffer();
+}
@@ -169,7 +169,7 @@ public final class InternalChannelz {
   /** Returns a server list. */
   public ServerList getServers(long fromId, int maxPageSize) {
     List<InternalInstrumented<ServerStats>> serverList
-        = new ArrayList<>(maxPageSize);
+        = new ArrayList<>();
     Iterator<InternalInstrumented<ServerStats>> iterator
         = servers.tailMap(fromId).values().iterator();
 
@@ -186,7 +186,7 @@ public final class InternalChannelz {
     if (serverSockets == null) {
       return null;
     }
-    List<InternalWithLogId> socketList = new ArrayList<>(maxPageSize);
+    List<InternalWithLogId> socketList = new ArrayList<>();
     Iterator<InternalInstrumented<SocketStats>> iterator
         = serverSockets.tailMap(fromId).values().iterator();
     while (socketList.size() < maxPageSize && iterator.hasNext()) {
@@ -368,6 +368,14 @@ public final class InternalChannelz {
     public final long callsSucceeded;
     public final long callsFailed;
     public final long lastCallStartedNanos;
+    /** Bytes buffered for retryable and hedged calls. Only set for channels. */
+    public final long retryBufferedBytes;
+    /** Calls that stopped retrying or hedging because the buffer limit was reached. */
+    public final long retryCommitsDueToBufferLimit;
+    /** Calls with a hedging policy that committed to one of their attempts. */
+    public final long hedgedCallsCommitted;
+    /** Hedged calls in which a hedge, rather than the first attempt, won. */
+    public final long hedgeWins;
     public final List<InternalWithLogId> subchannels;
     public final List<InternalWithLogId> sockets;
 
@@ -382,6 +390,10 @@ public final class InternalChannelz {
         long callsSucceeded,
         long callsFailed,
         long lastCallStartedNanos,
+        long retryBufferedBytes,
+        long retryCommitsDueToBufferLimit,
+        long hedgedCallsCommitted,
+        long hedgeWins,
         List<InternalWithLogId> subchannels,
         List<InternalWithLogId> sockets) {
       checkState(
@@ -395,6 +407,10 @@ public final class InternalChannelz {
       this.callsSucceeded = callsSucceeded;
       this.callsFailed = callsFailed;
       this.lastCallStartedNanos = lastCallStartedNanos;
+      this.retryBufferedBytes = retryBufferedBytes;
+      this.retryCommitsDueToBufferLimit = retryCommitsDueToBufferLimit;
+      this.hedgedCallsCommitted = hedgedCallsCommitted;
+      this.hedgeWins = hedgeWins;
       this.subchannels = checkNotNull(subchannels);
       this.sockets = checkNotNull(sockets);
     }
@@ -407,6 +423,10 @@ public final class InternalChannelz {
       private long callsSucceeded;
       private long callsFailed;
       private long lastCallStartedNanos;
+      private long retryBufferedBytes;
+      private long retryCommitsDueToBufferLimit;
+      private long hedgedCallsCommitted;
+      private long hedgeWins;
       private List<InternalWithLogId> subchannels = Collections.emptyList();
       private List<InternalWithLogId> sockets = Collections.emptyList();
 
@@ -445,6 +465,26 @@ public final class InternalChannelz {
         return this;
       }
 
+      public Builder setRetryBufferedBytes(long retryBufferedBytes) {
+        this.retryBufferedBytes = retryBufferedBytes;
+        return this;
+      }
+
+      public Builder setRetryCommitsDueToBufferLimit(long retryCommitsDueToBufferLimit) {
+        this.retryCommitsDueToBufferLimit = retryCommitsDueToBufferLimit;
+        return this;
+      }
+
+      public Builder setHedgedCallsCommitted(long hedgedCallsCommitted) {
+        this.hedgedCallsCommitted = hedgedCallsCommitted;
+        return this;
+      }
+
+      public Builder setHedgeWins(long hedgeWins) {
+        this.hedgeWins = hedgeWins;
+        return this;
+      }
+
       /** Sets the subchannels. */
       public Builder setSubchannels(List<InternalWithLogId> subchannels) {
         checkState(sockets.isEmpty());
@@ -471,6 +511,10 @@ public final class InternalChannelz {
             callsSucceeded,
             callsFailed,
             lastCallStartedNanos,
+            retryBufferedBytes,
+            retryCommitsDueToBufferLimit,
+            hedgedCallsCommitted,
+            hedgeWins,
             subchannels,
             sockets);
       }
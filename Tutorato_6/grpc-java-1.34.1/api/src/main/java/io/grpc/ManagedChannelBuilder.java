@@ -106,6 +106,23 @@ public abstract class ManagedChannelBuilder<T extends ManagedChannelBuilder<T>>
    */
   public abstract T executor(Executor executor);
 
+  /**
+   * Runs application code on a new virtual thread for each unit of work instead of on a shared
+   * pool of platform threads, so that blocking call listeners do not exhaust the executor.
+   * Requires a JVM with virtual threads (Java 21 or later); on older JVMs the default executor is
+   * used.
+   *
+   * <p>Like {@link #executor}, the last of this, {@link #executor} and {@link #directExecutor}
+   * to be called wins.
+   *
+   * @return this
+   * @since 1.35.0
+   */
+  @ExperimentalApi("There is no plan to make this API stable until virtual threads are common")
+  public T virtualThreadExecutor() {
+    throw new UnsupportedOperationException();
+  }
+
   /**
    * Provides a custom executor that will be used for operations that block or are expensive.
    *
@@ -574,6 +591,25 @@ public abstract class ManagedChannelBuilder<T extends ManagedChannelBuilder<T>>
     throw new UnsupportedOperationException();
   }
 
+  /**
+   * Serializes the callbacks of each call with a lock-free queue that gives up the executor thread
+   * after running {@code maxCallbacks} callbacks of the same call in a row, letting other calls
+   * sharing the executor make progress. By default each call's callbacks are drained until none
+   * are left.
+   *
+   * <p>Has no effect when {@link #directExecutor()} is used.
+   *
+   * @param maxCallbacks the maximum number of callbacks a call runs before yielding the thread.
+   *     {@link Integer#MAX_VALUE} uses the lock-free queue without yielding.
+   * @return this
+   * @throws IllegalArgumentException if {@code maxCallbacks} is not positive
+   * @since 1.35.0
+   */
+  @ExperimentalApi("There is no plan to make this API stable, given executor tuning is advisory")
+  public T callbackBatchSize(int maxCallbacks) {
+    throw new UnsupportedOperationException();
+  }
+
   /**
    * Builds a channel using the given parameters.
    *
@@ -142,11 +142,23 @@ public final class Metadata {
         : "Odd number of key-value pairs " + namesAndValues.length;
     size = usedNames;
     this.namesAndValues = namesAndValues;
+    updateIndex(0);
   }
 
+  /**
+   * Number of headers at which lookups stop scanning {@link #namesAndValues} and build a
+   * {@link NameIndex}. Typical header sets are smaller and never pay for the index.
+   */
+  private static final int INDEX_THRESHOLD = 16;
+
   private Object[] namesAndValues;
   // The unscaled number of headers present.
   private int size;
+  // Built by mutations once size reaches INDEX_THRESHOLD, and only read by lookups so that
+  // concurrent readers never see it half built. Appends keep it current; any other mutation that
+  // moves headers rebuilds it.
+  @Nullable
+  private NameIndex index;
 
   private byte[] name(int i) {
     return (byte[]) namesAndValues[i * 2];
@@ -224,10 +236,15 @@ public final class Metadata {
   /**
    * Returns true if a value is defined for the given key.
    *
-   * <p>This is done by linear search, so if it is followed by {@link #get} or {@link #getAll},
-   * prefer calling them directly and checking the return value against {@code null}.
+   * <p>For small header sets this is done by linear search, so if it is followed by {@link #get}
+   * or {@link #getAll}, prefer calling them directly and checking the return value against
+   * {@code null}.
    */
   public boolean containsKey(Key<?> key) {
+    NameIndex idx = index;
+    if (idx != null) {
+      return findSlot(idx, key.asciiName(), key.nameHash) >= 0;
+    }
     for (int i = 0; i < size; i++) {
       if (bytesEqual(key.asciiName(), name(i))) {
         return true;
@@ -243,6 +260,11 @@ public final class Metadata {
    */
   @Nullable
   public <T> T get(Key<T> key) {
+    NameIndex idx = index;
+    if (idx != null) {
+      int slot = findSlot(idx, key.asciiName(), key.nameHash);
+      return slot >= 0 ? valueAsT(idx.last[slot] - 1, key) : null;
+    }
     for (int i = size - 1; i >= 0; i--) {
       if (bytesEqual(key.asciiName(), name(i))) {
         return valueAsT(i, key);
@@ -304,6 +326,11 @@ public final class Metadata {
    */
   @Nullable
   public <T> Iterable<T> getAll(final Key<T> key) {
+    NameIndex idx = index;
+    if (idx != null) {
+      int slot = findSlot(idx, key.asciiName(), key.nameHash);
+      return slot >= 0 ? new IterableAt<>(key, idx.first[slot] - 1) : null;
+    }
     for (int i = 0; i < size; i++) {
       if (bytesEqual(key.asciiName(), name(i))) {
         return new IterableAt<>(key, i);
@@ -347,6 +374,11 @@ public final class Metadata {
       value(size, key.toBytes(value));
     }
     size++;
+    if (index != null) {
+      indexName(index, size - 1, key.nameHash);
+    } else {
+      updateIndex(0);
+    }
   }
 
   private void maybeExpand() {
@@ -375,7 +407,16 @@ public final class Metadata {
   public <T> boolean remove(Key<T> key, T value) {
     Preconditions.checkNotNull(key, "key");
     Preconditions.checkNotNull(value, "value");
-    for (int i = 0; i < size; i++) {
+    int start = 0;
+    NameIndex idx = index;
+    if (idx != null) {
+      int slot = findSlot(idx, key.asciiName(), key.nameHash);
+      if (slot < 0) {
+        return false;
+      }
+      start = idx.first[slot] - 1;
+    }
+    for (int i = start; i < size; i++) {
       if (!bytesEqual(key.asciiName(), name(i))) {
         continue;
       }
@@ -390,6 +431,8 @@ public final class Metadata {
       size -= 1;
       name(size, null);
       value(size, (byte[]) null);
+      index = null;
+      updateIndex(0);
       return true;
     }
     return false;
@@ -397,7 +440,7 @@ public final class Metadata {
 
   /** Remove all values for the given key. If there were no values, {@code null} is returned. */
   public <T> Iterable<T> removeAll(Key<T> key) {
-    if (isEmpty()) {
+    if (isEmpty() || isNotIndexed(key)) {
       return null;
     }
     int writeIdx = 0;
@@ -416,7 +459,12 @@ public final class Metadata {
     int newSize = writeIdx;
     // Multiply by two since namesAndValues is interleaved.
     Arrays.fill(namesAndValues, writeIdx * 2, len(), null);
+    boolean removed = newSize != size;
     size = newSize;
+    if (removed) {
+      index = null;
+      updateIndex(0);
+    }
     return ret;
   }
 
@@ -426,7 +474,7 @@ public final class Metadata {
    */
   @ExperimentalApi("https://github.com/grpc/grpc-java/issues/4691")
   public <T> void discardAll(Key<T> key) {
-    if (isEmpty()) {
+    if (isEmpty() || isNotIndexed(key)) {
       return;
     }
     int writeIdx = 0;
@@ -442,7 +490,12 @@ public final class Metadata {
     int newSize = writeIdx;
     // Multiply by two since namesAndValues is interleaved.
     Arrays.fill(namesAndValues, writeIdx * 2, len(), null);
+    boolean removed = newSize != size;
     size = newSize;
+    if (removed) {
+      index = null;
+      updateIndex(0);
+    }
   }
 
   /**
@@ -510,7 +563,9 @@ public final class Metadata {
       expand(len() + other.len());
     }
     System.arraycopy(other.namesAndValues, 0, namesAndValues, len(), other.len());
+    int oldSize = size;
     size += other.size;
+    updateIndex(oldSize);
   }
 
   /**
@@ -534,6 +589,7 @@ public final class Metadata {
         name(size, other.name(i));
         value(size, other.value(i));
         size++;
+        updateIndex(size - 1);
       }
     }
   }
@@ -561,6 +617,115 @@ public final class Metadata {
     return Arrays.equals(left, right);
   }
 
+  private static int nameHash(byte[] name) {
+    int hash = 0;
+    for (byte b : name) {
+      hash = 31 * hash + b;
+    }
+    return hash;
+  }
+
+  /**
+   * Indexes the headers from position {@code from} on, or builds the whole index if there is none
+   * yet and the header set has grown large enough to need one.
+   */
+  private void updateIndex(int from) {
+    NameIndex idx = index;
+    if (idx == null) {
+      if (size < INDEX_THRESHOLD) {
+        return;
+      }
+      idx = new NameIndex(size);
+      from = 0;
+    }
+    for (int i = from; i < size; i++) {
+      indexName(idx, i, nameHash(name(i)));
+    }
+    index = idx;
+  }
+
+  /** Returns true if the index proves that there are no headers for {@code key}. */
+  private boolean isNotIndexed(Key<?> key) {
+    NameIndex idx = index;
+    return idx != null && findSlot(idx, key.asciiName(), key.nameHash) < 0;
+  }
+
+  /**
+   * Returns the slot holding {@code name}, or the bitwise complement of the empty slot where it
+   * would be inserted.
+   */
+  private int findSlot(NameIndex idx, byte[] name, int hash) {
+    int mask = idx.hashes.length - 1;
+    int slot = (hash ^ (hash >>> 16)) & mask;
+    while (true) {
+      int pos = idx.first[slot];
+      if (pos == 0) {
+        return ~slot;
+      }
+      if (idx.hashes[slot] == hash && bytesEqual(name, name(pos - 1))) {
+        return slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  /** Records the header at position {@code i}, which must be after every indexed position. */
+  private void indexName(NameIndex idx, int i, int hash) {
+    if ((idx.names + 1) * 2 > idx.hashes.length) {
+      idx.grow();
+    }
+    int slot = findSlot(idx, name(i), hash);
+    if (slot < 0) {
+      slot = ~slot;
+      idx.hashes[slot] = hash;
+      idx.first[slot] = i + 1;
+      idx.names++;
+    }
+    idx.last[slot] = i + 1;
+  }
+
+  /**
+   * Open-addressing table from distinct header names to the positions of their first and last
+   * values. Positions are stored plus one, so that zero marks an empty slot.
+   */
+  private static final class NameIndex {
+    int[] hashes;
+    int[] first;
+    int[] last;
+    int names;
+
+    NameIndex(int expectedNames) {
+      allocate(Integer.highestOneBit(expectedNames * 2 - 1) << 1);
+    }
+
+    private void allocate(int tableSize) {
+      hashes = new int[tableSize];
+      first = new int[tableSize];
+      last = new int[tableSize];
+    }
+
+    void grow() {
+      int[] oldHashes = hashes;
+      int[] oldFirst = first;
+      int[] oldLast = last;
+      allocate(oldHashes.length * 2);
+      int mask = hashes.length - 1;
+      for (int i = 0; i < oldHashes.length; i++) {
+        if (oldFirst[i] == 0) {
+          continue;
+        }
+        int hash = oldHashes[i];
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (first[slot] != 0) {
+          slot = (slot + 1) & mask;
+        }
+        hashes[slot] = hash;
+        first[slot] = oldFirst[i];
+        last[slot] = oldLast[i];
+      }
+    }
+  }
+
   /** Marshaller for metadata values that are serialized into raw binary. */
   public interface BinaryMarshaller<T> {
     /**
@@ -713,6 +878,7 @@ public final class Metadata {
 
     private final String name;
     private final byte[] nameBytes;
+    private final int nameHash;
     private final Object marshaller;
 
     private static BitSet generateValidTChars() {
@@ -749,6 +915,7 @@ public final class Metadata {
       this.originalName = checkNotNull(name, "name");
       this.name = validateName(this.originalName.toLowerCase(Locale.ROOT), pseudo);
       this.nameBytes = this.name.getBytes(US_ASCII);
+      this.nameHash = nameHash(nameBytes);
       this.marshaller = marshaller;
     }
 
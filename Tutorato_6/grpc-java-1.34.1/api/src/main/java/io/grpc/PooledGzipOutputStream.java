@@ -0,0 +1,150 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes the same gzip format as {@link java.util.zip.GZIPOutputStream}, but with a {@link
+ * Deflater} taken from a bounded pool and returned to it on {@link #close}. Messages are usually
+ * compressed with a stream each, so this avoids allocating native zlib state per message.
+ */
+final class PooledGzipOutputStream extends DeflaterOutputStream {
+  private static final int GZIP_MAGIC = 0x8b1f;
+  private static final int BUFFER_SIZE = 512;
+  private static final byte[] HEADER = {
+      (byte) GZIP_MAGIC,        // Magic number (short)
+      (byte) (GZIP_MAGIC >> 8), // Magic number (short)
+      Deflater.DEFLATED,        // Compression method (CM)
+      0,                        // Flags (FLG)
+      0,                        // Modification time MTIME (int)
+      0,                        // Modification time MTIME (int)
+      0,                        // Modification time MTIME (int)
+      0,                        // Modification time MTIME (int)
+      0,                        // Extra flags (XFLG)
+      0                         // Operating system (OS)
+  };
+
+  private static final DeflaterPool POOL =
+      new DeflaterPool(Runtime.getRuntime().availableProcessors() * 2);
+
+  private final DeflaterPool pool;
+  private final CRC32 crc = new CRC32();
+  private boolean released;
+
+  PooledGzipOutputStream(OutputStream out) throws IOException {
+    this(out, POOL);
+  }
+
+  PooledGzipOutputStream(OutputStream out, DeflaterPool pool) throws IOException {
+    super(out, pool.acquire(), BUFFER_SIZE);
+    this.pool = pool;
+    try {
+      out.write(HEADER);
+    } catch (IOException | RuntimeException e) {
+      released = true;
+      pool.release(def);
+      throw e;
+    }
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    if (released) {
+      throw new IOException("Stream closed");
+    }
+    super.write(b, off, len);
+    crc.update(b, off, len);
+  }
+
+  @Override
+  public void finish() throws IOException {
+    if (released) {
+      throw new IOException("Stream closed");
+    }
+    if (!def.finished()) {
+      super.finish();
+      writeInt((int) crc.getValue());
+      writeInt(def.getTotalIn());
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (released) {
+      return;
+    }
+    try {
+      super.close();
+    } finally {
+      released = true;
+      pool.release(def);
+    }
+  }
+
+  /** Writes an int in little-endian order, like the gzip trailer requires. */
+  private void writeInt(int i) throws IOException {
+    out.write(i & 0xff);
+    out.write((i >> 8) & 0xff);
+    out.write((i >> 16) & 0xff);
+    out.write((i >> 24) & 0xff);
+  }
+
+  /**
+   * A bounded pool of raw (nowrap) deflaters. Deflaters released when the pool is full are ended
+   * right away.
+   */
+  static final class DeflaterPool {
+    private final Queue<Deflater> deflaters = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final int maxSize;
+
+    DeflaterPool(int maxSize) {
+      this.maxSize = maxSize;
+    }
+
+    Deflater acquire() {
+      Deflater deflater = deflaters.poll();
+      if (deflater == null) {
+        return new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+      }
+      size.decrementAndGet();
+      return deflater;
+    }
+
+    void release(Deflater deflater) {
+      if (size.incrementAndGet() > maxSize) {
+        size.decrementAndGet();
+        deflater.end();
+        return;
+      }
+      deflater.reset();
+      deflaters.offer(deflater);
+    }
+
+    int size() {
+      return size.get();
+    }
+  }
+}
@@ -71,6 +71,23 @@ public abstract class ServerBuilder<T extends ServerBuilder<T>> {
    */
   public abstract T executor(@Nullable Executor executor);
 
+  /**
+   * Runs application code on a new virtual thread for each unit of work instead of on a shared
+   * pool of platform threads, so that blocking service handlers do not exhaust the executor.
+   * Requires a JVM with virtual threads (Java 21 or later); on older JVMs the default executor is
+   * used.
+   *
+   * <p>Like {@link #executor}, the last of this, {@link #executor} and {@link #directExecutor}
+   * to be called wins.
+   *
+   * @return this
+   * @since 1.35.0
+   */
+  @ExperimentalApi("There is no plan to make this API stable until virtual threads are common")
+  public T virtualThreadExecutor() {
+    throw new UnsupportedOperationException();
+  }
+
   /**
    * Adds a service implementation to the handler registry.
    *
@@ -259,6 +276,49 @@ public abstract class ServerBuilder<T extends ServerBuilder<T>> {
     throw new UnsupportedOperationException();
   }
 
+  /**
+   * Serializes the callbacks of each call with a lock-free queue that gives up the executor thread
+   * after running {@code maxCallbacks} callbacks of the same call in a row, letting other calls
+   * sharing the executor make progress. By default each call's callbacks are drained until none
+   * are left.
+   *
+   * <p>Has no effect when {@link #directExecutor()} is used.
+   *
+   * @param maxCallbacks the maximum number of callbacks a call runs before yielding the thread.
+   *     {@link Integer#MAX_VALUE} uses the lock-free queue without yielding.
+   * @return this
+   * @throws IllegalArgumentException if {@code maxCallbacks} is not positive
+   * @since 1.35.0
+   */
+  @ExperimentalApi("There is no plan to make this API stable, given executor tuning is advisory")
+  public T callbackBatchSize(int maxCallbacks) {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Runs calls waiting for the server's executor earliest deadline first, instead of in arrival
+   * order, so calls close to their deadline are not stuck behind ones that have time to spare.
+   * Calls whose deadline expires while queued fail with {@code DEADLINE_EXCEEDED} before any
+   * interceptor or handler runs. The time each call waits is reported to {@link
+   * ServerStreamTracer#executorQueueDelay}.
+   *
+   * <p>To keep calls without a deadline, or with a distant one, from starving, a call is never
+   * overtaken by calls that arrived more than {@code maxQueueDelay} after it, and calls without a
+   * deadline are ordered as if their deadline was {@code maxQueueDelay} after they arrived.
+   *
+   * <p>Has no effect when {@link #directExecutor()} is used.
+   *
+   * @param maxQueueDelay the longest a call may be overtaken by later calls
+   * @param unit the time unit of {@code maxQueueDelay}
+   * @return this
+   * @throws IllegalArgumentException if {@code maxQueueDelay} is not positive
+   * @since 1.35.0
+   */
+  @ExperimentalApi("There is no plan to make this API stable, given executor tuning is advisory")
+  public T prioritizeCallsByDeadline(long maxQueueDelay, TimeUnit unit) {
+    throw new UnsupportedOperationException();
+  }
+
   /**
    * Builds a server using the given parameters.
    *
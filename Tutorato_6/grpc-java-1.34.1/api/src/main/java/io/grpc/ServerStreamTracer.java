@@ -55,6 +55,17 @@ public abstract class ServerStreamTracer extends StreamTracer {
   public void serverCallStarted(ServerCall<?, ?> call) {
   }
 
+  /**
+   * Called each time callbacks of the call start running on the server's executor, with how long
+   * they waited for it. Only reported by servers that prioritize calls by deadline, see {@link
+   * ServerBuilder#prioritizeCallsByDeadline}.
+   *
+   * @param delayNanos the time the callbacks were queued, in nanoseconds
+   * @since 1.35.0
+   */
+  public void executorQueueDelay(long delayNanos) {
+  }
+
   public abstract static class Factory {
     /**
      * Creates a {@link ServerStreamTracer} for a new server stream.
@@ -41,7 +41,7 @@ public class LoadBalancerRegistryTest {
   @Test
   public void stockProviders() {
     LoadBalancerRegistry defaultRegistry = LoadBalancerRegistry.getDefaultRegistry();
-    assertThat(defaultRegistry.providers()).hasSize(3);
+    assertThat(defaultRegistry.providers()).hasSize(4);
 
     LoadBalancerProvider pickFirst = defaultRegistry.getProvider("pick_first");
     assertThat(pickFirst).isInstanceOf(PickFirstLoadBalancerProvider.class);
@@ -52,6 +52,11 @@ public class LoadBalancerRegistryTest {
         "io.grpc.util.SecretRoundRobinLoadBalancerProvider$Provider");
     assertThat(roundRobin.getPriority()).isEqualTo(5);
 
+    LoadBalancerProvider leastRequest = defaultRegistry.getProvider("least_request_experimental");
+    assertThat(leastRequest.getClass().getName()).isEqualTo(
+        "io.grpc.util.SecretLeastRequestLoadBalancerProvider$Provider");
+    assertThat(leastRequest.getPriority()).isEqualTo(5);
+
     LoadBalancerProvider grpclb = defaultRegistry.getProvider("grpclb");
     assertThat(grpclb).isInstanceOf(GrpclbLoadBalancerProvider.class);
     assertThat(grpclb.getPriority()).isEqualTo(5);
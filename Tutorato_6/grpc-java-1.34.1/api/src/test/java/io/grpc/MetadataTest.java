@@ -35,6 +35,7 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.Locale;
 import org.junit.Rule;
@@ -479,6 +480,112 @@ public class MetadataTest {
     assertSame(anotherSalmon, h2.get(KEY_IMMUTABLE));
   }
 
+  @Test
+  public void largeHeaderSet_lookups() {
+    Metadata h = new Metadata();
+    for (int i = 0; i < 40; i++) {
+      h.put(stringKey(i), "v" + i);
+    }
+    h.put(stringKey(3), "v3-again");
+
+    assertEquals("v0", h.get(stringKey(0)));
+    assertEquals("v3-again", h.get(stringKey(3)));
+    assertEquals(Arrays.asList("v3", "v3-again"), Lists.newArrayList(h.getAll(stringKey(3))));
+    assertTrue(h.containsKey(stringKey(39)));
+    assertFalse(h.containsKey(stringKey(40)));
+    assertNull(h.get(stringKey(40)));
+    assertNull(h.getAll(stringKey(40)));
+
+    // Appends after the index is built must be visible.
+    h.put(stringKey(40), "v40");
+    h.put(stringKey(0), "v0-again");
+    assertEquals("v40", h.get(stringKey(40)));
+    assertEquals("v0-again", h.get(stringKey(0)));
+  }
+
+  @Test
+  public void largeHeaderSet_removals() {
+    Metadata h = new Metadata();
+    for (int i = 0; i < 40; i++) {
+      h.put(stringKey(i), "v" + i);
+    }
+    assertEquals("v5", h.get(stringKey(5)));
+
+    assertEquals(Arrays.asList("v5"), Lists.newArrayList(h.removeAll(stringKey(5))));
+    assertNull(h.get(stringKey(5)));
+    assertNull(h.removeAll(stringKey(5)));
+    assertEquals("v6", h.get(stringKey(6)));
+
+    assertTrue(h.remove(stringKey(6), "v6"));
+    assertFalse(h.remove(stringKey(6), "v6"));
+    assertEquals("v7", h.get(stringKey(7)));
+
+    h.discardAll(stringKey(7));
+    assertFalse(h.containsKey(stringKey(7)));
+    assertEquals("v39", h.get(stringKey(39)));
+    assertEquals(37, h.headerCount());
+
+    // Shrinking below the threshold falls back to scanning.
+    for (int i = 8; i < 39; i++) {
+      h.discardAll(stringKey(i));
+    }
+    assertEquals("v0", h.get(stringKey(0)));
+    assertEquals("v39", h.get(stringKey(39)));
+  }
+
+  @Test
+  public void largeHeaderSet_merge() {
+    Metadata h = new Metadata();
+    for (int i = 0; i < 20; i++) {
+      h.put(stringKey(i), "v" + i);
+    }
+    assertNull(h.get(stringKey(20)));
+
+    Metadata other = new Metadata();
+    other.put(stringKey(20), "v20");
+    other.put(stringKey(1), "v1-other");
+    h.merge(other);
+    assertEquals("v20", h.get(stringKey(20)));
+    assertEquals("v1-other", h.get(stringKey(1)));
+
+    Metadata more = new Metadata();
+    more.put(stringKey(21), "v21");
+    h.merge(more, Collections.<Metadata.Key<?>>singleton(stringKey(21)));
+    assertEquals("v21", h.get(stringKey(21)));
+  }
+
+  @Test
+  public void largeHeaderSet_mergeAcrossThreshold() {
+    Metadata h = new Metadata();
+    Metadata other = new Metadata();
+    for (int i = 0; i < 10; i++) {
+      h.put(stringKey(i), "v" + i);
+      other.put(stringKey(i + 10), "v" + (i + 10));
+    }
+    h.merge(other);
+    assertEquals("v0", h.get(stringKey(0)));
+    assertEquals("v19", h.get(stringKey(19)));
+    assertNull(h.get(stringKey(20)));
+  }
+
+  @Test
+  public void largeHeaderSet_fromTransport() {
+    byte[][] serialized = new byte[60][];
+    for (int i = 0; i < 30; i++) {
+      serialized[i * 2] = stringKey(i).asciiName();
+      serialized[i * 2 + 1] = ("v" + i).getBytes(US_ASCII);
+    }
+    Metadata h = new Metadata(serialized);
+    for (int i = 0; i < 30; i++) {
+      assertEquals("v" + i, h.get(stringKey(i)));
+    }
+    assertNull(h.get(stringKey(30)));
+  }
+
+  private static Metadata.Key<String> stringKey(int i) {
+    return Metadata.Key.of("header-" + i, Metadata.ASCII_STRING_MARSHALLER);
+  }
+
   private static final class Fish {
     private String name;
 
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import com.google.common.io.ByteStreams;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link PooledGzipOutputStream}. */
+@RunWith(JUnit4.class)
+public class PooledGzipOutputStreamTest {
+  private final PooledGzipOutputStream.DeflaterPool pool =
+      new PooledGzipOutputStream.DeflaterPool(1);
+
+  @Test
+  public void matchesGzipOutputStream() throws Exception {
+    byte[] data = newData(100000);
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    OutputStream gzip = new GZIPOutputStream(expected);
+    gzip.write(data);
+    gzip.close();
+
+    byte[] actual = compress(data);
+    // The OS header byte differs between JDK versions.
+    actual[9] = expected.toByteArray()[9];
+    assertArrayEquals(expected.toByteArray(), actual);
+  }
+
+  @Test
+  public void reusesDeflaterAfterClose() throws Exception {
+    byte[] first = newData(5000);
+    byte[] second = newData(10);
+
+    assertArrayEquals(first, decompress(compress(first)));
+    assertEquals(1, pool.size());
+    assertArrayEquals(second, decompress(compress(second)));
+    assertEquals(1, pool.size());
+    assertArrayEquals(new byte[0], decompress(compress(new byte[0])));
+  }
+
+  @Test
+  public void poolIsBounded() throws Exception {
+    OutputStream first = new PooledGzipOutputStream(new ByteArrayOutputStream(), pool);
+    OutputStream second = new PooledGzipOutputStream(new ByteArrayOutputStream(), pool);
+    first.close();
+    second.close();
+    assertEquals(1, pool.size());
+  }
+
+  @Test
+  public void writeAfterCloseFails() throws Exception {
+    OutputStream out = new PooledGzipOutputStream(new ByteArrayOutputStream(), pool);
+    out.close();
+    out.close();
+    try {
+      out.write(1);
+      fail("Should have thrown");
+    } catch (IOException expected) {
+      // expected
+    }
+  }
+
+  private byte[] compress(byte[] data) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    OutputStream out = new PooledGzipOutputStream(bytes, pool);
+    out.write(data);
+    out.close();
+    return bytes.toByteArray();
+  }
+
+  private static byte[] decompress(byte[] gzipped) throws IOException {
+    return ByteStreams.toByteArray(new GZIPInputStream(new ByteArrayInputStream(gzipped)));
+  }
+
+  /** Returns compressible data: random bytes from a small alphabet. */
+  private static byte[] newData(int length) {
+    byte[] data = new byte[length];
+    Random random = new Random(length);
+    for (int i = 0; i < length; i++) {
+      data[i] = (byte) ('a' + random.nextInt(8));
+    }
+    return data;
+  }
+}
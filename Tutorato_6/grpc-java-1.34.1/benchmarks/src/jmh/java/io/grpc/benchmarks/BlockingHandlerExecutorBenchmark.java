@@ -0,0 +1,148 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.benchmarks;
+
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.grpc.benchmarks.proto.BenchmarkServiceGrpc;
+import io.grpc.benchmarks.proto.Messages.SimpleRequest;
+import io.grpc.benchmarks.proto.Messages.SimpleResponse;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Compares server executors when service handlers block: the default shared cached pool, which
+ * grows a platform thread per concurrently blocked call, against a virtual thread per task.
+ *
+ * <p>The virtual thread variant falls back to the default executor on JVMs older than Java 21,
+ * in which case both variants measure the same thing.
+ */
+@State(Scope.Benchmark)
+public class BlockingHandlerExecutorBenchmark {
+  public enum ServerExecutor {
+    DEFAULT, VIRTUAL_THREADS
+  }
+
+  @Param
+  public ServerExecutor serverExecutor;
+
+  /** Calls issued together; each blocks its handler for {@link #blockMillis}. */
+  @Param({"100", "10000"})
+  public int concurrentCalls;
+
+  @Param({"1"})
+  public int blockMillis;
+
+  private Server server;
+  private ManagedChannel channel;
+  private BenchmarkServiceGrpc.BenchmarkServiceStub asyncStub;
+
+  @Setup
+  public void setUp() throws Exception {
+    String name = "bench" + Math.random();
+    ServerBuilder<?> serverBuilder = InProcessServerBuilder.forName(name);
+    if (serverExecutor == ServerExecutor.VIRTUAL_THREADS) {
+      serverBuilder.virtualThreadExecutor();
+    }
+    server = serverBuilder
+        .addService(new BlockingService(blockMillis))
+        .build()
+        .start();
+    channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+    asyncStub = BenchmarkServiceGrpc.newStub(channel);
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    channel.shutdownNow();
+    server.shutdownNow();
+    if (!channel.awaitTermination(5, TimeUnit.SECONDS)) {
+      throw new Exception("failed to shut down channel");
+    }
+    if (!server.awaitTermination(5, TimeUnit.SECONDS)) {
+      throw new Exception("failed to shut down server");
+    }
+  }
+
+  /**
+   * Starts {@link #concurrentCalls} unary calls and waits for all of them to finish.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public void concurrentBlockingCalls() throws Exception {
+    final CountDownLatch latch = new CountDownLatch(concurrentCalls);
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+    StreamObserver<SimpleResponse> observer = new StreamObserver<SimpleResponse>() {
+      @Override
+      public void onNext(SimpleResponse value) {}
+
+      @Override
+      public void onError(Throwable t) {
+        failure.compareAndSet(null, t);
+        latch.countDown();
+      }
+
+      @Override
+      public void onCompleted() {
+        latch.countDown();
+      }
+    };
+    for (int i = 0; i < concurrentCalls; i++) {
+      asyncStub.unaryCall(SimpleRequest.getDefaultInstance(), observer);
+    }
+    latch.await();
+    if (failure.get() != null) {
+      throw new AssertionError(failure.get());
+    }
+  }
+
+  private static final class BlockingService
+      extends BenchmarkServiceGrpc.BenchmarkServiceImplBase {
+    private final long blockMillis;
+
+    BlockingService(long blockMillis) {
+      this.blockMillis = blockMillis;
+    }
+
+    @Override
+    public void unaryCall(
+        SimpleRequest request, StreamObserver<SimpleResponse> responseObserver) {
+      try {
+        Thread.sleep(blockMillis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      responseObserver.onNext(SimpleResponse.getDefaultInstance());
+      responseObserver.onCompleted();
+    }
+  }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.benchmarks;
+
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.benchmarks.proto.BenchmarkServiceGrpc;
+import io.grpc.benchmarks.proto.Messages.SimpleRequest;
+import io.grpc.benchmarks.proto.Messages.SimpleResponse;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import io.grpc.util.AdaptiveConcurrencyLimitInterceptor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Load test of a server whose handlers share a small worker pool, with more concurrent callers
+ * than the pool can serve. Without a limit, calls queue for the workers and latency grows with the
+ * number of callers. With {@link AdaptiveConcurrencyLimitInterceptor}, calls beyond what the
+ * workers keep up with fail fast with {@code RESOURCE_EXHAUSTED}, and the latency of served calls
+ * stays close to the service time.
+ *
+ * <p>Callers back off for the service time after a rejection. The sampled latencies include
+ * rejected calls and their back off; the {@code servedCalls} and {@code rejectedCalls} counters
+ * show how many of each there were.
+ */
+@State(Scope.Benchmark)
+public class ConcurrencyLimitOverloadBenchmark {
+  public enum Limiter {
+    NONE, ADAPTIVE
+  }
+
+  @Param
+  public Limiter limiter;
+
+  @Param({"4"})
+  public int workerThreads;
+
+  @Param({"1"})
+  public int serviceMillis;
+
+  private ExecutorService workers;
+  private Server server;
+  private ManagedChannel channel;
+  private BenchmarkServiceGrpc.BenchmarkServiceBlockingStub blockingStub;
+
+  /** Counts served and rejected calls of each benchmark thread. */
+  @AuxCounters
+  @State(Scope.Thread)
+  public static class CallCounters {
+    public long servedCalls;
+    public long rejectedCalls;
+
+    @Setup(Level.Iteration)
+    public void clean() {
+      servedCalls = 0;
+      rejectedCalls = 0;
+    }
+  }
+
+  /**
+   * Starts an in-process server whose calls are handled on a pool of {@link #workerThreads}.
+   */
+  @Setup
+  public void setUp() throws Exception {
+    workers = Executors.newFixedThreadPool(workerThreads);
+    ServerServiceDefinition service = new WorkerPoolService(workers, serviceMillis).bindService();
+    if (limiter == Limiter.ADAPTIVE) {
+      service = ServerInterceptors.intercept(
+          service, AdaptiveConcurrencyLimitInterceptor.newBuilder().build());
+    }
+    String name = "bench" + Math.random();
+    server = InProcessServerBuilder.forName(name)
+        .directExecutor()
+        .addService(service)
+        .build()
+        .start();
+    channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+    blockingStub = BenchmarkServiceGrpc.newBlockingStub(channel);
+  }
+
+  /**
+   * Shuts down the channel, the server and the worker pool.
+   */
+  @TearDown
+  public void tearDown() throws Exception {
+    channel.shutdownNow();
+    server.shutdownNow();
+    workers.shutdownNow();
+    if (!channel.awaitTermination(5, TimeUnit.SECONDS)) {
+      throw new Exception("failed to shut down channel");
+    }
+    if (!server.awaitTermination(5, TimeUnit.SECONDS)) {
+      throw new Exception("failed to shut down server");
+    }
+  }
+
+  /**
+   * Issues one unary call from each of 64 threads, 16 times the concurrency the workers serve.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Threads(64)
+  public void unaryCallUnderOverload(CallCounters counters) throws InterruptedException {
+    try {
+      blockingStub.unaryCall(SimpleRequest.getDefaultInstance());
+      counters.servedCalls++;
+    } catch (StatusRuntimeException e) {
+      if (e.getStatus().getCode() != Status.Code.RESOURCE_EXHAUSTED) {
+        throw e;
+      }
+      counters.rejectedCalls++;
+      // Back off like a client would before retrying, instead of spinning on rejections.
+      Thread.sleep(serviceMillis);
+    }
+  }
+
+  private static final class WorkerPoolService
+      extends BenchmarkServiceGrpc.BenchmarkServiceImplBase {
+    private final ExecutorService workers;
+    private final long serviceMillis;
+
+    WorkerPoolService(ExecutorService workers, long serviceMillis) {
+      this.workers = workers;
+      this.serviceMillis = serviceMillis;
+    }
+
+    @Override
+    public void unaryCall(
+        SimpleRequest request, final StreamObserver<SimpleResponse> responseObserver) {
+      workers.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            Thread.sleep(serviceMillis);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          responseObserver.onNext(SimpleResponse.getDefaultInstance());
+          responseObserver.onCompleted();
+        }
+      });
+    }
+  }
+}
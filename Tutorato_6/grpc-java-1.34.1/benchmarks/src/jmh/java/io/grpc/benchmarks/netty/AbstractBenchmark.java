@@ -38,6 +38,9 @@ import io.grpc.stub.ClientCalls;
 import io.grpc.stub.StreamObserver;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
 import io.netty.channel.local.LocalAddress;
 import io.netty.channel.local.LocalChannel;
 import io.netty.channel.local.LocalServerChannel;
@@ -111,10 +114,53 @@ public abstract class AbstractBenchmark {
   }
 
   /**
-   * Support channel types.
+   * Support channel types. The native transports are loaded reflectively, since they are only
+   * available on Linux and io_uring additionally needs the
+   * {@code io.netty.incubator:netty-incubator-transport-native-io_uring} artifact at runtime.
    */
   public enum ChannelType {
-    NIO, LOCAL;
+    NIO(null),
+    LOCAL(null),
+    EPOLL("io.netty.channel.epoll.Epoll"),
+    IO_URING("io.netty.incubator.channel.uring.IOUring");
+
+    /** Prefix of the native transport class names, or {@code null} for Java transports. */
+    private final String nativeClassPrefix;
+
+    ChannelType(String nativeClassPrefix) {
+      this.nativeClassPrefix = nativeClassPrefix;
+    }
+
+    private Class<?> nativeClass(String suffix) throws ClassNotFoundException {
+      return Class.forName(nativeClassPrefix + suffix);
+    }
+
+    EventLoopGroup newEventLoopGroup(int threads, ThreadFactory threadFactory)
+        throws Exception {
+      if (nativeClassPrefix == null) {
+        return new NioEventLoopGroup(threads, threadFactory);
+      }
+      return (EventLoopGroup) nativeClass("EventLoopGroup")
+          .getConstructor(Integer.TYPE, ThreadFactory.class)
+          .newInstance(threads, threadFactory);
+    }
+
+    void checkAvailable() throws Exception {
+      if (nativeClassPrefix == null) {
+        return;
+      }
+      Class<?> availability;
+      try {
+        availability = nativeClass("");
+      } catch (ClassNotFoundException e) {
+        throw new IllegalStateException(this + " transport is not on the classpath", e);
+      }
+      if (!(Boolean) availability.getMethod("isAvailable").invoke(null)) {
+        throw new IllegalStateException(
+            this + " transport is not available",
+            (Throwable) availability.getMethod("unavailabilityCause").invoke(null));
+      }
+    }
   }
 
   private static final CallOptions CALL_OPTIONS = CallOptions.DEFAULT;
@@ -212,9 +258,18 @@ public abstract class AbstractBenchmark {
       sock.bind(new InetSocketAddress(BENCHMARK_ADDR, 0));
       SocketAddress address = sock.getLocalSocketAddress();
       sock.close();
-      serverBuilder = NettyServerBuilder.forAddress(address, serverCreds)
-          .channelType(NioServerSocketChannel.class);
-      channelBuilder = NettyChannelBuilder.forAddress(address).channelType(NioSocketChannel.class);
+      serverBuilder = NettyServerBuilder.forAddress(address, serverCreds);
+      channelBuilder = NettyChannelBuilder.forAddress(address);
+      if (channelType == ChannelType.NIO) {
+        serverBuilder.channelType(NioServerSocketChannel.class);
+        channelBuilder.channelType(NioSocketChannel.class);
+      } else {
+        channelType.checkAvailable();
+        serverBuilder.channelType(
+            channelType.nativeClass("ServerSocketChannel").asSubclass(ServerChannel.class));
+        channelBuilder.channelType(
+            channelType.nativeClass("SocketChannel").asSubclass(Channel.class));
+      }
     }
 
     if (serverExecutor == ExecutorType.DIRECT) {
@@ -226,8 +281,8 @@ public abstract class AbstractBenchmark {
 
     // Always use a different worker group from the client.
     ThreadFactory serverThreadFactory = new DefaultThreadFactory("STF pool", true /* daemon */);
-    serverBuilder.workerEventLoopGroup(new NioEventLoopGroup(0, serverThreadFactory));
-    serverBuilder.bossEventLoopGroup(new NioEventLoopGroup(1, serverThreadFactory));
+    serverBuilder.workerEventLoopGroup(channelType.newEventLoopGroup(0, serverThreadFactory));
+    serverBuilder.bossEventLoopGroup(channelType.newEventLoopGroup(1, serverThreadFactory));
 
     // Always set connection and stream window size to same value
     serverBuilder.flowControlWindow(windowSize.bytes());
@@ -386,7 +441,7 @@ public abstract class AbstractBenchmark {
     for (int i = 0; i < channelCount; i++) {
       // Use a dedicated event-loop for each channel
       channels[i] = channelBuilder
-          .eventLoopGroup(new NioEventLoopGroup(1, clientThreadFactory))
+          .eventLoopGroup(channelType.newEventLoopGroup(1, clientThreadFactory))
           .build();
     }
   }
@@ -47,6 +47,11 @@ public class StreamingPingPongsPerSecondBenchmark extends AbstractBenchmark {
   @Param({"1", "10", "100", "1000"})
   public int maxConcurrentStreams = 1;
 
+  // IO_URING is left out by default since its artifact is not a dependency. Add it to the
+  // runtime classpath and run with -p channelType=IO_URING to measure it.
+  @Param({"NIO", "EPOLL"})
+  public ChannelType channelType = ChannelType.NIO;
+
   private static AtomicLong callCounter;
   private AtomicBoolean completed;
   private AtomicBoolean record;
@@ -80,7 +85,7 @@ public class StreamingPingPongsPerSecondBenchmark extends AbstractBenchmark {
         MessageSize.SMALL,
         MessageSize.SMALL,
         FlowWindowSize.MEDIUM,
-        ChannelType.NIO,
+        channelType,
         maxConcurrentStreams,
         channelCount);
     callCounter = new AtomicLong();
@@ -41,6 +41,11 @@ public class UnaryCallQpsBenchmark extends AbstractBenchmark {
   @Param({"10", "100", "1000"})
   public int maxConcurrentStreams = 100;
 
+  // IO_URING is left out by default since its artifact is not a dependency. Add it to the
+  // runtime classpath and run with -p channelType=IO_URING to measure it.
+  @Param({"NIO", "EPOLL"})
+  public ChannelType channelType = ChannelType.NIO;
+
   private static AtomicLong callCounter;
   private AtomicBoolean completed;
 
@@ -72,7 +77,7 @@ public class UnaryCallQpsBenchmark extends AbstractBenchmark {
         MessageSize.SMALL,
         MessageSize.SMALL,
         FlowWindowSize.LARGE,
-        ChannelType.NIO,
+        channelType,
         maxConcurrentStreams,
         channelCount);
     callCounter = new AtomicLong();
@@ -18,6 +18,7 @@ package io.grpc.internal;
 
 import com.google.common.util.concurrent.ListenableFuture;
 import io.grpc.InternalChannelz;
+import io.grpc.InternalChannelz.ServerSocketsList;
 import io.grpc.InternalChannelz.ServerStats;
 import io.grpc.InternalChannelz.SocketStats;
 import io.grpc.InternalInstrumented;
@@ -37,6 +38,8 @@ import org.openjdk.jmh.annotations.State;
  */
 @State(Scope.Benchmark)
 public class ChannelzBenchmark {
+  private static final int PAGE_SIZE = 100;
+
   // Number of items already present
   @Param({"10", "100", "1000", "10000"})
   public int preexisting;
@@ -51,6 +54,9 @@ public class ChannelzBenchmark {
   public InternalInstrumented<SocketStats> serverSocketToAdd;
   public InternalInstrumented<SocketStats> serverSocketToRemove;
 
+  public long serverId;
+  public long middleSocketId;
+
   /**
    * Javadoc.
    */
@@ -74,6 +80,7 @@ public class ChannelzBenchmark {
   }
 
   private void populate(int count) {
+    serverId = serverForServerSocket.getLogId().getId();
     for (int i = 0; i < count; i++) {
       // for addNavigable / removeNavigable
       InternalInstrumented<ServerStats> srv = create();
@@ -83,8 +90,11 @@ public class ChannelzBenchmark {
       InternalInstrumented<SocketStats> sock = create();
       channelz.addClientSocket(sock);
 
-      // for addServerSocket / removeServerSocket
+      // for addServerSocket / removeServerSocket, and paging
       channelz.addServerSocket(serverForServerSocket, sock);
+      if (i == count / 2) {
+        middleSocketId = sock.getLogId().getId();
+      }
     }
   }
 
@@ -130,6 +140,37 @@ public class ChannelzBenchmark {
     channelz.removeServerSocket(serverForServerSocket, serverSocketToRemove);
   }
 
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public ServerSocketsList getServerSocketsFirstPage() {
+    return channelz.getServerSockets(serverId, 0, PAGE_SIZE);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public ServerSocketsList getServerSocketsMiddlePage() {
+    return channelz.getServerSockets(serverId, middleSocketId, PAGE_SIZE);
+  }
+
+  /** Walks all the pages, like a scraper listing every socket of a server does. */
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public int getServerSocketsAllPages() {
+    int count = 0;
+    long fromId = 0;
+    while (true) {
+      ServerSocketsList page = channelz.getServerSockets(serverId, fromId, PAGE_SIZE);
+      count += page.sockets.size();
+      if (page.end) {
+        return count;
+      }
+      fromId = page.sockets.get(page.sockets.size() - 1).getLogId().getId() + 1;
+    }
+  }
+
   private static <T> InternalInstrumented<T> create() {
     return new InternalInstrumented<T>() {
       final InternalLogId id = InternalLogId.allocate(getClass(), "fake-tag");
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.internal;
+
+import io.grpc.Codec;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmark for gzip compression of messages and inflation of gzip streams, with and without
+ * pooled zlib state.
+ *
+ * <p>Run with {@code -prof gc} to see the allocation rate per message.
+ */
+@State(Scope.Thread)
+public class GzipBenchmark {
+
+  @Param({"1024", "65536"})
+  public int messageSize;
+
+  private final Codec gzip = new Codec.Gzip();
+  private final InflaterPool unpooled = new InflaterPool(0);
+  private final ByteArrayOutputStream sink = new ByteArrayOutputStream();
+  private byte[] message;
+  private byte[] gzippedMessage;
+  private byte[] inflated;
+
+  /**
+   * Setup.
+   */
+  @Setup
+  public void setUp() throws IOException {
+    // Random bytes from a small alphabet compress about as well as typical messages.
+    message = new byte[messageSize];
+    Random random = new Random(1);
+    for (int i = 0; i < message.length; i++) {
+      message[i] = (byte) ('a' + random.nextInt(16));
+    }
+    gzippedMessage = compressGzipOutputStream().toByteArray();
+    inflated = new byte[messageSize];
+  }
+
+  /**
+   * Compress a message with a new {@link GZIPOutputStream}, which allocates a deflater each time.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  public ByteArrayOutputStream compressGzipOutputStream() throws IOException {
+    sink.reset();
+    OutputStream out = new GZIPOutputStream(sink);
+    out.write(message);
+    out.close();
+    return sink;
+  }
+
+  /**
+   * Compress a message with {@link Codec.Gzip}, which reuses pooled deflaters.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  public ByteArrayOutputStream compressCodecGzip() throws IOException {
+    sink.reset();
+    OutputStream out = gzip.compress(sink);
+    out.write(message);
+    out.close();
+    return sink;
+  }
+
+  /**
+   * Inflate a single-message gzip stream with an inflater from the shared pool.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  public int inflateStreamPooled() throws DataFormatException, IOException {
+    return inflateStream(InflaterPool.getDefault());
+  }
+
+  /**
+   * Inflate a single-message gzip stream with a new inflater, like streams did before pooling.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  public int inflateStreamUnpooled() throws DataFormatException, IOException {
+    return inflateStream(unpooled);
+  }
+
+  private int inflateStream(InflaterPool pool) throws DataFormatException, IOException {
+    GzipInflatingBuffer buffer = new GzipInflatingBuffer(pool, 0);
+    try {
+      buffer.addGzippedBytes(ReadableBuffers.wrap(gzippedMessage));
+      return buffer.inflateBytes(inflated, 0, inflated.length);
+    } finally {
+      buffer.close();
+    }
+  }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.internal;
+
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCall.Listener;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.testing.TestMethodDescriptors;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmark for {@link InternalHandlerRegistry}, the registry of services added to the server
+ * builder. Companion of {@code io.grpc.util.HandlerRegistryBenchmark}, which covers the mutable
+ * fallback registry with the same parameters.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+public class InternalHandlerRegistryBenchmark {
+
+  private static final String VALID_CHARACTERS =
+          "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789.";
+
+  @Param({"50"})
+  public int nameLength;
+
+  @Param({"100"})
+  public int serviceCount;
+
+  @Param({"100"})
+  public int methodCountPerService;
+
+  private InternalHandlerRegistry registry;
+  private List<String> fullMethodNames;
+  // The :path of each method as it arrives from the transport: leading slash, not a String.
+  private List<CharSequence> paths;
+
+  /**
+   * Set up the registry.
+   */
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    InternalHandlerRegistry.Builder builder = new InternalHandlerRegistry.Builder();
+    fullMethodNames = new ArrayList<>(serviceCount * methodCountPerService);
+    paths = new ArrayList<>(serviceCount * methodCountPerService);
+    for (int serviceIndex = 0; serviceIndex < serviceCount; ++serviceIndex) {
+      String serviceName = randomString();
+      ServerServiceDefinition.Builder serviceBuilder = ServerServiceDefinition.builder(serviceName);
+      for (int methodIndex = 0; methodIndex < methodCountPerService; ++methodIndex) {
+        String methodName = randomString();
+
+        MethodDescriptor<Void, Void> methodDescriptor = MethodDescriptor.<Void, Void>newBuilder()
+            .setType(MethodDescriptor.MethodType.UNKNOWN)
+            .setFullMethodName(MethodDescriptor.generateFullMethodName(serviceName, methodName))
+            .setRequestMarshaller(TestMethodDescriptors.voidMarshaller())
+            .setResponseMarshaller(TestMethodDescriptors.voidMarshaller())
+            .build();
+        serviceBuilder.addMethod(methodDescriptor,
+            new ServerCallHandler<Void, Void>() {
+              @Override
+              public Listener<Void> startCall(ServerCall<Void, Void> call,
+                  Metadata headers) {
+                return null;
+              }
+            });
+        fullMethodNames.add(methodDescriptor.getFullMethodName());
+        paths.add(new AsciiPath(
+            ("/" + methodDescriptor.getFullMethodName()).getBytes(Charset.forName("US-ASCII"))));
+      }
+      builder.addService(serviceBuilder.build());
+    }
+    registry = builder.build();
+  }
+
+  /**
+   * Dispatch as done before the lookup table: build the method name String from the path, then
+   * look it up.
+   */
+  @Benchmark
+  public void lookupMethodFromPathString(Blackhole bh) {
+    for (CharSequence path : paths) {
+      String methodName = path.subSequence(1, path.length()).toString();
+      bh.consume(registry.lookupMethod(methodName));
+    }
+  }
+
+  /**
+   * Dispatch through the lookup table, which returns the canonical method name String.
+   */
+  @Benchmark
+  public void lookupMethodFromPathTable(Blackhole bh) {
+    for (CharSequence path : paths) {
+      String methodName = registry.lookupMethodName(path, 1);
+      bh.consume(registry.lookupMethod(methodName));
+    }
+  }
+
+  /**
+   * Lookup with a String already in hand.
+   */
+  @Benchmark
+  public void lookupMethod(Blackhole bh) {
+    for (String fullMethodName : fullMethodNames) {
+      bh.consume(registry.lookupMethod(fullMethodName));
+    }
+  }
+
+  private String randomString() {
+    Random r = new Random();
+    char[] bytes = new char[nameLength];
+    for (int ix = 0; ix < nameLength; ++ix) {
+      int charIx = r.nextInt(VALID_CHARACTERS.length());
+      bytes[ix] = VALID_CHARACTERS.charAt(charIx);
+    }
+    return new String(bytes);
+  }
+
+  /** Byte-backed path, like Netty's {@code AsciiString}, which core cannot depend on. */
+  private static final class AsciiPath implements CharSequence {
+    private final byte[] bytes;
+    private final int offset;
+    private final int length;
+
+    AsciiPath(byte[] bytes) {
+      this(bytes, 0, bytes.length);
+    }
+
+    private AsciiPath(byte[] bytes, int offset, int length) {
+      this.bytes = bytes;
+      this.offset = offset;
+      this.length = length;
+    }
+
+    @Override
+    public int length() {
+      return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+      return (char) (bytes[offset + index] & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+      return new AsciiPath(bytes, offset + start, end - start);
+    }
+
+    @Override
+    @SuppressWarnings("deprecation") // The String ctor is deprecated, but fast.
+    public String toString() {
+      return new String(bytes, 0, offset, length);
+    }
+  }
+}
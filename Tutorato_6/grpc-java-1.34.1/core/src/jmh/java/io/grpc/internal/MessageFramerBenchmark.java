@@ -0,0 +1,145 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.internal;
+
+import io.grpc.Drainable;
+import io.grpc.KnownLength;
+import io.grpc.StreamTracer;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmark for {@link MessageFramer} writing known-length messages.
+ *
+ * <p>Run with {@code -prof gc} to see the allocation rate per message.
+ */
+@State(Scope.Thread)
+public class MessageFramerBenchmark {
+
+  /** Mimics the chunked writes of a protobuf {@code CodedOutputStream}. */
+  private static final int DRAIN_CHUNK_SIZE = 4096;
+
+  @Param({"16", "1024", "65536"})
+  public int messageSize;
+
+  private byte[] message;
+  private MessageFramer framer;
+
+  /**
+   * Setup.
+   */
+  @Setup
+  public void setUp() {
+    message = new byte[messageSize];
+    framer = new MessageFramer(
+        new MessageFramer.Sink() {
+          @Override
+          public void deliverFrame(
+              @Nullable WritableBuffer frame, boolean endOfStream, boolean flush,
+              int numMessages) {
+            if (frame != null) {
+              frame.release();
+            }
+          }
+        },
+        new ByteWritableBufferAllocator(),
+        new StatsTraceContext(new StreamTracer[0]));
+  }
+
+  /**
+   * Frame and flush a single known-length message.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  public void writeKnownLengthDrainable() {
+    framer.writePayload(new DrainableByteArrayInputStream(message));
+    framer.flush();
+  }
+
+  private static final class DrainableByteArrayInputStream extends ByteArrayInputStream
+      implements Drainable, KnownLength {
+    DrainableByteArrayInputStream(byte[] buf) {
+      super(buf);
+    }
+
+    @Override
+    public int drainTo(OutputStream target) throws IOException {
+      int written = 0;
+      while (pos < count) {
+        int len = Math.min(DRAIN_CHUNK_SIZE, count - pos);
+        target.write(buf, pos, len);
+        pos += len;
+        written += len;
+      }
+      return written;
+    }
+  }
+
+  /** Same bounds as the Netty allocator, backed by heap arrays. */
+  private static final class ByteWritableBufferAllocator implements WritableBufferAllocator {
+    @Override
+    public WritableBuffer allocate(int capacityHint) {
+      capacityHint = Math.min(1024 * 1024, Math.max(4096, capacityHint));
+      return new ByteWritableBuffer(capacityHint);
+    }
+  }
+
+  private static final class ByteWritableBuffer implements WritableBuffer {
+    private final byte[] data;
+    private int writeIdx;
+
+    ByteWritableBuffer(int capacity) {
+      data = new byte[capacity];
+    }
+
+    @Override
+    public void write(byte[] src, int srcIndex, int length) {
+      System.arraycopy(src, srcIndex, data, writeIdx, length);
+      writeIdx += length;
+    }
+
+    @Override
+    public void write(byte b) {
+      data[writeIdx++] = b;
+    }
+
+    @Override
+    public int writableBytes() {
+      return data.length - writeIdx;
+    }
+
+    @Override
+    public int readableBytes() {
+      return writeIdx;
+    }
+
+    @Override
+    public void release() {}
+  }
+}
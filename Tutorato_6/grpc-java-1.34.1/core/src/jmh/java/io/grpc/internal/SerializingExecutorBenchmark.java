@@ -16,6 +16,7 @@
 
 package io.grpc.internal;
 
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -25,9 +26,12 @@ import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
 
 /**
  * SerializingExecutor benchmark.
@@ -40,8 +44,31 @@ import org.openjdk.jmh.annotations.TearDown;
 @State(Scope.Thread)
 public class SerializingExecutorBenchmark {
 
+  /** The serializing executor implementations to compare. */
+  public enum ExecutorType {
+    SERIALIZING,
+    MPSC,
+    MPSC_BATCH_16;
+
+    Executor newExecutor(Executor executor) {
+      switch (this) {
+        case SERIALIZING:
+          return new SerializingExecutor(executor);
+        case MPSC:
+          return new MpscSerializingExecutor(executor, Integer.MAX_VALUE);
+        case MPSC_BATCH_16:
+          return new MpscSerializingExecutor(executor, 16);
+        default:
+          throw new AssertionError();
+      }
+    }
+  }
+
+  @Param
+  public ExecutorType executorType;
+
   private ExecutorService executorService = Executors.newSingleThreadExecutor();
-  private Executor executor = new SerializingExecutor(executorService);
+  private Executor executor;
 
   private static class IncrRunnable implements Runnable {
     int val;
@@ -62,6 +89,11 @@ public class SerializingExecutorBenchmark {
     }
   };
 
+  @Setup
+  public void setUp() {
+    executor = executorType.newExecutor(executorService);
+  }
+
   @TearDown
   public void tearDown() throws Exception {
     executorService.shutdownNow();
@@ -95,4 +127,59 @@ public class SerializingExecutorBenchmark {
       throw new AssertionError();
     }
   }
+
+  /**
+   * Executor shared by all benchmark threads, so that producers contend on the same queue as
+   * transport and application threads do on a busy call.
+   */
+  @State(Scope.Benchmark)
+  public static class SharedExecutor {
+    @Param
+    public ExecutorType executorType;
+
+    private final ExecutorService executorService = Executors.newSingleThreadExecutor();
+    private Executor executor;
+
+    @Setup
+    public void setUp() {
+      executor = executorType.newExecutor(executorService);
+    }
+
+    /**
+     * Tear down.
+     */
+    @TearDown
+    public void tearDown() throws Exception {
+      executorService.shutdownNow();
+      if (!executorService.awaitTermination(1, TimeUnit.SECONDS)) {
+        throw new RuntimeException("executor failed to shut down in a timely fashion");
+      }
+    }
+  }
+
+  private static final Runnable NOOP = new Runnable() {
+    @Override
+    public void run() {}
+  };
+
+  /**
+   * Four producers each queue a burst of runnables and wait for their own burst to complete.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  @Threads(4)
+  public void contendedProducers(SharedExecutor shared) throws Exception {
+    final CountDownLatch latch = new CountDownLatch(1);
+    for (int i = 0; i < 100; i++) {
+      shared.executor.execute(NOOP);
+    }
+    shared.executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        latch.countDown();
+      }
+    });
+    latch.await();
+  }
 }
@@ -77,6 +77,12 @@ public abstract class AbstractManagedChannelImplBuilder
     return thisT();
   }
 
+  @Override
+  public T virtualThreadExecutor() {
+    delegate().virtualThreadExecutor();
+    return thisT();
+  }
+
   @Override
   public T offloadExecutor(Executor executor) {
     delegate().offloadExecutor(executor);
@@ -252,6 +258,12 @@ public abstract class AbstractManagedChannelImplBuilder
     return thisT();
   }
 
+  @Override
+  public T callbackBatchSize(int maxCallbacks) {
+    delegate().callbackBatchSize(maxCallbacks);
+    return thisT();
+  }
+
   /**
    * Returns the {@link ManagedChannel} built by the delegate by default. Overriding method can
    * return different value.
@@ -73,6 +73,12 @@ public abstract class AbstractServerImplBuilder
     return thisT();
   }
 
+  @Override
+  public T virtualThreadExecutor() {
+    delegate().virtualThreadExecutor();
+    return thisT();
+  }
+
   @Override
   public T addService(ServerServiceDefinition service) {
     delegate().addService(service);
@@ -157,6 +163,18 @@ public abstract class AbstractServerImplBuilder
     return thisT();
   }
 
+  @Override
+  public T callbackBatchSize(int maxCallbacks) {
+    delegate().callbackBatchSize(maxCallbacks);
+    return thisT();
+  }
+
+  @Override
+  public T prioritizeCallsByDeadline(long maxQueueDelay, TimeUnit unit) {
+    delegate().prioritizeCallsByDeadline(maxQueueDelay, unit);
+    return thisT();
+  }
+
   /**
    * Returns the {@link Server} built by the delegate by default. Overriding method can return
    * different value.
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Throwables;
+import com.google.common.base.Ticker;
+import com.google.common.util.concurrent.SettableFuture;
+import io.grpc.internal.DnsNameResolver.ResourceResolver;
+import io.grpc.internal.DnsNameResolver.SrvRecord;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A {@link ResourceResolver} that caches the records, or the failure, of each lookup, so that
+ * the resolvers of many channels to the same target share one lookup. Concurrent lookups of the
+ * same name wait for the one already in flight instead of querying again.
+ *
+ * <p>A TTL of zero disables caching of that kind of result, and a negative TTL caches forever,
+ * like the {@code networkaddress.cache.ttl} and {@code networkaddress.cache.negative.ttl}
+ * properties the TTLs come from.
+ *
+ * <p>At most {@code maxNames} names of each record type are kept. When a lookup goes past that,
+ * expired lookups are dropped first, then the least recently completed ones.
+ */
+@ThreadSafe
+final class CachingResourceResolver implements ResourceResolver {
+  @VisibleForTesting
+  static final int DEFAULT_MAX_NAMES = 1024;
+
+  private final ResourceResolver delegate;
+  private final long ttlNanos;
+  private final long negativeTtlNanos;
+  private final Ticker ticker;
+  private final int maxNames;
+  private final ConcurrentMap<String, Lookup<List<String>>> txtLookups =
+      new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, Lookup<List<SrvRecord>>> srvLookups =
+      new ConcurrentHashMap<>();
+
+  CachingResourceResolver(
+      ResourceResolver delegate, long ttlNanos, long negativeTtlNanos, Ticker ticker) {
+    this(delegate, ttlNanos, negativeTtlNanos, ticker, DEFAULT_MAX_NAMES);
+  }
+
+  @VisibleForTesting
+  CachingResourceResolver(
+      ResourceResolver delegate, long ttlNanos, long negativeTtlNanos, Ticker ticker,
+      int maxNames) {
+    checkArgument(maxNames > 0, "maxNames must be positive");
+    this.delegate = checkNotNull(delegate, "delegate");
+    this.ttlNanos = ttlNanos;
+    this.negativeTtlNanos = negativeTtlNanos;
+    this.ticker = checkNotNull(ticker, "ticker");
+    this.maxNames = maxNames;
+  }
+
+  @Override
+  public List<String> resolveTxt(String host) throws Exception {
+    return lookup(txtLookups, host, new Query<List<String>>() {
+      @Override
+      public List<String> run(String name) throws Exception {
+        return delegate.resolveTxt(name);
+      }
+    });
+  }
+
+  @Override
+  public List<SrvRecord> resolveSrv(String host) throws Exception {
+    return lookup(srvLookups, host, new Query<List<SrvRecord>>() {
+      @Override
+      public List<SrvRecord> run(String name) throws Exception {
+        return delegate.resolveSrv(name);
+      }
+    });
+  }
+
+  private <T> T lookup(ConcurrentMap<String, Lookup<T>> lookups, String name, Query<T> query)
+      throws Exception {
+    while (true) {
+      Lookup<T> lookup = lookups.get(name);
+      if (lookup != null && !lookup.isExpired(ticker.read())) {
+        return lookup.await();
+      }
+      Lookup<T> newLookup = new Lookup<>();
+      boolean replaced = lookup == null
+          ? lookups.putIfAbsent(name, newLookup) == null
+          : lookups.replace(name, lookup, newLookup);
+      if (!replaced) {
+        // Another thread started a lookup first, so wait for that one.
+        continue;
+      }
+      try {
+        T records = query.run(name);
+        newLookup.complete(ticker.read(), ttlNanos);
+        newLookup.result.set(records);
+      } catch (Throwable t) {
+        newLookup.complete(ticker.read(), negativeTtlNanos);
+        newLookup.result.setException(t);
+      }
+      if (newLookup.ttlNanos == 0) {
+        // Not cached, only shared with the lookups that waited for it.
+        lookups.remove(name, newLookup);
+      } else if (lookups.size() > maxNames) {
+        evict(lookups);
+      }
+      return newLookup.await();
+    }
+  }
+
+  /**
+   * Drops expired lookups, then the least recently completed ones, until at most three quarters
+   * of {@code maxNames} are left, so that eviction runs once per many new names.
+   */
+  private <T> void evict(ConcurrentMap<String, Lookup<T>> lookups) {
+    long nowNanos = ticker.read();
+    List<Map.Entry<String, Lookup<T>>> done = new ArrayList<>();
+    for (Map.Entry<String, Lookup<T>> entry : lookups.entrySet()) {
+      Lookup<T> lookup = entry.getValue();
+      if (lookup.isExpired(nowNanos)) {
+        lookups.remove(entry.getKey(), lookup);
+      } else if (lookup.result.isDone()) {
+        done.add(entry);
+      }
+    }
+    int excess = lookups.size() - maxNames * 3 / 4;
+    if (excess <= 0) {
+      return;
+    }
+    Collections.sort(done, new Comparator<Map.Entry<String, Lookup<T>>>() {
+      @Override
+      public int compare(Map.Entry<String, Lookup<T>> a, Map.Entry<String, Lookup<T>> b) {
+        return Long.signum(a.getValue().completedNanos - b.getValue().completedNanos);
+      }
+    });
+    for (int i = 0; i < excess && i < done.size(); i++) {
+      lookups.remove(done.get(i).getKey(), done.get(i).getValue());
+    }
+  }
+
+  @VisibleForTesting
+  int cachedNames() {
+    return txtLookups.size() + srvLookups.size();
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("delegate", delegate)
+        .add("ttlNanos", ttlNanos)
+        .add("negativeTtlNanos", negativeTtlNanos)
+        .toString();
+  }
+
+  private interface Query<T> {
+    T run(String name) throws Exception;
+  }
+
+  /** A lookup, in flight or done. */
+  private static final class Lookup<T> {
+    final SettableFuture<T> result = SettableFuture.create();
+    // Written before result is completed, and only read once it is.
+    private long completedNanos;
+    private long ttlNanos;
+
+    void complete(long completedNanos, long ttlNanos) {
+      this.completedNanos = completedNanos;
+      this.ttlNanos = ttlNanos;
+    }
+
+    boolean isExpired(long nowNanos) {
+      if (!result.isDone() || ttlNanos < 0) {
+        return false;
+      }
+      return nowNanos - completedNanos >= ttlNanos;
+    }
+
+    T await() throws Exception {
+      try {
+        return result.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw e;
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        Throwables.throwIfInstanceOf(cause, Exception.class);
+        Throwables.throwIfUnchecked(cause);
+        throw e;
+      }
+    }
+  }
+}
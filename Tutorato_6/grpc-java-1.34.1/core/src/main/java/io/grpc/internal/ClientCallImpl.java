@@ -102,6 +102,21 @@ final class ClientCallImpl<ReqT, RespT> extends ClientCall<ReqT, RespT> {
       ScheduledExecutorService deadlineCancellationExecutor,
       CallTracer channelCallsTracer,
       @Nullable InternalConfigSelector configSelector) {
+    this(method, executor, callOptions, clientStreamProvider, deadlineCancellationExecutor,
+        channelCallsTracer, configSelector, 0);
+  }
+
+  /**
+   * Creates a call whose callbacks are serialized by {@link MpscSerializingExecutor} in batches of
+   * {@code callbackBatchSize}, or by {@link SerializingExecutor} if it is zero.
+   */
+  ClientCallImpl(
+      MethodDescriptor<ReqT, RespT> method, Executor executor, CallOptions callOptions,
+      ClientStreamProvider clientStreamProvider,
+      ScheduledExecutorService deadlineCancellationExecutor,
+      CallTracer channelCallsTracer,
+      @Nullable InternalConfigSelector configSelector,
+      int callbackBatchSize) {
     this.method = method;
     // TODO(carl-mastrangelo): consider moving this construction to ManagedChannelImpl.
     this.tag = PerfMark.createTag(method.getFullMethodName(), System.identityHashCode(this));
@@ -112,7 +127,9 @@ final class ClientCallImpl<ReqT, RespT> extends ClientCall<ReqT, RespT> {
       this.callExecutor = new SerializeReentrantCallsDirectExecutor();
       callExecutorIsDirect = true;
     } else {
-      this.callExecutor = new SerializingExecutor(executor);
+      this.callExecutor = callbackBatchSize == 0
+          ? new SerializingExecutor(executor)
+          : new MpscSerializingExecutor(executor, callbackBatchSize);
       callExecutorIsDirect = false;
     }
     this.channelCallsTracer = channelCallsTracer;
@@ -20,8 +20,10 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
+import java.nio.InvalidMarkException;
 import java.util.ArrayDeque;
-import java.util.Queue;
+import java.util.Deque;
+import javax.annotation.Nullable;
 
 /**
  * A {@link ReadableBuffer} that is composed of 0 or more {@link ReadableBuffer}s. This provides a
@@ -29,12 +31,16 @@ import java.util.Queue;
  *
  * <p>When a buffer is added to a composite, its life cycle is controlled by the composite. Once
  * the composite has read past the end of a given buffer, that buffer is automatically closed and
- * removed from the composite.
+ * removed from the composite, unless the composite is {@linkplain #mark marked}, in which case the
+ * buffer is retained until the mark is reset, moved or the composite is closed.
  */
 public class CompositeReadableBuffer extends AbstractReadableBuffer {
 
   private int readableBytes;
-  private final Queue<ReadableBuffer> buffers = new ArrayDeque<>();
+  private final Deque<ReadableBuffer> buffers = new ArrayDeque<>();
+  // Buffers read past since the last mark(), in read order. Lazily created.
+  private Deque<ReadableBuffer> rewindableBuffers;
+  private boolean marked;
 
   /**
    * Adds a new {@link ReadableBuffer} at the end of the buffer list. After a buffer is added, it is
@@ -43,6 +49,17 @@ public class CompositeReadableBuffer extends AbstractReadableBuffer {
    * this {@code CompositeBuffer}.
    */
   public void addBuffer(ReadableBuffer buffer) {
+    boolean markHead = marked && buffers.isEmpty();
+    addBufferInternal(buffer);
+    if (markHead) {
+      ReadableBuffer head = buffers.peek();
+      if (head != null) {
+        head.mark();
+      }
+    }
+  }
+
+  private void addBufferInternal(ReadableBuffer buffer) {
     if (!(buffer instanceof CompositeReadableBuffer)) {
       buffers.add(buffer);
       readableBytes += buffer.readableBytes();
@@ -142,22 +159,104 @@ public class CompositeReadableBuffer extends AbstractReadableBuffer {
     CompositeReadableBuffer newBuffer = new CompositeReadableBuffer();
     while (length > 0) {
       ReadableBuffer buffer = buffers.peek();
-      if (buffer.readableBytes() > length) {
+      int readable = buffer.readableBytes();
+      if (readable > length) {
         newBuffer.addBuffer(buffer.readBytes(length));
         length = 0;
+      } else if (marked) {
+        // The buffer has to stay in this composite so that reset() can rewind into it.
+        newBuffer.addBuffer(buffer.readBytes(readable));
+        advanceBuffer();
+        length -= readable;
       } else {
         newBuffer.addBuffer(buffers.poll());
-        length -= buffer.readableBytes();
+        length -= readable;
       }
     }
     return newBuffer;
   }
 
+  @Override
+  public boolean markSupported() {
+    for (ReadableBuffer buffer : buffers) {
+      if (!buffer.markSupported()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void mark() {
+    if (rewindableBuffers == null) {
+      rewindableBuffers = new ArrayDeque<>(Math.min(buffers.size(), 16));
+    }
+    // Buffers behind the previous mark can no longer be rewound to.
+    while (!rewindableBuffers.isEmpty()) {
+      rewindableBuffers.remove().close();
+    }
+    marked = true;
+    ReadableBuffer buffer = buffers.peek();
+    if (buffer != null) {
+      buffer.mark();
+    }
+  }
+
+  @Override
+  public void reset() {
+    if (!marked) {
+      throw new InvalidMarkException();
+    }
+    ReadableBuffer buffer = buffers.peek();
+    if (buffer != null) {
+      int currentReadable = buffer.readableBytes();
+      buffer.reset();
+      readableBytes += buffer.readableBytes() - currentReadable;
+    }
+    while ((buffer = rewindableBuffers.pollLast()) != null) {
+      buffer.reset();
+      buffers.addFirst(buffer);
+      readableBytes += buffer.readableBytes();
+    }
+  }
+
+  @Override
+  public boolean byteBufferSupported() {
+    for (ReadableBuffer buffer : buffers) {
+      if (!buffer.byteBufferSupported()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns a view of the readable bytes of the first component buffer only. Callers that want the
+   * whole content should {@link #mark} this buffer, then alternate between this method and {@link
+   * #skipBytes} so that the already returned views are not released.
+   */
+  @Nullable
+  @Override
+  public ByteBuffer getByteBuffer() {
+    if (readableBytes == 0) {
+      return null;
+    }
+    if (!buffers.isEmpty()) {
+      advanceBufferIfNecessary();
+    }
+    return buffers.peek().getByteBuffer();
+  }
+
   @Override
   public void close() {
     while (!buffers.isEmpty()) {
       buffers.remove().close();
     }
+    if (rewindableBuffers != null) {
+      while (!rewindableBuffers.isEmpty()) {
+        rewindableBuffers.remove().close();
+      }
+    }
   }
 
   /**
@@ -197,7 +296,23 @@ public class CompositeReadableBuffer extends AbstractReadableBuffer {
   private void advanceBufferIfNecessary() {
     ReadableBuffer buffer = buffers.peek();
     if (buffer.readableBytes() == 0) {
-      buffers.remove().close();
+      advanceBuffer();
+    }
+  }
+
+  /**
+   * Removes the current buffer. It is closed, or kept for rewinding if this buffer is marked.
+   */
+  private void advanceBuffer() {
+    ReadableBuffer buffer = buffers.remove();
+    if (marked) {
+      rewindableBuffers.add(buffer);
+      ReadableBuffer next = buffers.peek();
+      if (next != null) {
+        next.mark();
+      }
+    } else {
+      buffer.close();
     }
   }
 
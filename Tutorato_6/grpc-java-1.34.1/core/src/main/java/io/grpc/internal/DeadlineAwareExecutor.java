@@ -0,0 +1,129 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import io.grpc.Deadline;
+import java.util.concurrent.Executor;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Runs the tasks of server calls on an executor earliest deadline first. Tasks wait in a priority
+ * queue, and every task submitted hands the executor a runnable that runs the most urgent waiting
+ * task, which need not be the task it was submitted with.
+ *
+ * <p>A task's priority is the deadline of its call, capped to {@code maxQueueDelayNanos} after the
+ * call arrived. Calls without a deadline thus queue as if they had that deadline, and no call is
+ * overtaken by calls that arrived more than {@code maxQueueDelayNanos} after it.
+ */
+@ThreadSafe
+final class DeadlineAwareExecutor {
+  private final Executor executor;
+  private final long maxQueueDelayNanos;
+  private final Deadline.Ticker ticker;
+  private final PriorityBlockingQueue<Task> queue = new PriorityBlockingQueue<>();
+  /** Orders tasks of equal priority by submission. */
+  private final AtomicLong nextSequence = new AtomicLong();
+  private final Runnable runNext = new Runnable() {
+    @Override
+    public void run() {
+      Task task = queue.poll();
+      if (task != null) {
+        task.run();
+      }
+    }
+  };
+
+  DeadlineAwareExecutor(Executor executor, long maxQueueDelayNanos, Deadline.Ticker ticker) {
+    checkArgument(maxQueueDelayNanos > 0, "maxQueueDelayNanos must be positive");
+    this.executor = checkNotNull(executor, "executor");
+    this.maxQueueDelayNanos = maxQueueDelayNanos;
+    this.ticker = checkNotNull(ticker, "ticker");
+  }
+
+  /** Returns an executor for the tasks of a call that arrives now. */
+  Executor forCall(@Nullable Deadline deadline, StatsTraceContext statsTraceCtx) {
+    long nowNanos = ticker.nanoTime();
+    long delayNanos = maxQueueDelayNanos;
+    if (deadline != null) {
+      delayNanos = Math.min(delayNanos, deadline.timeRemaining(NANOSECONDS));
+    }
+    return new CallExecutor(nowNanos + delayNanos, statsTraceCtx);
+  }
+
+  private final class CallExecutor implements Executor {
+    final long priorityNanos;
+    final StatsTraceContext statsTraceCtx;
+
+    CallExecutor(long priorityNanos, StatsTraceContext statsTraceCtx) {
+      this.priorityNanos = priorityNanos;
+      this.statsTraceCtx = checkNotNull(statsTraceCtx, "statsTraceCtx");
+    }
+
+    @Override
+    public void execute(Runnable command) {
+      Task task = new Task(this, command, ticker.nanoTime(), nextSequence.getAndIncrement());
+      queue.add(task);
+      try {
+        executor.execute(runNext);
+      } catch (RuntimeException e) {
+        // The caller expects the command not to run when the executor rejects it. If another
+        // runnable already took the task, it runs anyway, and the one task per runnable balance
+        // still holds.
+        if (queue.remove(task)) {
+          throw e;
+        }
+      }
+    }
+  }
+
+  private final class Task implements Runnable, Comparable<Task> {
+    final CallExecutor callExecutor;
+    final Runnable command;
+    final long enqueueNanos;
+    final long sequence;
+
+    Task(CallExecutor callExecutor, Runnable command, long enqueueNanos, long sequence) {
+      this.callExecutor = callExecutor;
+      this.command = checkNotNull(command, "command");
+      this.enqueueNanos = enqueueNanos;
+      this.sequence = sequence;
+    }
+
+    @Override
+    public void run() {
+      callExecutor.statsTraceCtx.serverExecutorQueueDelay(ticker.nanoTime() - enqueueNanos);
+      command.run();
+    }
+
+    @Override
+    public int compareTo(Task other) {
+      // Compare the difference, as nanoTime() values may overflow.
+      long diff = callExecutor.priorityNanos - other.callExecutor.priorityNanos;
+      if (diff != 0) {
+        return diff < 0 ? -1 : 1;
+      }
+      return sequence < other.sequence ? -1 : (sequence == other.sequence ? 0 : 1);
+    }
+  }
+}
@@ -24,6 +24,7 @@ import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Stopwatch;
 import com.google.common.base.Throwables;
+import com.google.common.base.Ticker;
 import com.google.common.base.Verify;
 import com.google.common.base.VerifyException;
 import io.grpc.Attributes;
@@ -108,6 +109,17 @@ public class DnsNameResolver extends NameResolver {
   @VisibleForTesting
   static final long DEFAULT_NETWORK_CACHE_TTL_SECONDS = 30;
 
+  /**
+   * Java networking system property name for caching failed DNS lookups. Only applies to the
+   * TXT and SRV lookups gRPC makes itself; address lookups are cached by {@link InetAddress}.
+   */
+  @VisibleForTesting
+  static final String NETWORKADDRESS_CACHE_NEGATIVE_TTL_PROPERTY =
+      "networkaddress.cache.negative.ttl";
+  /** Default duration failed DNS lookups are cached if the property is not specified. */
+  @VisibleForTesting
+  static final long DEFAULT_NETWORK_CACHE_NEGATIVE_TTL_SECONDS = 10;
+
   @VisibleForTesting
   static boolean enableJndi = Boolean.parseBoolean(JNDI_PROPERTY);
   @VisibleForTesting
@@ -118,6 +130,28 @@ public class DnsNameResolver extends NameResolver {
   private static final ResourceResolverFactory resourceResolverFactory =
       getResourceResolverFactory(DnsNameResolver.class.getClassLoader());
 
+  /**
+   * Shares TXT and SRV lookups between resolvers, so that the many channels of a process to the
+   * same target don't each query DNS.
+   */
+  private static final class SharedResourceResolverHolder {
+    @Nullable
+    static final ResourceResolver INSTANCE = newSharedResourceResolver();
+
+    @Nullable
+    private static ResourceResolver newSharedResourceResolver() {
+      if (resourceResolverFactory == null) {
+        return null;
+      }
+      assert resourceResolverFactory.unavailabilityCause() == null;
+      return new CachingResourceResolver(
+          resourceResolverFactory.newResourceResolver(),
+          getNetworkAddressCacheTtlNanos(false),
+          getNetworkAddressCacheNegativeTtlNanos(),
+          Ticker.systemTicker());
+    }
+  }
+
   @VisibleForTesting
   final ProxyDetector proxyDetector;
 
@@ -475,6 +509,26 @@ public class DnsNameResolver extends NameResolver {
     return cacheTtl > 0 ? TimeUnit.SECONDS.toNanos(cacheTtl) : cacheTtl;
   }
 
+  /**
+   * Returns value of network address negative cache ttl property, in nanoseconds. Negative values
+   * mean to cache forever.
+   */
+  private static long getNetworkAddressCacheNegativeTtlNanos() {
+    String ttlPropertyValue = System.getProperty(NETWORKADDRESS_CACHE_NEGATIVE_TTL_PROPERTY);
+    long ttl = DEFAULT_NETWORK_CACHE_NEGATIVE_TTL_SECONDS;
+    if (ttlPropertyValue != null) {
+      try {
+        ttl = Long.parseLong(ttlPropertyValue);
+      } catch (NumberFormatException e) {
+        logger.log(
+            Level.WARNING,
+            "Property({0}) valid is not valid number format({1}), fall back to default({2})",
+            new Object[] {NETWORKADDRESS_CACHE_NEGATIVE_TTL_PROPERTY, ttlPropertyValue, ttl});
+      }
+    }
+    return ttl > 0 ? TimeUnit.SECONDS.toNanos(ttl) : ttl;
+  }
+
   /**
    * Determines if a given Service Config choice applies, and if so, returns it.
    *
@@ -649,10 +703,7 @@ public class DnsNameResolver extends NameResolver {
     }
     ResourceResolver rr;
     if ((rr = resourceResolver.get()) == null) {
-      if (resourceResolverFactory != null) {
-        assert resourceResolverFactory.unavailabilityCause() == null;
-        rr = resourceResolverFactory.newResourceResolver();
-      }
+      rr = SharedResourceResolverHolder.INSTANCE;
     }
     return rr;
   }
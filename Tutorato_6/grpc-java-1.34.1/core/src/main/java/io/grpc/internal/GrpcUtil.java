@@ -543,6 +543,82 @@ public final class GrpcUtil {
         }
       };
 
+  /**
+   * Shared executor that starts a virtual thread for every task. Only usable when {@link
+   * #virtualThreadsSupported()}.
+   */
+  public static final Resource<Executor> SHARED_VIRTUAL_THREAD_EXECUTOR =
+      new Resource<Executor>() {
+        private static final String NAME = "grpc-virtual-thread-executor";
+        @Override
+        public Executor create() {
+          ExecutorService executor = VirtualThreads.newExecutor();
+          if (executor == null) {
+            throw new UnsupportedOperationException("Virtual threads are not available");
+          }
+          return executor;
+        }
+
+        @Override
+        public void close(Executor instance) {
+          ((ExecutorService) instance).shutdown();
+        }
+
+        @Override
+        public String toString() {
+          return NAME;
+        }
+      };
+
+  /**
+   * Returns {@code true} if the JVM can run tasks on virtual threads, which requires Java 21 or
+   * later.
+   */
+  public static boolean virtualThreadsSupported() {
+    return VirtualThreads.NEW_EXECUTOR != null;
+  }
+
+  /**
+   * Reflective access to {@code Executors.newVirtualThreadPerTaskExecutor()}, which we cannot
+   * reference directly while supporting Java 7.
+   */
+  private static final class VirtualThreads {
+    @Nullable
+    static final Method NEW_EXECUTOR = findNewExecutor();
+
+    @Nullable
+    private static Method findNewExecutor() {
+      Method method;
+      try {
+        method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      } catch (NoSuchMethodException e) {
+        return null;
+      }
+      // On Java 19 and 20 the method exists but fails unless preview features are enabled.
+      try {
+        ((ExecutorService) method.invoke(null)).shutdown();
+      } catch (Exception e) {
+        log.log(Level.FINE, "Virtual threads are unavailable", e);
+        return null;
+      }
+      return method;
+    }
+
+    @Nullable
+    static ExecutorService newExecutor() {
+      if (NEW_EXECUTOR == null) {
+        return null;
+      }
+      try {
+        return (ExecutorService) NEW_EXECUTOR.invoke(null);
+      } catch (IllegalAccessException e) {
+        throw new AssertionError(e);
+      } catch (InvocationTargetException e) {
+        throw new RuntimeException(e.getCause());
+      }
+    }
+  }
+
   /**
    * Shared single-threaded executor for managing channel timers.
    */
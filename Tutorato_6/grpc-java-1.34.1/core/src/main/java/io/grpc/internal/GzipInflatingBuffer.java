@@ -16,8 +16,12 @@
 
 package io.grpc.internal;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 
+import com.google.common.annotations.VisibleForTesting;
+
 import java.io.Closeable;
 import java.util.zip.CRC32;
 import java.util.zip.DataFormatException;
@@ -31,8 +35,12 @@ import javax.annotation.concurrent.NotThreadSafe;
  * streams. Unlike {@link java.util.zip.GZIPInputStream}, this allows for incremental processing of
  * gzip streams, allowing data to be inflated as it arrives over the wire.
  *
- * <p>This also frees the inflate context when the end of a gzip stream is reached without another
- * concatenated stream available to inflate.
+ * <p>This also returns the inflate context to a pool when the end of a gzip stream is reached
+ * without another concatenated stream available to inflate, so that the native zlib memory is
+ * reused by other streams rather than held until finalization.
+ *
+ * <p>Optionally, inflating aborts once the ratio of inflated to deflated bytes of a gzip stream
+ * exceeds a limit, so that decompression bombs are detected before they are inflated in full.
  */
 @NotThreadSafe
 class GzipInflatingBuffer implements Closeable {
@@ -50,6 +58,17 @@ class GzipInflatingBuffer implements Closeable {
   private static final int HEADER_NAME_FLAG = 8;
   private static final int HEADER_COMMENT_FLAG = 16;
 
+  /**
+   * The compression ratio limit used by default, or 0 for none. Valid deflate data does not exceed
+   * a ratio of about 1032, while typical messages compress far less.
+   */
+  private static final int DEFAULT_MAX_COMPRESSION_RATIO = Math.max(
+      0, Integer.getInteger("io.grpc.internal.GzipInflatingBuffer.maxCompressionRatio", 0));
+
+  /** Inflated bytes of a gzip stream below which the compression ratio is not checked. */
+  @VisibleForTesting
+  static final int RATIO_CHECK_MIN_BYTES = 64 * 1024;
+
   /**
    * Reads gzip header and trailer bytes from the inflater's buffer (if bytes beyond the inflate
    * block were given to the inflater) and then from {@code gzippedData}, and handles updating the
@@ -183,6 +202,29 @@ class GzipInflatingBuffer implements Closeable {
 
   private boolean isStalled = true;
 
+  private final ObjectPool<Inflater> inflaterPool;
+  private final int maxCompressionRatio;
+
+  /**
+   * Creates a buffer using the shared inflater pool and the compression ratio limit of the {@code
+   * io.grpc.internal.GzipInflatingBuffer.maxCompressionRatio} system property, if set.
+   */
+  GzipInflatingBuffer() {
+    this(InflaterPool.getDefault(), DEFAULT_MAX_COMPRESSION_RATIO);
+  }
+
+  /**
+   * Creates a buffer taking inflaters from {@code inflaterPool}. Inflating fails once a gzip
+   * stream inflated at least {@link #RATIO_CHECK_MIN_BYTES} and more than {@code
+   * maxCompressionRatio} times its deflated bytes, unless {@code maxCompressionRatio} is 0.
+   */
+  @VisibleForTesting
+  GzipInflatingBuffer(ObjectPool<Inflater> inflaterPool, int maxCompressionRatio) {
+    checkArgument(maxCompressionRatio >= 0, "maxCompressionRatio must be non-negative");
+    this.inflaterPool = checkNotNull(inflaterPool, "inflaterPool");
+    this.maxCompressionRatio = maxCompressionRatio;
+  }
+
   /**
    * Returns true when more bytes must be added via {@link #addGzippedBytes} to enable additional
    * calls to {@link #inflateBytes} to make progress.
@@ -218,7 +260,7 @@ class GzipInflatingBuffer implements Closeable {
       closed = true;
       gzippedData.close();
       if (inflater != null) {
-        inflater.end();
+        inflaterPool.returnObject(inflater);
         inflater = null;
       }
     }
@@ -395,7 +437,7 @@ class GzipInflatingBuffer implements Closeable {
 
   private boolean initializeInflater() {
     if (inflater == null) {
-      inflater = new Inflater(true);
+      inflater = inflaterPool.getObject();
     } else {
       inflater.reset();
     }
@@ -421,6 +463,7 @@ class GzipInflatingBuffer implements Closeable {
       deflatedBytesConsumed += bytesConsumedDelta;
       inflaterInputStart += bytesConsumedDelta;
       crc.update(b, off, n);
+      checkCompressionRatio();
 
       if (inflater.finished()) {
         // Save bytes written to check against the trailer ISIZE
@@ -438,6 +481,19 @@ class GzipInflatingBuffer implements Closeable {
     }
   }
 
+  private void checkCompressionRatio() throws DataFormatException {
+    if (maxCompressionRatio == 0) {
+      return;
+    }
+    long inflatedBytes = inflater.getBytesWritten();
+    if (inflatedBytes >= RATIO_CHECK_MIN_BYTES
+        && inflatedBytes > inflater.getBytesRead() * maxCompressionRatio) {
+      throw new DataFormatException(String.format(
+          "Compression ratio exceeds %d: %d bytes inflated from %d",
+          maxCompressionRatio, inflatedBytes, inflater.getBytesRead()));
+    }
+  }
+
   private boolean fill() {
     checkState(inflater != null, "inflater is null");
     checkState(inflaterInputStart == inflaterInputEnd, "inflaterInput has unconsumed bytes");
@@ -457,7 +513,7 @@ class GzipInflatingBuffer implements Closeable {
     if (inflater != null
         && gzipMetadataReader.readableBytes() <= GZIP_HEADER_MIN_SIZE + GZIP_TRAILER_SIZE) {
       // We don't have enough bytes to begin inflating a concatenated gzip stream, drop context
-      inflater.end();
+      inflaterPool.returnObject(inflater);
       inflater = null;
     }
     if (gzipMetadataReader.readableBytes() < GZIP_TRAILER_SIZE) {
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Inflater;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A bounded pool of raw (nowrap) {@link Inflater}s, so that compressed streams reuse the native
+ * zlib state of finished streams instead of allocating their own and holding it until
+ * finalization. Inflaters returned when the pool is full are ended right away.
+ */
+@ThreadSafe
+final class InflaterPool implements ObjectPool<Inflater> {
+  private static final InflaterPool DEFAULT =
+      new InflaterPool(Runtime.getRuntime().availableProcessors() * 2);
+
+  private final Queue<Inflater> inflaters = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger size = new AtomicInteger();
+  private final int maxSize;
+
+  @VisibleForTesting
+  InflaterPool(int maxSize) {
+    checkArgument(maxSize >= 0, "maxSize must be non-negative");
+    this.maxSize = maxSize;
+  }
+
+  /** Returns the pool shared by all streams of the process. */
+  static InflaterPool getDefault() {
+    return DEFAULT;
+  }
+
+  /** Returns a reset inflater, pooled if one is available. */
+  @Override
+  public Inflater getObject() {
+    Inflater inflater = inflaters.poll();
+    if (inflater == null) {
+      return new Inflater(true);
+    }
+    size.decrementAndGet();
+    return inflater;
+  }
+
+  @Override
+  public Inflater returnObject(Object object) {
+    Inflater inflater = (Inflater) object;
+    if (size.incrementAndGet() > maxSize) {
+      size.decrementAndGet();
+      inflater.end();
+      return null;
+    }
+    inflater.reset();
+    inflaters.offer(inflater);
+    return null;
+  }
+
+  @VisibleForTesting
+  int size() {
+    return size.get();
+  }
+}
@@ -31,11 +31,13 @@ final class InternalHandlerRegistry extends HandlerRegistry {
 
   private final List<ServerServiceDefinition> services;
   private final Map<String, ServerMethodDefinition<?, ?>> methods;
+  private final MethodLookupTable<ServerMethodDefinition<?, ?>> methodTable;
 
   private InternalHandlerRegistry(
       List<ServerServiceDefinition> services, Map<String, ServerMethodDefinition<?, ?>> methods) {
     this.services = services;
     this.methods = methods;
+    this.methodTable = MethodLookupTable.create(methods);
   }
 
   /**
@@ -53,6 +55,16 @@ final class InternalHandlerRegistry extends HandlerRegistry {
     return methods.get(methodName);
   }
 
+  /**
+   * Returns the registered full method name spelled by {@code path} from index {@code start}, or
+   * {@code null} if there is no such method. Transports use it to get the method name of a stream
+   * without allocating a String.
+   */
+  @Nullable
+  String lookupMethodName(CharSequence path, int start) {
+    return methodTable.getKey(path, start);
+  }
+
   static final class Builder {
 
     // Store per-service first, to make sure services are added/replaced atomically.
@@ -284,6 +284,8 @@ final class ManagedChannelImpl extends ManagedChannel implements
   // Temporary false flag that can skip the retry code path.
   private final boolean retryEnabled;
 
+  private final int callbackBatchSize;
+
   // Called from syncContext
   private final ManagedClientTransport.Listener delayedTransportListener =
       new DelayedTransportListener();
@@ -313,6 +315,7 @@ final class ManagedChannelImpl extends ManagedChannel implements
         ChannelStats.Builder builder = new InternalChannelz.ChannelStats.Builder();
         channelCallTracer.updateBuilder(builder);
         channelTracer.updateBuilder(builder);
+        channelBufferUsed.updateBuilder(builder);
         builder.setTarget(target).setState(channelStateManager.getState());
         List<InternalWithLogId> children = new ArrayList<>();
         children.addAll(subchannels);
@@ -679,6 +682,7 @@ final class ManagedChannelImpl extends ManagedChannel implements
         transportFactory.getScheduledExecutorService(),
         stopwatchSupplier.get());
     this.fullStreamDecompression = builder.fullStreamDecompression;
+    this.callbackBatchSize = builder.callbackBatchSize;
     this.decompressorRegistry = checkNotNull(builder.decompressorRegistry, "decompressorRegistry");
     this.compressorRegistry = checkNotNull(builder.compressorRegistry, "compressorRegistry");
     this.userAgent = builder.userAgent;
@@ -1083,7 +1087,8 @@ final class ManagedChannelImpl extends ManagedChannel implements
           transportProvider,
           terminated ? null : transportFactory.getScheduledExecutorService(),
           channelCallTracer,
-          configSelector.get())
+          configSelector.get(),
+          callbackBatchSize)
           .setFullStreamDecompression(fullStreamDecompression)
           .setDecompressorRegistry(decompressorRegistry)
           .setCompressorRegistry(compressorRegistry);
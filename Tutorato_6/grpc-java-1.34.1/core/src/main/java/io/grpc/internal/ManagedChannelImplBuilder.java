@@ -90,6 +90,9 @@ public final class ManagedChannelImplBuilder
   private static final ObjectPool<? extends Executor> DEFAULT_EXECUTOR_POOL =
       SharedResourcePool.forResource(GrpcUtil.SHARED_CHANNEL_EXECUTOR);
 
+  private static final ObjectPool<? extends Executor> VIRTUAL_THREAD_EXECUTOR_POOL =
+      SharedResourcePool.forResource(GrpcUtil.SHARED_VIRTUAL_THREAD_EXECUTOR);
+
   private static final DecompressorRegistry DEFAULT_DECOMPRESSOR_REGISTRY =
       DecompressorRegistry.getDefaultInstance();
 
@@ -152,6 +155,9 @@ public final class ManagedChannelImplBuilder
   @Nullable
   BinaryLog binlog;
 
+  // Zero selects SerializingExecutor.
+  int callbackBatchSize;
+
   @Nullable
   ProxyDetector proxyDetector;
 
@@ -301,6 +307,13 @@ public final class ManagedChannelImplBuilder
     return this;
   }
 
+  @Override
+  public ManagedChannelImplBuilder virtualThreadExecutor() {
+    this.executorPool = GrpcUtil.virtualThreadsSupported()
+        ? VIRTUAL_THREAD_EXECUTOR_POOL : DEFAULT_EXECUTOR_POOL;
+    return this;
+  }
+
   @Override
   public ManagedChannelImplBuilder offloadExecutor(Executor executor) {
     if (executor != null) {
@@ -449,6 +462,13 @@ public final class ManagedChannelImplBuilder
     return this;
   }
 
+  @Override
+  public ManagedChannelImplBuilder callbackBatchSize(int maxCallbacks) {
+    checkArgument(maxCallbacks > 0, "maxCallbacks must be positive");
+    this.callbackBatchSize = maxCallbacks;
+    return this;
+  }
+
   @Override
   public ManagedChannelImplBuilder maxTraceEvents(int maxTraceEvents) {
     checkArgument(maxTraceEvents >= 0, "maxTraceEvents must be non-negative");
@@ -19,6 +19,7 @@ package io.grpc.internal;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
+import static java.lang.Math.max;
 import static java.lang.Math.min;
 
 import com.google.common.io.ByteStreams;
@@ -31,7 +32,6 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import javax.annotation.Nullable;
@@ -86,6 +86,10 @@ public class MessageFramer implements Framer {
   private int messagesBuffered;
   private int currentMessageSeqNo = -1;
   private long currentMessageWireSize;
+  // Bytes of the current known-length frame not yet written. Used as the allocation hint when the
+  // frame spills out of the current buffer, so the remainder lands in a single buffer instead of
+  // one buffer per chunk written by the message's Drainable.
+  private int knownLengthRemaining;
 
   /**
    * Creates a {@code MessageFramer}.
@@ -218,28 +222,30 @@ public class MessageFramer implements Framer {
               String.format("message too large %d > %d", messageLength , maxOutboundMessageSize))
           .asRuntimeException();
     }
-    ByteBuffer header = ByteBuffer.wrap(headerScratch);
-    header.put(UNCOMPRESSED);
-    header.putInt(messageLength);
+    fillHeader(false, messageLength);
+    knownLengthRemaining = HEADER_LENGTH + messageLength;
     // Allocate the initial buffer chunk based on frame header + payload length.
     // Note that the allocator may allocate a buffer larger or smaller than this length
     if (buffer == null) {
-      buffer = bufferAllocator.allocate(header.position() + messageLength);
+      buffer = bufferAllocator.allocate(knownLengthRemaining);
+    }
+    // The header is coalesced into the same buffer as the payload.
+    writeRaw(headerScratch, 0, HEADER_LENGTH);
+    try {
+      return writeToOutputStream(message, outputStreamAdapter);
+    } finally {
+      knownLengthRemaining = 0;
     }
-    writeRaw(headerScratch, 0, header.position());
-    return writeToOutputStream(message, outputStreamAdapter);
   }
 
   /**
    * Write a message that has been serialized to a sequence of buffers.
    */
   private void writeBufferChain(BufferChainOutputStream bufferChain, boolean compressed) {
-    ByteBuffer header = ByteBuffer.wrap(headerScratch);
-    header.put(compressed ? COMPRESSED : UNCOMPRESSED);
     int messageLength = bufferChain.readableBytes();
-    header.putInt(messageLength);
+    fillHeader(compressed, messageLength);
     WritableBuffer writeableHeader = bufferAllocator.allocate(HEADER_LENGTH);
-    writeableHeader.write(headerScratch, 0, header.position());
+    writeableHeader.write(headerScratch, 0, HEADER_LENGTH);
     if (messageLength == 0) {
       // the payload had 0 length so make the header the current buffer.
       buffer = writeableHeader;
@@ -263,6 +269,17 @@ public class MessageFramer implements Framer {
     currentMessageWireSize = messageLength;
   }
 
+  /**
+   * Encodes the frame header into {@link #headerScratch} without allocating.
+   */
+  private void fillHeader(boolean compressed, int messageLength) {
+    headerScratch[0] = compressed ? COMPRESSED : UNCOMPRESSED;
+    headerScratch[1] = (byte) (messageLength >>> 24);
+    headerScratch[2] = (byte) (messageLength >>> 16);
+    headerScratch[3] = (byte) (messageLength >>> 8);
+    headerScratch[4] = (byte) messageLength;
+  }
+
   private static int writeToOutputStream(InputStream message, OutputStream outputStream)
       throws IOException {
     if (message instanceof Drainable) {
@@ -283,13 +300,14 @@ public class MessageFramer implements Framer {
         commitToSink(false, false);
       }
       if (buffer == null) {
-        // Request a buffer allocation using the message length as a hint.
-        buffer = bufferAllocator.allocate(len);
+        // Request a buffer allocation using the rest of the frame as a hint, if it is known.
+        buffer = bufferAllocator.allocate(max(len, knownLengthRemaining));
       }
       int toWrite = min(len, buffer.writableBytes());
       buffer.write(b, off, toWrite);
       off += toWrite;
       len -= toWrite;
+      knownLengthRemaining = max(0, knownLengthRemaining - toWrite);
     }
   }
 
@@ -368,6 +386,11 @@ public class MessageFramer implements Framer {
      */
     @Override
     public void write(int b) {
+      if (buffer != null && buffer.writableBytes() > 0) {
+        buffer.write((byte) b);
+        knownLengthRemaining = max(0, knownLengthRemaining - 1);
+        return;
+      }
       byte[] singleByte = new byte[]{(byte)b};
       write(singleByte, 0, 1);
     }
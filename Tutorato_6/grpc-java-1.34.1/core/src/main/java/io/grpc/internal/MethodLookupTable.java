@@ -0,0 +1,153 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.internal;
+
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Immutable table from method names to values that can be queried with any {@link CharSequence},
+ * such as the HTTP/2 {@code :path} header, without first converting it to a {@link String}.
+ *
+ * <p>The table searches for a hash seed under which every name lands in its own slot, so a lookup
+ * is a single probe followed by one comparison. If no such seed is found among a few attempts the
+ * table keeps the last one and resolves the rare collisions by linear probing.
+ */
+final class MethodLookupTable<V> {
+  private static final int SEED_ATTEMPTS = 16;
+  private static final int MAX_TABLE_GROWTH = 4;
+
+  private final String[] keys;
+  private final Object[] values;
+  private final int seed;
+  private final int mask;
+
+  private MethodLookupTable(String[] keys, Object[] values, int seed) {
+    this.keys = keys;
+    this.values = values;
+    this.seed = seed;
+    this.mask = keys.length - 1;
+  }
+
+  static <V> MethodLookupTable<V> create(Map<String, ? extends V> entries) {
+    int minSize = Integer.highestOneBit(Math.max(entries.size(), 1) * 2 - 1) << 1;
+    int size = minSize;
+    int seed = 0;
+    search:
+    for (int growth = 1; growth <= MAX_TABLE_GROWTH; growth *= 2) {
+      size = minSize * growth;
+      for (seed = 0; seed < SEED_ATTEMPTS; seed++) {
+        if (isPerfect(entries, size, seed)) {
+          break search;
+        }
+      }
+    }
+    if (seed == SEED_ATTEMPTS) {
+      seed = 0;
+    }
+    String[] keys = new String[size];
+    Object[] values = new Object[size];
+    int mask = size - 1;
+    for (Map.Entry<String, ? extends V> entry : entries.entrySet()) {
+      String key = entry.getKey();
+      int slot = slot(hash(key, 0, key.length()), seed, mask);
+      while (keys[slot] != null) {
+        slot = (slot + 1) & mask;
+      }
+      keys[slot] = key;
+      values[slot] = entry.getValue();
+    }
+    return new MethodLookupTable<>(keys, values, seed);
+  }
+
+  private static boolean isPerfect(Map<String, ?> entries, int size, int seed) {
+    boolean[] used = new boolean[size];
+    int mask = size - 1;
+    for (String key : entries.keySet()) {
+      int slot = slot(hash(key, 0, key.length()), seed, mask);
+      if (used[slot]) {
+        return false;
+      }
+      used[slot] = true;
+    }
+    return true;
+  }
+
+  /**
+   * Returns the key equal to {@code name.subSequence(start, name.length())}, which lets callers
+   * reuse the table's canonical {@link String} instead of allocating one.
+   */
+  @Nullable
+  String getKey(CharSequence name, int start) {
+    int slot = find(name, start);
+    return slot < 0 ? null : keys[slot];
+  }
+
+  /**
+   * Returns the value for {@code name.subSequence(start, name.length())}, or {@code null}.
+   */
+  @Nullable
+  @SuppressWarnings("unchecked")
+  V get(CharSequence name, int start) {
+    int slot = find(name, start);
+    return slot < 0 ? null : (V) values[slot];
+  }
+
+  private int find(CharSequence name, int start) {
+    int slot = slot(hash(name, start, name.length()), seed, mask);
+    String key;
+    while ((key = keys[slot]) != null) {
+      if (regionEquals(key, name, start)) {
+        return slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return -1;
+  }
+
+  private static boolean regionEquals(String key, CharSequence name, int start) {
+    int len = key.length();
+    if (name.length() - start != len) {
+      return false;
+    }
+    for (int i = 0; i < len; i++) {
+      if (key.charAt(i) != name.charAt(start + i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int hash(CharSequence s, int start, int end) {
+    int h = 0;
+    for (int i = start; i < end; i++) {
+      h = 31 * h + s.charAt(i);
+    }
+    return h;
+  }
+
+  private static int slot(int hash, int seed, int mask) {
+    // Murmur3 finalizer over the seeded hash, so that each seed gives an unrelated layout.
+    int h = hash ^ (seed * 0x9E3779B9);
+    h ^= h >>> 16;
+    h *= 0x85EBCA6B;
+    h ^= h >>> 13;
+    h *= 0xC2B2AE35;
+    h ^= h >>> 16;
+    return h & mask;
+  }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+
+/**
+ * Alternative to {@link SerializingExecutor} whose queue is a multi-producer single-consumer
+ * linked list. Producers append with a single atomic swap of the tail instead of the CAS loop of
+ * {@link java.util.concurrent.ConcurrentLinkedQueue}, and the draining thread unlinks tasks
+ * without any atomic operation.
+ *
+ * <p>After running {@code batchSize} tasks in a row, the executor resubmits itself to the
+ * underlying executor instead of draining until empty, so that a busy call does not monopolize a
+ * thread that other calls are waiting for.
+ */
+final class MpscSerializingExecutor implements Executor, Runnable {
+  private static final Logger log =
+      Logger.getLogger(MpscSerializingExecutor.class.getName());
+
+  /** Underlying executor that all submitted Runnable objects are run on. */
+  private final Executor executor;
+
+  private final int batchSize;
+
+  /**
+   * Consumer end of the queue: a node whose task has already been taken. Only the thread that
+   * holds {@link #running} follows it.
+   */
+  private Node head;
+
+  /** Producer end of the queue. */
+  private final AtomicReference<Node> tail;
+
+  private final AtomicBoolean running = new AtomicBoolean();
+
+  /**
+   * Creates an executor running tasks using {@code executor}, at most {@code batchSize} at a time.
+   */
+  MpscSerializingExecutor(Executor executor, int batchSize) {
+    this.executor = checkNotNull(executor, "'executor' must not be null.");
+    checkArgument(batchSize > 0, "batchSize must be positive: %s", batchSize);
+    this.batchSize = batchSize;
+    this.head = new Node(null);
+    this.tail = new AtomicReference<>(head);
+  }
+
+  /**
+   * Runs the given runnable strictly after all Runnables that were submitted
+   * before it, and using the {@code executor} passed to the constructor.
+   */
+  @Override
+  public void execute(Runnable r) {
+    Node node = new Node(checkNotNull(r, "'r' must not be null."));
+    Node prev = tail.getAndSet(node);
+    prev.next = node;
+    schedule(node);
+  }
+
+  private void schedule(@Nullable Node removable) {
+    if (running.compareAndSet(false, true)) {
+      boolean success = false;
+      try {
+        executor.execute(this);
+        success = true;
+      } finally {
+        // As in SerializingExecutor, a rejected task must not run later when someone else manages
+        // to schedule. No consumer can be running while we hold the running flag, so the task can
+        // be cleared in place and poll() will skip its node.
+        if (!success) {
+          if (removable != null) {
+            removable.task = null;
+          }
+          running.set(false);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void run() {
+    boolean resubmitted = false;
+    try {
+      resubmitted = drain();
+    } finally {
+      if (!resubmitted) {
+        running.set(false);
+      }
+    }
+    if (!resubmitted && !isEmpty()) {
+      // we didn't enqueue anything but someone else did.
+      schedule(null);
+    }
+  }
+
+  /**
+   * Runs queued tasks until the queue is empty or a batch completes with work remaining. Returns
+   * {@code true} if this executor was handed back to the underlying executor, in which case the
+   * caller no longer owns the queue.
+   */
+  private boolean drain() {
+    int ran = 0;
+    Runnable r;
+    while ((r = poll()) != null) {
+      try {
+        r.run();
+      } catch (RuntimeException e) {
+        // Log it and keep going.
+        log.log(Level.SEVERE, "Exception while executing runnable " + r, e);
+      }
+      if (++ran == batchSize) {
+        ran = 0;
+        if (!isEmpty()) {
+          try {
+            executor.execute(this);
+            return true;
+          } catch (RuntimeException e) {
+            // The executor is saturated or shutting down; keep draining on this thread rather
+            // than stranding the remaining tasks.
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  @Nullable
+  private Runnable poll() {
+    while (true) {
+      Node next = head.next;
+      if (next == null) {
+        if (head == tail.get()) {
+          return null;
+        }
+        // A producer has swapped the tail but not yet linked its node. It is about to.
+        continue;
+      }
+      head = next;
+      Runnable task = next.task;
+      next.task = null;
+      if (task != null) {
+        return task;
+      }
+    }
+  }
+
+  private boolean isEmpty() {
+    // May read a stale head when called after releasing the running flag. A stale head can only
+    // make the queue look non-empty, which costs a spurious schedule() at worst.
+    return head == tail.get();
+  }
+
+  private static final class Node {
+    @Nullable
+    Runnable task;
+    volatile Node next;
+
+    Node(@Nullable Runnable task) {
+      this.task = task;
+    }
+  }
+}
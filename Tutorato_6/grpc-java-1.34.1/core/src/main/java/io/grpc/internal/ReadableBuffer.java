@@ -20,6 +20,7 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import javax.annotation.Nullable;
 
 /**
  * Interface for an abstract byte buffer. Buffers are intended to be a read-only, except for the
@@ -123,6 +124,44 @@ public interface ReadableBuffer extends Closeable {
    */
   int arrayOffset();
 
+  /**
+   * Indicates whether or not {@link #mark} and {@link #reset} are supported.
+   */
+  boolean markSupported();
+
+  /**
+   * Marks the current read position. A subsequent call to {@link #reset} restores the read
+   * position to the marked one, keeping any bytes read in between available. This is an optional
+   * method, so callers should first check {@link #markSupported}.
+   */
+  void mark();
+
+  /**
+   * Repositions this buffer to the position at the time {@link #mark} was last called.
+   *
+   * @throws UnsupportedOperationException the buffer does not support this method
+   * @throws java.nio.InvalidMarkException {@link #mark} has not been called
+   */
+  void reset();
+
+  /**
+   * Indicates whether or not {@link #getByteBuffer} is supported.
+   */
+  boolean byteBufferSupported();
+
+  /**
+   * Gets a {@link ByteBuffer} view of some of the readable bytes, starting at the current read
+   * position, without copying. The number of bytes in the returned buffer is implementation
+   * specific and may be fewer than {@link #readableBytes}. Calling this method does not change
+   * the read position. This is an optional method, so callers should first check {@link
+   * #byteBufferSupported}.
+   *
+   * @return the view, or {@code null} if there are no readable bytes
+   * @throws UnsupportedOperationException the buffer does not support this method
+   */
+  @Nullable
+  ByteBuffer getByteBuffer();
+
   /**
    * Closes this buffer and releases any resources.
    */
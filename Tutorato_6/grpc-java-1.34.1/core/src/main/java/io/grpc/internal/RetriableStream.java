@@ -27,6 +27,7 @@ import io.grpc.ClientStreamTracer;
 import io.grpc.Compressor;
 import io.grpc.Deadline;
 import io.grpc.DecompressorRegistry;
+import io.grpc.InternalChannelz;
 import io.grpc.Metadata;
 import io.grpc.MethodDescriptor;
 import io.grpc.Status;
@@ -198,6 +199,9 @@ abstract class RetriableStream<ReqT> implements ClientStream {
     Runnable postCommitTask = commit(winningSubstream);
 
     if (postCommitTask != null) {
+      channelBufferUsed.recordCommit(
+          winningSubstream.bufferLimitExceeded, isHedging,
+          winningSubstream.previousAttemptCount > 0);
       postCommitTask.run();
     }
   }
@@ -1256,6 +1260,7 @@ abstract class RetriableStream<ReqT> implements ClientStream {
       }
 
       if (postCommitTask != null) {
+        channelBufferUsed.recordCommit(true, isHedging, substream.previousAttemptCount > 0);
         postCommitTask.run();
       }
     }
@@ -1264,14 +1269,63 @@ abstract class RetriableStream<ReqT> implements ClientStream {
   /**
    *  Used to keep track of the total amount of memory used to buffer retryable or hedged RPCs for
    *  the Channel. There should be a single instance of it for each channel.
+   *
+   *  <p>It also counts how retryable and hedged RPCs of the channel were committed, which is
+   *  reported in the channel's {@link InternalChannelz.ChannelStats}.
    */
   static final class ChannelBufferMeter {
     private final AtomicLong bufferUsed = new AtomicLong();
+    private final AtomicLong commitsDueToBufferLimit = new AtomicLong();
+    private final AtomicLong hedgedCallsCommitted = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
 
     @VisibleForTesting
     long addAndGet(long newBytesUsed) {
       return bufferUsed.addAndGet(newBytesUsed);
     }
+
+    /**
+     * Records that an RPC committed to one of its attempts, other than by being cancelled.
+     *
+     * @param bufferLimitExceeded whether the RPC committed because the buffer limit was exceeded,
+     *     which stops any further retry or hedging
+     * @param hedged whether the RPC has a hedging policy
+     * @param laterAttemptWon whether the winning attempt was not the first one
+     */
+    void recordCommit(boolean bufferLimitExceeded, boolean hedged, boolean laterAttemptWon) {
+      if (bufferLimitExceeded) {
+        commitsDueToBufferLimit.incrementAndGet();
+      }
+      if (hedged) {
+        hedgedCallsCommitted.incrementAndGet();
+        if (laterAttemptWon) {
+          hedgeWins.incrementAndGet();
+        }
+      }
+    }
+
+    /** Returns the number of RPCs that stopped retrying or hedging as the buffer ran full. */
+    long getCommitsDueToBufferLimit() {
+      return commitsDueToBufferLimit.get();
+    }
+
+    /** Returns the number of committed RPCs with a hedging policy. */
+    long getHedgedCallsCommitted() {
+      return hedgedCallsCommitted.get();
+    }
+
+    /** Returns the number of hedged RPCs in which a hedge, not the first attempt, won. */
+    long getHedgeWins() {
+      return hedgeWins.get();
+    }
+
+    void updateBuilder(InternalChannelz.ChannelStats.Builder builder) {
+      builder
+          .setRetryBufferedBytes(bufferUsed.get())
+          .setRetryCommitsDueToBufferLimit(commitsDueToBufferLimit.get())
+          .setHedgedCallsCommitted(hedgedCallsCommitted.get())
+          .setHedgeWins(hedgeWins.get());
+    }
   }
 
   /**
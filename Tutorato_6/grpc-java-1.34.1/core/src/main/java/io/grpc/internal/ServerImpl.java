@@ -71,6 +71,7 @@ import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.GuardedBy;
 
 /**
@@ -95,7 +96,13 @@ public final class ServerImpl extends io.grpc.Server implements InternalInstrume
   private final ObjectPool<? extends Executor> executorPool;
   /** Executor for application processing. Safe to read after {@link #start()}. */
   private Executor executor;
-  private final HandlerRegistry registry;
+  /**
+   * Orders calls on {@link #executor} by deadline, or {@code null} to keep arrival order. Safe to
+   * read after {@link #start()}.
+   */
+  @Nullable
+  private DeadlineAwareExecutor deadlineAwareExecutor;
+  private final InternalHandlerRegistry registry;
   private final HandlerRegistry fallbackRegistry;
   private final List<ServerTransportFilter> transportFilters;
   // This is iterated on a per-call basis.  Use an array instead of a Collection to avoid iterator
@@ -122,6 +129,8 @@ public final class ServerImpl extends io.grpc.Server implements InternalInstrume
   private final DecompressorRegistry decompressorRegistry;
   private final CompressorRegistry compressorRegistry;
   private final BinaryLog binlog;
+  private final int callbackBatchSize;
+  private final long maxQueueDelayNanos;
 
   private final InternalChannelz channelz;
   private final CallTracer serverCallTracer;
@@ -158,6 +167,8 @@ public final class ServerImpl extends io.grpc.Server implements InternalInstrume
         builder.interceptors.toArray(new ServerInterceptor[builder.interceptors.size()]);
     this.handshakeTimeoutMillis = builder.handshakeTimeoutMillis;
     this.binlog = builder.binlog;
+    this.callbackBatchSize = builder.callbackBatchSize;
+    this.maxQueueDelayNanos = builder.maxQueueDelayNanos;
     this.channelz = builder.channelz;
     this.serverCallTracer = builder.callTracerFactory.create();
     this.ticker = checkNotNull(builder.ticker, "ticker");
@@ -184,6 +195,9 @@ public final class ServerImpl extends io.grpc.Server implements InternalInstrume
         activeTransportServers++;
       }
       executor = Preconditions.checkNotNull(executorPool.getObject(), "executor");
+      if (maxQueueDelayNanos > 0 && executor != directExecutor()) {
+        deadlineAwareExecutor = new DeadlineAwareExecutor(executor, maxQueueDelayNanos, ticker);
+      }
       started = true;
       return this;
     }
@@ -441,6 +455,12 @@ public final class ServerImpl extends io.grpc.Server implements InternalInstrume
       channelz.addServerSocket(ServerImpl.this, transport);
     }
 
+    @Override
+    @Nullable
+    public String lookupMethodName(CharSequence path, int start) {
+      return registry.lookupMethodName(path, start);
+    }
+
     @Override
     public Attributes transportReady(Attributes attributes) {
       handshakeTimeoutFuture.cancel(false);
@@ -480,16 +500,6 @@ public final class ServerImpl extends io.grpc.Server implements InternalInstrume
 
     private void streamCreatedInternal(
         final ServerStream stream, final String methodName, final Metadata headers, final Tag tag) {
-      final Executor wrappedExecutor;
-      // This is a performance optimization that avoids the synchronization and queuing overhead
-      // that comes with SerializingExecutor.
-      if (executor == directExecutor()) {
-        wrappedExecutor = new SerializeReentrantCallsDirectExecutor();
-        stream.optimizeForDirectExecutor();
-      } else {
-        wrappedExecutor = new SerializingExecutor(executor);
-      }
-
       if (headers.containsKey(MESSAGE_ENCODING_KEY)) {
         String encoding = headers.get(MESSAGE_ENCODING_KEY);
         Decompressor decompressor = decompressorRegistry.lookupDecompressor(encoding);
@@ -509,6 +519,20 @@ public final class ServerImpl extends io.grpc.Server implements InternalInstrume
 
       final Context.CancellableContext context = createContext(headers, statsTraceCtx);
 
+      final Executor wrappedExecutor;
+      // This is a performance optimization that avoids the synchronization and queuing overhead
+      // that comes with SerializingExecutor.
+      if (executor == directExecutor()) {
+        wrappedExecutor = new SerializeReentrantCallsDirectExecutor();
+        stream.optimizeForDirectExecutor();
+      } else {
+        Executor callExecutor = deadlineAwareExecutor == null
+            ? executor : deadlineAwareExecutor.forCall(context.getDeadline(), statsTraceCtx);
+        wrappedExecutor = callbackBatchSize == 0
+            ? new SerializingExecutor(callExecutor)
+            : new MpscSerializingExecutor(callExecutor, callbackBatchSize);
+      }
+
       final Link link = PerfMark.linkOut();
 
       final JumpToApplicationThreadServerStreamListener jumpListener
@@ -538,6 +562,14 @@ public final class ServerImpl extends io.grpc.Server implements InternalInstrume
         private void runInternal() {
           ServerStreamListener listener = NOOP_LISTENER;
           try {
+            if (deadlineAwareExecutor != null && context.getDeadline() != null
+                && context.getDeadline().isExpired()) {
+              // The call waited in the executor past its deadline, so don't spend any work on it.
+              stream.cancel(
+                  Status.DEADLINE_EXCEEDED.withDescription("Deadline expired before call started"));
+              context.cancel(null);
+              return;
+            }
             ServerMethodDefinition<?, ?> method = registry.lookupMethod(methodName);
             if (method == null) {
               method = fallbackRegistry.lookupMethod(methodName, stream.getAuthority());
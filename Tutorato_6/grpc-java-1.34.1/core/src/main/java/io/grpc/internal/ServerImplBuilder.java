@@ -63,6 +63,8 @@ public final class ServerImplBuilder extends ServerBuilder<ServerImplBuilder> {
   // defaults
   private static final ObjectPool<? extends Executor> DEFAULT_EXECUTOR_POOL =
       SharedResourcePool.forResource(GrpcUtil.SHARED_CHANNEL_EXECUTOR);
+  private static final ObjectPool<? extends Executor> VIRTUAL_THREAD_EXECUTOR_POOL =
+      SharedResourcePool.forResource(GrpcUtil.SHARED_VIRTUAL_THREAD_EXECUTOR);
   private static final HandlerRegistry DEFAULT_FALLBACK_REGISTRY = new DefaultFallbackRegistry();
   private static final DecompressorRegistry DEFAULT_DECOMPRESSOR_REGISTRY =
       DecompressorRegistry.getDefaultInstance();
@@ -89,6 +91,10 @@ public final class ServerImplBuilder extends ServerBuilder<ServerImplBuilder> {
   private boolean recordRealTimeMetrics = false;
   private boolean tracingEnabled = true;
   @Nullable BinaryLog binlog;
+  // Zero selects SerializingExecutor.
+  int callbackBatchSize;
+  // Zero keeps calls in arrival order.
+  long maxQueueDelayNanos;
   InternalChannelz channelz = InternalChannelz.instance();
   CallTracer.Factory callTracerFactory = CallTracer.getDefaultFactory();
 
@@ -120,6 +126,13 @@ public final class ServerImplBuilder extends ServerBuilder<ServerImplBuilder> {
     return this;
   }
 
+  @Override
+  public ServerImplBuilder virtualThreadExecutor() {
+    this.executorPool = GrpcUtil.virtualThreadsSupported()
+        ? VIRTUAL_THREAD_EXECUTOR_POOL : DEFAULT_EXECUTOR_POOL;
+    return this;
+  }
+
   @Override
   public ServerImplBuilder addService(ServerServiceDefinition service) {
     registryBuilder.addService(checkNotNull(service, "service"));
@@ -180,6 +193,20 @@ public final class ServerImplBuilder extends ServerBuilder<ServerImplBuilder> {
     return this;
   }
 
+  @Override
+  public ServerImplBuilder callbackBatchSize(int maxCallbacks) {
+    checkArgument(maxCallbacks > 0, "maxCallbacks must be positive");
+    this.callbackBatchSize = maxCallbacks;
+    return this;
+  }
+
+  @Override
+  public ServerImplBuilder prioritizeCallsByDeadline(long maxQueueDelay, TimeUnit unit) {
+    checkArgument(maxQueueDelay > 0, "maxQueueDelay must be positive");
+    this.maxQueueDelayNanos = checkNotNull(unit, "unit").toNanos(maxQueueDelay);
+    return this;
+  }
+
   /**
    * Disable or enable stats features.  Enabled by default.
    */
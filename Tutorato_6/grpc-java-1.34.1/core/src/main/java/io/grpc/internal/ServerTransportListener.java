@@ -18,6 +18,7 @@ package io.grpc.internal;
 
 import io.grpc.Attributes;
 import io.grpc.Metadata;
+import javax.annotation.Nullable;
 
 /**
  * A observer of a server-side transport for stream creation events. Notifications must occur from
@@ -33,6 +34,15 @@ public interface ServerTransportListener {
    */
   void streamCreated(ServerStream stream, String method, Metadata headers);
 
+  /**
+   * Returns the name of a registered method equal to {@code path} from index {@code start}, so
+   * that the transport can pass it to {@link #streamCreated} instead of building a new String.
+   * Returns {@code null} if the method is not known up front, in which case the transport must
+   * build the name itself.
+   */
+  @Nullable
+  String lookupMethodName(CharSequence path, int start);
+
   /**
    * The transport has finished all handshakes and is ready to process streams.
    *
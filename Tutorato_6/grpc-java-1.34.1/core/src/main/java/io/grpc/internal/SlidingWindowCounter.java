@@ -0,0 +1,135 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.base.MoreObjects;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Lock-free count of events over a sliding time window. The window is divided into slots, so
+ * counts are accurate to one slot's duration.
+ *
+ * <p>Each slot of time maps to a fixed position of a ring, which is claimed with a compare-and-set
+ * by the first event of the slot. Events therefore never wait on each other, including when the
+ * window moves on.
+ */
+@ThreadSafe
+public final class SlidingWindowCounter {
+  /**
+   * The number of slots. This value determines the accuracy of {@link #get} to interval /
+   * NUM_SLOTS.
+   */
+  private static final int NUM_SLOTS = 50;
+
+  private static final Slot EMPTY_SLOT = new Slot(Long.MIN_VALUE);
+
+  private final AtomicReferenceArray<Slot> slots = new AtomicReferenceArray<>(NUM_SLOTS);
+  private final long intervalNanos;
+  private final long slotNanos;
+
+  /**
+   * Creates a counter of the events in the last {@code intervalNanos}.
+   *
+   * @throws IllegalArgumentException if the interval is too small to be divided into slots
+   */
+  public SlidingWindowCounter(long intervalNanos) {
+    checkArgument(intervalNanos >= NUM_SLOTS, "Interval must be at least %s", NUM_SLOTS);
+    this.intervalNanos = intervalNanos;
+    this.slotNanos = intervalNanos / NUM_SLOTS;
+    for (int i = 0; i < NUM_SLOTS; i++) {
+      slots.set(i, EMPTY_SLOT);
+    }
+  }
+
+  /** Returns the interval covered by this counter. */
+  public long getIntervalNanos() {
+    return intervalNanos;
+  }
+
+  /** Counts an event at time {@code nowNanos}. */
+  public void increment(long nowNanos) {
+    long slotNumber = slotNumber(nowNanos);
+    int index = (int) (slotNumber % NUM_SLOTS);
+    if (index < 0) {
+      index += NUM_SLOTS;
+    }
+    while (true) {
+      Slot slot = slots.get(index);
+      if (slot.slotNumber == slotNumber) {
+        slot.increment();
+        return;
+      }
+      if (slot.slotNumber > slotNumber) {
+        // A full window passed since this event's time; the event is no longer counted anyway.
+        return;
+      }
+      Slot newSlot = new Slot(slotNumber);
+      newSlot.count = 1;
+      if (slots.compareAndSet(index, slot, newSlot)) {
+        return;
+      }
+    }
+  }
+
+  /** Returns the number of events in the window ending at {@code nowNanos}. */
+  public long get(long nowNanos) {
+    long lastSlotNumber = slotNumber(nowNanos);
+    long firstSlotNumber = lastSlotNumber - NUM_SLOTS + 1;
+    long count = 0;
+    for (int i = 0; i < NUM_SLOTS; i++) {
+      Slot slot = slots.get(i);
+      if (slot.slotNumber >= firstSlotNumber && slot.slotNumber <= lastSlotNumber) {
+        count += slot.count;
+      }
+    }
+    return count;
+  }
+
+  /** Rounds down, as {@link System#nanoTime} may be negative. */
+  private long slotNumber(long nanos) {
+    return nanos >= 0 ? nanos / slotNanos : -((-nanos - 1) / slotNanos) - 1;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("intervalNanos", intervalNanos)
+        .add("slotNanos", slotNanos)
+        .toString();
+  }
+
+  private static final class Slot {
+    private static final AtomicLongFieldUpdater<Slot> COUNT_UPDATER =
+        AtomicLongFieldUpdater.newUpdater(Slot.class, "count");
+
+    /** The start time of this slot divided by the slot duration. */
+    final long slotNumber;
+    volatile long count;
+
+    Slot(long slotNumber) {
+      this.slotNumber = slotNumber;
+    }
+
+    void increment() {
+      COUNT_UPDATER.incrementAndGet(this);
+    }
+  }
+}
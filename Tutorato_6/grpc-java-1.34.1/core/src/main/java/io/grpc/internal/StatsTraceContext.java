@@ -153,6 +153,17 @@ public final class StatsTraceContext {
     }
   }
 
+  /**
+   * See {@link ServerStreamTracer#executorQueueDelay}.  For server-side only.
+   *
+   * <p>Called from {@link io.grpc.internal.DeadlineAwareExecutor}.
+   */
+  public void serverExecutorQueueDelay(long delayNanos) {
+    for (StreamTracer tracer : tracers) {
+      ((ServerStreamTracer) tracer).executorQueueDelay(delayNanos);
+    }
+  }
+
   /**
    * See {@link StreamTracer#streamClosed}. This may be called multiple times, and only the first
    * value will be taken.
@@ -38,6 +38,10 @@ public final class TransportTracer {
   private long keepAlivesSent;
   private FlowControlReader flowControlWindowReader;
 
+  private long flushes;
+  private long flushedCommands;
+  private long flushedBytes;
+
   private long messagesSent;
   private long lastMessageSentTimeNanos;
   // deframing happens on the application thread, and there's no easy way to avoid synchronization
@@ -128,6 +132,37 @@ public final class TransportTracer {
     keepAlivesSent++;
   }
 
+  /**
+   * Reports that the transport flushed {@code commands} queued write commands, carrying
+   * {@code bytes} bytes of message payload, to the socket.
+   */
+  public void reportFlush(int commands, long bytes) {
+    flushes++;
+    flushedCommands += commands;
+    flushedBytes += bytes;
+  }
+
+  /**
+   * Returns the number of flushes reported by {@link #reportFlush}.
+   */
+  public long getFlushCount() {
+    return flushes;
+  }
+
+  /**
+   * Returns the average number of write commands per flush, or 0 if there were no flushes.
+   */
+  public double getCommandsPerFlush() {
+    return flushes == 0 ? 0 : (double) flushedCommands / flushes;
+  }
+
+  /**
+   * Returns the average number of payload bytes per flush, or 0 if there were no flushes.
+   */
+  public double getBytesPerFlush() {
+    return flushes == 0 ? 0 : (double) flushedBytes / flushes;
+  }
+
   /**
    * Registers a {@link FlowControlReader} that can be used to read the local and remote flow
    * control window sizes.
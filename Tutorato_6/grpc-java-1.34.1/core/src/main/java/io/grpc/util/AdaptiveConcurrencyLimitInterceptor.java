@@ -0,0 +1,314 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Ticker;
+import io.grpc.ExperimentalApi;
+import io.grpc.ForwardingServerCall.SimpleForwardingServerCall;
+import io.grpc.ForwardingServerCallListener.SimpleForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A {@link ServerInterceptor} that limits the number of calls the server handles at once, and
+ * fails calls beyond the limit with {@link Status#RESOURCE_EXHAUSTED} without running them.
+ *
+ * <p>The limit adapts to the latency of completed calls, using a gradient of the recent average
+ * latency against a long-term average. While latency stays close to the long-term average the
+ * limit grows, leaving room for a queue of about the square root of the limit. When latency rises,
+ * which happens once requests queue up somewhere in the server, the limit shrinks in proportion.
+ * The limit only grows while at least half of it is in use, so that an idle server does not raise
+ * it without evidence that it can handle the load.
+ *
+ * <p>Latency is measured from interception to the call being closed, so it includes any time the
+ * call spent waiting in the server's executor before being intercepted. Calls are only rejected
+ * once they reach the interceptor, so the limit is most effective with an executor that does not
+ * queue, such as {@code directExecutor()} with service handlers that hand off their work.
+ *
+ * @since 1.35.0
+ */
+@ExperimentalApi("The limiting algorithm and its parameters may still change")
+@ThreadSafe
+public final class AdaptiveConcurrencyLimitInterceptor implements ServerInterceptor {
+  /** Weight of each sample window in the long-term average latency. */
+  private static final double LONG_TERM_SMOOTHING = 0.05;
+
+  private final Ticker ticker;
+  private final int minLimit;
+  private final int maxLimit;
+  private final double smoothing;
+  private final double tolerance;
+  private final int sampleWindow;
+
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicLong rejectedCalls = new AtomicLong();
+  private volatile int limit;
+
+  private final Object lock = new Object();
+  @GuardedBy("lock")
+  private double estimatedLimit;
+  @GuardedBy("lock")
+  private double longTermLatencyNanos;
+  @GuardedBy("lock")
+  private long windowLatencySumNanos;
+  @GuardedBy("lock")
+  private int windowSamples;
+  @GuardedBy("lock")
+  private int windowMaxInFlight;
+
+  private AdaptiveConcurrencyLimitInterceptor(Builder builder) {
+    this.ticker = builder.ticker;
+    this.minLimit = builder.minLimit;
+    this.maxLimit = builder.maxLimit;
+    this.smoothing = builder.smoothing;
+    this.tolerance = builder.tolerance;
+    this.sampleWindow = builder.sampleWindow;
+    this.estimatedLimit = builder.initialLimit;
+    this.limit = builder.initialLimit;
+  }
+
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  @Override
+  public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+      ServerCall<ReqT, RespT> call, Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+    if (!tryAcquire()) {
+      rejectedCalls.getAndIncrement();
+      call.close(
+          Status.RESOURCE_EXHAUSTED.withDescription(
+              "Server concurrency limit of " + limit + " calls reached"),
+          new Metadata());
+      return new ServerCall.Listener<ReqT>() {};
+    }
+    final CallRecord record = new CallRecord(ticker.read());
+    ServerCall<ReqT, RespT> limitedCall = new SimpleForwardingServerCall<ReqT, RespT>(call) {
+      @Override
+      public void close(Status status, Metadata trailers) {
+        release(record, status.isOk());
+        super.close(status, trailers);
+      }
+    };
+    ServerCall.Listener<ReqT> listener;
+    try {
+      listener = next.startCall(limitedCall, headers);
+    } catch (RuntimeException e) {
+      release(record, false);
+      throw e;
+    }
+    return new SimpleForwardingServerCallListener<ReqT>(listener) {
+      @Override
+      public void onCancel() {
+        release(record, false);
+        super.onCancel();
+      }
+
+      @Override
+      public void onComplete() {
+        release(record, false);
+        super.onComplete();
+      }
+    };
+  }
+
+  /** Returns the current limit on concurrent calls. */
+  public int getLimit() {
+    return limit;
+  }
+
+  /** Returns the number of calls being handled. */
+  public int getInFlightCalls() {
+    return inFlight.get();
+  }
+
+  /** Returns the number of calls rejected because the limit was reached. */
+  public long getRejectedCalls() {
+    return rejectedCalls.get();
+  }
+
+  private boolean tryAcquire() {
+    while (true) {
+      int current = inFlight.get();
+      if (current >= limit) {
+        return false;
+      }
+      if (inFlight.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Releases the slot of a call once. The latency of calls closed with OK is used to adapt the
+   * limit; failed or cancelled calls only free their slot.
+   */
+  private void release(CallRecord record, boolean sample) {
+    if (!record.released.compareAndSet(false, true)) {
+      return;
+    }
+    int inFlightAtRelease = inFlight.getAndDecrement();
+    if (sample) {
+      onSample(ticker.read() - record.startNanos, inFlightAtRelease);
+    }
+  }
+
+  private void onSample(long latencyNanos, int inFlightAtRelease) {
+    synchronized (lock) {
+      windowLatencySumNanos += Math.max(latencyNanos, 1);
+      windowMaxInFlight = Math.max(windowMaxInFlight, inFlightAtRelease);
+      if (++windowSamples < sampleWindow) {
+        return;
+      }
+      double shortTermLatencyNanos = (double) windowLatencySumNanos / windowSamples;
+      int maxInFlight = windowMaxInFlight;
+      windowLatencySumNanos = 0;
+      windowSamples = 0;
+      windowMaxInFlight = 0;
+
+      if (longTermLatencyNanos == 0) {
+        longTermLatencyNanos = shortTermLatencyNanos;
+      } else {
+        longTermLatencyNanos = longTermLatencyNanos * (1 - LONG_TERM_SMOOTHING)
+            + shortTermLatencyNanos * LONG_TERM_SMOOTHING;
+        // Latency dropped well below the long-term average, e.g. after a load spike passed, so
+        // forget the spike faster than the average alone would.
+        if (longTermLatencyNanos > 2 * shortTermLatencyNanos) {
+          longTermLatencyNanos *= 0.9;
+        }
+      }
+
+      double gradient =
+          Math.max(0.5, Math.min(1.0, tolerance * longTermLatencyNanos / shortTermLatencyNanos));
+      if (gradient == 1.0 && maxInFlight < estimatedLimit / 2) {
+        // The server is not busy enough to tell whether it could take more calls.
+        return;
+      }
+      double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+      newLimit = estimatedLimit * (1 - smoothing) + newLimit * smoothing;
+      estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+      limit = (int) estimatedLimit;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("limit", limit)
+        .add("inFlightCalls", inFlight.get())
+        .add("rejectedCalls", rejectedCalls.get())
+        .toString();
+  }
+
+  private static final class CallRecord {
+    final long startNanos;
+    final AtomicBoolean released = new AtomicBoolean();
+
+    CallRecord(long startNanos) {
+      this.startNanos = startNanos;
+    }
+  }
+
+  /** Builder for {@link AdaptiveConcurrencyLimitInterceptor}. */
+  public static final class Builder {
+    private Ticker ticker = Ticker.systemTicker();
+    private int initialLimit = 20;
+    private int minLimit = 1;
+    private int maxLimit = 1000;
+    private double smoothing = 0.2;
+    private double tolerance = 1.5;
+    private int sampleWindow = 50;
+
+    private Builder() {}
+
+    /** Sets the limit used until enough calls completed to adapt it. Defaults to 20. */
+    public Builder setInitialLimit(int initialLimit) {
+      checkArgument(initialLimit > 0, "initialLimit must be positive");
+      this.initialLimit = initialLimit;
+      return this;
+    }
+
+    /** Sets the lowest the limit can go. Defaults to 1. */
+    public Builder setMinLimit(int minLimit) {
+      checkArgument(minLimit > 0, "minLimit must be positive");
+      this.minLimit = minLimit;
+      return this;
+    }
+
+    /** Sets the highest the limit can go. Defaults to 1000. */
+    public Builder setMaxLimit(int maxLimit) {
+      checkArgument(maxLimit > 0, "maxLimit must be positive");
+      this.maxLimit = maxLimit;
+      return this;
+    }
+
+    /**
+     * Sets how far, between 0 (exclusive) and 1, the limit moves towards its new estimate each
+     * time it is updated. Defaults to 0.2.
+     */
+    public Builder setSmoothing(double smoothing) {
+      checkArgument(smoothing > 0 && smoothing <= 1, "smoothing must be in (0, 1]");
+      this.smoothing = smoothing;
+      return this;
+    }
+
+    /**
+     * Sets how many times the long-term average latency recent latency may reach before the limit
+     * starts shrinking. Defaults to 1.5.
+     */
+    public Builder setTolerance(double tolerance) {
+      checkArgument(tolerance >= 1, "tolerance must be at least 1");
+      this.tolerance = tolerance;
+      return this;
+    }
+
+    /** Sets the number of completed calls whose latencies are averaged per update. */
+    public Builder setSampleWindow(int sampleWindow) {
+      checkArgument(sampleWindow > 0, "sampleWindow must be positive");
+      this.sampleWindow = sampleWindow;
+      return this;
+    }
+
+    @VisibleForTesting
+    Builder setTicker(Ticker ticker) {
+      this.ticker = checkNotNull(ticker, "ticker");
+      return this;
+    }
+
+    /** Builds the interceptor. */
+    public AdaptiveConcurrencyLimitInterceptor build() {
+      checkArgument(minLimit <= maxLimit, "minLimit must not exceed maxLimit");
+      checkArgument(
+          minLimit <= initialLimit && initialLimit <= maxLimit,
+          "initialLimit must be between minLimit and maxLimit");
+      return new AdaptiveConcurrencyLimitInterceptor(this);
+    }
+  }
+}
@@ -0,0 +1,325 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Ticker;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.Context;
+import io.grpc.ExperimentalApi;
+import io.grpc.ForwardingClientCall.SimpleForwardingClientCall;
+import io.grpc.ForwardingClientCallListener.SimpleForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.grpc.internal.GrpcUtil;
+import io.grpc.internal.SerializingExecutor;
+import io.grpc.internal.SharedResourceHolder;
+import io.grpc.internal.SlidingWindowCounter;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A {@link ClientInterceptor} that fails calls at the client, without sending them, while the
+ * backends reject too many of them. This is the adaptive throttling of the Google SRE book, as
+ * used for RLS requests. A call is failed at the client with probability
+ * <pre>
+ *   (requests - ratioForAccepts * accepts) / (requests + requestsPadding)
+ * </pre>
+ * where requests is the number of calls made over the history period, including the ones failed
+ * at the client, and accepts is the number of those the backend did not reject. A call is rejected
+ * by the backend if it fails with {@link Status.Code#RESOURCE_EXHAUSTED} or
+ * {@link Status.Code#UNAVAILABLE}; calls failed at the client fail with {@code UNAVAILABLE} too.
+ *
+ * <p>Statistics are kept separately for each target ({@link Channel#authority}) and method, so an
+ * instance can be shared by several channels. They are kept in lock-free sliding windows, so
+ * recording a call never blocks. Statistics with no calls over the history period are dropped,
+ * at most once per history period, since they throttle nothing.
+ *
+ * @since 1.35.0
+ */
+@ExperimentalApi("The throttling parameters and the codes counted as rejections may still change")
+@ThreadSafe
+public final class AdaptiveThrottlingInterceptor implements ClientInterceptor {
+  private final Ticker ticker;
+  private final long historyNanos;
+  private final int requestsPadding;
+  private final float ratioForAccepts;
+  private final ConcurrentMap<ThrottleKey, Throttle> throttles = new ConcurrentHashMap<>();
+  private final AtomicLong lastPruneNanos;
+
+  private AdaptiveThrottlingInterceptor(Builder builder) {
+    this.ticker = builder.ticker;
+    this.historyNanos = TimeUnit.SECONDS.toNanos(builder.historySeconds);
+    this.requestsPadding = builder.requestsPadding;
+    this.ratioForAccepts = builder.ratioForAccepts;
+    this.lastPruneNanos = new AtomicLong(ticker.read());
+  }
+
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  @Override
+  public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+      MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+    final Throttle throttle = getThrottle(next.authority(), method.getFullMethodName());
+    if (throttle.shouldThrottle(ThreadLocalRandom.current().nextFloat())) {
+      return new ThrottledCall<>(callOptions.getExecutor());
+    }
+    return new SimpleForwardingClientCall<ReqT, RespT>(next.newCall(method, callOptions)) {
+      @Override
+      public void start(Listener<RespT> responseListener, Metadata headers) {
+        super.start(new SimpleForwardingClientCallListener<RespT>(responseListener) {
+          @Override
+          public void onClose(Status status, Metadata trailers) {
+            throttle.registerBackendResponse(isRejection(status));
+            super.onClose(status, trailers);
+          }
+        }, headers);
+      }
+    };
+  }
+
+  /**
+   * Returns the probability with which the next call of {@code fullMethodName} on a channel to
+   * {@code target} is failed at the client. A negative value means no call is failed.
+   */
+  @VisibleForTesting
+  float getThrottleProbability(@Nullable String target, String fullMethodName) {
+    return getThrottle(target, fullMethodName).getThrottleProbability(ticker.read());
+  }
+
+  private Throttle getThrottle(@Nullable String target, String fullMethodName) {
+    maybePrune();
+    ThrottleKey key = new ThrottleKey(target, fullMethodName);
+    Throttle throttle = throttles.get(key);
+    if (throttle == null) {
+      throttle = new Throttle();
+      Throttle existing = throttles.putIfAbsent(key, throttle);
+      if (existing != null) {
+        throttle = existing;
+      }
+    }
+    return throttle;
+  }
+
+  /**
+   * Drops the statistics of methods without calls over the history period, at most once per
+   * history period. A call racing with the removal of its statistics may go unrecorded.
+   */
+  private void maybePrune() {
+    long nowNanos = ticker.read();
+    long lastPrune = lastPruneNanos.get();
+    if (nowNanos - lastPrune < historyNanos || !lastPruneNanos.compareAndSet(lastPrune, nowNanos)) {
+      return;
+    }
+    Iterator<Throttle> iterator = throttles.values().iterator();
+    while (iterator.hasNext()) {
+      if (iterator.next().requests.get(nowNanos) == 0) {
+        iterator.remove();
+      }
+    }
+  }
+
+  @VisibleForTesting
+  int getThrottleCount() {
+    return throttles.size();
+  }
+
+  private static boolean isRejection(Status status) {
+    return status.getCode() == Status.Code.RESOURCE_EXHAUSTED
+        || status.getCode() == Status.Code.UNAVAILABLE;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("historyNanos", historyNanos)
+        .add("requestsPadding", requestsPadding)
+        .add("ratioForAccepts", ratioForAccepts)
+        .add("throttles", throttles.size())
+        .toString();
+  }
+
+  /** Statistics of calls of one method on one target. */
+  private final class Throttle {
+    final SlidingWindowCounter requests = new SlidingWindowCounter(historyNanos);
+    final SlidingWindowCounter rejections = new SlidingWindowCounter(historyNanos);
+
+    boolean shouldThrottle(float random) {
+      long nowNanos = ticker.read();
+      if (getThrottleProbability(nowNanos) <= random) {
+        return false;
+      }
+      requests.increment(nowNanos);
+      rejections.increment(nowNanos);
+      return true;
+    }
+
+    float getThrottleProbability(long nowNanos) {
+      long requestCount = requests.get(nowNanos);
+      long accepts = requestCount - rejections.get(nowNanos);
+      return (requestCount - ratioForAccepts * accepts) / (requestCount + requestsPadding);
+    }
+
+    void registerBackendResponse(boolean rejected) {
+      long nowNanos = ticker.read();
+      requests.increment(nowNanos);
+      if (rejected) {
+        rejections.increment(nowNanos);
+      }
+    }
+  }
+
+  private static final class ThrottleKey {
+    @Nullable
+    final String target;
+    final String fullMethodName;
+
+    ThrottleKey(@Nullable String target, String fullMethodName) {
+      this.target = target;
+      this.fullMethodName = checkNotNull(fullMethodName, "fullMethodName");
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof ThrottleKey)) {
+        return false;
+      }
+      ThrottleKey that = (ThrottleKey) o;
+      return fullMethodName.equals(that.fullMethodName)
+          && (target == null ? that.target == null : target.equals(that.target));
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * fullMethodName.hashCode() + (target == null ? 0 : target.hashCode());
+    }
+  }
+
+  /**
+   * A call failed at the client, which never reaches the channel. Like calls the channel fails
+   * before starting, it is closed on the call's executor rather than inside {@link #start}, or on
+   * the shared channel executor if the call has none.
+   */
+  private static final class ThrottledCall<ReqT, RespT> extends ClientCall<ReqT, RespT> {
+    private static final Status THROTTLED =
+        Status.UNAVAILABLE.withDescription("Throttled by client-side adaptive throttling");
+
+    @Nullable
+    private final Executor executor;
+
+    ThrottledCall(@Nullable Executor executor) {
+      this.executor = executor;
+    }
+
+    @Override
+    public void start(final Listener<RespT> responseListener, Metadata headers) {
+      final Executor sharedExecutor =
+          executor == null ? SharedResourceHolder.get(GrpcUtil.SHARED_CHANNEL_EXECUTOR) : null;
+      Executor callExecutor =
+          new SerializingExecutor(executor != null ? executor : sharedExecutor);
+      callExecutor.execute(Context.current().wrap(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            responseListener.onClose(THROTTLED, new Metadata());
+          } finally {
+            if (sharedExecutor != null) {
+              SharedResourceHolder.release(GrpcUtil.SHARED_CHANNEL_EXECUTOR, sharedExecutor);
+            }
+          }
+        }
+      }));
+    }
+
+    @Override
+    public void request(int numMessages) {}
+
+    @Override
+    public void cancel(@Nullable String message, @Nullable Throwable cause) {}
+
+    @Override
+    public void halfClose() {}
+
+    @Override
+    public void sendMessage(ReqT message) {}
+  }
+
+  /** Builder for {@link AdaptiveThrottlingInterceptor}. */
+  public static final class Builder {
+    private Ticker ticker = Ticker.systemTicker();
+    private int historySeconds = 30;
+    private int requestsPadding = 8;
+    private float ratioForAccepts = 1.2f;
+
+    private Builder() {}
+
+    /** Sets how long calls are remembered. Defaults to 30 seconds. */
+    public Builder setHistorySeconds(int historySeconds) {
+      checkArgument(historySeconds > 0, "historySeconds must be positive");
+      this.historySeconds = historySeconds;
+      return this;
+    }
+
+    /**
+     * Sets the number of calls added to the denominator of the throttle probability. Higher values
+     * throttle less, in particular when there were few calls. Defaults to 8.
+     */
+    public Builder setRequestsPadding(int requestsPadding) {
+      checkArgument(requestsPadding >= 0, "requestsPadding must not be negative");
+      this.requestsPadding = requestsPadding;
+      return this;
+    }
+
+    /**
+     * Sets how many times the number of calls the backend accepts the client may send before
+     * calls start to be failed at the client. Defaults to 1.2.
+     */
+    public Builder setRatioForAccepts(float ratioForAccepts) {
+      checkArgument(ratioForAccepts >= 1, "ratioForAccepts must be at least 1");
+      this.ratioForAccepts = ratioForAccepts;
+      return this;
+    }
+
+    @VisibleForTesting
+    Builder setTicker(Ticker ticker) {
+      this.ticker = checkNotNull(ticker, "ticker");
+      return this;
+    }
+
+    /** Builds the interceptor. */
+    public AdaptiveThrottlingInterceptor build() {
+      return new AdaptiveThrottlingInterceptor(this);
+    }
+  }
+}
@@ -28,10 +28,12 @@ import com.google.common.base.MoreObjects;
 import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
 import io.grpc.Attributes;
+import io.grpc.ClientStreamTracer;
 import io.grpc.ConnectivityState;
 import io.grpc.ConnectivityStateInfo;
 import io.grpc.EquivalentAddressGroup;
 import io.grpc.LoadBalancer;
+import io.grpc.Metadata;
 import io.grpc.NameResolver;
 import io.grpc.Status;
 import java.util.ArrayList;
@@ -43,29 +45,44 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import javax.annotation.Nonnull;
 
 /**
  * A {@link LoadBalancer} that provides round-robin load-balancing over the {@link
  * EquivalentAddressGroup}s from the {@link NameResolver}.
+ *
+ * <p>In least-request mode, each RPC instead goes to the less loaded of two randomly chosen ready
+ * subchannels, where the load of a subchannel is its number of outstanding RPCs. This keeps slow
+ * backends from piling up RPCs that round-robin would keep sending them.
  */
 final class RoundRobinLoadBalancer extends LoadBalancer {
   @VisibleForTesting
   static final Attributes.Key<Ref<ConnectivityStateInfo>> STATE_INFO =
       Attributes.Key.create("state-info");
+  @VisibleForTesting
+  static final Attributes.Key<OutstandingRequestCounter> OUTSTANDING_REQUESTS =
+      Attributes.Key.create("outstanding-requests");
 
   private final Helper helper;
   private final Map<EquivalentAddressGroup, Subchannel> subchannels =
       new HashMap<>();
   private final Random random;
+  private final boolean leastRequest;
 
   private ConnectivityState currentState;
   private RoundRobinPicker currentPicker = new EmptyPicker(EMPTY_OK);
 
   RoundRobinLoadBalancer(Helper helper) {
+    this(helper, false);
+  }
+
+  RoundRobinLoadBalancer(Helper helper, boolean leastRequest) {
     this.helper = checkNotNull(helper, "helper");
     this.random = new Random();
+    this.leastRequest = leastRequest;
   }
 
   @Override
@@ -96,6 +113,9 @@ final class RoundRobinLoadBalancer extends LoadBalancer {
           // AtomicReference which will allow mutating state info for given channel.
           .set(STATE_INFO,
               new Ref<>(ConnectivityStateInfo.forNonError(IDLE)));
+      if (leastRequest) {
+        subchannelAttrs.set(OUTSTANDING_REQUESTS, new OutstandingRequestCounter());
+      }
 
       final Subchannel subchannel = checkNotNull(
           helper.createSubchannel(CreateSubchannelArgs.newBuilder()
@@ -193,6 +213,8 @@ final class RoundRobinLoadBalancer extends LoadBalancer {
           // If all subchannels are TRANSIENT_FAILURE, return the Status associated with
           // an arbitrary subchannel, otherwise return OK.
           new EmptyPicker(aggStatus));
+    } else if (leastRequest) {
+      updateBalancingState(READY, new LeastRequestPicker(activeList));
     } else {
       // initialize the Picker to a random start index to ensure that a high frequency of Picker
       // churn does not skew subchannel selection.
@@ -261,7 +283,7 @@ final class RoundRobinLoadBalancer extends LoadBalancer {
     return aCopy;
   }
 
-  // Only subclasses are ReadyPicker or EmptyPicker
+  // Only subclasses are ReadyPicker, LeastRequestPicker or EmptyPicker
   private abstract static class RoundRobinPicker extends SubchannelPicker {
     abstract boolean isEquivalentTo(RoundRobinPicker picker);
   }
@@ -319,6 +341,96 @@ final class RoundRobinLoadBalancer extends LoadBalancer {
     }
   }
 
+  /**
+   * Picks the subchannel with fewer outstanding requests out of two chosen at random (power of two
+   * choices). Unlike {@link ReadyPicker} it shares no index between threads, and it allocates
+   * nothing per pick.
+   */
+  @VisibleForTesting
+  static final class LeastRequestPicker extends RoundRobinPicker {
+    private final List<Subchannel> list; // non-empty
+    private final PickResult[] pickResults;
+    private final OutstandingRequestCounter[] counters;
+
+    LeastRequestPicker(List<Subchannel> list) {
+      Preconditions.checkArgument(!list.isEmpty(), "empty list");
+      this.list = list;
+      this.pickResults = new PickResult[list.size()];
+      this.counters = new OutstandingRequestCounter[list.size()];
+      for (int i = 0; i < list.size(); i++) {
+        Subchannel subchannel = list.get(i);
+        counters[i] = checkNotNull(
+            subchannel.getAttributes().get(OUTSTANDING_REQUESTS), "OUTSTANDING_REQUESTS");
+        pickResults[i] = PickResult.withSubchannel(subchannel, counters[i]);
+      }
+    }
+
+    @Override
+    public PickResult pickSubchannel(PickSubchannelArgs args) {
+      int size = pickResults.length;
+      if (size == 1) {
+        return pickResults[0];
+      }
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      int first = random.nextInt(size);
+      int second = random.nextInt(size - 1);
+      if (second >= first) {
+        second++;
+      }
+      if (counters[second].get() < counters[first].get()) {
+        return pickResults[second];
+      }
+      return pickResults[first];
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(LeastRequestPicker.class).add("list", list).toString();
+    }
+
+    @VisibleForTesting
+    List<Subchannel> getList() {
+      return list;
+    }
+
+    @Override
+    boolean isEquivalentTo(RoundRobinPicker picker) {
+      if (!(picker instanceof LeastRequestPicker)) {
+        return false;
+      }
+      LeastRequestPicker other = (LeastRequestPicker) picker;
+      // the lists cannot contain duplicate subchannels
+      return other == this
+          || (list.size() == other.list.size() && new HashSet<>(list).containsAll(other.list));
+    }
+  }
+
+  /**
+   * Counts the outstanding RPCs of a subchannel, through a stream tracer that is shared by all of
+   * its streams.
+   */
+  @VisibleForTesting
+  static final class OutstandingRequestCounter extends ClientStreamTracer.Factory {
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final ClientStreamTracer tracer = new ClientStreamTracer() {
+      @Override
+      public void streamClosed(Status status) {
+        outstanding.getAndDecrement();
+      }
+    };
+
+    @Override
+    public ClientStreamTracer newClientStreamTracer(
+        ClientStreamTracer.StreamInfo info, Metadata headers) {
+      outstanding.getAndIncrement();
+      return tracer;
+    }
+
+    int get() {
+      return outstanding.get();
+    }
+  }
+
   @VisibleForTesting
   static final class EmptyPicker extends RoundRobinPicker {
 
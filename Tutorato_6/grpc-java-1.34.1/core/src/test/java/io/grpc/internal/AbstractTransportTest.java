@@ -2152,6 +2152,11 @@ public abstract class AbstractTransportTest {
       stream.setListener(listener);
     }
 
+    @Override
+    public String lookupMethodName(CharSequence path, int start) {
+      return null;
+    }
+
     @Override
     public Attributes transportReady(Attributes attributes) {
       return Attributes.newBuilder()
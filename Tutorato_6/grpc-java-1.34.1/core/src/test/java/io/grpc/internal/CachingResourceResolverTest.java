@@ -0,0 +1,191 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.grpc.internal.DnsNameResolver.ResourceResolver;
+import io.grpc.internal.DnsNameResolver.SrvRecord;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.naming.NameNotFoundException;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link CachingResourceResolver}. */
+@RunWith(JUnit4.class)
+public class CachingResourceResolverTest {
+  private static final String NAME = "_grpc_config.foo.googleapis.com";
+  private static final long TTL_NANOS = TimeUnit.SECONDS.toNanos(30);
+  private static final long NEGATIVE_TTL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+  private final FakeClock fakeClock = new FakeClock();
+  private final ResourceResolver delegate = mock(ResourceResolver.class);
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void cachesRecordsUntilTtl() throws Exception {
+    List<String> records = Collections.singletonList("grpc_config=[]");
+    when(delegate.resolveTxt(NAME)).thenReturn(records);
+    CachingResourceResolver resolver = newResolver(TTL_NANOS, NEGATIVE_TTL_NANOS);
+
+    assertThat(resolver.resolveTxt(NAME)).isSameInstanceAs(records);
+    fakeClock.forwardNanos(TTL_NANOS - 1);
+    assertThat(resolver.resolveTxt(NAME)).isSameInstanceAs(records);
+    verify(delegate).resolveTxt(NAME);
+
+    fakeClock.forwardNanos(1);
+    assertThat(resolver.resolveTxt(NAME)).isSameInstanceAs(records);
+    verify(delegate, times(2)).resolveTxt(NAME);
+  }
+
+  @Test
+  public void cachesFailuresUntilNegativeTtl() throws Exception {
+    NameNotFoundException notFound = new NameNotFoundException();
+    when(delegate.resolveSrv(NAME)).thenThrow(notFound);
+    CachingResourceResolver resolver = newResolver(TTL_NANOS, NEGATIVE_TTL_NANOS);
+
+    assertLookupFails(resolver, notFound);
+    fakeClock.forwardNanos(NEGATIVE_TTL_NANOS - 1);
+    assertLookupFails(resolver, notFound);
+    verify(delegate).resolveSrv(NAME);
+
+    fakeClock.forwardNanos(1);
+    assertLookupFails(resolver, notFound);
+    verify(delegate, times(2)).resolveSrv(NAME);
+  }
+
+  @Test
+  public void zeroTtlDisablesCaching_negativeTtlCachesForever() throws Exception {
+    when(delegate.resolveTxt(NAME)).thenReturn(Collections.<String>emptyList());
+    CachingResourceResolver resolver = newResolver(0, NEGATIVE_TTL_NANOS);
+    resolver.resolveTxt(NAME);
+    resolver.resolveTxt(NAME);
+    verify(delegate, times(2)).resolveTxt(NAME);
+
+    resolver = newResolver(-1, NEGATIVE_TTL_NANOS);
+    resolver.resolveTxt(NAME);
+    fakeClock.forwardTime(365, TimeUnit.DAYS);
+    resolver.resolveTxt(NAME);
+    verify(delegate, times(3)).resolveTxt(NAME);
+  }
+
+  @Test
+  public void zeroTtlLookupsAreNotKept() throws Exception {
+    when(delegate.resolveTxt(NAME)).thenReturn(Collections.<String>emptyList());
+    CachingResourceResolver resolver = newResolver(0, NEGATIVE_TTL_NANOS);
+    resolver.resolveTxt(NAME);
+    assertThat(resolver.cachedNames()).isEqualTo(0);
+  }
+
+  @Test
+  public void evictsExpiredThenOldestLookupsBeyondMaxNames() throws Exception {
+    when(delegate.resolveTxt(anyString())).thenReturn(Collections.<String>emptyList());
+    CachingResourceResolver resolver = new CachingResourceResolver(
+        delegate, TTL_NANOS, NEGATIVE_TTL_NANOS, fakeClock.getTicker(), 4);
+    resolver.resolveTxt("expired");
+    fakeClock.forwardNanos(TTL_NANOS);
+    for (int i = 0; i < 3; i++) {
+      resolver.resolveTxt("name" + i);
+      fakeClock.forwardNanos(1);
+    }
+    assertThat(resolver.cachedNames()).isEqualTo(4);
+
+    // Going past maxNames drops the expired lookup, then the oldest ones down to 3 names.
+    resolver.resolveTxt("name3");
+    assertThat(resolver.cachedNames()).isEqualTo(3);
+    for (int i = 1; i < 4; i++) {
+      resolver.resolveTxt("name" + i);
+      verify(delegate).resolveTxt("name" + i);
+    }
+    resolver.resolveTxt("name0");
+    verify(delegate, times(2)).resolveTxt("name0");
+  }
+
+  @Test
+  public void concurrentLookupsShareOneQuery() throws Exception {
+    final CountDownLatch queryStarted = new CountDownLatch(1);
+    final CountDownLatch releaseQuery = new CountDownLatch(1);
+    final AtomicInteger queries = new AtomicInteger();
+    final List<String> records = Collections.singletonList("grpc_config=[]");
+    ResourceResolver blockingDelegate = new ResourceResolver() {
+      @Override
+      public List<String> resolveTxt(String host) throws Exception {
+        queries.incrementAndGet();
+        queryStarted.countDown();
+        releaseQuery.await();
+        return records;
+      }
+
+      @Override
+      public List<SrvRecord> resolveSrv(String host) {
+        throw new UnsupportedOperationException();
+      }
+    };
+    final CachingResourceResolver resolver = new CachingResourceResolver(
+        blockingDelegate, TTL_NANOS, NEGATIVE_TTL_NANOS, fakeClock.getTicker());
+    Callable<List<String>> lookup = new Callable<List<String>>() {
+      @Override
+      public List<String> call() throws Exception {
+        return resolver.resolveTxt(NAME);
+      }
+    };
+
+    Future<List<String>> first = executor.submit(lookup);
+    assertThat(queryStarted.await(5, TimeUnit.SECONDS)).isTrue();
+    Future<List<String>> second = executor.submit(lookup);
+    releaseQuery.countDown();
+
+    assertThat(first.get(5, TimeUnit.SECONDS)).isSameInstanceAs(records);
+    assertThat(second.get(5, TimeUnit.SECONDS)).isSameInstanceAs(records);
+    assertThat(queries.get()).isEqualTo(1);
+  }
+
+  private CachingResourceResolver newResolver(long ttlNanos, long negativeTtlNanos) {
+    return new CachingResourceResolver(
+        delegate, ttlNanos, negativeTtlNanos, fakeClock.getTicker());
+  }
+
+  private static void assertLookupFails(CachingResourceResolver resolver, Exception expected) {
+    try {
+      resolver.resolveSrv(NAME);
+      fail("Should have thrown");
+    } catch (Exception e) {
+      assertThat(e).isSameInstanceAs(expected);
+    }
+  }
+}
@@ -18,7 +18,10 @@ package io.grpc.internal;
 
 import static com.google.common.base.Charsets.UTF_8;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 import java.io.ByteArrayOutputStream;
@@ -167,6 +170,51 @@ public class CompositeReadableBufferTest {
     verify(mock2).close();
   }
 
+  @Test
+  public void markAndResetShouldRewindAcrossBuffers() {
+    composite.readUnsignedByte();
+    composite.mark();
+    byte[] bytes = new byte[EXPECTED_VALUE.length() - 1];
+    composite.readBytes(bytes, 0, bytes.length);
+    assertEquals(0, composite.readableBytes());
+
+    composite.reset();
+    assertEquals(EXPECTED_VALUE.length() - 1, composite.readableBytes());
+    assertEquals(EXPECTED_VALUE.substring(1), ReadableBuffers.readAsStringUtf8(composite));
+  }
+
+  @Test
+  public void markedBufferShouldNotCloseConsumedBuffers() {
+    composite = new CompositeReadableBuffer();
+    ReadableBuffer buffer1 = mock(ReadableBuffer.class);
+    ReadableBuffer buffer2 = mock(ReadableBuffer.class);
+    composite.addBuffer(buffer1);
+    composite.addBuffer(buffer2);
+
+    composite.mark();
+    composite.getByteBuffer();
+    verify(buffer1, never()).close();
+
+    composite.close();
+    verify(buffer1).close();
+    verify(buffer2).close();
+  }
+
+  @Test
+  public void getByteBufferShouldReturnFirstComponentWithoutAdvancing() {
+    assertTrue(composite.byteBufferSupported());
+    ByteBuffer byteBuffer = composite.getByteBuffer();
+    int partLength = EXPECTED_VALUE.length() / 4;
+    assertEquals(partLength, byteBuffer.remaining());
+    byte[] bytes = new byte[partLength];
+    byteBuffer.get(bytes);
+    assertEquals(EXPECTED_VALUE.substring(0, partLength), new String(bytes, UTF_8));
+    assertEquals(EXPECTED_VALUE.length(), composite.readableBytes());
+
+    composite.skipBytes(EXPECTED_VALUE.length());
+    assertNull(composite.getByteBuffer());
+  }
+
   private void splitAndAdd(String value) {
     int partLength = Math.max(1, value.length() / 4);
     for (int startIndex = 0, endIndex = 0; startIndex < value.length(); startIndex = endIndex) {
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import io.grpc.Deadline;
+import io.grpc.Metadata;
+import io.grpc.ServerStreamTracer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link DeadlineAwareExecutor}. */
+@RunWith(JUnit4.class)
+public class DeadlineAwareExecutorTest {
+  private static final long MAX_QUEUE_DELAY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final FakeClock fakeClock = new FakeClock();
+  private final List<String> ran = new ArrayList<>();
+  private final List<Long> queueDelays = new ArrayList<>();
+  private final Queue<Runnable> pending = new ArrayDeque<>();
+  private final Executor queueingExecutor = new Executor() {
+    @Override
+    public void execute(Runnable command) {
+      pending.add(command);
+    }
+  };
+  private final DeadlineAwareExecutor deadlineAwareExecutor = new DeadlineAwareExecutor(
+      queueingExecutor, MAX_QUEUE_DELAY_NANOS, fakeClock.getDeadlineTicker());
+
+  @Test
+  public void earliestDeadlineRunsFirst() {
+    Executor noDeadline = forCall(null);
+    Executor farDeadline = forCall(deadlineAfter(10, TimeUnit.SECONDS));
+    Executor nearDeadline = forCall(deadlineAfter(100, TimeUnit.MILLISECONDS));
+
+    noDeadline.execute(new Record("none"));
+    farDeadline.execute(new Record("far"));
+    nearDeadline.execute(new Record("near"));
+    assertThat(runPending()).isEqualTo(3);
+
+    // The far deadline is capped to the maximum queue delay, so it ties with no deadline.
+    assertThat(ran).containsExactly("near", "none", "far").inOrder();
+  }
+
+  @Test
+  public void laterCallsDoNotOvertakeBeyondMaxQueueDelay() {
+    Executor early = forCall(null);
+    fakeClock.forwardTime(2, TimeUnit.SECONDS);
+    Executor late = forCall(deadlineAfter(100, TimeUnit.MILLISECONDS));
+
+    late.execute(new Record("late"));
+    early.execute(new Record("early"));
+    assertThat(runPending()).isEqualTo(2);
+
+    assertThat(ran).containsExactly("early", "late").inOrder();
+  }
+
+  @Test
+  public void reportsQueueDelay() {
+    Executor executor = forCall(null);
+    executor.execute(new Record("a"));
+    fakeClock.forwardNanos(5);
+    executor.execute(new Record("b"));
+    fakeClock.forwardNanos(3);
+    assertThat(runPending()).isEqualTo(2);
+
+    assertThat(ran).containsExactly("a", "b").inOrder();
+    assertThat(queueDelays).containsExactly(8L, 3L).inOrder();
+  }
+
+  @Test
+  public void rejectedTaskDoesNotRun() {
+    final AtomicBoolean reject = new AtomicBoolean(true);
+    DeadlineAwareExecutor rejectingOnce = new DeadlineAwareExecutor(
+        new Executor() {
+          @Override
+          public void execute(Runnable command) {
+            if (reject.getAndSet(false)) {
+              throw new RejectedExecutionException();
+            }
+            pending.add(command);
+          }
+        },
+        MAX_QUEUE_DELAY_NANOS, fakeClock.getDeadlineTicker());
+    Executor executor = rejectingOnce.forCall(null, newStatsTraceContext());
+    try {
+      executor.execute(new Record("rejected"));
+      fail("Should have thrown");
+    } catch (RejectedExecutionException expected) {
+      // expected
+    }
+
+    executor.execute(new Record("accepted"));
+    assertThat(runPending()).isEqualTo(1);
+    assertThat(ran).containsExactly("accepted");
+  }
+
+  private int runPending() {
+    int count = 0;
+    Runnable runnable;
+    while ((runnable = pending.poll()) != null) {
+      runnable.run();
+      count++;
+    }
+    return count;
+  }
+
+  private Executor forCall(Deadline deadline) {
+    return deadlineAwareExecutor.forCall(deadline, newStatsTraceContext());
+  }
+
+  private Deadline deadlineAfter(long duration, TimeUnit unit) {
+    return Deadline.after(duration, unit, fakeClock.getDeadlineTicker());
+  }
+
+  private StatsTraceContext newStatsTraceContext() {
+    ServerStreamTracer.Factory factory = new ServerStreamTracer.Factory() {
+      @Override
+      public ServerStreamTracer newServerStreamTracer(String fullMethodName, Metadata headers) {
+        return new ServerStreamTracer() {
+          @Override
+          public void executorQueueDelay(long delayNanos) {
+            queueDelays.add(delayNanos);
+          }
+        };
+      }
+    };
+    return StatsTraceContext.newServerContext(
+        Collections.singletonList(factory), "service/method", new Metadata());
+  }
+
+  private final class Record implements Runnable {
+    final String name;
+
+    Record(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public void run() {
+      ran.add(name);
+    }
+  }
+}
@@ -27,6 +27,7 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 
+import com.google.common.util.concurrent.SettableFuture;
 import io.grpc.CallOptions;
 import io.grpc.LoadBalancer.PickResult;
 import io.grpc.Metadata;
@@ -34,6 +35,8 @@ import io.grpc.Status;
 import io.grpc.internal.ClientStreamListener.RpcProgress;
 import io.grpc.internal.GrpcUtil.Http2Error;
 import io.grpc.testing.TestMethodDescriptors;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -47,6 +50,29 @@ public class GrpcUtilTest {
   @SuppressWarnings("deprecation") // https://github.com/grpc/grpc-java/issues/7467
   @Rule public final ExpectedException thrown = ExpectedException.none();
 
+  @Test
+  public void sharedVirtualThreadExecutor() throws Exception {
+    if (!GrpcUtil.virtualThreadsSupported()) {
+      thrown.expect(UnsupportedOperationException.class);
+      GrpcUtil.SHARED_VIRTUAL_THREAD_EXECUTOR.create();
+      return;
+    }
+    Executor executor = GrpcUtil.SHARED_VIRTUAL_THREAD_EXECUTOR.create();
+    try {
+      final SettableFuture<Thread> thread = SettableFuture.create();
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          thread.set(Thread.currentThread());
+        }
+      });
+      Thread ran = thread.get(5, TimeUnit.SECONDS);
+      assertTrue((Boolean) Thread.class.getMethod("isVirtual").invoke(ran));
+    } finally {
+      GrpcUtil.SHARED_VIRTUAL_THREAD_EXECUTOR.close(executor);
+    }
+  }
+
   @Test
   public void http2ErrorForCode() {
     // Try edge cases manually, to make the test obviously correct for important cases.
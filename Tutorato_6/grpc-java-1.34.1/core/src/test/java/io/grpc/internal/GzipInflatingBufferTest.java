@@ -737,6 +737,70 @@ public class GzipInflatingBufferTest {
     }
   }
 
+  @Test
+  public void inflaterReturnedToPoolAtEndOfStream() throws Exception {
+    InflaterPool pool = new InflaterPool(1);
+    GzipInflatingBuffer buffer = new GzipInflatingBuffer(pool, 0);
+    buffer.addGzippedBytes(ReadableBuffers.wrap(gzippedData));
+
+    byte[] b = new byte[originalData.length];
+    assertEquals(originalData.length, buffer.inflateBytes(b, 0, originalData.length));
+    assertTrue("inflated data does not match", Arrays.equals(originalData, b));
+    assertEquals(1, pool.size());
+
+    // The next gzip stream takes the pooled inflater.
+    buffer.addGzippedBytes(ReadableBuffers.wrap(gzippedTruncatedData));
+    b = new byte[truncatedData.length];
+    assertEquals(truncatedData.length, buffer.inflateBytes(b, 0, truncatedData.length));
+    assertTrue("inflated data does not match", Arrays.equals(truncatedData, b));
+    assertEquals(1, pool.size());
+    buffer.close();
+    assertEquals(1, pool.size());
+  }
+
+  @Test
+  public void closeReturnsInflaterToPool() throws Exception {
+    InflaterPool pool = new InflaterPool(1);
+    GzipInflatingBuffer buffer = new GzipInflatingBuffer(pool, 0);
+    buffer.addGzippedBytes(ReadableBuffers.wrap(gzippedData, 0, gzippedData.length / 2));
+    buffer.inflateBytes(new byte[originalData.length], 0, originalData.length);
+    assertEquals(0, pool.size());
+
+    buffer.close();
+    assertEquals(1, pool.size());
+  }
+
+  @Test
+  public void compressionRatioLimitShouldFail() throws Exception {
+    byte[] zeros = new byte[4 * GzipInflatingBuffer.RATIO_CHECK_MIN_BYTES];
+    ByteArrayOutputStream gzippedOutputStream = new ByteArrayOutputStream();
+    OutputStream gzippingOutputStream = new GZIPOutputStream(gzippedOutputStream);
+    gzippingOutputStream.write(zeros);
+    gzippingOutputStream.close();
+    byte[] gzippedZeros = gzippedOutputStream.toByteArray();
+
+    GzipInflatingBuffer limited = new GzipInflatingBuffer(new InflaterPool(1), 100);
+    limited.addGzippedBytes(ReadableBuffers.wrap(gzippedZeros));
+    try {
+      limited.inflateBytes(new byte[zeros.length], 0, zeros.length);
+      fail("Expected DataFormatException");
+    } catch (DataFormatException expectedException) {
+      assertTrue(
+          "wrong exception message",
+          expectedException.getMessage().contains("Compression ratio exceeds 100"));
+    } finally {
+      limited.close();
+    }
+
+    // Data that compresses less than the limit inflates normally.
+    GzipInflatingBuffer unlimited = new GzipInflatingBuffer(new InflaterPool(1), 2000);
+    unlimited.addGzippedBytes(ReadableBuffers.wrap(gzippedZeros));
+    byte[] b = new byte[zeros.length];
+    assertEquals(zeros.length, unlimited.inflateBytes(b, 0, zeros.length));
+    assertTrue("inflated data does not match", Arrays.equals(zeros, b));
+    unlimited.close();
+  }
+
   private void addInTwoChunksAndVerifyIsStalled(byte[] input) throws Exception {
     byte[] b = new byte[1];
 
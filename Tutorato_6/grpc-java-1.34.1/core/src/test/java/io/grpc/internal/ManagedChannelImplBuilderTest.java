@@ -163,6 +163,20 @@ public class ManagedChannelImplBuilderTest {
     assertEquals(MoreExecutors.directExecutor(), builder.executorPool.getObject());
   }
 
+  @Test
+  public void virtualThreadExecutor() {
+    ObjectPool<? extends Executor> defaultValue = builder.executorPool;
+    assertEquals(builder, builder.virtualThreadExecutor());
+    if (GrpcUtil.virtualThreadsSupported()) {
+      assertNotEquals(defaultValue, builder.executorPool);
+    } else {
+      assertEquals(defaultValue, builder.executorPool);
+    }
+
+    builder.directExecutor();
+    assertEquals(MoreExecutors.directExecutor(), builder.executorPool.getObject());
+  }
+
   @Test
   public void offloadExecutor_normal() {
     Executor executor = mock(Executor.class);
@@ -541,6 +555,19 @@ public class ManagedChannelImplBuilderTest {
     assertFalse(builder.retryEnabled);
   }
 
+  @Test
+  public void callbackBatchSize() {
+    assertEquals(0, builder.callbackBatchSize);
+    builder.callbackBatchSize(32);
+    assertEquals(32, builder.callbackBatchSize);
+  }
+
+  @Test
+  public void callbackBatchSize_nonPositive() {
+    thrown.expect(IllegalArgumentException.class);
+    builder.callbackBatchSize(0);
+  }
+
   @Test
   public void defaultServiceConfig_nullKey() {
     Map<String, Object> config = new HashMap<>();
@@ -3515,6 +3515,84 @@ public class ManagedChannelImplTest {
         channel.isTerminated());
   }
 
+  @Test
+  public void retryBufferLimitExceeded_reportedInChannelStats() throws Exception {
+    Map<String, Object> retryPolicy = new HashMap<>();
+    retryPolicy.put("maxAttempts", 3D);
+    retryPolicy.put("initialBackoff", "10s");
+    retryPolicy.put("maxBackoff", "30s");
+    retryPolicy.put("backoffMultiplier", 2D);
+    retryPolicy.put("retryableStatusCodes", Arrays.<Object>asList("UNAVAILABLE"));
+    Map<String, Object> methodConfig = new HashMap<>();
+    Map<String, Object> name = new HashMap<>();
+    name.put("service", "service");
+    methodConfig.put("name", Arrays.<Object>asList(name));
+    methodConfig.put("retryPolicy", retryPolicy);
+    Map<String, Object> rawServiceConfig = new HashMap<>();
+    rawServiceConfig.put("methodConfig", Arrays.<Object>asList(methodConfig));
+
+    FakeNameResolverFactory nameResolverFactory =
+        new FakeNameResolverFactory.Builder(expectedUri)
+            .setServers(Collections.singletonList(new EquivalentAddressGroup(socketAddress)))
+            .build();
+    ManagedChannelServiceConfig managedChannelServiceConfig =
+        createManagedChannelServiceConfig(rawServiceConfig, null);
+    nameResolverFactory.nextConfigOrError.set(
+        ConfigOrError.fromConfig(managedChannelServiceConfig));
+
+    channelBuilder.nameResolverFactory(nameResolverFactory);
+    channelBuilder.executor(MoreExecutors.directExecutor());
+    channelBuilder.enableRetry();
+    channelBuilder.perRpcBufferLimit(100);
+
+    requestConnection = false;
+    createChannel();
+
+    ClientCall<String, Integer> call = channel.newCall(method, CallOptions.DEFAULT);
+    call.start(mockCallListener, new Metadata());
+    ArgumentCaptor<Helper> helperCaptor = ArgumentCaptor.forClass(Helper.class);
+    verify(mockLoadBalancerProvider).newLoadBalancer(helperCaptor.capture());
+    helper = helperCaptor.getValue();
+    Subchannel subchannel =
+        createSubchannelSafely(helper, addressGroup, Attributes.EMPTY, subchannelStateListener);
+    when(mockPicker.pickSubchannel(any(PickSubchannelArgs.class)))
+        .thenReturn(PickResult.withSubchannel(subchannel));
+    requestConnectionSafely(helper, subchannel);
+    MockClientTransportInfo transportInfo = transports.poll();
+    ConnectionClientTransport mockTransport = transportInfo.transport;
+    ClientStream mockStream = mock(ClientStream.class);
+    when(mockTransport.newStream(same(method), any(Metadata.class), any(CallOptions.class)))
+        .thenReturn(mockStream);
+    transportInfo.listener.transportReady();
+    updateBalancingStateSafely(helper, READY, mockPicker);
+
+    ArgumentCaptor<CallOptions> callOptionsCaptor = ArgumentCaptor.forClass(CallOptions.class);
+    verify(mockTransport).newStream(same(method), any(Metadata.class), callOptionsCaptor.capture());
+    ClientStreamTracer bufferSizeTracer = null;
+    for (ClientStreamTracer.Factory factory
+        : callOptionsCaptor.getValue().getStreamTracerFactories()) {
+      ClientStreamTracer tracer = factory.newClientStreamTracer(
+          ClientStreamTracer.StreamInfo.newBuilder().build(), new Metadata());
+      if (tracer instanceof RetriableStream.BufferSizeTracer) {
+        bufferSizeTracer = tracer;
+      }
+    }
+    assertNotNull(bufferSizeTracer);
+
+    bufferSizeTracer.outboundWireSize(60);
+    ChannelStats stats = getStats(channel);
+    assertEquals(60, stats.retryBufferedBytes);
+    assertEquals(0, stats.retryCommitsDueToBufferLimit);
+
+    // The per-RPC buffer limit is exceeded, so the call stops retrying.
+    bufferSizeTracer.outboundWireSize(60);
+    stats = getStats(channel);
+    assertEquals(0, stats.retryBufferedBytes);
+    assertEquals(1, stats.retryCommitsDueToBufferLimit);
+    assertEquals(0, stats.hedgedCallsCommitted);
+    assertEquals(0, stats.hedgeWins);
+  }
+
   @Test
   public void hedgingScheduledThenChannelShutdown_hedgeShouldStillHappen_newCallShouldFail() {
     Map<String, Object> hedgingPolicy = new HashMap<>();
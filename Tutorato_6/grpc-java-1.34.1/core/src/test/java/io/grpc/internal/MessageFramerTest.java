@@ -27,10 +27,14 @@ import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 
 import io.grpc.Codec;
+import io.grpc.Drainable;
+import io.grpc.KnownLength;
 import io.grpc.StreamTracer;
 import io.grpc.internal.testing.TestStreamTracer.TestBaseStreamTracer;
 import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.Arrays;
@@ -148,6 +152,23 @@ public class MessageFramerTest {
     checkStats(8, 8);
   }
 
+  @Test
+  public void knownLengthDrainableSpillsIntoSingleBuffer() {
+    allocator = new BytesWritableBufferAllocator(20, Integer.MAX_VALUE);
+    framer = new MessageFramer(sink, allocator, statsTraceCtx);
+    writeKnownLength(framer, new byte[]{3, 14});
+    // Drains in 10 byte chunks; only the first chunk should fit in the already allocated buffer.
+    framer.writePayload(new ChunkedDrainableInputStream(new byte[100], 10));
+    framer.flush();
+    verify(sink).deliverFrame(frameCaptor.capture(), eq(false), eq(false), eq(2));
+    verify(sink).deliverFrame(frameCaptor.capture(), eq(false), eq(true), eq(0));
+    assertEquals(20, frameCaptor.getAllValues().get(0).readableBytes());
+    assertEquals(92, frameCaptor.getAllValues().get(1).readableBytes());
+    verifyNoMoreInteractions(sink);
+    assertEquals(2, allocator.allocCount);
+    checkStats(2, 2, 100, 100);
+  }
+
   @Test
   public void frameHeaderSplitBetweenSinks() {
     allocator = new BytesWritableBufferAllocator(12, 12);
@@ -371,6 +392,29 @@ public class MessageFramerTest {
     // TODO(carl-mastrangelo): add framer.flush() here.
   }
 
+  /** A known-length {@link Drainable} that writes its contents in fixed size chunks. */
+  private static final class ChunkedDrainableInputStream extends ByteArrayInputStream
+      implements Drainable, KnownLength {
+    private final int chunkSize;
+
+    ChunkedDrainableInputStream(byte[] bytes, int chunkSize) {
+      super(bytes);
+      this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public int drainTo(OutputStream target) throws IOException {
+      int written = 0;
+      while (available() > 0) {
+        int len = Math.min(chunkSize, available());
+        target.write(buf, pos, len);
+        pos += len;
+        written += len;
+      }
+      return written;
+    }
+  }
+
   /**
    * @param sizes in the format {wire0, uncompressed0, wire1, uncompressed1, ...}
    */
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link MethodLookupTable}. */
+@RunWith(JUnit4.class)
+public class MethodLookupTableTest {
+
+  @Test
+  public void empty() {
+    MethodLookupTable<Integer> table =
+        MethodLookupTable.create(Collections.<String, Integer>emptyMap());
+    assertNull(table.get("/a/b", 1));
+    assertNull(table.getKey("", 0));
+  }
+
+  @Test
+  public void lookupFromOffset() {
+    Map<String, Integer> entries = new HashMap<>();
+    String name = "pkg.Service/Method";
+    entries.put(name, 1);
+    entries.put("pkg.Service/Method2", 2);
+    entries.put("pkg.Service/Metho", 3);
+    MethodLookupTable<Integer> table = MethodLookupTable.create(entries);
+
+    assertEquals(Integer.valueOf(1), table.get("/pkg.Service/Method", 1));
+    assertEquals(Integer.valueOf(2), table.get(new StringBuilder("/pkg.Service/Method2"), 1));
+    assertEquals(Integer.valueOf(3), table.get("pkg.Service/Metho", 0));
+    assertSame(name, table.getKey("/pkg.Service/Method", 1));
+    assertNull(table.get("/pkg.Service/method", 1));
+    assertNull(table.get("/pkg.Service/Method", 0));
+    assertNull(table.get("/pkg.Service/Method3", 1));
+  }
+
+  @Test
+  public void manyEntries() {
+    Map<String, Integer> entries = new HashMap<>();
+    for (int i = 0; i < 5000; i++) {
+      entries.put("svc" + (i % 50) + "/m" + i, i);
+    }
+    MethodLookupTable<Integer> table = MethodLookupTable.create(entries);
+    for (int i = 0; i < 5000; i++) {
+      assertEquals(Integer.valueOf(i), table.get("/svc" + (i % 50) + "/m" + i, 1));
+    }
+    assertNull(table.get("/svc0/m1", 1));
+  }
+}
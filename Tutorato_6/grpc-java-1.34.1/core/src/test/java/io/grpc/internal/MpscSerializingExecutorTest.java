@@ -0,0 +1,283 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class MpscSerializingExecutorTest {
+  private SingleExecutor singleExecutor = new SingleExecutor();
+  private MpscSerializingExecutor executor =
+      new MpscSerializingExecutor(singleExecutor, Integer.MAX_VALUE);
+  private List<Integer> runs = new ArrayList<>();
+
+  private class AddToRuns implements Runnable {
+    private final int val;
+
+    public AddToRuns(int val) {
+      this.val = val;
+    }
+
+    @Override
+    public void run() {
+      runs.add(val);
+    }
+  }
+
+  @Test
+  public void serial() {
+    executor.execute(new AddToRuns(1));
+    assertEquals(Collections.<Integer>emptyList(), runs);
+    singleExecutor.drain();
+    assertEquals(Arrays.asList(1), runs);
+
+    executor.execute(new AddToRuns(2));
+    assertEquals(Arrays.asList(1), runs);
+    singleExecutor.drain();
+    assertEquals(Arrays.asList(1, 2), runs);
+  }
+
+  @Test
+  public void parallel() {
+    executor.execute(new AddToRuns(1));
+    executor.execute(new AddToRuns(2));
+    executor.execute(new AddToRuns(3));
+    assertEquals(Collections.<Integer>emptyList(), runs);
+    singleExecutor.drain();
+    assertEquals(Arrays.asList(1, 2, 3), runs);
+  }
+
+  @Test
+  public void reentrant() {
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        executor.execute(new AddToRuns(3));
+        runs.add(1);
+      }
+    });
+    executor.execute(new AddToRuns(2));
+    singleExecutor.drain();
+    assertEquals(Arrays.asList(1, 2, 3), runs);
+  }
+
+  @Test
+  public void runnableThrows() {
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        runs.add(1);
+        throw new RuntimeException();
+      }
+    });
+    executor.execute(new AddToRuns(2));
+
+    singleExecutor.drain();
+    assertEquals(Arrays.asList(1, 2), runs);
+
+    executor.execute(new AddToRuns(3));
+    singleExecutor.drain();
+    assertEquals(Arrays.asList(1, 2, 3), runs);
+  }
+
+  @Test
+  public void firstExecuteThrows() {
+    final RuntimeException ex = new RuntimeException();
+    ForwardingExecutor forwardingExecutor = new ForwardingExecutor(new Executor() {
+      @Override
+      public void execute(Runnable r) {
+        throw ex;
+      }
+    });
+    executor = new MpscSerializingExecutor(forwardingExecutor, Integer.MAX_VALUE);
+    try {
+      executor.execute(new AddToRuns(1));
+      fail("expected exception");
+    } catch (RuntimeException e) {
+      assertSame(ex, e);
+    }
+    assertEquals(Collections.<Integer>emptyList(), runs);
+
+    // The rejected runnable must not run once scheduling succeeds.
+    forwardingExecutor.executor = singleExecutor;
+    executor.execute(new AddToRuns(2));
+    executor.execute(new AddToRuns(3));
+    assertEquals(Collections.<Integer>emptyList(), runs);
+    singleExecutor.drain();
+    assertEquals(Arrays.asList(2, 3), runs);
+  }
+
+  @Test
+  public void batchYieldsToExecutor() {
+    executor = new MpscSerializingExecutor(singleExecutor, 2);
+    for (int i = 1; i <= 5; i++) {
+      executor.execute(new AddToRuns(i));
+    }
+    singleExecutor.drain();
+    assertEquals(Arrays.asList(1, 2), runs);
+    singleExecutor.drain();
+    assertEquals(Arrays.asList(1, 2, 3, 4), runs);
+    singleExecutor.drain();
+    assertEquals(Arrays.asList(1, 2, 3, 4, 5), runs);
+    assertTrue(singleExecutor.isIdle());
+  }
+
+  @Test
+  public void batchKeepsDrainingWhenResubmitRejected() {
+    ForwardingExecutor forwardingExecutor = new ForwardingExecutor(singleExecutor);
+    executor = new MpscSerializingExecutor(forwardingExecutor, 1);
+    executor.execute(new AddToRuns(1));
+    executor.execute(new AddToRuns(2));
+    executor.execute(new AddToRuns(3));
+
+    forwardingExecutor.executor = new Executor() {
+      @Override
+      public void execute(Runnable r) {
+        throw new RejectedExecutionException();
+      }
+    };
+    singleExecutor.drain();
+    assertEquals(Arrays.asList(1, 2, 3), runs);
+  }
+
+  @Test
+  public void direct() {
+    executor = new MpscSerializingExecutor(MoreExecutors.directExecutor(), Integer.MAX_VALUE);
+    executor.execute(new AddToRuns(1));
+    assertEquals(Arrays.asList(1), runs);
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        executor.execute(new AddToRuns(3));
+        runs.add(2);
+      }
+    });
+    assertEquals(Arrays.asList(1, 2, 3), runs);
+  }
+
+  @Test
+  public void concurrentProducers() throws Exception {
+    final int producers = 4;
+    final int perProducer = 10000;
+    ExecutorService pool = Executors.newFixedThreadPool(producers + 2);
+    try {
+      executor = new MpscSerializingExecutor(pool, 16);
+      final int[] lastSeen = new int[producers];
+      Arrays.fill(lastSeen, -1);
+      final CountDownLatch done = new CountDownLatch(producers * perProducer);
+      final CountDownLatch start = new CountDownLatch(1);
+      for (int p = 0; p < producers; p++) {
+        final int producer = p;
+        pool.execute(new Runnable() {
+          @Override
+          public void run() {
+            try {
+              start.await();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+              return;
+            }
+            for (int i = 0; i < perProducer; i++) {
+              final int seq = i;
+              executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                  // Runs are serialized, so no synchronization is needed here.
+                  if (lastSeen[producer] + 1 == seq) {
+                    lastSeen[producer] = seq;
+                  }
+                  done.countDown();
+                }
+              });
+            }
+          }
+        });
+      }
+      start.countDown();
+      assertTrue(done.await(10, TimeUnit.SECONDS));
+      final CountDownLatch flushed = new CountDownLatch(1);
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          flushed.countDown();
+        }
+      });
+      assertTrue(flushed.await(10, TimeUnit.SECONDS));
+      for (int p = 0; p < producers; p++) {
+        assertThat(lastSeen[p]).isEqualTo(perProducer - 1);
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  private static class SingleExecutor implements Executor {
+    private Runnable runnable;
+
+    @Override
+    public void execute(Runnable r) {
+      if (runnable != null) {
+        fail("Already have runnable scheduled");
+      }
+      runnable = r;
+    }
+
+    public void drain() {
+      if (runnable != null) {
+        Runnable r = runnable;
+        runnable = null;
+        r.run();
+      }
+    }
+
+    public boolean isIdle() {
+      return runnable == null;
+    }
+  }
+
+  private static class ForwardingExecutor implements Executor {
+    Executor executor;
+
+    public ForwardingExecutor(Executor executor) {
+      this.executor = executor;
+    }
+
+    @Override
+    public void execute(Runnable r) {
+      executor.execute(r);
+    }
+  }
+}
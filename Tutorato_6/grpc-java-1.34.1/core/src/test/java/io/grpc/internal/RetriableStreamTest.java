@@ -977,6 +977,22 @@ public class RetriableStreamTest {
     assertEquals(CHANNEL_BUFFER_LIMIT - 200, channelBufferUsed.addAndGet(0));
   }
 
+  @Test
+  public void bufferLimitExceeded_recordedInChannelBufferMeter() {
+    ClientStream mockStream1 = mock(ClientStream.class);
+    doReturn(mockStream1).when(retriableStreamRecorder).newSubstream(0);
+
+    retriableStream.start(masterListener);
+    bufferSizeTracer.outboundWireSize(PER_RPC_BUFFER_LIMIT);
+    assertEquals(0, channelBufferUsed.getCommitsDueToBufferLimit());
+
+    bufferSizeTracer.outboundWireSize(1);
+    verify(retriableStreamRecorder).postCommit();
+    assertEquals(1, channelBufferUsed.getCommitsDueToBufferLimit());
+    assertEquals(0, channelBufferUsed.getHedgedCallsCommitted());
+    assertEquals(0, channelBufferUsed.getHedgeWins());
+  }
+
   @Test
   public void updateHeaders() {
     Metadata originalHeaders = new Metadata();
@@ -2106,6 +2122,64 @@ public class RetriableStreamTest {
     inOrder.verifyNoMoreInteractions();
   }
 
+  @Test
+  public void hedging_firstAttemptWins_recordedInChannelBufferMeter() {
+    ClientStream mockStream1 = mock(ClientStream.class);
+    ClientStream mockStream2 = mock(ClientStream.class);
+    when(retriableStreamRecorder.newSubstream(anyInt())).thenReturn(mockStream1, mockStream2);
+
+    hedgingStream.start(masterListener);
+    ArgumentCaptor<ClientStreamListener> sublistenerCaptor1 =
+        ArgumentCaptor.forClass(ClientStreamListener.class);
+    verify(mockStream1).start(sublistenerCaptor1.capture());
+    fakeClock.forwardTime(HEDGING_DELAY_IN_SECONDS, TimeUnit.SECONDS);
+    verify(mockStream2).start(any(ClientStreamListener.class));
+
+    sublistenerCaptor1.getValue().headersRead(new Metadata());
+
+    verify(retriableStreamRecorder).postCommit();
+    assertEquals(1, channelBufferUsed.getHedgedCallsCommitted());
+    assertEquals(0, channelBufferUsed.getHedgeWins());
+    assertEquals(0, channelBufferUsed.getCommitsDueToBufferLimit());
+  }
+
+  @Test
+  public void hedging_hedgeWins_recordedInChannelBufferMeter() {
+    ClientStream mockStream1 = mock(ClientStream.class);
+    ClientStream mockStream2 = mock(ClientStream.class);
+    when(retriableStreamRecorder.newSubstream(anyInt())).thenReturn(mockStream1, mockStream2);
+
+    hedgingStream.start(masterListener);
+    verify(mockStream1).start(any(ClientStreamListener.class));
+    fakeClock.forwardTime(HEDGING_DELAY_IN_SECONDS, TimeUnit.SECONDS);
+    ArgumentCaptor<ClientStreamListener> sublistenerCaptor2 =
+        ArgumentCaptor.forClass(ClientStreamListener.class);
+    verify(mockStream2).start(sublistenerCaptor2.capture());
+
+    sublistenerCaptor2.getValue().headersRead(new Metadata());
+
+    verify(retriableStreamRecorder).postCommit();
+    assertEquals(1, channelBufferUsed.getHedgedCallsCommitted());
+    assertEquals(1, channelBufferUsed.getHedgeWins());
+  }
+
+  @Test
+  public void hedging_cancelled_notRecordedInChannelBufferMeter() {
+    ClientStream mockStream1 = mock(ClientStream.class);
+    ClientStream mockStream2 = mock(ClientStream.class);
+    when(retriableStreamRecorder.newSubstream(anyInt())).thenReturn(mockStream1, mockStream2);
+
+    hedgingStream.start(masterListener);
+    fakeClock.forwardTime(HEDGING_DELAY_IN_SECONDS, TimeUnit.SECONDS);
+    verify(mockStream2).start(any(ClientStreamListener.class));
+
+    hedgingStream.cancel(Status.CANCELLED.withDescription("cancelled"));
+
+    verify(retriableStreamRecorder).postCommit();
+    assertEquals(0, channelBufferUsed.getHedgedCallsCommitted());
+    assertEquals(0, channelBufferUsed.getHedgeWins());
+  }
+
   @Test
   public void hedging_perRpcBufferLimitExceeded() {
     ClientStream mockStream1 = mock(ClientStream.class);
@@ -1128,6 +1128,32 @@ public class ServerImplTest {
     assertTrue(contextCancelled.get());
   }
 
+  @Test
+  public void prioritizeCallsByDeadline_callExpiredWhileQueuedIsNotStarted() throws Exception {
+    builder.prioritizeCallsByDeadline(1, TimeUnit.SECONDS);
+    createAndStartServer();
+    mutableFallbackRegistry.addService(ServerServiceDefinition.builder(
+        new ServiceDescriptor("Waiter", METHOD))
+        .addMethod(METHOD, callHandler).build());
+    ServerTransportListener transportListener
+        = transportServer.registerNewServerTransport(new SimpleServerTransport());
+    transportListener.transportReady(Attributes.EMPTY);
+    Metadata requestHeaders = new Metadata();
+    requestHeaders.put(TIMEOUT_KEY, 50L);
+    StatsTraceContext statsTraceCtx =
+        StatsTraceContext.newServerContext(streamTracerFactories, "Waiter/serve", requestHeaders);
+    when(stream.statsTraceContext()).thenReturn(statsTraceCtx);
+    transportListener.streamCreated(stream, "Waiter/serve", requestHeaders);
+
+    assertEquals(1, timer.forwardNanos(50));
+    assertEquals(1, executor.runDueTasks());
+
+    verify(callHandler, never()).startCall(
+        ArgumentMatchers.<ServerCall<String, Integer>>any(), any(Metadata.class));
+    verify(stream).cancel(statusCaptor.capture());
+    assertEquals(Status.Code.DEADLINE_EXCEEDED, statusCaptor.getValue().getCode());
+  }
+
   @Test
   public void getPort() throws Exception {
     final InetSocketAddress addr = new InetSocketAddress(65535);
@@ -1194,6 +1220,24 @@ public class ServerImplTest {
     verifyNoMoreInteractions(fallbackRegistry);
   }
 
+  @Test
+  public void lookupMethodName_onlyPrimaryRegistry() throws Exception {
+    fallbackRegistry = mock(HandlerRegistry.class);
+    builder.addService(
+        ServerServiceDefinition.builder(new ServiceDescriptor("Waiter", METHOD))
+            .addMethod(METHOD, callHandler).build());
+    transportServer = new SimpleServer();
+    createAndStartServer();
+
+    ServerTransportListener transportListener
+        = transportServer.registerNewServerTransport(new SimpleServerTransport());
+    transportListener.transportReady(Attributes.EMPTY);
+    assertSame(METHOD.getFullMethodName(),
+        transportListener.lookupMethodName(new StringBuilder("/Waiter/serve"), 1));
+    assertNull(transportListener.lookupMethodName("/Service1/Method2", 1));
+    verifyNoMoreInteractions(fallbackRegistry);
+  }
+
   @Test
   public void messageRead_errorCancelsCall() throws Exception {
     JumpToApplicationThreadServerStreamListener listener
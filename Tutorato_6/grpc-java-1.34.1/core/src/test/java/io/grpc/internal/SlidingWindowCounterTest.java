@@ -0,0 +1,105 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link SlidingWindowCounter}. */
+@RunWith(JUnit4.class)
+public class SlidingWindowCounterTest {
+  // 50 slots of 10 nanos each
+  private final SlidingWindowCounter counter = new SlidingWindowCounter(500);
+
+  @Test
+  public void countsEventsInWindow() {
+    counter.increment(0);
+    counter.increment(5);
+    counter.increment(15);
+    assertThat(counter.get(15)).isEqualTo(3);
+    assertThat(counter.get(499)).isEqualTo(3);
+
+    // The slot of the first two events leaves the window.
+    assertThat(counter.get(500)).isEqualTo(1);
+    assertThat(counter.get(510)).isEqualTo(0);
+  }
+
+  @Test
+  public void slotIsReusedAfterWindowPasses() {
+    counter.increment(0);
+    counter.increment(500);
+    counter.increment(505);
+    assertThat(counter.get(505)).isEqualTo(2);
+
+    // An event older than the slot it maps to is not counted.
+    counter.increment(3);
+    assertThat(counter.get(505)).isEqualTo(2);
+  }
+
+  @Test
+  public void negativeTimes() {
+    counter.increment(-15);
+    counter.increment(-1);
+    counter.increment(0);
+    assertThat(counter.get(0)).isEqualTo(3);
+    assertThat(counter.get(480)).isEqualTo(2);
+    assertThat(counter.get(490)).isEqualTo(1);
+  }
+
+  @Test
+  public void concurrentIncrements() throws Exception {
+    final int threads = 8;
+    final int incrementsPerThread = 10000;
+    final CountDownLatch start = new CountDownLatch(1);
+    List<Thread> started = new ArrayList<>();
+    for (int i = 0; i < threads; i++) {
+      Thread thread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            start.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+          }
+          for (int j = 0; j < incrementsPerThread; j++) {
+            // spread over a few slots, so that they are claimed concurrently
+            counter.increment(j % 30);
+          }
+        }
+      });
+      thread.start();
+      started.add(thread);
+    }
+    start.countDown();
+    for (Thread thread : started) {
+      thread.join();
+    }
+    assertThat(counter.get(29)).isEqualTo(threads * incrementsPerThread);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void intervalTooSmall() {
+    new SlidingWindowCounter(49);
+  }
+}
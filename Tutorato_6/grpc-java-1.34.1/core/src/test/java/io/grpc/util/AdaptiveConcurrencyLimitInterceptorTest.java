@@ -0,0 +1,159 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.util;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.Status;
+import io.grpc.internal.FakeClock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.ArgumentCaptor;
+
+/** Unit tests for {@link AdaptiveConcurrencyLimitInterceptor}. */
+@RunWith(JUnit4.class)
+public class AdaptiveConcurrencyLimitInterceptorTest {
+  private final FakeClock fakeClock = new FakeClock();
+  private final List<ServerCall<Void, Void>> startedCalls = new ArrayList<>();
+  private final ServerCallHandler<Void, Void> handler = new ServerCallHandler<Void, Void>() {
+    @Override
+    public ServerCall.Listener<Void> startCall(ServerCall<Void, Void> call, Metadata headers) {
+      startedCalls.add(call);
+      return new ServerCall.Listener<Void>() {};
+    }
+  };
+
+  @Test
+  public void callsBeyondLimitAreRejected() {
+    AdaptiveConcurrencyLimitInterceptor interceptor = newInterceptor(2);
+    interceptCall(interceptor);
+    interceptCall(interceptor);
+    ServerCall<Void, Void> rejected = interceptCall(interceptor);
+
+    assertThat(startedCalls).hasSize(2);
+    ArgumentCaptor<Status> statusCaptor = ArgumentCaptor.forClass(Status.class);
+    verify(rejected).close(statusCaptor.capture(), any(Metadata.class));
+    assertThat(statusCaptor.getValue().getCode()).isEqualTo(Status.Code.RESOURCE_EXHAUSTED);
+    assertThat(interceptor.getInFlightCalls()).isEqualTo(2);
+    assertThat(interceptor.getRejectedCalls()).isEqualTo(1);
+
+    startedCalls.get(0).close(Status.OK, new Metadata());
+    assertThat(interceptor.getInFlightCalls()).isEqualTo(1);
+    ServerCall<Void, Void> accepted = interceptCall(interceptor);
+    verify(accepted, never()).close(any(Status.class), any(Metadata.class));
+    assertThat(startedCalls).hasSize(3);
+  }
+
+  @Test
+  public void cancelledCallReleasesSlotOnce() {
+    AdaptiveConcurrencyLimitInterceptor interceptor = newInterceptor(2);
+    ServerCall.Listener<Void> listener =
+        interceptor.interceptCall(newCall(), new Metadata(), handler);
+    interceptCall(interceptor);
+    assertThat(interceptor.getInFlightCalls()).isEqualTo(2);
+
+    listener.onCancel();
+    assertThat(interceptor.getInFlightCalls()).isEqualTo(1);
+    listener.onComplete();
+    startedCalls.get(0).close(Status.CANCELLED, new Metadata());
+    assertThat(interceptor.getInFlightCalls()).isEqualTo(1);
+  }
+
+  @Test
+  public void limitShrinksWhenLatencyRises() {
+    AdaptiveConcurrencyLimitInterceptor interceptor = newInterceptor(100);
+    completeCall(interceptor, 10);
+    assertThat(interceptor.getLimit()).isEqualTo(100);
+
+    completeCall(interceptor, 100);
+    // gradient is clamped to 0.5, plus a queue of sqrt(100)
+    assertThat(interceptor.getLimit()).isEqualTo(60);
+  }
+
+  @Test
+  public void limitGrowsOnlyWhenBusy() {
+    AdaptiveConcurrencyLimitInterceptor interceptor = newInterceptor(10);
+    completeCall(interceptor, 10);
+    completeCall(interceptor, 10);
+    assertThat(interceptor.getLimit()).isEqualTo(10);
+
+    for (int i = 0; i < 10; i++) {
+      interceptCall(interceptor);
+    }
+    fakeClock.forwardTime(10, TimeUnit.MILLISECONDS);
+    startedCalls.get(startedCalls.size() - 1).close(Status.OK, new Metadata());
+    // 10 + sqrt(10)
+    assertThat(interceptor.getLimit()).isEqualTo(13);
+  }
+
+  @Test
+  public void failedCallsDoNotAdaptLimit() {
+    AdaptiveConcurrencyLimitInterceptor interceptor = newInterceptor(100);
+    completeCall(interceptor, 10);
+    interceptCall(interceptor);
+    fakeClock.forwardTime(100, TimeUnit.MILLISECONDS);
+    startedCalls.get(startedCalls.size() - 1).close(Status.UNAVAILABLE, new Metadata());
+
+    assertThat(interceptor.getLimit()).isEqualTo(100);
+    assertThat(interceptor.getInFlightCalls()).isEqualTo(0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void initialLimitOutsideBounds() {
+    AdaptiveConcurrencyLimitInterceptor.newBuilder()
+        .setMinLimit(10)
+        .setInitialLimit(5)
+        .build();
+  }
+
+  private AdaptiveConcurrencyLimitInterceptor newInterceptor(int initialLimit) {
+    return AdaptiveConcurrencyLimitInterceptor.newBuilder()
+        .setInitialLimit(initialLimit)
+        .setSampleWindow(1)
+        .setSmoothing(1)
+        .setTicker(fakeClock.getTicker())
+        .build();
+  }
+
+  private void completeCall(AdaptiveConcurrencyLimitInterceptor interceptor, long latencyMillis) {
+    interceptCall(interceptor);
+    fakeClock.forwardTime(latencyMillis, TimeUnit.MILLISECONDS);
+    startedCalls.get(startedCalls.size() - 1).close(Status.OK, new Metadata());
+  }
+
+  private ServerCall<Void, Void> interceptCall(AdaptiveConcurrencyLimitInterceptor interceptor) {
+    ServerCall<Void, Void> call = newCall();
+    interceptor.interceptCall(call, new Metadata(), handler);
+    return call;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static ServerCall<Void, Void> newCall() {
+    return mock(ServerCall.class);
+  }
+}
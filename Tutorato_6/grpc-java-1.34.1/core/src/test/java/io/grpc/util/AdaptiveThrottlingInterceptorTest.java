@@ -0,0 +1,182 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.util;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.grpc.internal.FakeClock;
+import io.grpc.testing.TestMethodDescriptors;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.ArgumentCaptor;
+
+/** Unit tests for {@link AdaptiveThrottlingInterceptor}. */
+@RunWith(JUnit4.class)
+public class AdaptiveThrottlingInterceptorTest {
+  private static final float TOLERANCE = 0.0001f;
+
+  private final FakeClock fakeClock = new FakeClock();
+  private final MethodDescriptor<Void, Void> method = TestMethodDescriptors.voidMethod();
+  private final MethodDescriptor<Void, Void> otherMethod =
+      method.toBuilder().setFullMethodName("service_foo/other").build();
+  private final FakeChannel channel = new FakeChannel("foo.googleapis.com");
+  private final AdaptiveThrottlingInterceptor interceptor =
+      AdaptiveThrottlingInterceptor.newBuilder()
+          .setHistorySeconds(1)
+          .setTicker(fakeClock.getTicker())
+          .build();
+
+  @Test
+  public void backendRejectionsRaiseThrottleProbability() {
+    assertThat(probability(channel, method)).isWithin(TOLERANCE).of(0f);
+
+    completeCall(channel, method, Status.OK);
+    completeCall(channel, method, Status.INTERNAL);
+    completeCall(channel, method, Status.RESOURCE_EXHAUSTED);
+    // This one may be failed at the client, which counts the same as a backend rejection.
+    completeCall(channel, method, Status.UNAVAILABLE);
+    // (4 - 1.2 * 2) / (4 + 8)
+    assertThat(probability(channel, method)).isWithin(TOLERANCE).of(1.6f / 12);
+
+    // Statistics are kept per method and target.
+    assertThat(probability(channel, otherMethod)).isWithin(TOLERANCE).of(0f);
+    assertThat(probability(new FakeChannel("bar.googleapis.com"), method))
+        .isWithin(TOLERANCE).of(0f);
+
+    // and only for the history period
+    fakeClock.forwardTime(1, TimeUnit.SECONDS);
+    assertThat(probability(channel, method)).isWithin(TOLERANCE).of(0f);
+  }
+
+  @Test
+  public void callsFailedAtClientWhenBackendRejectsAll() {
+    for (int i = 0; i < 100; i++) {
+      completeCall(channel, method, Status.RESOURCE_EXHAUSTED);
+    }
+    // (100 - 0) / (100 + 8)
+    assertThat(probability(channel, method)).isWithin(TOLERANCE).of(100f / 108);
+
+    int throttled = 0;
+    for (int i = 0; i < 100; i++) {
+      if (!completeCall(channel, method, Status.RESOURCE_EXHAUSTED)) {
+        throttled++;
+      }
+    }
+    assertThat(throttled).isGreaterThan(50);
+  }
+
+  @Test
+  public void idleStatisticsDropped() {
+    completeCall(channel, method, Status.RESOURCE_EXHAUSTED);
+    completeCall(channel, otherMethod, Status.RESOURCE_EXHAUSTED);
+    assertThat(interceptor.getThrottleCount()).isEqualTo(2);
+
+    fakeClock.forwardTime(500, TimeUnit.MILLISECONDS);
+    completeCall(channel, method, Status.RESOURCE_EXHAUSTED);
+    fakeClock.forwardTime(500, TimeUnit.MILLISECONDS);
+    // otherMethod had no calls over the last second, method had one.
+    assertThat(probability(channel, method)).isGreaterThan(0f);
+    assertThat(interceptor.getThrottleCount()).isEqualTo(1);
+  }
+
+  private float probability(Channel channel, MethodDescriptor<?, ?> method) {
+    return interceptor.getThrottleProbability(channel.authority(), method.getFullMethodName());
+  }
+
+  /**
+   * Makes a call that the backend closes with {@code status}, and returns whether it reached the
+   * backend.
+   */
+  private boolean completeCall(FakeChannel channel, MethodDescriptor<Void, Void> method,
+      Status status) {
+    int callsBefore = channel.calls.size();
+    ClientCall<Void, Void> call = interceptor.interceptCall(
+        method, CallOptions.DEFAULT.withExecutor(fakeClock.getScheduledExecutorService()),
+        channel);
+    @SuppressWarnings("unchecked")
+    ClientCall.Listener<Void> listener = mock(ClientCall.Listener.class);
+    call.start(listener, new Metadata());
+    boolean sent = channel.calls.size() > callsBefore;
+    if (sent) {
+      channel.closeLastCall(status);
+    } else {
+      // Calls failed at the client are closed on the call executor, not inside start().
+      verifyNoInteractions(listener);
+      assertThat(fakeClock.runDueTasks()).isEqualTo(1);
+    }
+    ArgumentCaptor<Status> statusCaptor = ArgumentCaptor.forClass(Status.class);
+    verify(listener).onClose(statusCaptor.capture(), any(Metadata.class));
+    assertThat(statusCaptor.getValue().getCode())
+        .isEqualTo(sent ? status.getCode() : Status.Code.UNAVAILABLE);
+    return sent;
+  }
+
+  private static final class FakeChannel extends Channel {
+    final String authority;
+    final List<ClientCall.Listener<?>> calls = new ArrayList<>();
+
+    FakeChannel(String authority) {
+      this.authority = authority;
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> newCall(
+        MethodDescriptor<ReqT, RespT> methodDescriptor, CallOptions callOptions) {
+      return new ClientCall<ReqT, RespT>() {
+        @Override
+        public void start(Listener<RespT> responseListener, Metadata headers) {
+          calls.add(responseListener);
+        }
+
+        @Override
+        public void request(int numMessages) {}
+
+        @Override
+        public void cancel(String message, Throwable cause) {}
+
+        @Override
+        public void halfClose() {}
+
+        @Override
+        public void sendMessage(ReqT message) {}
+      };
+    }
+
+    @Override
+    public String authority() {
+      return authority;
+    }
+
+    void closeLastCall(Status status) {
+      calls.get(calls.size() - 1).onClose(status, new Metadata());
+    }
+  }
+}
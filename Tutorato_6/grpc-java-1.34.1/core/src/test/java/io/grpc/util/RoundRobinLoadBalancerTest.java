@@ -22,6 +22,7 @@ import static io.grpc.ConnectivityState.IDLE;
 import static io.grpc.ConnectivityState.READY;
 import static io.grpc.ConnectivityState.SHUTDOWN;
 import static io.grpc.ConnectivityState.TRANSIENT_FAILURE;
+import static io.grpc.util.RoundRobinLoadBalancer.OUTSTANDING_REQUESTS;
 import static io.grpc.util.RoundRobinLoadBalancer.STATE_INFO;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -42,6 +43,7 @@ import static org.mockito.Mockito.when;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import io.grpc.Attributes;
+import io.grpc.ClientStreamTracer;
 import io.grpc.ConnectivityState;
 import io.grpc.ConnectivityStateInfo;
 import io.grpc.EquivalentAddressGroup;
@@ -54,8 +56,11 @@ import io.grpc.LoadBalancer.ResolvedAddresses;
 import io.grpc.LoadBalancer.Subchannel;
 import io.grpc.LoadBalancer.SubchannelPicker;
 import io.grpc.LoadBalancer.SubchannelStateListener;
+import io.grpc.Metadata;
 import io.grpc.Status;
 import io.grpc.util.RoundRobinLoadBalancer.EmptyPicker;
+import io.grpc.util.RoundRobinLoadBalancer.LeastRequestPicker;
+import io.grpc.util.RoundRobinLoadBalancer.OutstandingRequestCounter;
 import io.grpc.util.RoundRobinLoadBalancer.ReadyPicker;
 import io.grpc.util.RoundRobinLoadBalancer.Ref;
 import java.net.SocketAddress;
@@ -448,6 +453,55 @@ public class RoundRobinLoadBalancerTest {
     new ReadyPicker(Collections.<Subchannel>emptyList(), 0);
   }
 
+  @Test
+  public void leastRequest_pickAfterResolved() throws Exception {
+    loadBalancer = new RoundRobinLoadBalancer(mockHelper, true);
+    loadBalancer.handleResolvedAddresses(
+        ResolvedAddresses.newBuilder().setAddresses(servers).setAttributes(affinity).build());
+    for (Subchannel subchannel : subchannels.values()) {
+      deliverSubchannelState(subchannel, ConnectivityStateInfo.forNonError(READY));
+    }
+
+    verify(mockHelper, times(3)).createSubchannel(createArgsCaptor.capture());
+    for (CreateSubchannelArgs args : createArgsCaptor.getAllValues()) {
+      assertThat(args.getAttributes().get(OUTSTANDING_REQUESTS)).isNotNull();
+    }
+    verify(mockHelper, times(3)).updateBalancingState(eq(READY), pickerCaptor.capture());
+    assertThat(pickerCaptor.getValue()).isInstanceOf(LeastRequestPicker.class);
+    assertThat(((LeastRequestPicker) pickerCaptor.getValue()).getList())
+        .containsExactlyElementsIn(subchannels.values());
+  }
+
+  @Test
+  public void leastRequestPicker_picksSubchannelWithFewerOutstandingRequests() {
+    Subchannel sc1 = newSubchannelWithRequestCounter();
+    Subchannel sc2 = newSubchannelWithRequestCounter();
+    LeastRequestPicker picker = new LeastRequestPicker(Arrays.asList(sc1, sc2));
+
+    PickResult pickResult = picker.pickSubchannel(mockArgs);
+    assertThat(pickResult.getStreamTracerFactory())
+        .isSameInstanceAs(pickResult.getSubchannel().getAttributes().get(OUTSTANDING_REQUESTS));
+    ClientStreamTracer tracer = pickResult.getStreamTracerFactory()
+        .newClientStreamTracer(ClientStreamTracer.StreamInfo.newBuilder().build(), new Metadata());
+    Subchannel other = pickResult.getSubchannel() == sc1 ? sc2 : sc1;
+    for (int i = 0; i < 10; i++) {
+      assertThat(picker.pickSubchannel(mockArgs).getSubchannel()).isSameInstanceAs(other);
+    }
+
+    tracer.streamClosed(Status.OK);
+    assertThat(pickResult.getSubchannel().getAttributes().get(OUTSTANDING_REQUESTS).get())
+        .isEqualTo(0);
+  }
+
+  @Test
+  public void leastRequestPicker_singleSubchannel() {
+    Subchannel sc = newSubchannelWithRequestCounter();
+    LeastRequestPicker picker = new LeastRequestPicker(Arrays.asList(sc));
+
+    assertThat(picker.pickSubchannel(mockArgs).getSubchannel()).isSameInstanceAs(sc);
+    assertThat(picker.pickSubchannel(mockArgs)).isSameInstanceAs(picker.pickSubchannel(mockArgs));
+  }
+
   @Test
   public void internalPickerComparisons() {
     EmptyPicker emptyOk1 = new EmptyPicker(Status.OK);
@@ -471,6 +525,25 @@ public class RoundRobinLoadBalancerTest {
     assertTrue(ready4.isEquivalentTo(ready5));
     assertFalse(emptyOk1.isEquivalentTo(ready1));
     assertFalse(ready1.isEquivalentTo(emptyOk1));
+
+    Subchannel sc3 = newSubchannelWithRequestCounter();
+    Subchannel sc4 = newSubchannelWithRequestCounter();
+    LeastRequestPicker leastRequest1 = new LeastRequestPicker(Arrays.asList(sc3, sc4));
+    LeastRequestPicker leastRequest2 = new LeastRequestPicker(Arrays.asList(sc4, sc3));
+    LeastRequestPicker leastRequest3 = new LeastRequestPicker(Arrays.asList(sc3));
+    assertTrue(leastRequest1.isEquivalentTo(leastRequest2));
+    assertFalse(leastRequest1.isEquivalentTo(leastRequest3));
+    assertFalse(leastRequest1.isEquivalentTo(ready1));
+    assertFalse(ready1.isEquivalentTo(leastRequest1));
+  }
+
+  private static Subchannel newSubchannelWithRequestCounter() {
+    Subchannel subchannel = mock(Subchannel.class);
+    when(subchannel.getAttributes()).thenReturn(
+        Attributes.newBuilder()
+            .set(OUTSTANDING_REQUESTS, new OutstandingRequestCounter())
+            .build());
+    return subchannel;
   }
 
   private static List<Subchannel> getList(SubchannelPicker picker) {
@@ -19,6 +19,7 @@ package io.grpc.netty;
 import static io.grpc.netty.Utils.CONTENT_TYPE_HEADER;
 import static io.grpc.netty.Utils.TE_TRAILERS;
 
+import io.grpc.Metadata;
 import io.grpc.netty.GrpcHttp2HeadersUtils.GrpcHttp2RequestHeaders;
 import io.grpc.netty.GrpcHttp2HeadersUtils.GrpcHttp2ResponseHeaders;
 import io.netty.handler.codec.http2.DefaultHttp2Headers;
@@ -42,10 +43,16 @@ public class InboundHeadersBenchmark {
 
   private static AsciiString[] requestHeaders;
   private static AsciiString[] responseHeaders;
+  private static AsciiString[] largeRequestHeaders;
+  private static Metadata.Key<String>[] largeRequestKeys;
+
+  /** Number of application headers added on top of the gRPC request headers. */
+  private static final int EXTRA_HEADERS = 48;
 
   static {
     setupRequestHeaders();
     setupResponseHeaders();
+    setupLargeRequestHeaders();
   }
 
   // Headers taken from the gRPC spec.
@@ -81,6 +88,20 @@ public class InboundHeadersBenchmark {
     responseHeaders[i] = AsciiString.of("gzip");
   }
 
+  // Request headers plus the tracing, auth and routing headers a large deployment accumulates.
+  @SuppressWarnings("unchecked")
+  private static void setupLargeRequestHeaders() {
+    largeRequestHeaders = new AsciiString[requestHeaders.length + EXTRA_HEADERS * 2];
+    System.arraycopy(requestHeaders, 0, largeRequestHeaders, 0, requestHeaders.length);
+    largeRequestKeys = new Metadata.Key[EXTRA_HEADERS];
+    for (int i = 0; i < EXTRA_HEADERS; i++) {
+      String name = "x-app-header-" + i;
+      largeRequestKeys[i] = Metadata.Key.of(name, Metadata.ASCII_STRING_MARSHALLER);
+      largeRequestHeaders[requestHeaders.length + i * 2] = AsciiString.of(name);
+      largeRequestHeaders[requestHeaders.length + i * 2 + 1] = AsciiString.of("value-" + i);
+    }
+  }
+
   /**
    * Checkstyle.
    */
@@ -121,6 +142,24 @@ public class InboundHeadersBenchmark {
     clientHandler(bh, new DefaultHttp2Headers(true, 2));
   }
 
+  /**
+   * Converts a large request header set and looks up each application header, as a chain of
+   * interceptors would.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public void grpcHeaders_largeMetadataLookup(Blackhole bh) {
+    Http2Headers headers = new GrpcHttp2RequestHeaders(4);
+    for (int i = 0; i < largeRequestHeaders.length; i += 2) {
+      headers.add(largeRequestHeaders[i], largeRequestHeaders[i + 1]);
+    }
+    Metadata metadata = Utils.convertHeaders(headers);
+    for (Metadata.Key<String> key : largeRequestKeys) {
+      bh.consume(metadata.get(key));
+    }
+  }
+
   @CompilerControl(CompilerControl.Mode.INLINE)
   private static void serverHandler(Blackhole bh, Http2Headers headers) {
     for (int i = 0; i < requestHeaders.length; i += 2) {
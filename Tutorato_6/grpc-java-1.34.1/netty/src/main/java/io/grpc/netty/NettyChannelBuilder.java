@@ -225,7 +225,9 @@ public final class NettyChannelBuilder extends
 
   /**
    * Specifies the channel type to use, by default we use {@code EpollSocketChannel} if available,
-   * otherwise using {@link NioSocketChannel}.
+   * otherwise using {@link NioSocketChannel}. The {@code io.grpc.netty.nativeTransports} system
+   * property lists the native transports to try in order, e.g. {@code io_uring,epoll} to prefer
+   * {@code IOUringSocketChannel} when available.
    *
    * <p>You either use this or {@link #channelFactory(io.netty.channel.ChannelFactory)} if your
    * {@link Channel} implementation has no no-args constructor.
@@ -22,6 +22,7 @@ import io.netty.buffer.ByteBuf;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import javax.annotation.Nullable;
 
 /**
  * A {@link java.nio.Buffer} implementation that is backed by a Netty {@link ByteBuf}. This class
@@ -94,6 +95,39 @@ class NettyReadableBuffer extends AbstractReadableBuffer {
     return buffer.arrayOffset() + buffer.readerIndex();
   }
 
+  @Override
+  public boolean markSupported() {
+    return true;
+  }
+
+  @Override
+  public void mark() {
+    buffer.markReaderIndex();
+  }
+
+  @Override
+  public void reset() {
+    buffer.resetReaderIndex();
+  }
+
+  @Override
+  public boolean byteBufferSupported() {
+    return buffer.nioBufferCount() > 0;
+  }
+
+  /**
+   * Returns a view of the readable bytes if the underlying buffer is contiguous, otherwise a view
+   * of its first component. Never copies.
+   */
+  @Nullable
+  @Override
+  public ByteBuffer getByteBuffer() {
+    if (buffer.readableBytes() == 0) {
+      return null;
+    }
+    return buffer.nioBufferCount() == 1 ? buffer.nioBuffer() : buffer.nioBuffers()[0];
+  }
+
   /**
    * If the first call to close, calls {@link ByteBuf#release} to release the internal Netty buffer.
    */
@@ -206,7 +206,9 @@ public final class NettyServerBuilder extends AbstractServerImplBuilder<NettySer
 
   /**
    * Specifies the channel type to use, by default we use {@code EpollServerSocketChannel} if
-   * available, otherwise using {@link NioServerSocketChannel}.
+   * available, otherwise using {@link NioServerSocketChannel}. The {@code
+   * io.grpc.netty.nativeTransports} system property lists the native transports to try in order,
+   * e.g. {@code io_uring,epoll} to prefer {@code IOUringServerSocketChannel} when available.
    *
    * <p>You either use this or {@link #channelFactory(io.netty.channel.ChannelFactory)} if your
    * {@link ServerChannel} implementation has no no-args constructor.
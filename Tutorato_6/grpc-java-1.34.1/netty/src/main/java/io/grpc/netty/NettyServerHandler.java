@@ -334,7 +334,7 @@ class NettyServerHandler extends AbstractNettyHandler {
 
   @Override
   public void handlerAdded(final ChannelHandlerContext ctx) throws Exception {
-    serverWriteQueue = new WriteQueue(ctx.channel());
+    serverWriteQueue = new WriteQueue(ctx.channel(), transportTracer);
 
     // init max connection age monitor
     if (maxConnectionAgeInNanos != MAX_CONNECTION_AGE_NANOS_DISABLED) {
@@ -403,7 +403,10 @@ class NettyServerHandler extends AbstractNettyHandler {
         return;
       }
 
-      String method = path.subSequence(1, path.length()).toString();
+      String method = transportListener.lookupMethodName(path, 1);
+      if (method == null) {
+        method = path.subSequence(1, path.length()).toString();
+      }
 
       // Verify that the Content-Type is correct in the request.
       CharSequence contentType = headers.get(CONTENT_TYPE_HEADER);
@@ -16,7 +16,6 @@
 
 package io.grpc.netty;
 
-import static com.google.common.base.Preconditions.checkState;
 import static io.grpc.internal.GrpcUtil.CONTENT_TYPE_KEY;
 import static io.grpc.internal.TransportFrameUtil.toHttp2Headers;
 import static io.grpc.internal.TransportFrameUtil.toRawSerializedHeaders;
@@ -26,6 +25,7 @@ import static io.netty.util.CharsetUtil.UTF_8;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
 import io.grpc.InternalChannelz;
 import io.grpc.InternalMetadata;
 import io.grpc.Metadata;
@@ -55,6 +55,8 @@ import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.UnresolvedAddressException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
@@ -79,10 +81,18 @@ class Utils {
   public static final AsciiString TE_HEADER = AsciiString.of(GrpcUtil.TE_HEADER.name());
   public static final AsciiString TE_TRAILERS = AsciiString.of(GrpcUtil.TE_TRAILERS);
   public static final AsciiString USER_AGENT = AsciiString.of(GrpcUtil.USER_AGENT_KEY.name());
+  /**
+   * System property listing, in order of preference, the native transports to try before falling
+   * back to NIO. io_uring is still an incubator transport, so it is only used when listed.
+   */
+  @VisibleForTesting
+  static final String NATIVE_TRANSPORTS_PROPERTY = "io.grpc.netty.nativeTransports";
+  private static final String DEFAULT_NATIVE_TRANSPORTS = "epoll";
+
   public static final Resource<EventLoopGroup> NIO_BOSS_EVENT_LOOP_GROUP
-      = new DefaultEventLoopGroupResource(1, "grpc-nio-boss-ELG", EventLoopGroupType.NIO);
+      = new DefaultEventLoopGroupResource(1, "grpc-nio-boss-ELG", null);
   public static final Resource<EventLoopGroup> NIO_WORKER_EVENT_LOOP_GROUP
-      = new DefaultEventLoopGroupResource(0, "grpc-nio-worker-ELG", EventLoopGroupType.NIO);
+      = new DefaultEventLoopGroupResource(0, "grpc-nio-worker-ELG", null);
   public static final Resource<EventLoopGroup> DEFAULT_BOSS_EVENT_LOOP_GROUP;
   public static final Resource<EventLoopGroup> DEFAULT_WORKER_EVENT_LOOP_GROUP;
 
@@ -99,26 +109,29 @@ class Utils {
   public static final ChannelFactory<? extends ServerChannel> DEFAULT_SERVER_CHANNEL_FACTORY;
   public static final Class<? extends Channel> DEFAULT_CLIENT_CHANNEL_TYPE;
 
+  /**
+   * The native transport used by default, or {@code null} if none is available and NIO is used.
+   */
   @Nullable
-  private static final Constructor<? extends EventLoopGroup> EPOLL_EVENT_LOOP_GROUP_CONSTRUCTOR;
+  static final NativeTransport DEFAULT_NATIVE_TRANSPORT;
 
   static {
-    // Decide default channel types and EventLoopGroup based on Epoll availability
-    if (isEpollAvailable()) {
-      DEFAULT_CLIENT_CHANNEL_TYPE = epollChannelType();
-      DEFAULT_SERVER_CHANNEL_FACTORY = new ReflectiveChannelFactory<>(epollServerChannelType());
-      EPOLL_EVENT_LOOP_GROUP_CONSTRUCTOR = epollEventLoopGroupConstructor();
-      DEFAULT_BOSS_EVENT_LOOP_GROUP
-        = new DefaultEventLoopGroupResource(1, "grpc-default-boss-ELG", EventLoopGroupType.EPOLL);
-      DEFAULT_WORKER_EVENT_LOOP_GROUP
-        = new DefaultEventLoopGroupResource(0,"grpc-default-worker-ELG", EventLoopGroupType.EPOLL);
+    // Decide default channel types and EventLoopGroup based on native transport availability
+    DEFAULT_NATIVE_TRANSPORT = selectNativeTransport(parseNativeTransports(
+        System.getProperty(NATIVE_TRANSPORTS_PROPERTY, DEFAULT_NATIVE_TRANSPORTS)));
+    if (DEFAULT_NATIVE_TRANSPORT != null) {
+      DEFAULT_CLIENT_CHANNEL_TYPE = DEFAULT_NATIVE_TRANSPORT.channelType();
+      DEFAULT_SERVER_CHANNEL_FACTORY =
+          new ReflectiveChannelFactory<>(DEFAULT_NATIVE_TRANSPORT.serverChannelType());
+      DEFAULT_BOSS_EVENT_LOOP_GROUP = new DefaultEventLoopGroupResource(
+          1, "grpc-default-boss-ELG", DEFAULT_NATIVE_TRANSPORT);
+      DEFAULT_WORKER_EVENT_LOOP_GROUP = new DefaultEventLoopGroupResource(
+          0, "grpc-default-worker-ELG", DEFAULT_NATIVE_TRANSPORT);
     } else {
-      logger.log(Level.FINE, "Epoll is not available, using Nio.", getEpollUnavailabilityCause());
       DEFAULT_SERVER_CHANNEL_FACTORY = nioServerChannelFactory();
       DEFAULT_CLIENT_CHANNEL_TYPE = NioSocketChannel.class;
       DEFAULT_BOSS_EVENT_LOOP_GROUP = NIO_BOSS_EVENT_LOOP_GROUP;
       DEFAULT_WORKER_EVENT_LOOP_GROUP = NIO_WORKER_EVENT_LOOP_GROUP;
-      EPOLL_EVENT_LOOP_GROUP_CONSTRUCTOR = null;
     }
   }
 
@@ -281,80 +294,46 @@ class Utils {
 
   @VisibleForTesting
   static boolean isEpollAvailable() {
-    try {
-      return (boolean) (Boolean)
-          Class
-              .forName("io.netty.channel.epoll.Epoll")
-              .getDeclaredMethod("isAvailable")
-              .invoke(null);
-    } catch (ClassNotFoundException e) {
-      // this is normal if netty-epoll runtime dependency doesn't exist.
-      return false;
-    } catch (Exception e) {
-      throw new RuntimeException("Exception while checking Epoll availability", e);
-    }
-  }
-
-  private static Throwable getEpollUnavailabilityCause() {
-    try {
-      return (Throwable)
-          Class
-              .forName("io.netty.channel.epoll.Epoll")
-              .getDeclaredMethod("unavailabilityCause")
-              .invoke(null);
-    } catch (Exception e) {
-      return e;
-    }
+    return NativeTransport.EPOLL.isAvailable();
   }
 
-  // Must call when epoll is available
-  private static Class<? extends Channel> epollChannelType() {
-    try {
-      Class<? extends Channel> channelType = Class
-          .forName("io.netty.channel.epoll.EpollSocketChannel").asSubclass(Channel.class);
-      return channelType;
-    } catch (ClassNotFoundException e) {
-      throw new RuntimeException("Cannot load EpollSocketChannel", e);
-    }
-  }
-
-  // Must call when epoll is available
-  private static Constructor<? extends EventLoopGroup> epollEventLoopGroupConstructor() {
-    try {
-      return Class
-          .forName("io.netty.channel.epoll.EpollEventLoopGroup").asSubclass(EventLoopGroup.class)
-          .getConstructor(Integer.TYPE, ThreadFactory.class);
-    } catch (ClassNotFoundException e) {
-      throw new RuntimeException("Cannot load EpollEventLoopGroup", e);
-    } catch (NoSuchMethodException e) {
-      throw new RuntimeException("EpollEventLoopGroup constructor not found", e);
-    }
-  }
-
-  // Must call when epoll is available
-  private static Class<? extends ServerChannel> epollServerChannelType() {
-    try {
-      Class<? extends ServerChannel> serverSocketChannel =
-          Class
-              .forName("io.netty.channel.epoll.EpollServerSocketChannel")
-              .asSubclass(ServerChannel.class);
-      return serverSocketChannel;
-    } catch (ClassNotFoundException e) {
-      throw new RuntimeException("Cannot load EpollServerSocketChannel", e);
+  /**
+   * Parses a comma-separated list of native transport names. Unknown names are logged and
+   * ignored, so an empty list, or {@code "nio"}, selects NIO.
+   */
+  @VisibleForTesting
+  static List<NativeTransport> parseNativeTransports(String names) {
+    List<NativeTransport> transports = new ArrayList<>();
+    for (String name : Splitter.on(',').trimResults().omitEmptyStrings().split(names)) {
+      NativeTransport transport = NativeTransport.forName(name);
+      if (transport != null) {
+        transports.add(transport);
+      } else if (!"nio".equalsIgnoreCase(name)) {
+        logger.log(Level.WARNING, "Ignoring unknown native transport {0}", name);
+      }
     }
+    return transports;
   }
 
-  private static EventLoopGroup createEpollEventLoopGroup(
-      int parallelism,
-      ThreadFactory threadFactory) {
-    checkState(EPOLL_EVENT_LOOP_GROUP_CONSTRUCTOR != null, "Epoll is not available");
-
-    try {
-      return EPOLL_EVENT_LOOP_GROUP_CONSTRUCTOR
-          .newInstance(parallelism, threadFactory);
-    } catch (Exception e) {
-      throw new RuntimeException("Cannot create Epoll EventLoopGroup", e);
+  /** Returns the first available transport, or {@code null} if none is, to use NIO. */
+  @Nullable
+  @VisibleForTesting
+  static NativeTransport selectNativeTransport(List<NativeTransport> transports) {
+    for (NativeTransport transport : transports) {
+      try {
+        if (transport.isAvailable()) {
+          return transport;
+        }
+        logger.log(
+            Level.FINE,
+            transport + " is not available",
+            transport.getUnavailabilityCause());
+      } catch (RuntimeException e) {
+        logger.log(Level.FINE, "Exception while checking " + transport + " availability", e);
+      }
     }
+    logger.log(Level.FINE, "No native transport is available, using Nio.");
+    return null;
   }
 
   private static ChannelFactory<ServerChannel> nioServerChannelFactory() {
@@ -367,37 +346,34 @@ class Utils {
   }
 
   /**
-   * Returns TCP_USER_TIMEOUT channel option for Epoll channel if Epoll is available, otherwise
-   * null.
+   * Returns TCP_USER_TIMEOUT channel option of the native transport {@code channel} belongs to,
+   * or null if it does not belong to one or the transport has no such option.
    */
   @Nullable
-  static ChannelOption<Integer> maybeGetTcpUserTimeoutOption() {
-    return getEpollChannelOption("TCP_USER_TIMEOUT");
-  }
-
-  @Nullable
-  @SuppressWarnings("unchecked")
-  private static <T> ChannelOption<T> getEpollChannelOption(String optionName) {
-    if (isEpollAvailable()) {
-      try {
-        return
-            (ChannelOption<T>) Class.forName("io.netty.channel.epoll.EpollChannelOption")
-                .getField(optionName)
-                .get(null);
-      } catch (Exception e) {
-        throw new RuntimeException("ChannelOption(" + optionName + ") is not available", e);
-      }
+  static ChannelOption<Integer> maybeGetTcpUserTimeoutOption(Channel channel) {
+    NativeTransport transport;
+    if (NativeTransport.EPOLL.isChannel(channel)) {
+      transport = NativeTransport.EPOLL;
+    } else if (NativeTransport.IO_URING.isChannel(channel)) {
+      transport = NativeTransport.IO_URING;
+    } else {
+      return null;
     }
-    return null;
+    return transport.getChannelOption("TCP_USER_TIMEOUT");
   }
 
   private static final class DefaultEventLoopGroupResource implements Resource<EventLoopGroup> {
     private final String name;
     private final int numEventLoops;
-    private final EventLoopGroupType eventLoopGroupType;
+    @Nullable
+    private final NativeTransport nativeTransport;
 
+    /**
+     * Creates a resource for event loops of {@code nativeTransport}, or NIO event loops if it is
+     * {@code null}.
+     */
     DefaultEventLoopGroupResource(
-        int numEventLoops, String name, EventLoopGroupType eventLoopGroupType) {
+        int numEventLoops, String name, @Nullable NativeTransport nativeTransport) {
       this.name = name;
       // See the implementation of MultithreadEventLoopGroup.  DEFAULT_EVENT_LOOP_THREADS there
       // defaults to NettyRuntime.availableProcessors() * 2.  We don't think we need that many
@@ -409,21 +385,17 @@ class Utils {
       } else {
         this.numEventLoops = numEventLoops;
       }
-      this.eventLoopGroupType = eventLoopGroupType;
+      this.nativeTransport = nativeTransport;
     }
 
     @Override
     public EventLoopGroup create() {
       // Use Netty's DefaultThreadFactory in order to get the benefit of FastThreadLocal.
       ThreadFactory threadFactory = new DefaultThreadFactory(name, /* daemon= */ true);
-      switch (eventLoopGroupType) {
-        case NIO:
-          return new NioEventLoopGroup(numEventLoops, threadFactory);
-        case EPOLL:
-          return createEpollEventLoopGroup(numEventLoops, threadFactory);
-        default:
-          throw new AssertionError("Unknown/Unsupported EventLoopGroupType: " + eventLoopGroupType);
+      if (nativeTransport == null) {
+        return new NioEventLoopGroup(numEventLoops, threadFactory);
       }
+      return nativeTransport.createEventLoopGroup(numEventLoops, threadFactory);
     }
 
     @Override
@@ -476,9 +448,152 @@ class Utils {
     return b.build();
   }
 
-  private enum EventLoopGroupType {
-    NIO,
-    EPOLL
+  /**
+   * A Netty native transport, loaded reflectively so that its artifact is an optional runtime
+   * dependency.
+   */
+  static final class NativeTransport {
+    static final NativeTransport EPOLL = new NativeTransport(
+        "epoll",
+        "io.netty.channel.epoll.Epoll",
+        "io.netty.channel.epoll.EpollSocketChannel",
+        "io.netty.channel.epoll.EpollServerSocketChannel",
+        "io.netty.channel.epoll.EpollEventLoopGroup",
+        "io.netty.channel.epoll.EpollChannelOption");
+    static final NativeTransport IO_URING = new NativeTransport(
+        "io_uring",
+        "io.netty.incubator.channel.uring.IOUring",
+        "io.netty.incubator.channel.uring.IOUringSocketChannel",
+        "io.netty.incubator.channel.uring.IOUringServerSocketChannel",
+        "io.netty.incubator.channel.uring.IOUringEventLoopGroup",
+        "io.netty.incubator.channel.uring.IOUringChannelOption");
+
+    private final String name;
+    private final String availabilityClassName;
+    private final String channelClassName;
+    private final String serverChannelClassName;
+    private final String eventLoopGroupClassName;
+    private final String channelOptionClassName;
+
+    @VisibleForTesting
+    NativeTransport(
+        String name,
+        String availabilityClassName,
+        String channelClassName,
+        String serverChannelClassName,
+        String eventLoopGroupClassName,
+        String channelOptionClassName) {
+      this.name = name;
+      this.availabilityClassName = availabilityClassName;
+      this.channelClassName = channelClassName;
+      this.serverChannelClassName = serverChannelClassName;
+      this.eventLoopGroupClassName = eventLoopGroupClassName;
+      this.channelOptionClassName = channelOptionClassName;
+    }
+
+    @Nullable
+    static NativeTransport forName(String name) {
+      if (EPOLL.name.equalsIgnoreCase(name)) {
+        return EPOLL;
+      }
+      if (IO_URING.name.equalsIgnoreCase(name) || "iouring".equalsIgnoreCase(name)) {
+        return IO_URING;
+      }
+      return null;
+    }
+
+    boolean isAvailable() {
+      try {
+        return (boolean) (Boolean)
+            Class
+                .forName(availabilityClassName)
+                .getDeclaredMethod("isAvailable")
+                .invoke(null);
+      } catch (ClassNotFoundException e) {
+        // this is normal if the transport's runtime dependency doesn't exist.
+        return false;
+      } catch (Exception e) {
+        throw new RuntimeException("Exception while checking " + name + " availability", e);
+      }
+    }
+
+    Throwable getUnavailabilityCause() {
+      try {
+        return (Throwable)
+            Class
+                .forName(availabilityClassName)
+                .getDeclaredMethod("unavailabilityCause")
+                .invoke(null);
+      } catch (Exception e) {
+        return e;
+      }
+    }
+
+    /** Returns whether {@code channel} is a channel of this transport, without loading it. */
+    boolean isChannel(Channel channel) {
+      for (Class<?> c = channel.getClass(); c != null; c = c.getSuperclass()) {
+        if (c.getName().equals(channelClassName)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    // Must call when the transport is available
+    Class<? extends Channel> channelType() {
+      try {
+        return Class.forName(channelClassName).asSubclass(Channel.class);
+      } catch (ClassNotFoundException e) {
+        throw new RuntimeException("Cannot load " + channelClassName, e);
+      }
+    }
+
+    // Must call when the transport is available
+    Class<? extends ServerChannel> serverChannelType() {
+      try {
+        return Class.forName(serverChannelClassName).asSubclass(ServerChannel.class);
+      } catch (ClassNotFoundException e) {
+        throw new RuntimeException("Cannot load " + serverChannelClassName, e);
+      }
+    }
+
+    // Must call when the transport is available
+    EventLoopGroup createEventLoopGroup(int parallelism, ThreadFactory threadFactory) {
+      Constructor<? extends EventLoopGroup> constructor;
+      try {
+        constructor = Class.forName(eventLoopGroupClassName).asSubclass(EventLoopGroup.class)
+            .getConstructor(Integer.TYPE, ThreadFactory.class);
+      } catch (ClassNotFoundException e) {
+        throw new RuntimeException("Cannot load " + eventLoopGroupClassName, e);
+      } catch (NoSuchMethodException e) {
+        throw new RuntimeException(eventLoopGroupClassName + " constructor not found", e);
+      }
+      try {
+        return constructor.newInstance(parallelism, threadFactory);
+      } catch (Exception e) {
+        throw new RuntimeException("Cannot create " + name + " EventLoopGroup", e);
+      }
+    }
+
+    /** Returns the transport specific option, or {@code null} if the transport lacks it. */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    <T> ChannelOption<T> getChannelOption(String optionName) {
+      try {
+        return (ChannelOption<T>) Class.forName(channelOptionClassName)
+            .getField(optionName)
+            .get(null);
+      } catch (NoSuchFieldException e) {
+        return null;
+      } catch (Exception e) {
+        throw new RuntimeException("ChannelOption(" + optionName + ") is not available", e);
+      }
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
   }
 
   private Utils() {
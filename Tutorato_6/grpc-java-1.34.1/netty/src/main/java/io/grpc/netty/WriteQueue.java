@@ -19,6 +19,8 @@ package io.grpc.netty;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import io.grpc.internal.TransportTracer;
+import io.netty.buffer.ByteBufHolder;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelPromise;
@@ -26,16 +28,32 @@ import io.perfmark.Link;
 import io.perfmark.PerfMark;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * A queue of pending writes to a {@link Channel} that is flushed as a single unit.
+ *
+ * <p>Long drains are broken up by intermediate flushes so that buffers are released
+ * periodically. An intermediate flush happens once enough commands or bytes have been written
+ * since the previous flush. While the channel is writable, a flush is also due once the drain has
+ * run past its time budget, to bound the latency of the first writes; while it is not, the socket
+ * is backed up and flushing earlier than the size limits only adds syscalls. A drain always ends
+ * with a flush.
  */
 class WriteQueue {
 
-  // Dequeue in chunks, so we don't have to acquire the queue's log too often.
+  // Upper bound on the commands written between two flushes.
+  @VisibleForTesting
+  static final int MAX_COMMANDS_PER_FLUSH = 1024;
+  // Payload bytes written after which a flush is due. About a socket send buffer.
+  @VisibleForTesting
+  static final int FLUSH_BYTES_THRESHOLD = 64 * 1024;
+  // Time after which a flush is due, to bound the latency of the first writes of a long drain.
   @VisibleForTesting
-  static final int DEQUE_CHUNK_SIZE = 128;
+  static final long FLUSH_TIME_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+  // Reading the clock for every command is too costly; check the budget at this interval.
+  private static final int TIME_CHECK_INTERVAL = 32;
 
   /**
    * {@link Runnable} used to schedule work onto the tail of the event loop.
@@ -48,11 +66,30 @@ class WriteQueue {
   };
 
   private final Channel channel;
+  private final TransportTracer transportTracer;
+  private final int maxCommandsPerFlush;
+  private final int flushBytesThreshold;
+  private final long flushTimeBudgetNanos;
   private final Queue<QueuedCommand> queue;
   private final AtomicBoolean scheduled = new AtomicBoolean();
 
   public WriteQueue(Channel channel) {
+    this(channel, new TransportTracer());
+  }
+
+  public WriteQueue(Channel channel, TransportTracer transportTracer) {
+    this(channel, transportTracer, MAX_COMMANDS_PER_FLUSH, FLUSH_BYTES_THRESHOLD,
+        FLUSH_TIME_BUDGET_NANOS);
+  }
+
+  @VisibleForTesting
+  WriteQueue(Channel channel, TransportTracer transportTracer, int maxCommandsPerFlush,
+      int flushBytesThreshold, long flushTimeBudgetNanos) {
     this.channel = Preconditions.checkNotNull(channel, "channel");
+    this.transportTracer = Preconditions.checkNotNull(transportTracer, "transportTracer");
+    this.maxCommandsPerFlush = maxCommandsPerFlush;
+    this.flushBytesThreshold = flushBytesThreshold;
+    this.flushTimeBudgetNanos = flushTimeBudgetNanos;
     queue = new ConcurrentLinkedQueue<>();
   }
 
@@ -122,32 +159,50 @@ class WriteQueue {
     PerfMark.startTask("WriteQueue.periodicFlush");
     try {
       QueuedCommand cmd;
-      int i = 0;
+      int commands = 0;
+      long bytes = 0;
+      long lastFlushNanos = flushTimeBudgetNanos > 0 ? System.nanoTime() : 0;
       boolean flushedOnce = false;
       while ((cmd = queue.poll()) != null) {
+        if (cmd instanceof ByteBufHolder) {
+          // Read before running, as writing the command releases its content.
+          bytes += ((ByteBufHolder) cmd).content().readableBytes();
+        }
         cmd.run(channel);
-        if (++i == DEQUE_CHUNK_SIZE) {
-          i = 0;
-          // Flush each chunk so we are releasing buffers periodically. In theory this loop
-          // might never end as new events are continuously added to the queue, if we never
-          // flushed in that case we would be guaranteed to OOM.
+        commands++;
+        // Flush periodically so we are releasing buffers. In theory this loop might never end as
+        // new events are continuously added to the queue, if we never flushed in that case we
+        // would be guaranteed to OOM.
+        boolean flushDue = commands >= maxCommandsPerFlush || bytes >= flushBytesThreshold;
+        if (!flushDue && flushTimeBudgetNanos > 0 && commands % TIME_CHECK_INTERVAL == 0
+            && channel.isWritable()) {
+          flushDue = System.nanoTime() - lastFlushNanos >= flushTimeBudgetNanos;
+        }
+        if (flushDue) {
           PerfMark.startTask("WriteQueue.flush0");
           try {
             channel.flush();
           } finally {
             PerfMark.stopTask("WriteQueue.flush0");
           }
+          transportTracer.reportFlush(commands, bytes);
+          commands = 0;
+          bytes = 0;
+          if (flushTimeBudgetNanos > 0) {
+            lastFlushNanos = System.nanoTime();
+          }
           flushedOnce = true;
         }
       }
       // Must flush at least once, even if there were no writes.
-      if (i != 0 || !flushedOnce) {
+      if (commands != 0 || !flushedOnce) {
         PerfMark.startTask("WriteQueue.flush1");
         try {
           channel.flush();
         } finally {
           PerfMark.stopTask("WriteQueue.flush1");
         }
+        transportTracer.reportFlush(commands, bytes);
       }
     } finally {
       PerfMark.stopTask("WriteQueue.periodicFlush");
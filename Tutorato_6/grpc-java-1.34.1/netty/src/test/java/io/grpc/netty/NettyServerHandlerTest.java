@@ -148,6 +148,11 @@ public class NettyServerHandlerTest extends NettyHandlerTestBase<NettyServerHand
       stream.setListener(streamListener);
     }
 
+    @Override
+    public String lookupMethodName(CharSequence path, int start) {
+      return null;
+    }
+
     @Override
     public Attributes transportReady(Attributes attributes) {
       return Attributes.EMPTY;
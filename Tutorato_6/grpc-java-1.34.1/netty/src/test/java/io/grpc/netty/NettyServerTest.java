@@ -323,6 +323,10 @@ public class NettyServerTest {
   private static class NoopServerTransportListener implements ServerTransportListener {
     @Override public void streamCreated(ServerStream stream, String method, Metadata headers) {}
 
+    @Override public String lookupMethodName(CharSequence path, int start) {
+      return null;
+    }
+
     @Override public Attributes transportReady(Attributes attributes) {
       return attributes;
     }
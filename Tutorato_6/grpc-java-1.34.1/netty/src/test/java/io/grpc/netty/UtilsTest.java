@@ -33,6 +33,7 @@ import io.netty.channel.ChannelFactory;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ConnectTimeoutException;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ReflectiveChannelFactory;
 import io.netty.channel.ServerChannel;
 import io.netty.channel.WriteBufferWaterMark;
 import io.netty.channel.embedded.EmbeddedChannel;
@@ -43,6 +44,8 @@ import io.netty.handler.codec.http2.Http2Exception;
 import io.netty.handler.codec.http2.Http2Headers;
 import io.netty.util.AsciiString;
 import java.nio.channels.UnresolvedAddressException;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Map;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -222,6 +225,50 @@ public class UtilsTest {
   public void maybeGetTcpUserTimeoutOption() {
     assume().that(Utils.isEpollAvailable()).isTrue();
 
-    assertThat(Utils.maybeGetTcpUserTimeoutOption()).isNotNull();
+    Channel channel =
+        new ReflectiveChannelFactory<>(Utils.NativeTransport.EPOLL.channelType()).newChannel();
+    try {
+      assertThat(Utils.maybeGetTcpUserTimeoutOption(channel)).isNotNull();
+    } finally {
+      channel.unsafe().closeForcibly();
+    }
+    assertThat(Utils.maybeGetTcpUserTimeoutOption(new EmbeddedChannel())).isNull();
+  }
+
+  @Test
+  public void parseNativeTransports() {
+    assertThat(Utils.parseNativeTransports("io_uring, epoll"))
+        .containsExactly(Utils.NativeTransport.IO_URING, Utils.NativeTransport.EPOLL)
+        .inOrder();
+    assertThat(Utils.parseNativeTransports("EPOLL,unknown,,nio"))
+        .containsExactly(Utils.NativeTransport.EPOLL);
+    assertThat(Utils.parseNativeTransports("nio")).isEmpty();
+  }
+
+  @Test
+  public void selectNativeTransport_skipsUnavailable() {
+    Utils.NativeTransport missing = new Utils.NativeTransport(
+        "missing",
+        "io.grpc.netty.DoesNotExist",
+        "io.grpc.netty.DoesNotExist",
+        "io.grpc.netty.DoesNotExist",
+        "io.grpc.netty.DoesNotExist",
+        "io.grpc.netty.DoesNotExist");
+    assertThat(missing.isAvailable()).isFalse();
+    assertNull(Utils.selectNativeTransport(Collections.singletonList(missing)));
+    assertNull(Utils.selectNativeTransport(Collections.<Utils.NativeTransport>emptyList()));
+
+    assume().that(Utils.isEpollAvailable()).isTrue();
+    assertSame(
+        Utils.NativeTransport.EPOLL,
+        Utils.selectNativeTransport(Arrays.asList(missing, Utils.NativeTransport.EPOLL)));
+  }
+
+  @Test
+  public void defaultNativeTransport_whenEpollIsAvailable() {
+    assume().that(Utils.isEpollAvailable()).isTrue();
+    assume().that(System.getProperty(Utils.NATIVE_TRANSPORTS_PROPERTY)).isNull();
+
+    assertSame(Utils.NativeTransport.EPOLL, Utils.DEFAULT_NATIVE_TRANSPORT);
   }
 }
@@ -16,6 +16,7 @@
 
 package io.grpc.netty;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
@@ -25,11 +26,16 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import io.grpc.internal.TransportTracer;
 import io.grpc.netty.WriteQueue.QueuedCommand;
+import io.netty.buffer.DefaultByteBufHolder;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelPromise;
 import io.netty.channel.EventLoop;
+import io.perfmark.Link;
+import io.perfmark.PerfMark;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.junit.Before;
@@ -80,6 +86,7 @@ public class WriteQueueTest {
     }).when(eventLoop).execute(any(Runnable.class));
     when(eventLoop.inEventLoop()).thenReturn(true);
     when(channel.eventLoop()).thenReturn(eventLoop);
+    when(channel.isWritable()).thenReturn(true);
 
     when(channel.flush()).thenAnswer(new Answer<Channel>() {
       @Override
@@ -132,8 +139,10 @@ public class WriteQueueTest {
 
   @Test
   public void maxWritesBeforeFlushShouldBeEnforced() {
-    WriteQueue queue = new WriteQueue(channel);
-    int writes = WriteQueue.DEQUE_CHUNK_SIZE + 10;
+    // No time budget, so that slow mock invocations cannot trigger extra flushes.
+    WriteQueue queue = new WriteQueue(channel, new TransportTracer(),
+        WriteQueue.MAX_COMMANDS_PER_FLUSH, WriteQueue.FLUSH_BYTES_THRESHOLD, 0);
+    int writes = WriteQueue.MAX_COMMANDS_PER_FLUSH + 10;
     for (int i = 0; i < writes; i++) {
       queue.enqueue(new CuteCommand(), false);
     }
@@ -143,6 +152,71 @@ public class WriteQueueTest {
     verify(channel, times(2)).flush();
   }
 
+  @Test
+  public void byteThresholdTriggersFlush() {
+    TransportTracer tracer = new TransportTracer();
+    WriteQueue queue = new WriteQueue(channel, tracer, Integer.MAX_VALUE, 100, 0);
+    for (int i = 0; i < 5; i++) {
+      queue.enqueue(new PayloadCommand(40), false);
+    }
+    queue.scheduleFlush();
+
+    verify(channel, times(5)).write(isA(PayloadCommand.class), eq(promise));
+    // Flushed after the third command crosses 100 bytes, then once more at the end.
+    verify(channel, times(2)).flush();
+    assertEquals(2, tracer.getFlushCount());
+    assertEquals(2.5, tracer.getCommandsPerFlush(), 0);
+    assertEquals(100, tracer.getBytesPerFlush(), 0);
+  }
+
+  @Test
+  public void timeBudgetTriggersFlush() {
+    WriteQueue queue = new WriteQueue(channel, new TransportTracer(), Integer.MAX_VALUE,
+        Integer.MAX_VALUE, 1);
+    int writes = 64;
+    for (int i = 0; i < writes; i++) {
+      queue.enqueue(new CuteCommand(), false);
+    }
+    queue.scheduleFlush();
+
+    verify(channel, times(writes)).write(isA(QueuedCommand.class), eq(promise));
+    // The 1ns budget has elapsed at every clock check, which happens every 32 commands.
+    verify(channel, times(2)).flush();
+  }
+
+  @Test
+  public void unwritableChannelStillFlushesAtSizeLimits() {
+    when(channel.isWritable()).thenReturn(false);
+    TransportTracer tracer = new TransportTracer();
+    WriteQueue queue = new WriteQueue(channel, tracer);
+    int writes = 3 * WriteQueue.MAX_COMMANDS_PER_FLUSH;
+    for (int i = 0; i < writes; i++) {
+      queue.enqueue(new CuteCommand(), false);
+    }
+    queue.scheduleFlush();
+
+    verify(channel, times(writes)).write(isA(QueuedCommand.class), eq(promise));
+    verify(channel, times(3)).flush();
+    assertEquals(3, tracer.getFlushCount());
+    assertEquals(WriteQueue.MAX_COMMANDS_PER_FLUSH, tracer.getCommandsPerFlush(), 0);
+  }
+
+  @Test
+  public void unwritableChannelIgnoresTimeBudget() {
+    when(channel.isWritable()).thenReturn(false);
+    WriteQueue queue = new WriteQueue(channel, new TransportTracer(), Integer.MAX_VALUE,
+        Integer.MAX_VALUE, 1);
+    int writes = 64;
+    for (int i = 0; i < writes; i++) {
+      queue.enqueue(new CuteCommand(), false);
+    }
+    queue.scheduleFlush();
+
+    verify(channel, times(writes)).write(isA(QueuedCommand.class), eq(promise));
+    // Only the final flush, as the time budget does not apply to a backed up channel.
+    verify(channel).flush();
+  }
+
   @Test
   public void concurrentWriteAndFlush() throws Throwable {
     final WriteQueue queue = new WriteQueue(channel);
@@ -190,7 +264,7 @@ public class WriteQueueTest {
 
     flusher.start();
     flusherStarted.await();
-    int writes = 10 * WriteQueue.DEQUE_CHUNK_SIZE;
+    int writes = 10 * WriteQueue.MAX_COMMANDS_PER_FLUSH;
     for (int i = 0; i < writes; i++) {
       queue.enqueue(new CuteCommand(), false);
     }
@@ -204,4 +278,33 @@ public class WriteQueueTest {
   static class CuteCommand extends WriteQueue.AbstractQueuedCommand {
 
   }
+
+  static final class PayloadCommand extends DefaultByteBufHolder implements QueuedCommand {
+    private final Link link = PerfMark.linkOut();
+    private ChannelPromise promise;
+
+    PayloadCommand(int bytes) {
+      super(Unpooled.wrappedBuffer(new byte[bytes]));
+    }
+
+    @Override
+    public ChannelPromise promise() {
+      return promise;
+    }
+
+    @Override
+    public void promise(ChannelPromise promise) {
+      this.promise = promise;
+    }
+
+    @Override
+    public void run(Channel channel) {
+      channel.write(this, promise);
+    }
+
+    @Override
+    public Link getLink() {
+      return link;
+    }
+  }
 }
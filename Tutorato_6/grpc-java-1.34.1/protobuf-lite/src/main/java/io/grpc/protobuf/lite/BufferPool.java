@@ -0,0 +1,42 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.protobuf.lite;
+
+import io.grpc.ExperimentalApi;
+
+/**
+ * A source of scratch byte arrays that a marshaller reads a serialized message into before
+ * parsing it. Implementations must be thread-safe, as a marshaller is shared by all calls of a
+ * method.
+ *
+ * @see ProtoLiteUtils#marshaller(com.google.protobuf.MessageLite, BufferPool)
+ */
+@ExperimentalApi("Experimental until Lite is stable in protobuf")
+public interface BufferPool {
+
+  /**
+   * Returns an array of at least {@code minLength} bytes. Its content is unspecified. The caller
+   * has exclusive use of the array until it passes it to {@link #give}.
+   */
+  byte[] take(int minLength);
+
+  /**
+   * Returns an array obtained from {@link #take} to the pool. The caller must not use the array
+   * afterwards. The pool is free to drop the array instead of retaining it.
+   */
+  void give(byte[] buffer);
+}
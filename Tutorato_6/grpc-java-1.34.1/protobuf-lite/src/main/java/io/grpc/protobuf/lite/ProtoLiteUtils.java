@@ -25,6 +25,7 @@ import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.protobuf.MessageLite;
 import com.google.protobuf.Parser;
 import io.grpc.ExperimentalApi;
+import io.grpc.HasByteBuffer;
 import io.grpc.KnownLength;
 import io.grpc.Metadata;
 import io.grpc.MethodDescriptor.Marshaller;
@@ -35,6 +36,11 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.ref.Reference;
 import java.lang.ref.WeakReference;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
 
 /**
  * Utility methods for using protobuf with grpc.
@@ -81,7 +87,19 @@ public final class ProtoLiteUtils {
    */
   public static <T extends MessageLite> Marshaller<T> marshaller(T defaultInstance) {
     // TODO(ejona): consider changing return type to PrototypeMarshaller (assuming ABI safe)
-    return new MessageMarshaller<>(defaultInstance);
+    return new MessageMarshaller<>(defaultInstance, null);
+  }
+
+  /**
+   * Creates a {@link Marshaller} for protos of the same type as {@code defaultInstance} that reads
+   * messages which cannot be parsed from the transport's buffers in place into arrays taken from
+   * {@code bufferPool}, instead of a per-thread cached array. Pools can be shared by marshallers.
+   *
+   * @see SizeClassedBufferPool
+   */
+  public static <T extends MessageLite> Marshaller<T> marshaller(
+      T defaultInstance, BufferPool bufferPool) {
+    return new MessageMarshaller<>(defaultInstance, checkNotNull(bufferPool, "bufferPool"));
   }
 
   /**
@@ -121,10 +139,13 @@ public final class ProtoLiteUtils {
 
     private final Parser<T> parser;
     private final T defaultInstance;
+    @Nullable
+    private final BufferPool bufferPool;
 
     @SuppressWarnings("unchecked")
-    MessageMarshaller(T defaultInstance) {
+    MessageMarshaller(T defaultInstance, @Nullable BufferPool bufferPool) {
       this.defaultInstance = defaultInstance;
+      this.bufferPool = bufferPool;
       parser = (Parser<T>) defaultInstance.getParserForType();
     }
 
@@ -170,16 +191,26 @@ public final class ProtoLiteUtils {
         }
       }
       CodedInputStream cis = null;
+      // Returned to bufferPool once parsing is done.
+      byte[] pooledBuf = null;
       try {
         if (stream instanceof KnownLength) {
           int size = stream.available();
-          if (size > 0 && size <= DEFAULT_MAX_MESSAGE_SIZE) {
-            Reference<byte[]> ref;
+          if (size > 0 && stream instanceof HasByteBuffer && stream.markSupported()
+              && ((HasByteBuffer) stream).byteBufferSupported()) {
+            cis = newCodedInputFromByteBuffers(stream, size);
+          } else if (size > 0 && (bufferPool != null || size <= DEFAULT_MAX_MESSAGE_SIZE)) {
             // buf should not be used after this method has returned.
             byte[] buf;
-            if ((ref = bufs.get()) == null || (buf = ref.get()) == null || buf.length < size) {
-              buf = new byte[size];
-              bufs.set(new WeakReference<>(buf));
+            if (bufferPool != null) {
+              pooledBuf = bufferPool.take(size);
+              buf = pooledBuf;
+            } else {
+              Reference<byte[]> ref;
+              if ((ref = bufs.get()) == null || (buf = ref.get()) == null || buf.length < size) {
+                buf = new byte[size];
+                bufs.set(new WeakReference<>(buf));
+              }
             }
 
             int remaining = size;
@@ -202,7 +233,11 @@ public final class ProtoLiteUtils {
           }
         }
       } catch (IOException e) {
+        giveBack(pooledBuf);
         throw new RuntimeException(e);
+      } catch (RuntimeException e) {
+        giveBack(pooledBuf);
+        throw e;
       }
       if (cis == null) {
         cis = CodedInputStream.newInstance(stream);
@@ -216,7 +251,49 @@ public final class ProtoLiteUtils {
       } catch (InvalidProtocolBufferException ipbe) {
         throw Status.INTERNAL.withDescription("Invalid protobuf byte sequence")
             .withCause(ipbe).asRuntimeException();
+      } finally {
+        giveBack(pooledBuf);
+      }
+    }
+
+    private void giveBack(@Nullable byte[] pooledBuf) {
+      if (pooledBuf != null) {
+        bufferPool.give(pooledBuf);
+      }
+    }
+
+    /**
+     * Creates a {@link CodedInputStream} that reads the stream's buffers in place instead of
+     * copying them into a byte array. The stream is marked first so the buffers behind the
+     * collected views are not released while skipping over them; they are released when the
+     * caller closes the stream after parsing.
+     */
+    private static CodedInputStream newCodedInputFromByteBuffers(InputStream stream, int size)
+        throws IOException {
+      stream.mark(size);
+      List<ByteBuffer> buffers = new ArrayList<>();
+      int remaining = size;
+      while (remaining > 0) {
+        ByteBuffer buffer = ((HasByteBuffer) stream).getByteBuffer();
+        if (buffer == null) {
+          break;
+        }
+        int length = Math.min(buffer.remaining(), remaining);
+        ((Buffer) buffer).limit(buffer.position() + length);
+        if (stream.skip(length) != length) {
+          throw new RuntimeException("failed to skip " + length + " bytes");
+        }
+        buffers.add(buffer);
+        remaining -= length;
+      }
+      if (remaining != 0) {
+        int position = size - remaining;
+        throw new RuntimeException("size inaccurate: " + size + " != " + position);
+      }
+      if (buffers.size() == 1) {
+        return CodedInputStream.newInstance(buffers.get(0));
       }
+      return CodedInputStream.newInstance(buffers);
     }
 
     private T parseFrom(CodedInputStream stream) throws InvalidProtocolBufferException {
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.protobuf.lite;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import io.grpc.ExperimentalApi;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link BufferPool} shared by all threads that keeps arrays in power-of-two size classes and
+ * bounds the total number of bytes it retains.
+ *
+ * <p>Unlike a per-thread cache, the memory held does not grow with the number of threads that
+ * parse messages. Requests larger than the largest size class are always allocated and never
+ * retained.
+ */
+@ExperimentalApi("Experimental until Lite is stable in protobuf")
+public final class SizeClassedBufferPool implements BufferPool {
+
+  private static final int MIN_SIZE_CLASS_SHIFT = 10; // 1 KiB
+
+  private final Queue<byte[]>[] sizeClasses;
+  private final int maxPooledLength;
+  private final long maxRetainedBytes;
+  private final AtomicLong retainedBytes = new AtomicLong();
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * Creates a pool.
+   *
+   * @param maxPooledLength the largest array length that is pooled; rounded up to a power of two
+   *     no smaller than 1 KiB
+   * @param maxRetainedBytes the upper bound of the bytes held by idle arrays in the pool
+   */
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  public SizeClassedBufferPool(int maxPooledLength, long maxRetainedBytes) {
+    checkArgument(maxPooledLength > 0, "maxPooledLength must be positive");
+    checkArgument(maxPooledLength <= 1 << 30, "maxPooledLength too large");
+    checkArgument(maxRetainedBytes >= 0, "maxRetainedBytes must not be negative");
+    int numSizeClasses = sizeClassIndex(maxPooledLength) + 1;
+    this.maxPooledLength = sizeClassLength(numSizeClasses - 1);
+    this.maxRetainedBytes = maxRetainedBytes;
+    sizeClasses = new Queue[numSizeClasses];
+    for (int i = 0; i < numSizeClasses; i++) {
+      sizeClasses[i] = new ConcurrentLinkedQueue<>();
+    }
+  }
+
+  @Override
+  public byte[] take(int minLength) {
+    checkArgument(minLength >= 0, "minLength must not be negative");
+    if (minLength > maxPooledLength) {
+      misses.incrementAndGet();
+      return new byte[minLength];
+    }
+    int index = sizeClassIndex(minLength);
+    byte[] buffer = sizeClasses[index].poll();
+    if (buffer == null) {
+      misses.incrementAndGet();
+      return new byte[sizeClassLength(index)];
+    }
+    retainedBytes.addAndGet(-buffer.length);
+    hits.incrementAndGet();
+    return buffer;
+  }
+
+  @Override
+  public void give(byte[] buffer) {
+    checkNotNull(buffer, "buffer");
+    int length = buffer.length;
+    if (length > maxPooledLength || Integer.bitCount(length) != 1
+        || length < sizeClassLength(0)) {
+      // Not one of ours.
+      return;
+    }
+    while (true) {
+      long retained = retainedBytes.get();
+      if (retained + length > maxRetainedBytes) {
+        return;
+      }
+      if (retainedBytes.compareAndSet(retained, retained + length)) {
+        break;
+      }
+    }
+    sizeClasses[sizeClassIndex(length)].offer(buffer);
+  }
+
+  /**
+   * Returns the number of {@link #take} calls served by a pooled array.
+   */
+  public long getHitCount() {
+    return hits.get();
+  }
+
+  /**
+   * Returns the number of {@link #take} calls that had to allocate.
+   */
+  public long getMissCount() {
+    return misses.get();
+  }
+
+  /**
+   * Returns the number of bytes currently held by idle arrays in the pool.
+   */
+  public long getRetainedBytes() {
+    return retainedBytes.get();
+  }
+
+  private static int sizeClassIndex(int length) {
+    if (length <= 1 << MIN_SIZE_CLASS_SHIFT) {
+      return 0;
+    }
+    int shift = 32 - Integer.numberOfLeadingZeros(length - 1);
+    return shift - MIN_SIZE_CLASS_SHIFT;
+  }
+
+  private static int sizeClassLength(int index) {
+    return 1 << (index + MIN_SIZE_CLASS_SHIFT);
+  }
+}
@@ -35,11 +35,14 @@ import io.grpc.MethodDescriptor.Marshaller;
 import io.grpc.MethodDescriptor.PrototypeMarshaller;
 import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
+import io.grpc.internal.CompositeReadableBuffer;
 import io.grpc.internal.GrpcUtil;
+import io.grpc.internal.ReadableBuffers;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import org.junit.Rule;
 import org.junit.Test;
@@ -227,6 +230,33 @@ public class ProtoLiteUtilsTest {
     assertEquals(expect, result);
   }
 
+  @Test
+  public void parseFromByteBufferBackedInputStream() throws Exception {
+    Marshaller<Type> marshaller = ProtoLiteUtils.marshaller(Type.getDefaultInstance());
+    Type expect = Type.newBuilder().setName("expected name").build();
+    byte[] bytes = expect.toByteArray();
+    CompositeReadableBuffer buffer = new CompositeReadableBuffer();
+    buffer.addBuffer(ReadableBuffers.wrap(bytes, 0, 3));
+    buffer.addBuffer(ReadableBuffers.wrap(ByteBuffer.wrap(bytes, 3, bytes.length - 3)));
+    InputStream is = ReadableBuffers.openStream(buffer, true);
+
+    assertEquals(expect, marshaller.parse(is));
+    is.close();
+  }
+
+  @Test
+  public void parseWithBufferPool() throws Exception {
+    SizeClassedBufferPool pool = new SizeClassedBufferPool(4096, 8192);
+    Marshaller<Type> marshaller = ProtoLiteUtils.marshaller(Type.getDefaultInstance(), pool);
+    Type expect = Type.newBuilder().setName("expected name").build();
+
+    assertEquals(expect, marshaller.parse(new CustomKnownLengthInputStream(expect.toByteArray())));
+    assertEquals(expect, marshaller.parse(new CustomKnownLengthInputStream(expect.toByteArray())));
+    assertEquals(1, pool.getMissCount());
+    assertEquals(1, pool.getHitCount());
+    assertEquals(1024, pool.getRetainedBytes());
+  }
+
   @Test
   public void defaultMaxMessageSize() {
     assertEquals(GrpcUtil.DEFAULT_MAX_MESSAGE_SIZE, ProtoLiteUtils.DEFAULT_MAX_MESSAGE_SIZE);
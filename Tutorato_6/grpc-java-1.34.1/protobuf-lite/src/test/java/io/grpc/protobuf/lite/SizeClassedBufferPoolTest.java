@@ -0,0 +1,87 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.protobuf.lite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link SizeClassedBufferPool}. */
+@RunWith(JUnit4.class)
+public class SizeClassedBufferPoolTest {
+  private final SizeClassedBufferPool pool = new SizeClassedBufferPool(8192, 12 * 1024);
+
+  @Test
+  public void take_roundsUpToSizeClass() {
+    assertEquals(1024, pool.take(0).length);
+    assertEquals(1024, pool.take(1024).length);
+    assertEquals(2048, pool.take(1025).length);
+    assertEquals(8192, pool.take(5000).length);
+    assertEquals(4, pool.getMissCount());
+  }
+
+  @Test
+  public void take_reusesGivenBuffer() {
+    byte[] buffer = pool.take(3000);
+    pool.give(buffer);
+    assertEquals(4096, pool.getRetainedBytes());
+
+    assertSame(buffer, pool.take(2049));
+    assertEquals(0, pool.getRetainedBytes());
+    assertEquals(1, pool.getHitCount());
+    assertEquals(1, pool.getMissCount());
+  }
+
+  @Test
+  public void take_doesNotReuseAcrossSizeClasses() {
+    byte[] buffer = pool.take(1024);
+    pool.give(buffer);
+    assertNotSame(buffer, pool.take(2048));
+    assertEquals(2, pool.getMissCount());
+  }
+
+  @Test
+  public void take_largerThanMaxPooledIsExactAndNotRetained() {
+    byte[] buffer = pool.take(10000);
+    assertEquals(10000, buffer.length);
+    pool.give(buffer);
+    assertEquals(0, pool.getRetainedBytes());
+  }
+
+  @Test
+  public void give_boundedByMaxRetainedBytes() {
+    byte[] first = pool.take(8192);
+    byte[] second = pool.take(8192);
+    pool.give(first);
+    pool.give(second);
+    assertEquals(8192, pool.getRetainedBytes());
+
+    assertSame(first, pool.take(8192));
+    assertEquals(0, pool.getRetainedBytes());
+  }
+
+  @Test
+  public void give_ignoresForeignBuffers() {
+    pool.give(new byte[1000]);
+    pool.give(new byte[512]);
+    assertEquals(0, pool.getRetainedBytes());
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.rls;
+
+import io.grpc.internal.TimeProvider;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Benchmark for concurrent access to {@link LinkedHashLruCache}, as done by picks reading the RLS
+ * data cache from several threads.
+ */
+@State(Scope.Benchmark)
+public class LinkedHashLruCacheBenchmark {
+
+  @Param({"1", "16"})
+  public int concurrencyLevel;
+
+  @Param({"1000"})
+  public int keyCount;
+
+  /** Percentage of operations that write instead of read. */
+  @Param({"0", "10"})
+  public int writePercent;
+
+  private ScheduledExecutorService ses;
+  private LinkedHashLruCache<Integer, String> cache;
+
+  /**
+   * Creates a cache holding all keys.
+   */
+  @Setup
+  public void setUp() {
+    ses = Executors.newSingleThreadScheduledExecutor();
+    cache = new LinkedHashLruCache<Integer, String>(
+        keyCount,
+        null,
+        1,
+        TimeUnit.MINUTES,
+        ses,
+        TimeProvider.SYSTEM_TIME_PROVIDER,
+        concurrencyLevel) {
+      @Override
+      protected boolean isExpired(Integer key, String value, long nowNanos) {
+        return false;
+      }
+    };
+    for (int i = 0; i < keyCount; i++) {
+      cache.cache(i, "value" + i);
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    cache.close();
+    ses.shutdownNow();
+  }
+
+  /**
+   * Reads, or with {@link #writePercent} replaces, a random key.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  @Threads(4)
+  public String readMostly() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    Integer key = random.nextInt(keyCount);
+    if (random.nextInt(100) < writePercent) {
+      return cache.cache(key, "value");
+    }
+    return cache.read(key);
+  }
+}
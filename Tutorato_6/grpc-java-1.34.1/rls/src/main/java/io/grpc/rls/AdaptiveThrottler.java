@@ -16,16 +16,14 @@
 
 package io.grpc.rls;
 
-import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.MoreObjects;
+import io.grpc.internal.SlidingWindowCounter;
 import io.grpc.internal.TimeProvider;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicLongFieldUpdater;
-import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Implementation of {@link Throttler} that keeps track of recent history (the duration of which is
@@ -67,13 +65,13 @@ final class AdaptiveThrottler implements Throttler {
    * to 30 seconds.
    */
   @VisibleForTesting
-  final TimeBasedAccumulator requestStat;
+  final SlidingWindowCounter requestStat;
   /**
    * Counter for the total number of requests that were throttled by either the client (this class)
    * or the backend in recent history.
    */
   @VisibleForTesting
-  final TimeBasedAccumulator throttledStat;
+  final SlidingWindowCounter throttledStat;
 
   private AdaptiveThrottler(Builder builder) {
     this.historySeconds = builder.historySeconds;
@@ -81,8 +79,8 @@ final class AdaptiveThrottler implements Throttler {
     this.ratioForAccepts = builder.ratioForAccepts;
     this.timeProvider = builder.timeProvider;
     long internalNanos = TimeUnit.SECONDS.toNanos(historySeconds);
-    this.requestStat = new TimeBasedAccumulator(internalNanos, timeProvider);
-    this.throttledStat = new TimeBasedAccumulator(internalNanos, timeProvider);
+    this.requestStat = new SlidingWindowCounter(internalNanos);
+    this.throttledStat = new SlidingWindowCounter(internalNanos);
   }
 
   @Override
@@ -131,12 +129,13 @@ final class AdaptiveThrottler implements Throttler {
 
   @Override
   public String toString() {
+    long now = timeProvider.currentTimeNanos();
     return MoreObjects.toStringHelper(this)
         .add("historySeconds", historySeconds)
         .add("requestsPadding", requestsPadding)
         .add("ratioForAccepts", ratioForAccepts)
-        .add("requestStat", requestStat)
-        .add("throttledStat", throttledStat)
+        .add("requests", requestStat.get(now))
+        .add("throttled", throttledStat.get(now))
         .toString();
   }
 
@@ -176,169 +175,4 @@ final class AdaptiveThrottler implements Throttler {
       return new AdaptiveThrottler(this);
     }
   }
-
-  static final class TimeBasedAccumulator {
-    /**
-     * The number of slots. This value determines the accuracy of the get() method to interval /
-     * NUM_SLOTS.
-     */
-    private static final int NUM_SLOTS = 50;
-
-    /** Holds the data for each slot (amount and end timestamp). */
-    private static final class Slot {
-      static final AtomicLongFieldUpdater<Slot> ATOMIC_COUNT =
-          AtomicLongFieldUpdater.newUpdater(Slot.class, "count");
-
-      // The count of statistics for the time range represented by this slot.
-      volatile long count;
-      // The nearest 0 modulo slot boundary in nanoseconds. The slot boundary
-      // is exclusive. [previous_slot.end, end)
-      final long endNanos;
-
-      Slot(long endNanos) {
-        this.endNanos = endNanos;
-        this.count = 0;
-      }
-
-      void increment() {
-        ATOMIC_COUNT.incrementAndGet(this);
-      }
-    }
-
-    // Represents a slot which is not initialized and is unusable.
-    private static final Slot NULL_SLOT = new Slot(-1);
-
-    /** The array of slots. */
-    private final AtomicReferenceArray<Slot> slots = new AtomicReferenceArray<>(NUM_SLOTS);
-
-    /** The time interval this statistic is concerned with. */
-    private final long interval;
-
-    /** The number of nanoseconds in each slot. */
-    private final long slotNanos;
-
-    /**
-     * The current index into the slot array. {@code currentIndex} may be safely read without
-     * synchronization, but all writes must be performed inside of a {@code synchronized(this){}}
-     * block.
-     */
-    private volatile int currentIndex;
-
-    private final TimeProvider timeProvider;
-
-    /**
-     * Interval constructor.
-     *
-     * @param internalNanos is the stat interval in nanoseconds
-     * @throws IllegalArgumentException if the supplied interval is too small to be effective
-     */
-    TimeBasedAccumulator(long internalNanos, TimeProvider timeProvider) {
-      checkArgument(
-          internalNanos >= NUM_SLOTS,
-          "Interval must be greater than %s",
-          NUM_SLOTS);
-      this.interval = internalNanos;
-      this.slotNanos = internalNanos / NUM_SLOTS;
-      this.currentIndex = 0;
-      for (int i = 0; i < NUM_SLOTS; i++) {
-        slots.set(i, NULL_SLOT);
-      }
-      this.timeProvider = checkNotNull(timeProvider, "ticker");
-    }
-
-    /** Gets the current slot. */
-    private Slot getSlot(long now) {
-      Slot currentSlot = slots.get(currentIndex);
-      if (now < currentSlot.endNanos) {
-        return currentSlot;
-      } else {
-        long slotBoundary = getSlotEndTime(now);
-        synchronized (this) {
-          int index = currentIndex;
-          currentSlot = slots.get(index);
-          if (now < currentSlot.endNanos) {
-            return currentSlot;
-          }
-          int newIndex = (index == NUM_SLOTS - 1) ? 0 : index + 1;
-          Slot nextSlot = new Slot(slotBoundary);
-          slots.set(newIndex, nextSlot);
-          // Set currentIndex only after assigning the new slot to slots, otherwise
-          // racing readers will see NULL_SLOT or an old slot.
-          currentIndex = newIndex;
-          return nextSlot;
-        }
-      }
-    }
-
-    /**
-     * Computes the end boundary since the last bucket can be partial size.
-     *
-     * @param time the time for which to find the nearest slot boundary
-     * @return the nearest slot boundary in nanos
-     */
-    private long getSlotEndTime(long time) {
-      return (time / slotNanos + 1) * slotNanos;
-    }
-
-    /**
-     * Returns the interval used by this statistic.
-     *
-     * @return the interval
-     */
-    long getInterval() {
-      return this.interval;
-    }
-
-    /**
-     * Increments the count of the statistic by the specified amount for the specified time.
-     *
-     * @param now is the time used to increment the count
-     */
-    final void increment(long now) {
-      getSlot(now).increment();
-    }
-
-    /**
-     * Returns the count of the statistic using the specified time value as the current time.
-     *
-     * @param now the current time
-     * @return the statistic count
-     */
-    final long get(long now) {
-      long intervalEnd = getSlotEndTime(now);
-      long intervalStart = intervalEnd - interval;
-      // This is the point at which increments to new slots will be ignored.
-      int index = currentIndex;
-
-      long accumulated = 0L;
-      long prevSlotEnd = Long.MAX_VALUE;
-      for (int i = 0; i < NUM_SLOTS; i++) {
-        if (index < 0) {
-          index = NUM_SLOTS - 1;
-        }
-        Slot currentSlot = slots.get(index);
-        index--;
-        long currentSlotEnd = currentSlot.endNanos;
-
-        if (currentSlotEnd <= intervalStart || currentSlotEnd > prevSlotEnd) {
-          break;
-        }
-        prevSlotEnd = currentSlotEnd;
-
-        if (currentSlotEnd > intervalEnd) {
-          continue;
-        }
-        accumulated = accumulated + currentSlot.count;
-      }
-      return accumulated;
-    }
-
-    @Override
-    public String toString() {
-      return MoreObjects.toStringHelper(this)
-          .add("interval", interval)
-          .add("current_count", get(timeProvider.currentTimeNanos()))
-          .toString();
-    }
-  }
 }
@@ -16,6 +16,7 @@
 
 package io.grpc.rls;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 
@@ -62,10 +63,16 @@ import io.grpc.rls.RlsProtoData.RouteLookupResponse;
 import io.grpc.rls.Throttler.ThrottledException;
 import io.grpc.stub.StreamObserver;
 import io.grpc.util.ForwardingLoadBalancerHelper;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.CheckReturnValue;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.GuardedBy;
@@ -84,6 +91,11 @@ final class CachingRlsLbClient {
   private static final Converter<RouteLookupResponse, io.grpc.lookup.v1.RouteLookupResponse>
       RESPONSE_CONVERTER = new RouteLookupResponseConverter().reverse();
 
+  @VisibleForTesting
+  static final int DEFAULT_MAX_IN_FLIGHT_LOOKUPS = 64;
+  @VisibleForTesting
+  static final int DEFAULT_MAX_QUEUED_LOOKUPS = 1024;
+
   // System property to use direct path enabled OobChannel, by default direct path is enabled.
   private static final String RLS_ENABLE_OOB_CHANNEL_DIRECTPATH_PROPERTY =
       "io.grpc.rls.CachingRlsLbClient.enable_oobchannel_directpath";
@@ -93,12 +105,24 @@ final class CachingRlsLbClient {
 
   // All cache status changes (pending, backoff, success) must be under this lock
   private final Object lock = new Object();
-  // LRU cache based on access order (BACKOFF and actual data will be here)
-  @GuardedBy("lock")
+  // LRU cache based on access order (BACKOFF and actual data will be here). The cache is thread
+  // safe on its own, so fresh entries can be read without the lock.
   private final LinkedHashLruCache<RouteLookupRequest, CacheEntry> linkedHashLruCache;
   // any RPC on the fly will cached in this map
   @GuardedBy("lock")
   private final Map<RouteLookupRequest, PendingCacheEntry> pendingCallCache = new HashMap<>();
+  // lookups waiting for the number of RPCs on the fly to drop below maxInFlightLookups
+  @GuardedBy("lock")
+  private final Queue<QueuedLookup> queuedLookups = new ArrayDeque<>();
+  @GuardedBy("lock")
+  private int inFlightLookups;
+  private final int maxInFlightLookups;
+  private final int maxQueuedLookups;
+
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong staleHitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+  private final AtomicLong coalescedCount = new AtomicLong();
 
   private final SynchronizationContext synchronizationContext;
   private final ScheduledExecutorService scheduledExecutorService;
@@ -130,6 +154,8 @@ final class CachingRlsLbClient {
     callTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(rlsConfig.getLookupServiceTimeoutInMillis());
     timeProvider = checkNotNull(builder.timeProvider, "timeProvider");
     throttler = checkNotNull(builder.throttler, "throttler");
+    maxInFlightLookups = builder.maxInFlightLookups;
+    maxQueuedLookups = builder.maxQueuedLookups;
     linkedHashLruCache =
         new RlsAsyncLruCache(
             rlsConfig.getCacheSizeBytes(),
@@ -176,6 +202,15 @@ final class CachingRlsLbClient {
     return ImmutableMap.<String, Object>of("loadBalancingConfig", ImmutableList.of(grpcLbPolicy));
   }
 
+  /**
+   * Starts a RouteLookup RPC for the request, unless {@link Builder#setMaxInFlightLookups} RPCs are
+   * already on the fly. In that case the lookup is queued, and started in order as earlier RPCs
+   * finish. This spreads the burst of lookups of a cold cache over time instead of sending all of
+   * them at once.
+   *
+   * <p>The lookup timeout runs from the time the lookup is queued, so a queued lookup fails once it
+   * passes, like an RPC would. Lookups beyond {@link Builder#setMaxQueuedLookups} fail right away.
+   */
   @CheckReturnValue
   private ListenableFuture<RouteLookupResponse> asyncRlsCall(RouteLookupRequest request) {
     final SettableFuture<RouteLookupResponse> response = SettableFuture.create();
@@ -184,9 +219,52 @@ final class CachingRlsLbClient {
       response.setException(new ThrottledException());
       return response;
     }
+    synchronized (lock) {
+      if (inFlightLookups >= maxInFlightLookups) {
+        if (queuedLookups.size() >= maxQueuedLookups) {
+          logger.log(ChannelLogLevel.DEBUG, "Request is rejected, too many queued requests");
+          response.setException(
+              Status.UNAVAILABLE
+                  .withDescription("Too many RouteLookup requests queued")
+                  .asRuntimeException());
+          return response;
+        }
+        logger.log(ChannelLogLevel.DEBUG, "Request is queued");
+        final QueuedLookup queued = new QueuedLookup(
+            request, response, timeProvider.currentTimeNanos() + callTimeoutNanos);
+        queued.timeout = scheduledExecutorService.schedule(
+            new Runnable() {
+              @Override
+              public void run() {
+                synchronized (lock) {
+                  if (!queuedLookups.remove(queued)) {
+                    // already started
+                    return;
+                  }
+                }
+                queued.response.setException(
+                    Status.DEADLINE_EXCEEDED
+                        .withDescription("RouteLookup request timed out while queued")
+                        .asRuntimeException());
+              }
+            },
+            callTimeoutNanos,
+            TimeUnit.NANOSECONDS);
+        queuedLookups.add(queued);
+        return response;
+      }
+      inFlightLookups++;
+    }
+    startRlsCall(request, response, callTimeoutNanos);
+    return response;
+  }
+
+  private void startRlsCall(
+      RouteLookupRequest request, final SettableFuture<RouteLookupResponse> response,
+      long timeoutNanos) {
     io.grpc.lookup.v1.RouteLookupRequest routeLookupRequest = REQUEST_CONVERTER.convert(request);
     logger.log(ChannelLogLevel.DEBUG, "Sending RouteLookupRequest: {0}", routeLookupRequest);
-    rlsStub.withDeadlineAfter(callTimeoutNanos, TimeUnit.NANOSECONDS)
+    rlsStub.withDeadlineAfter(timeoutNanos, TimeUnit.NANOSECONDS)
         .routeLookup(
             routeLookupRequest,
             new StreamObserver<io.grpc.lookup.v1.RouteLookupResponse>() {
@@ -202,14 +280,51 @@ final class CachingRlsLbClient {
                 response.setException(t);
                 throttler.registerBackendResponse(false);
                 helper.propagateRlsError();
+                rlsCallFinished();
               }
 
               @Override
               public void onCompleted() {
                 throttler.registerBackendResponse(true);
+                rlsCallFinished();
               }
             });
-    return response;
+  }
+
+  /**
+   * Starts the queued lookups that fit in the freed RPC slots. They are taken from the queue under
+   * the lock, but started after releasing it, as this runs in RPC callbacks.
+   */
+  private void rlsCallFinished() {
+    List<QueuedLookup> toStart = new ArrayList<>();
+    long now = timeProvider.currentTimeNanos();
+    synchronized (lock) {
+      inFlightLookups--;
+      while (inFlightLookups < maxInFlightLookups && !queuedLookups.isEmpty()) {
+        QueuedLookup queued = queuedLookups.poll();
+        queued.timeout.cancel(false);
+        if (queued.response.isDone()) {
+          // cancelled by close()
+          continue;
+        }
+        if (queued.deadlineNanos - now > 0) {
+          inFlightLookups++;
+        }
+        // lookups past their deadline, whose timeout task has not run yet, are failed below
+        toStart.add(queued);
+      }
+    }
+    for (QueuedLookup queued : toStart) {
+      long remainingNanos = queued.deadlineNanos - now;
+      if (remainingNanos <= 0) {
+        queued.response.setException(
+            Status.DEADLINE_EXCEEDED
+                .withDescription("RouteLookup request timed out while queued")
+                .asRuntimeException());
+      } else {
+        startRlsCall(queued.request, queued.response, remainingNanos);
+      }
+    }
   }
 
   /**
@@ -219,6 +334,16 @@ final class CachingRlsLbClient {
    */
   @CheckReturnValue
   final CachedRouteLookupResponse get(final RouteLookupRequest request) {
+    // Fast path for fresh data, the common case. The lock is only needed to change the status of
+    // an entry, e.g. to start a lookup or a refresh. Peeking never evicts, as the cleanup of
+    // evicted entries must run under the lock.
+    CacheEntry freshEntry = linkedHashLruCache.peek(request);
+    if (freshEntry instanceof DataCacheEntry
+        && !((DataCacheEntry) freshEntry).isStaled(timeProvider.currentTimeNanos())) {
+      logger.log(ChannelLogLevel.DEBUG, "Cache hit for the request");
+      hitCount.incrementAndGet();
+      return CachedRouteLookupResponse.dataEntry((DataCacheEntry) freshEntry);
+    }
     synchronized (lock) {
       final CacheEntry cacheEntry;
       cacheEntry = linkedHashLruCache.read(request);
@@ -231,7 +356,10 @@ final class CachingRlsLbClient {
         logger.log(ChannelLogLevel.DEBUG, "Cache hit for the request");
         DataCacheEntry dataEntry = ((DataCacheEntry) cacheEntry);
         if (dataEntry.isStaled(timeProvider.currentTimeNanos())) {
+          staleHitCount.incrementAndGet();
           dataEntry.maybeRefresh();
+        } else {
+          hitCount.incrementAndGet();
         }
         return CachedRouteLookupResponse.dataEntry((DataCacheEntry) cacheEntry);
       }
@@ -239,14 +367,26 @@ final class CachingRlsLbClient {
     }
   }
 
+  /** Returns a snapshot of the cache's hit, stale hit, miss and coalesced counts. */
+  CacheStats getCacheStats() {
+    return new CacheStats(
+        hitCount.get(), staleHitCount.get(), missCount.get(), coalescedCount.get());
+  }
+
   /** Performs any pending maintenance operations needed by the cache. */
   void close() {
-    logger.log(ChannelLogLevel.DEBUG, "CachingRlsLbClient closed");
+    logger.log(ChannelLogLevel.DEBUG, "CachingRlsLbClient closed: {0}", getCacheStats());
     synchronized (lock) {
       // all childPolicyWrapper will be returned via AutoCleaningEvictionListener
       linkedHashLruCache.close();
       // TODO(creamsoup) maybe cancel all pending requests
       pendingCallCache.clear();
+      // queued lookups were never sent, so they can be dropped
+      for (QueuedLookup queued : queuedLookups) {
+        queued.timeout.cancel(false);
+        queued.response.cancel(false);
+      }
+      queuedLookups.clear();
       rlsChannel.shutdown();
       rlsPicker.close();
     }
@@ -261,9 +401,11 @@ final class CachingRlsLbClient {
     synchronized (lock) {
       PendingCacheEntry pendingEntry = pendingCallCache.get(request);
       if (pendingEntry != null) {
+        coalescedCount.incrementAndGet();
         return CachedRouteLookupResponse.pendingResponse(pendingEntry);
       }
 
+      missCount.incrementAndGet();
       ListenableFuture<RouteLookupResponse> asyncCall = asyncRlsCall(request);
       if (!asyncCall.isDone()) {
         pendingEntry = new PendingCacheEntry(request, asyncCall);
@@ -507,6 +649,10 @@ final class CachingRlsLbClient {
     private final long expireTime;
     private final long staleTime;
     private final ChildPolicyWrapper childPolicyWrapper;
+    // Set once a refresh is on the fly or queued. The entry keeps being served past its max age
+    // until the refresh replaces it, but for no longer than the lookup timeout, which bounds the
+    // time a refresh spends both queued and on the fly.
+    private volatile boolean refreshing;
 
     DataCacheEntry(RouteLookupRequest request, final RouteLookupResponse response) {
       super(request);
@@ -561,10 +707,12 @@ final class CachingRlsLbClient {
       synchronized (lock) {
         if (pendingCallCache.containsKey(request)) {
           // pending already requested
+          refreshing = true;
           return;
         }
         final ListenableFuture<RouteLookupResponse> asyncCall = asyncRlsCall(request);
         if (!asyncCall.isDone()) {
+          refreshing = true;
           pendingCallCache.put(request, new PendingCacheEntry(request, asyncCall));
         } else {
           // async call returned finished future is most likely throttled
@@ -600,7 +748,7 @@ final class CachingRlsLbClient {
 
     @Override
     boolean isExpired(long now) {
-      return expireTime <= now;
+      return expireTime <= now && !(refreshing && now - expireTime < callTimeoutNanos);
     }
 
     boolean isStaled(long now) {
@@ -619,6 +767,7 @@ final class CachingRlsLbClient {
           .add("response", response)
           .add("expireTime", expireTime)
           .add("staleTime", staleTime)
+          .add("refreshing", refreshing)
           .add("childPolicyWrapper", childPolicyWrapper)
           .toString();
     }
@@ -724,6 +873,68 @@ final class CachingRlsLbClient {
     }
   }
 
+  /** A lookup waiting for its RouteLookup RPC to be started. */
+  private static final class QueuedLookup {
+    final RouteLookupRequest request;
+    final SettableFuture<RouteLookupResponse> response;
+    final long deadlineNanos;
+    // fails the lookup if it is still queued at its deadline; set before the lookup is queued
+    ScheduledFuture<?> timeout;
+
+    QueuedLookup(
+        RouteLookupRequest request, SettableFuture<RouteLookupResponse> response,
+        long deadlineNanos) {
+      this.request = request;
+      this.response = response;
+      this.deadlineNanos = deadlineNanos;
+    }
+  }
+
+  /** Counts of the ways {@link #get} has been answered. */
+  static final class CacheStats {
+    private final long hitCount;
+    private final long staleHitCount;
+    private final long missCount;
+    private final long coalescedCount;
+
+    CacheStats(long hitCount, long staleHitCount, long missCount, long coalescedCount) {
+      this.hitCount = hitCount;
+      this.staleHitCount = staleHitCount;
+      this.missCount = missCount;
+      this.coalescedCount = coalescedCount;
+    }
+
+    /** Returns the number of requests answered with data within its stale age. */
+    long getHitCount() {
+      return hitCount;
+    }
+
+    /** Returns the number of requests answered with stale data while refreshing it. */
+    long getStaleHitCount() {
+      return staleHitCount;
+    }
+
+    /** Returns the number of requests that started a new lookup. */
+    long getMissCount() {
+      return missCount;
+    }
+
+    /** Returns the number of requests that joined a lookup already on the fly. */
+    long getCoalescedCount() {
+      return coalescedCount;
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+          .add("hitCount", hitCount)
+          .add("staleHitCount", staleHitCount)
+          .add("missCount", missCount)
+          .add("coalescedCount", coalescedCount)
+          .toString();
+    }
+  }
+
   /** Returns a Builder for {@link CachingRlsLbClient}. */
   static Builder newBuilder() {
     return new Builder();
@@ -739,6 +950,8 @@ final class CachingRlsLbClient {
     private TimeProvider timeProvider = TimeProvider.SYSTEM_TIME_PROVIDER;
     private EvictionListener<RouteLookupRequest, CacheEntry> evictionListener;
     private BackoffPolicy.Provider backoffProvider = new ExponentialBackoffPolicy.Provider();
+    private int maxInFlightLookups = DEFAULT_MAX_IN_FLIGHT_LOOKUPS;
+    private int maxQueuedLookups = DEFAULT_MAX_QUEUED_LOOKUPS;
 
     Builder setHelper(Helper helper) {
       this.helper = checkNotNull(helper, "helper");
@@ -781,6 +994,26 @@ final class CachingRlsLbClient {
       return this;
     }
 
+    /**
+     * Sets the maximum number of RouteLookup RPCs on the fly. Further lookups are queued until
+     * earlier ones finish.
+     */
+    Builder setMaxInFlightLookups(int maxInFlightLookups) {
+      checkArgument(maxInFlightLookups > 0, "maxInFlightLookups must be positive");
+      this.maxInFlightLookups = maxInFlightLookups;
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of lookups waiting for an RPC slot. Further lookups fail right away,
+     * and are retried after the usual backoff.
+     */
+    Builder setMaxQueuedLookups(int maxQueuedLookups) {
+      checkArgument(maxQueuedLookups >= 0, "maxQueuedLookups must be non-negative");
+      this.maxQueuedLookups = maxQueuedLookups;
+      return this;
+    }
+
     CachingRlsLbClient build() {
       return new CachingRlsLbClient(this);
     }
@@ -828,6 +1061,11 @@ final class CachingRlsLbClient {
   private static final class RlsAsyncLruCache
       extends LinkedHashLruCache<RouteLookupRequest, CacheEntry> {
 
+    // Every pick reads the cache, possibly from many threads. Segments are only used when each
+    // can still hold hundreds of entries, so that per segment eviction stays close to LRU.
+    private static final int MAX_CONCURRENCY_LEVEL = 16;
+    private static final long MIN_SEGMENT_SIZE_BYTES = 64 * 1024;
+
     RlsAsyncLruCache(long maxEstimatedSizeBytes,
         @Nullable EvictionListener<RouteLookupRequest, CacheEntry> evictionListener,
         ScheduledExecutorService ses, TimeProvider timeProvider) {
@@ -837,7 +1075,9 @@ final class CachingRlsLbClient {
           1,
           TimeUnit.MINUTES,
           ses,
-          timeProvider);
+          timeProvider,
+          (int) Math.max(
+              1, Math.min(MAX_CONCURRENCY_LEVEL, maxEstimatedSizeBytes / MIN_SEGMENT_SIZE_BYTES)));
     }
 
     @Override
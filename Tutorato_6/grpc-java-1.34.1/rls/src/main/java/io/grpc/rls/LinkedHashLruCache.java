@@ -44,19 +44,21 @@ import javax.annotation.concurrent.ThreadSafe;
  * LruCache try to remove up to one already expired entries. If it doesn't find any expired entries,
  * it will remove based on access order of entry. On top of this, LruCache also proactively removes
  * expired entries based on configured time interval.
+ *
+ * <p>The cache can be split into segments by key hash, each with its own lock and an equal share
+ * of the max size, so that concurrent reads of different keys don't contend. Access order and size
+ * based eviction are then tracked per segment, which approximates a single LRU as the segments
+ * fill evenly. The default is a single segment, i.e. exact LRU.
  */
 @ThreadSafe
 abstract class LinkedHashLruCache<K, V> implements LruCache<K, V> {
 
-  private final Object lock = new Object();
-
-  @GuardedBy("lock")
-  private final LinkedHashMap<K, SizedValue> delegate;
+  private final List<Segment> segments;
+  private final int segmentMask;
   private final PeriodicCleaner periodicCleaner;
   private final TimeProvider timeProvider;
   private final EvictionListener<K, SizedValue> evictionListener;
   private final AtomicLong estimatedSizeBytes = new AtomicLong();
-  private long estimatedMaxSizeBytes;
 
   LinkedHashLruCache(
       final long estimatedMaxSizeBytes,
@@ -65,36 +67,55 @@ abstract class LinkedHashLruCache<K, V> implements LruCache<K, V> {
       TimeUnit cleaningIntervalUnit,
       ScheduledExecutorService ses,
       final TimeProvider timeProvider) {
+    this(
+        estimatedMaxSizeBytes,
+        evictionListener,
+        cleaningInterval,
+        cleaningIntervalUnit,
+        ses,
+        timeProvider,
+        /* concurrencyLevel= */ 1);
+  }
+
+  /**
+   * Creates a cache split into up to {@code concurrencyLevel} segments. The number of segments is
+   * rounded down to a power of two, and is reduced so that every segment can hold at least one
+   * size unit.
+   */
+  LinkedHashLruCache(
+      final long estimatedMaxSizeBytes,
+      @Nullable final EvictionListener<K, V> evictionListener,
+      int cleaningInterval,
+      TimeUnit cleaningIntervalUnit,
+      ScheduledExecutorService ses,
+      final TimeProvider timeProvider,
+      int concurrencyLevel) {
     checkState(estimatedMaxSizeBytes > 0, "max estimated cache size should be positive");
-    this.estimatedMaxSizeBytes = estimatedMaxSizeBytes;
+    checkArgument(concurrencyLevel > 0, "concurrencyLevel should be positive");
     this.evictionListener = new SizeHandlingEvictionListener(evictionListener);
     this.timeProvider = checkNotNull(timeProvider, "timeProvider");
-    delegate = new LinkedHashMap<K, SizedValue>(
-        // rough estimate or minimum hashmap default
-        Math.max((int) (estimatedMaxSizeBytes / 1000), 16),
-        /* loadFactor= */ 0.75f,
-        /* accessOrder= */ true) {
-      @Override
-      protected boolean removeEldestEntry(Map.Entry<K, SizedValue> eldest) {
-        if (estimatedSizeBytes.get() <= LinkedHashLruCache.this.estimatedMaxSizeBytes) {
-          return false;
-        }
-
-        // first, remove at most 1 expired entry
-        boolean removed = cleanupExpiredEntries(1, timeProvider.currentTimeNanos());
-        // handles size based eviction if necessary no expired entry
-        boolean shouldRemove =
-            !removed && shouldInvalidateEldestEntry(eldest.getKey(), eldest.getValue().value);
-        if (shouldRemove) {
-          // remove entry by us to make sure lruIterator and cache is in sync
-          LinkedHashLruCache.this.invalidate(eldest.getKey(), EvictionType.SIZE);
-        }
-        return false;
-      }
-    };
+    int segmentCount =
+        Integer.highestOneBit((int) Math.min(concurrencyLevel, estimatedMaxSizeBytes));
+    segmentMask = segmentCount - 1;
+    List<Segment> segments = new ArrayList<>(segmentCount);
+    for (int i = 0; i < segmentCount; i++) {
+      segments.add(new Segment(segmentMaxSizeBytes(estimatedMaxSizeBytes, segmentCount, i)));
+    }
+    this.segments = Collections.unmodifiableList(segments);
     periodicCleaner = new PeriodicCleaner(ses, cleaningInterval, cleaningIntervalUnit).start();
   }
 
+  private static long segmentMaxSizeBytes(long maxSizeBytes, int segmentCount, int index) {
+    return maxSizeBytes / segmentCount + (index < maxSizeBytes % segmentCount ? 1 : 0);
+  }
+
+  private Segment segmentFor(K key) {
+    int h = key.hashCode();
+    // Spread the high bits, as the low ones select the segment.
+    h ^= h >>> 16;
+    return segments.get(h & segmentMask);
+  }
+
   /**
    * Determines if the eldest entry should be kept or not when the cache size limit is reached. Note
    * that LruCache is access level and the eldest is determined by access pattern.
@@ -118,16 +139,8 @@ abstract class LinkedHashLruCache<K, V> implements LruCache<K, V> {
 
   /** Updates size for given key if entry exists. It is useful if the cache value is mutated. */
   public void updateEntrySize(K key) {
-    synchronized (lock) {
-      SizedValue entry = readInternal(key);
-      if (entry == null) {
-        return;
-      }
-      int prevSize = entry.size;
-      int newSize = estimateSizeOf(key, entry.value);
-      entry.size = newSize;
-      estimatedSizeBytes.addAndGet(newSize - prevSize);
-    }
+    checkNotNull(key, "key");
+    segmentFor(key).updateEntrySize(key);
   }
 
   /**
@@ -143,15 +156,8 @@ abstract class LinkedHashLruCache<K, V> implements LruCache<K, V> {
   public final V cache(K key, V value) {
     checkNotNull(key, "key");
     checkNotNull(value, "value");
-    SizedValue existing;
     int size = estimateSizeOf(key, value);
-    synchronized (lock) {
-      estimatedSizeBytes.addAndGet(size);
-      existing = delegate.put(key, new SizedValue(size, value));
-      if (existing != null) {
-        evictionListener.onEviction(key, existing, EvictionType.REPLACED);
-      }
-    }
+    SizedValue existing = segmentFor(key).put(key, new SizedValue(size, value));
     return existing == null ? null : existing.value;
   }
 
@@ -166,49 +172,38 @@ abstract class LinkedHashLruCache<K, V> implements LruCache<K, V> {
     return null;
   }
 
+  /**
+   * Returns the value of a cached entry that is not expired, like {@link #read}, but never evicts
+   * an expired entry. Eviction listeners are thus never called by this method, so it can be used
+   * where the state they touch is not guarded.
+   */
   @Nullable
   @CheckReturnValue
-  private SizedValue readInternal(K key) {
+  public final V peek(K key) {
     checkNotNull(key, "key");
-    synchronized (lock) {
-      SizedValue existing = delegate.get(key);
-      if (existing != null && isExpired(key, existing.value, timeProvider.currentTimeNanos())) {
-        invalidate(key, EvictionType.EXPIRED);
-        return null;
-      }
-      return existing;
-    }
+    SizedValue entry = segmentFor(key).peek(key);
+    return entry == null ? null : entry.value;
   }
 
-  @Override
   @Nullable
-  public final V invalidate(K key) {
-    return invalidate(key, EvictionType.EXPLICIT);
+  @CheckReturnValue
+  private SizedValue readInternal(K key) {
+    checkNotNull(key, "key");
+    return segmentFor(key).read(key);
   }
 
+  @Override
   @Nullable
-  private V invalidate(K key, EvictionType cause) {
+  public final V invalidate(K key) {
     checkNotNull(key, "key");
-    checkNotNull(cause, "cause");
-    synchronized (lock) {
-      SizedValue existing = delegate.remove(key);
-      if (existing != null) {
-        evictionListener.onEviction(key, existing, cause);
-      }
-      return existing == null ? null : existing.value;
-    }
+    return segmentFor(key).invalidate(key, EvictionType.EXPLICIT);
   }
 
   @Override
   public final void invalidateAll(Iterable<K> keys) {
     checkNotNull(keys, "keys");
-    synchronized (lock) {
-      for (K key : keys) {
-        SizedValue existing = delegate.remove(key);
-        if (existing != null) {
-          evictionListener.onEviction(key, existing, EvictionType.EXPLICIT);
-        }
-      }
+    for (K key : keys) {
+      invalidate(key);
     }
   }
 
@@ -221,13 +216,11 @@ abstract class LinkedHashLruCache<K, V> implements LruCache<K, V> {
 
   /** Returns shallow copied values in the cache. */
   public final List<V> values() {
-    synchronized (lock) {
-      List<V> list = new ArrayList<>(delegate.size());
-      for (SizedValue value : delegate.values()) {
-        list.add(value.value);
-      }
-      return Collections.unmodifiableList(list);
+    List<V> list = new ArrayList<>();
+    for (Segment segment : segments) {
+      segment.addValuesTo(list);
     }
+    return Collections.unmodifiableList(list);
   }
 
   /**
@@ -236,67 +229,189 @@ abstract class LinkedHashLruCache<K, V> implements LruCache<K, V> {
    */
   public final void resize(int newSizeBytes) {
     long now = timeProvider.currentTimeNanos();
-    synchronized (lock) {
-      this.estimatedMaxSizeBytes = newSizeBytes;
-      if (estimatedSizeBytes.get() <= newSizeBytes) {
+    for (int i = 0; i < segments.size(); i++) {
+      segments.get(i).resize(segmentMaxSizeBytes(newSizeBytes, segments.size(), i), now);
+    }
+  }
+
+  @Override
+  @CheckReturnValue
+  public final int estimatedSize() {
+    int size = 0;
+    for (Segment segment : segments) {
+      size += segment.size();
+    }
+    return size;
+  }
+
+  private void cleanupExpiredEntries(long now) {
+    for (Segment segment : segments) {
+      segment.cleanupExpiredEntries(Integer.MAX_VALUE, now);
+    }
+  }
+
+  @Override
+  public final void close() {
+    periodicCleaner.stop();
+    doClose();
+    for (Segment segment : segments) {
+      segment.clear();
+    }
+  }
+
+  protected void doClose() {}
+
+  /** A part of the cache, holding the keys whose hash selects it. */
+  private final class Segment {
+
+    @GuardedBy("this")
+    private final LinkedHashMap<K, SizedValue> delegate;
+    @GuardedBy("this")
+    private long sizeBytes;
+    @GuardedBy("this")
+    private long maxSizeBytes;
+
+    Segment(long maxSizeBytes) {
+      this.maxSizeBytes = maxSizeBytes;
+      delegate = new LinkedHashMap<K, SizedValue>(
+          // rough estimate or minimum hashmap default
+          Math.max((int) (maxSizeBytes / 1000), 16),
+          /* loadFactor= */ 0.75f,
+          /* accessOrder= */ true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, SizedValue> eldest) {
+          synchronized (Segment.this) {
+            if (sizeBytes <= Segment.this.maxSizeBytes) {
+              return false;
+            }
+
+            // first, remove at most 1 expired entry
+            boolean removed = cleanupExpiredEntries(1, timeProvider.currentTimeNanos());
+            // handles size based eviction if necessary no expired entry
+            boolean shouldRemove =
+                !removed && shouldInvalidateEldestEntry(eldest.getKey(), eldest.getValue().value);
+            if (shouldRemove) {
+              // remove entry by us to make sure lruIterator and cache is in sync
+              invalidate(eldest.getKey(), EvictionType.SIZE);
+            }
+            return false;
+          }
+        }
+      };
+    }
+
+    @Nullable
+    synchronized SizedValue put(K key, SizedValue value) {
+      addSize(value.size);
+      SizedValue existing = delegate.put(key, value);
+      if (existing != null) {
+        onEviction(key, existing, EvictionType.REPLACED);
+      }
+      return existing;
+    }
+
+    @Nullable
+    synchronized SizedValue read(K key) {
+      SizedValue existing = delegate.get(key);
+      if (existing != null && isExpired(key, existing.value, timeProvider.currentTimeNanos())) {
+        invalidate(key, EvictionType.EXPIRED);
+        return null;
+      }
+      return existing;
+    }
+
+    @Nullable
+    synchronized SizedValue peek(K key) {
+      SizedValue existing = delegate.get(key);
+      if (existing != null && isExpired(key, existing.value, timeProvider.currentTimeNanos())) {
+        return null;
+      }
+      return existing;
+    }
+
+    @Nullable
+    synchronized V invalidate(K key, EvictionType cause) {
+      checkNotNull(cause, "cause");
+      SizedValue existing = delegate.remove(key);
+      if (existing != null) {
+        onEviction(key, existing, cause);
+      }
+      return existing == null ? null : existing.value;
+    }
+
+    synchronized void updateEntrySize(K key) {
+      SizedValue entry = read(key);
+      if (entry == null) {
+        return;
+      }
+      int prevSize = entry.size;
+      int newSize = estimateSizeOf(key, entry.value);
+      entry.size = newSize;
+      addSize(newSize - prevSize);
+    }
+
+    synchronized void addValuesTo(List<V> list) {
+      for (SizedValue value : delegate.values()) {
+        list.add(value.value);
+      }
+    }
+
+    synchronized void resize(long newSizeBytes, long now) {
+      this.maxSizeBytes = newSizeBytes;
+      if (sizeBytes <= newSizeBytes) {
         // new size is larger no need to do cleanup
         return;
       }
       // cleanup expired entries
-      cleanupExpiredEntries(now);
+      cleanupExpiredEntries(Integer.MAX_VALUE, now);
 
       // cleanup eldest entry until new size limit
       Iterator<Map.Entry<K, SizedValue>> lruIter = delegate.entrySet().iterator();
-      while (lruIter.hasNext() && estimatedMaxSizeBytes < this.estimatedSizeBytes.get()) {
+      while (lruIter.hasNext() && maxSizeBytes < sizeBytes) {
         Map.Entry<K, SizedValue> entry = lruIter.next();
         lruIter.remove();
         // eviction listener will update the estimatedSizeBytes
-        evictionListener.onEviction(entry.getKey(), entry.getValue(), EvictionType.SIZE);
+        onEviction(entry.getKey(), entry.getValue(), EvictionType.SIZE);
       }
     }
-  }
 
-  @Override
-  @CheckReturnValue
-  public final int estimatedSize() {
-    synchronized (lock) {
+    synchronized int size() {
       return delegate.size();
     }
-  }
-
-  private boolean cleanupExpiredEntries(long now) {
-    return cleanupExpiredEntries(Integer.MAX_VALUE, now);
-  }
 
-  // maxExpiredEntries is by number of entries
-  private boolean cleanupExpiredEntries(int maxExpiredEntries, long now) {
-    checkArgument(maxExpiredEntries > 0, "maxExpiredEntries must be positive");
-    boolean removedAny = false;
-    synchronized (lock) {
+    // maxExpiredEntries is by number of entries
+    synchronized boolean cleanupExpiredEntries(int maxExpiredEntries, long now) {
+      checkArgument(maxExpiredEntries > 0, "maxExpiredEntries must be positive");
+      boolean removedAny = false;
       Iterator<Map.Entry<K, SizedValue>> lruIter = delegate.entrySet().iterator();
       while (lruIter.hasNext() && maxExpiredEntries > 0) {
         Map.Entry<K, SizedValue> entry = lruIter.next();
         if (isExpired(entry.getKey(), entry.getValue().value, now)) {
           lruIter.remove();
-          evictionListener.onEviction(entry.getKey(), entry.getValue(), EvictionType.EXPIRED);
+          onEviction(entry.getKey(), entry.getValue(), EvictionType.EXPIRED);
           removedAny = true;
           maxExpiredEntries--;
         }
       }
+      return removedAny;
     }
-    return removedAny;
-  }
 
-  @Override
-  public final void close() {
-    synchronized (lock) {
-      periodicCleaner.stop();
-      doClose();
+    synchronized void clear() {
       delegate.clear();
     }
-  }
 
-  protected void doClose() {}
+    @GuardedBy("this")
+    private void addSize(long delta) {
+      sizeBytes += delta;
+      estimatedSizeBytes.addAndGet(delta);
+    }
+
+    @GuardedBy("this")
+    private void onEviction(K key, SizedValue value, EvictionType cause) {
+      sizeBytes -= value.size;
+      evictionListener.onEviction(key, value, cause);
+    }
+  }
 
   /** Periodically cleans up the AsyncRequestCache. */
   private final class PeriodicCleaner {
@@ -304,6 +419,7 @@ abstract class LinkedHashLruCache<K, V> implements LruCache<K, V> {
     private final ScheduledExecutorService ses;
     private final int interval;
     private final TimeUnit intervalUnit;
+    @GuardedBy("this")
     private ScheduledFuture<?> scheduledFuture;
 
     PeriodicCleaner(ScheduledExecutorService ses, int interval, TimeUnit intervalUnit) {
@@ -313,14 +429,14 @@ abstract class LinkedHashLruCache<K, V> implements LruCache<K, V> {
       this.intervalUnit = checkNotNull(intervalUnit, "intervalUnit");
     }
 
-    PeriodicCleaner start() {
+    synchronized PeriodicCleaner start() {
       checkState(scheduledFuture == null, "cleaning task can be started only once");
       this.scheduledFuture =
           ses.scheduleAtFixedRate(new CleaningTask(), interval, interval, intervalUnit);
       return this;
     }
 
-    void stop() {
+    synchronized void stop() {
       if (scheduledFuture != null) {
         scheduledFuture.cancel(false);
         scheduledFuture = null;
@@ -336,7 +452,10 @@ abstract class LinkedHashLruCache<K, V> implements LruCache<K, V> {
     }
   }
 
-  /** A {@link EvictionListener} keeps track of size. */
+  /**
+   * A {@link EvictionListener} keeps track of size. It also serializes notifications, which
+   * segments would otherwise deliver concurrently.
+   */
   private final class SizeHandlingEvictionListener implements EvictionListener<K, SizedValue> {
 
     private final EvictionListener<K, V> delegate;
@@ -349,7 +468,9 @@ abstract class LinkedHashLruCache<K, V> implements LruCache<K, V> {
     public void onEviction(K key, SizedValue value, EvictionType cause) {
       estimatedSizeBytes.addAndGet(-1 * value.size);
       if (delegate != null) {
-        delegate.onEviction(key, value.value, cause);
+        synchronized (this) {
+          delegate.onEviction(key, value.value, cause);
+        }
       }
     }
   }
@@ -57,6 +57,7 @@ import io.grpc.internal.BackoffPolicy;
 import io.grpc.internal.PickSubchannelArgsImpl;
 import io.grpc.lookup.v1.RouteLookupServiceGrpc;
 import io.grpc.rls.CachingRlsLbClient.CacheEntry;
+import io.grpc.rls.CachingRlsLbClient.CacheStats;
 import io.grpc.rls.CachingRlsLbClient.CachedRouteLookupResponse;
 import io.grpc.rls.CachingRlsLbClient.RlsPicker;
 import io.grpc.rls.DoNotUseDirectScheduledExecutorService.FakeTimeProvider;
@@ -77,8 +78,10 @@ import io.grpc.testing.TestMethodDescriptors;
 import java.io.IOException;
 import java.lang.Thread.UncaughtExceptionHandler;
 import java.net.SocketAddress;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
@@ -340,6 +343,122 @@ public class CachingRlsLbClientTest {
     assertThat(pickResult.getStatus().getDescription()).isEqualTo("fallback not available");
   }
 
+  @Test
+  public void get_staleEntryServedWhileRefreshing_untilLookupTimeoutPastMaxAge()
+      throws Exception {
+    RouteLookupRequest routeLookupRequest =
+        new RouteLookupRequest("server", "/foo/bar", "grpc", ImmutableMap.<String, String>of());
+    rlsServerImpl.setLookupTable(
+        ImmutableMap.of(
+            routeLookupRequest,
+            new RouteLookupResponse(ImmutableList.of("target"), "header")));
+
+    CachedRouteLookupResponse resp = getInSyncContext(routeLookupRequest);
+    assertThat(resp.isPending()).isTrue();
+    fakeTimeProvider.forwardTime(SERVER_LATENCY_MILLIS, TimeUnit.MILLISECONDS);
+    resp = getInSyncContext(routeLookupRequest);
+    assertThat(resp.hasData()).isTrue();
+
+    // the refresh takes longer than the rest of the entry's max age, plus the lookup timeout
+    rlsServerImpl.setResponseDelay(100, TimeUnit.SECONDS);
+    fakeTimeProvider.forwardTime(ROUTE_LOOKUP_CONFIG.getStaleAgeInMillis(), TimeUnit.MILLISECONDS);
+    resp = getInSyncContext(routeLookupRequest);
+    assertThat(resp.hasData()).isTrue();
+
+    // max age reached, but the refresh is on the fly
+    fakeTimeProvider.forwardTime(
+        ROUTE_LOOKUP_CONFIG.getMaxAgeInMillis() - ROUTE_LOOKUP_CONFIG.getStaleAgeInMillis(),
+        TimeUnit.MILLISECONDS);
+    resp = getInSyncContext(routeLookupRequest);
+    assertThat(resp.hasData()).isTrue();
+
+    // lookup timeout past max age
+    fakeTimeProvider.forwardTime(
+        ROUTE_LOOKUP_CONFIG.getLookupServiceTimeoutInMillis(), TimeUnit.MILLISECONDS);
+    resp = getInSyncContext(routeLookupRequest);
+    assertThat(resp.isPending()).isTrue();
+
+    CacheStats stats = rlsLbClient.getCacheStats();
+    assertThat(stats.getMissCount()).isEqualTo(1);
+    assertThat(stats.getHitCount()).isEqualTo(1);
+    assertThat(stats.getStaleHitCount()).isEqualTo(2);
+    assertThat(stats.getCoalescedCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void get_lookupsBeyondInFlightLimitAreQueued() throws Exception {
+    int lookups = CachingRlsLbClient.DEFAULT_MAX_IN_FLIGHT_LOOKUPS + 1;
+    List<RouteLookupRequest> requests = new ArrayList<>();
+    ImmutableMap.Builder<RouteLookupRequest, RouteLookupResponse> lookupTable =
+        ImmutableMap.builder();
+    for (int i = 0; i < lookups; i++) {
+      RouteLookupRequest request =
+          new RouteLookupRequest(
+              "server", "/foo/bar" + i, "grpc", ImmutableMap.<String, String>of());
+      requests.add(request);
+      lookupTable.put(request, new RouteLookupResponse(ImmutableList.of("target"), "header" + i));
+    }
+    rlsServerImpl.setLookupTable(lookupTable.build());
+
+    for (RouteLookupRequest request : requests) {
+      assertThat(getInSyncContext(request).isPending()).isTrue();
+    }
+
+    // the last lookup is only sent once one of the others finished
+    fakeTimeProvider.forwardTime(SERVER_LATENCY_MILLIS, TimeUnit.MILLISECONDS);
+    assertThat(getInSyncContext(requests.get(lookups - 1)).isPending()).isTrue();
+
+    fakeTimeProvider.forwardTime(SERVER_LATENCY_MILLIS, TimeUnit.MILLISECONDS);
+    assertThat(getInSyncContext(requests.get(lookups - 1)).hasData()).isTrue();
+
+    CacheStats stats = rlsLbClient.getCacheStats();
+    assertThat(stats.getMissCount()).isEqualTo(lookups);
+    assertThat(stats.getCoalescedCount()).isEqualTo(1);
+    assertThat(stats.getHitCount()).isEqualTo(1);
+    assertThat(stats.getStaleHitCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void get_queuedLookupFailsAtLookupTimeout() throws Exception {
+    List<RouteLookupRequest> requests =
+        newRequests(CachingRlsLbClient.DEFAULT_MAX_IN_FLIGHT_LOOKUPS + 1);
+    rlsServerImpl.setResponseDelay(10, TimeUnit.SECONDS);
+    for (RouteLookupRequest request : requests) {
+      assertThat(getInSyncContext(request).isPending()).isTrue();
+    }
+
+    // the lookup timeout is 2 seconds, counted from when the last lookup was queued
+    fakeTimeProvider.forwardTime(2, TimeUnit.SECONDS);
+    CachedRouteLookupResponse resp = getInSyncContext(requests.get(requests.size() - 1));
+    assertThat(resp.hasError()).isTrue();
+    assertThat(resp.getStatus().getCode()).isEqualTo(Code.DEADLINE_EXCEEDED);
+    assertThat(getInSyncContext(requests.get(0)).isPending()).isTrue();
+  }
+
+  @Test
+  public void get_lookupsBeyondQueueLimitFail() throws Exception {
+    List<RouteLookupRequest> requests = newRequests(
+        CachingRlsLbClient.DEFAULT_MAX_IN_FLIGHT_LOOKUPS
+            + CachingRlsLbClient.DEFAULT_MAX_QUEUED_LOOKUPS + 1);
+    for (int i = 0; i < requests.size() - 1; i++) {
+      assertThat(getInSyncContext(requests.get(i)).isPending()).isTrue();
+    }
+
+    CachedRouteLookupResponse resp = getInSyncContext(requests.get(requests.size() - 1));
+    assertThat(resp.hasError()).isTrue();
+    assertThat(resp.getStatus().getCode()).isEqualTo(Code.UNAVAILABLE);
+  }
+
+  private static List<RouteLookupRequest> newRequests(int count) {
+    List<RouteLookupRequest> requests = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      requests.add(
+          new RouteLookupRequest(
+              "server", "/foo/bar" + i, "grpc", ImmutableMap.<String, String>of()));
+    }
+    return requests;
+  }
+
   @Test
   public void get_childPolicyWrapper_reusedForSameTarget() throws Exception {
     RouteLookupRequest routeLookupRequest =
@@ -496,7 +615,7 @@ public class CachingRlsLbClientTest {
     private static final Converter<RouteLookupResponse, io.grpc.lookup.v1.RouteLookupResponse>
         RESPONSE_CONVERTER = new RouteLookupResponseConverter().reverse();
 
-    private final long responseDelayNano;
+    private long responseDelayNano;
     private final ScheduledExecutorService scheduledExecutorService;
 
     private Map<RouteLookupRequest, RouteLookupResponse> lookupTable = ImmutableMap.of();
@@ -513,6 +632,10 @@ public class CachingRlsLbClientTest {
       this.lookupTable = checkNotNull(lookupTable, "lookupTable");
     }
 
+    private void setResponseDelay(long delay, TimeUnit unit) {
+      this.responseDelayNano = unit.toNanos(delay);
+    }
+
     @Override
     public void routeLookup(final io.grpc.lookup.v1.RouteLookupRequest request,
         final StreamObserver<io.grpc.lookup.v1.RouteLookupResponse> responseObserver) {
@@ -22,13 +22,18 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.CALLS_REAL_METHODS;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 
 import com.google.common.collect.ImmutableList;
 import io.grpc.rls.DoNotUseDirectScheduledExecutorService.FakeTimeProvider;
 import io.grpc.rls.LruCache.EvictionListener;
 import io.grpc.rls.LruCache.EvictionType;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -164,6 +169,19 @@ public class LinkedHashLruCacheTest {
     verify(evictionListener).onEviction(eq(MAX_SIZE), any(Entry.class), eq(EvictionType.EXPIRED));
   }
 
+  @Test
+  public void peek_shouldNotEvictAlreadyExpired() {
+    for (int i = 1; i <= MAX_SIZE; i++) {
+      // last entry is already expired when added
+      cache.cache(i, new Entry("Entry" + i, timeProvider.currentTimeNanos() + MAX_SIZE - i));
+    }
+
+    assertThat(cache.peek(1).value).isEqualTo("Entry1");
+    assertThat(cache.peek(MAX_SIZE)).isNull();
+    assertThat(cache.estimatedSize()).isEqualTo(MAX_SIZE);
+    verifyNoInteractions(evictionListener);
+  }
+
   @Test
   public void updateEntrySize() {
     Entry entry = new Entry("Entry", timeProvider.currentTimeNanos() + 10);
@@ -234,6 +252,128 @@ public class LinkedHashLruCacheTest {
     assertThat(cache.hasCacheEntry(1)).isFalse();
   }
 
+  @Test
+  public void segmented_evictsWithinSegment() {
+    // 4 segments holding 2 entries each; small Integer keys select segment (key % 4).
+    cache = newSegmentedCache(8, 4, evictionListener);
+    Entry entry0 = new Entry("Entry0", Long.MAX_VALUE);
+    cache.cache(0, entry0);
+    cache.cache(1, new Entry("Entry1", Long.MAX_VALUE));
+    cache.cache(4, new Entry("Entry4", Long.MAX_VALUE));
+    assertThat(cache.read(0)).isEqualTo(entry0);
+
+    cache.cache(8, new Entry("Entry8", Long.MAX_VALUE));
+
+    verify(evictionListener)
+        .onEviction(4, new Entry("Entry4", Long.MAX_VALUE), EvictionType.SIZE);
+    assertThat(cache.estimatedSize()).isEqualTo(3);
+    assertThat(cache.estimatedSizeBytes()).isEqualTo(3);
+    assertThat(cache.values()).containsExactly(
+        entry0, new Entry("Entry1", Long.MAX_VALUE), new Entry("Entry8", Long.MAX_VALUE));
+  }
+
+  @Test
+  public void segmented_segmentCountLimitedBySize() {
+    // Only 2 segments fit, one entry each.
+    cache = newSegmentedCache(2, 16, evictionListener);
+    cache.cache(0, new Entry("Entry0", Long.MAX_VALUE));
+    cache.cache(1, new Entry("Entry1", Long.MAX_VALUE));
+    assertThat(cache.estimatedSize()).isEqualTo(2);
+
+    cache.cache(2, new Entry("Entry2", Long.MAX_VALUE));
+
+    verify(evictionListener)
+        .onEviction(0, new Entry("Entry0", Long.MAX_VALUE), EvictionType.SIZE);
+    assertThat(cache.hasCacheEntry(1)).isTrue();
+  }
+
+  @Test
+  public void segmented_resize() {
+    cache = newSegmentedCache(8, 2, evictionListener);
+    for (int i = 0; i < 8; i++) {
+      cache.cache(i, new Entry("Entry" + i, Long.MAX_VALUE));
+    }
+
+    cache.resize(4);
+
+    assertThat(cache.estimatedSize()).isEqualTo(4);
+    assertThat(cache.estimatedSizeBytes()).isEqualTo(4);
+    for (int i = 0; i < 4; i++) {
+      assertThat(cache.hasCacheEntry(i)).isFalse();
+    }
+  }
+
+  @Test
+  public void segmented_concurrentAccess_serialEvictionNotifications() throws Exception {
+    final AtomicBoolean notifying = new AtomicBoolean();
+    final AtomicBoolean overlapped = new AtomicBoolean();
+    EvictionListener<Integer, Entry> listener = new EvictionListener<Integer, Entry>() {
+      @Override
+      public void onEviction(Integer key, Entry value, EvictionType cause) {
+        if (!notifying.compareAndSet(false, true)) {
+          overlapped.set(true);
+        }
+        Thread.yield();
+        notifying.set(false);
+      }
+    };
+    cache = newSegmentedCache(64, 8, listener);
+    final int threadCount = 4;
+    final CyclicBarrier barrier = new CyclicBarrier(threadCount);
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < threadCount; t++) {
+      final int offset = t * 1000;
+      Thread thread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            barrier.await();
+          } catch (Exception e) {
+            throw new AssertionError(e);
+          }
+          for (int i = 0; i < 1000; i++) {
+            cache.cache(offset + i, new Entry("Entry" + i, Long.MAX_VALUE));
+            assertThat(cache.read(offset + i)).isNotNull();
+          }
+        }
+      });
+      thread.start();
+      threads.add(thread);
+    }
+    for (Thread thread : threads) {
+      thread.join(10_000);
+    }
+
+    assertThat(overlapped.get()).isFalse();
+    assertThat(cache.estimatedSize()).isEqualTo(64);
+    assertThat(cache.estimatedSizeBytes()).isEqualTo(64);
+  }
+
+  private LinkedHashLruCache<Integer, Entry> newSegmentedCache(
+      int maxSize, int concurrencyLevel, EvictionListener<Integer, Entry> listener) {
+    // The fake executor only accepts a single periodic task, which setUp()'s cache already uses.
+    DoNotUseDirectScheduledExecutorService scheduledService =
+        mock(DoNotUseDirectScheduledExecutorService.class, CALLS_REAL_METHODS);
+    return new LinkedHashLruCache<Integer, Entry>(
+        maxSize,
+        listener,
+        10,
+        TimeUnit.NANOSECONDS,
+        scheduledService,
+        scheduledService.getFakeTimeProvider(),
+        concurrencyLevel) {
+      @Override
+      protected boolean isExpired(Integer key, Entry value, long nowNanos) {
+        return value.expireTime <= nowNanos;
+      }
+
+      @Override
+      protected int estimateSizeOf(Integer key, Entry value) {
+        return value.size;
+      }
+    };
+  }
+
   private static final class Entry {
     String value;
     long expireTime;
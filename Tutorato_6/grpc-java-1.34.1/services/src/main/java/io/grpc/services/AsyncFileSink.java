@@ -0,0 +1,386 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.services;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Ticker;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.MessageLite;
+import io.grpc.ExperimentalApi;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A {@link BinaryLogSink} that writes messages to files from a background thread, so that logging
+ * does not add disk latency or lock contention to RPCs. The proto messages are written serially
+ * using {@link MessageLite#writeDelimitedTo(OutputStream)}, like {@link TempFileSink}.
+ *
+ * <p>{@link #write} only adds the message to a bounded lock-free queue. If the queue is full
+ * because the disk does not keep up, the message is dropped and counted in {@link
+ * #getDroppedCount} instead of blocking the RPC.
+ *
+ * <p>Files are named {@code <prefix>.<creation time in millis>.<sequence number>} and are rotated
+ * once they reach a maximum size and, optionally, a maximum age. Old files are not deleted.
+ */
+@ExperimentalApi("https://github.com/grpc/grpc-java/issues/4017")
+@ThreadSafe
+public final class AsyncFileSink implements BinaryLogSink {
+  private static final Logger logger = Logger.getLogger(AsyncFileSink.class.getName());
+
+  /** How long the writer sleeps when idle, bounding how late time-based rotation happens. */
+  private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+  private static final int OUTPUT_BUFFER_BYTES = 64 * 1024;
+
+  private final File directory;
+  private final String filePrefix;
+  private final long maxFileBytes;
+  private final long maxFileAgeNanos;
+  private final Ticker ticker;
+  private final RingBuffer queue;
+  private final Thread writerThread;
+  private final AtomicLong droppedCount = new AtomicLong();
+  private final AtomicLong writtenCount = new AtomicLong();
+  private volatile boolean writerParked;
+  private volatile boolean closed;
+
+  // Only accessed by the writer thread.
+  @Nullable
+  private OutputStream out;
+  @Nullable
+  private File currentFile;
+  private long currentFileBytes;
+  private long currentFileOpenedNanos;
+  private long fileSequence;
+
+  private AsyncFileSink(Builder builder) {
+    this.directory = builder.directory;
+    this.filePrefix = builder.filePrefix;
+    this.maxFileBytes = builder.maxFileBytes;
+    this.maxFileAgeNanos = builder.maxFileAgeNanos;
+    this.ticker = builder.ticker;
+    this.queue = new RingBuffer(builder.queueCapacity);
+    this.writerThread = new Thread(new Writer(), "grpc-binlog-writer");
+    writerThread.setDaemon(true);
+  }
+
+  /**
+   * Creates a builder for a sink writing to files in {@code directory} whose names start with
+   * {@code filePrefix}.
+   */
+  public static Builder newBuilder(File directory, String filePrefix) {
+    return new Builder(directory, filePrefix);
+  }
+
+  /** Queues {@code message} to be written, or drops it if the queue is full. */
+  @Override
+  public void write(MessageLite message) {
+    if (closed) {
+      logger.log(Level.FINEST, "Attempt to write after AsyncFileSink is closed.");
+      return;
+    }
+    if (!queue.offer(checkNotNull(message, "message"))) {
+      droppedCount.incrementAndGet();
+      return;
+    }
+    if (writerParked) {
+      LockSupport.unpark(writerThread);
+    }
+  }
+
+  /** Returns the number of messages dropped because the queue was full or writing failed. */
+  public long getDroppedCount() {
+    return droppedCount.get();
+  }
+
+  /** Returns the number of messages written to files. */
+  public long getWrittenCount() {
+    return writtenCount.get();
+  }
+
+  /**
+   * Writes the queued messages, closes the current file and stops the background thread. Messages
+   * written after this method is called are discarded.
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    LockSupport.unpark(writerThread);
+    boolean interrupted = false;
+    while (true) {
+      try {
+        writerThread.join();
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("directory", directory)
+        .add("filePrefix", filePrefix)
+        .add("writtenCount", writtenCount.get())
+        .add("droppedCount", droppedCount.get())
+        .toString();
+  }
+
+  private final class Writer implements Runnable {
+    @Override
+    public void run() {
+      try {
+        while (true) {
+          // Read closed before draining, so that messages queued before close() are written.
+          boolean closing = closed;
+          if (drain()) {
+            continue;
+          }
+          flush();
+          if (closing && queue.isEmpty()) {
+            break;
+          }
+          writerParked = true;
+          if (queue.isEmpty() && !closed) {
+            LockSupport.parkNanos(AsyncFileSink.this, IDLE_PARK_NANOS);
+          }
+          writerParked = false;
+          if (out != null && maxFileAgeNanos > 0
+              && ticker.read() - currentFileOpenedNanos >= maxFileAgeNanos) {
+            closeFile();
+          }
+        }
+      } finally {
+        closeFile();
+      }
+    }
+
+    /** Writes queued messages, returning whether there were any. */
+    private boolean drain() {
+      MessageLite message = queue.poll();
+      if (message == null) {
+        return false;
+      }
+      do {
+        writeToFile(message);
+      } while ((message = queue.poll()) != null);
+      return true;
+    }
+  }
+
+  private void writeToFile(MessageLite message) {
+    try {
+      if (out != null && (currentFileBytes >= maxFileBytes || (maxFileAgeNanos > 0
+          && ticker.read() - currentFileOpenedNanos >= maxFileAgeNanos))) {
+        closeFile();
+      }
+      if (out == null) {
+        openFile();
+      }
+      int size = message.getSerializedSize();
+      message.writeDelimitedTo(out);
+      currentFileBytes += CodedOutputStream.computeUInt32SizeNoTag(size) + size;
+      writtenCount.incrementAndGet();
+    } catch (IOException | RuntimeException e) {
+      logger.log(Level.SEVERE, "Caught exception while writing to " + currentFile, e);
+      droppedCount.incrementAndGet();
+      // Start over with a new file for the next message.
+      closeFile();
+    }
+  }
+
+  private void openFile() throws IOException {
+    File file = new File(
+        directory,
+        filePrefix + "." + System.currentTimeMillis() + "." + fileSequence++);
+    out = new BufferedOutputStream(new FileOutputStream(file), OUTPUT_BUFFER_BYTES);
+    currentFile = file;
+    currentFileBytes = 0;
+    currentFileOpenedNanos = ticker.read();
+    logger.log(Level.FINE, "Writing binary logs to {0}", file.getAbsolutePath());
+  }
+
+  private void flush() {
+    if (out == null) {
+      return;
+    }
+    try {
+      out.flush();
+    } catch (IOException e) {
+      logger.log(Level.SEVERE, "Caught exception while flushing " + currentFile, e);
+      closeFile();
+    }
+  }
+
+  private void closeFile() {
+    if (out == null) {
+      return;
+    }
+    try {
+      out.close();
+    } catch (IOException e) {
+      logger.log(Level.SEVERE, "Caught exception while closing " + currentFile, e);
+    }
+    out = null;
+    currentFile = null;
+  }
+
+  /**
+   * A bounded multi-producer single-consumer queue over an array. Producers claim a slot with a
+   * compare-and-set of the tail, and the consumer frees it without any atomic read-modify-write.
+   */
+  @VisibleForTesting
+  static final class RingBuffer {
+    private final AtomicReferenceArray<MessageLite> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    /** Only advanced by the consumer. */
+    private final AtomicLong head = new AtomicLong();
+
+    RingBuffer(int capacity) {
+      checkArgument(capacity > 0, "capacity must be positive");
+      int size = Integer.highestOneBit(capacity);
+      if (size < capacity) {
+        size <<= 1;
+      }
+      this.slots = new AtomicReferenceArray<>(size);
+      this.mask = size - 1;
+    }
+
+    boolean offer(MessageLite message) {
+      while (true) {
+        long currentTail = tail.get();
+        if (currentTail - head.get() > mask) {
+          return false;
+        }
+        if (tail.compareAndSet(currentTail, currentTail + 1)) {
+          // The consumer only clears a slot before advancing head, so this slot is free.
+          slots.lazySet((int) currentTail & mask, message);
+          return true;
+        }
+      }
+    }
+
+    /**
+     * Returns the next message, or {@code null} if there is none or its producer has not stored it
+     * yet. Must only be called by the consumer.
+     */
+    @Nullable
+    MessageLite poll() {
+      long currentHead = head.get();
+      int index = (int) currentHead & mask;
+      MessageLite message = slots.get(index);
+      if (message == null) {
+        return null;
+      }
+      slots.lazySet(index, null);
+      head.lazySet(currentHead + 1);
+      return message;
+    }
+
+    boolean isEmpty() {
+      return head.get() == tail.get();
+    }
+  }
+
+  /** Builder for {@link AsyncFileSink}. */
+  public static final class Builder {
+    private final File directory;
+    private final String filePrefix;
+    private long maxFileBytes = 64L * 1024 * 1024;
+    private long maxFileAgeNanos;
+    private int queueCapacity = 8192;
+    private Ticker ticker = Ticker.systemTicker();
+
+    private Builder(File directory, String filePrefix) {
+      this.directory = checkNotNull(directory, "directory");
+      this.filePrefix = checkNotNull(filePrefix, "filePrefix");
+    }
+
+    /**
+     * Sets the size after which a new file is started. A file may exceed it by one message.
+     * Defaults to 64 MiB.
+     */
+    public Builder setMaxFileBytes(long maxFileBytes) {
+      checkArgument(maxFileBytes > 0, "maxFileBytes must be positive");
+      this.maxFileBytes = maxFileBytes;
+      return this;
+    }
+
+    /**
+     * Sets how long a file is written before a new one is started. By default files are only
+     * rotated by size.
+     */
+    public Builder setMaxFileAge(long maxFileAge, TimeUnit unit) {
+      checkArgument(maxFileAge > 0, "maxFileAge must be positive");
+      this.maxFileAgeNanos = unit.toNanos(maxFileAge);
+      return this;
+    }
+
+    /**
+     * Sets how many messages can wait to be written before new ones are dropped. Rounded up to a
+     * power of two. Defaults to 8192.
+     */
+    public Builder setQueueCapacity(int queueCapacity) {
+      checkArgument(queueCapacity > 0, "queueCapacity must be positive");
+      checkArgument(queueCapacity <= 1 << 30, "queueCapacity too large");
+      this.queueCapacity = queueCapacity;
+      return this;
+    }
+
+    @VisibleForTesting
+    Builder setTicker(Ticker ticker) {
+      this.ticker = checkNotNull(ticker, "ticker");
+      return this;
+    }
+
+    /**
+     * Creates the directory if needed and starts the background writer thread.
+     *
+     * @throws IOException if the directory does not exist and cannot be created
+     */
+    public AsyncFileSink build() throws IOException {
+      if (!directory.isDirectory() && !directory.mkdirs()) {
+        throw new IOException("Unable to create directory " + directory);
+      }
+      AsyncFileSink sink = new AsyncFileSink(this);
+      sink.writerThread.start();
+      return sink;
+    }
+  }
+}
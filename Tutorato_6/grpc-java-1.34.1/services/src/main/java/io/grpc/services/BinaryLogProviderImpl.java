@@ -79,7 +79,8 @@ class BinaryLogProviderImpl extends BinaryLogProvider {
   public ClientInterceptor getClientInterceptor(
       String fullMethodName, CallOptions callOptions) {
     BinlogHelper helperForMethod = factory.getLog(fullMethodName);
-    if (helperForMethod == null) {
+    // Unsampled calls get no interceptor, so their messages are not copied to byte arrays
+    if (helperForMethod == null || !helperForMethod.shouldLog()) {
       return null;
     }
     return helperForMethod.getClientInterceptor(counter.getAndIncrement());
@@ -25,7 +25,8 @@ public final class BinaryLogs {
   /**
    * Creates a binary log that writes to a temp file. <b>Warning:</b> this implementation is
    * not performance optimized, and RPCs will experience back pressure if disk IO does not keep
-   * up.
+   * up. Use {@link AsyncFileSink} with {@link #createBinaryLog(BinaryLogSink, String)} to write
+   * from a background thread instead.
    */
   public static BinaryLog createBinaryLog() throws IOException {
     return new BinaryLogProviderImpl();
@@ -25,6 +25,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Charsets;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Splitter;
+import com.google.common.base.Ticker;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.Duration;
 import com.google.protobuf.util.Durations;
@@ -53,21 +54,26 @@ import io.grpc.binarylog.v1.Address;
 import io.grpc.binarylog.v1.GrpcLogEntry;
 import io.grpc.binarylog.v1.GrpcLogEntry.EventType;
 import io.grpc.binarylog.v1.Message;
+import io.grpc.binarylog.v1.MetadataEntry;
 import java.net.Inet4Address;
 import java.net.Inet6Address;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.ThreadSafe;
 
 /**
@@ -87,10 +93,26 @@ final class BinlogHelper {
 
   @VisibleForTesting
   final SinkWriter writer;
+  @Nullable
+  private final Sampler sampler;
 
   @VisibleForTesting
   BinlogHelper(SinkWriter writer) {
+    this(writer, null);
+  }
+
+  BinlogHelper(SinkWriter writer, @Nullable Sampler sampler) {
     this.writer = writer;
+    this.sampler = sampler;
+  }
+
+  /**
+   * Decides whether a new call is logged. Server calls are sampled by the interceptor, but client
+   * calls must be sampled before {@link #getClientInterceptor} so that unsampled calls are not
+   * wrapped with the byte array marshallers at all.
+   */
+  boolean shouldLog() {
+    return sampler == null || sampler.sample();
   }
 
   // TODO(zpencer): move proto related static helpers into this class
@@ -99,16 +121,54 @@ final class BinlogHelper {
     private TimeProvider timeProvider;
     private final int maxHeaderBytes;
     private final int maxMessageBytes;
+    // Shared by all writers of a binary log, limits the payload bytes logged per second.
+    @Nullable
+    private final TokenBucket budget;
 
     SinkWriterImpl(
         BinaryLogSink sink,
         TimeProvider timeProvider,
         int maxHeaderBytes,
         int maxMessageBytes) {
+      this(sink, timeProvider, maxHeaderBytes, maxMessageBytes, null);
+    }
+
+    SinkWriterImpl(
+        BinaryLogSink sink,
+        TimeProvider timeProvider,
+        int maxHeaderBytes,
+        int maxMessageBytes,
+        @Nullable TokenBucket budget) {
       this.sink = sink;
       this.timeProvider = timeProvider;
       this.maxHeaderBytes = maxHeaderBytes;
       this.maxMessageBytes = maxMessageBytes;
+      this.budget = budget;
+    }
+
+    /**
+     * Returns {@code limit}, lowered to what is left of the byte budget. Once the budget is used
+     * up, payloads are truncated but the events themselves are still logged.
+     */
+    private int budgetedLimit(int limit) {
+      if (budget == null) {
+        return limit;
+      }
+      return (int) Math.min(limit, budget.available());
+    }
+
+    private MaybeTruncated<io.grpc.binarylog.v1.Metadata.Builder> createBudgetedMetadataProto(
+        Metadata metadata) {
+      MaybeTruncated<io.grpc.binarylog.v1.Metadata.Builder> pair
+          = createMetadataProto(metadata, budgetedLimit(maxHeaderBytes));
+      if (budget != null) {
+        long bytes = 0;
+        for (MetadataEntry entry : pair.proto.getEntryList()) {
+          bytes += entry.getKey().length() + entry.getValue().size();
+        }
+        budget.consume(bytes);
+      }
+      return pair;
     }
 
     GrpcLogEntry.Builder newTimestampedBuilder() {
@@ -138,7 +198,7 @@ final class BinlogHelper {
           "peerSocket can only be specified for server");
 
       MaybeTruncated<io.grpc.binarylog.v1.Metadata.Builder> pair
-          = createMetadataProto(metadata, maxHeaderBytes);
+          = createBudgetedMetadataProto(metadata);
       io.grpc.binarylog.v1.ClientHeader.Builder clientHeaderBuilder
           = io.grpc.binarylog.v1.ClientHeader.newBuilder()
           .setMetadata(pair.proto)
@@ -175,7 +235,7 @@ final class BinlogHelper {
           peerAddress == null || logger == GrpcLogEntry.Logger.LOGGER_CLIENT,
           "peerSocket can only be specified for client");
       MaybeTruncated<io.grpc.binarylog.v1.Metadata.Builder> pair
-          = createMetadataProto(metadata, maxHeaderBytes);
+          = createBudgetedMetadataProto(metadata);
 
       GrpcLogEntry.Builder entryBuilder = newTimestampedBuilder()
           .setSequenceIdWithinCall(seq)
@@ -205,7 +265,7 @@ final class BinlogHelper {
           peerAddress == null || logger == GrpcLogEntry.Logger.LOGGER_CLIENT,
           "peerSocket can only be specified for client");
       MaybeTruncated<io.grpc.binarylog.v1.Metadata.Builder> pair
-          = createMetadataProto(metadata, maxHeaderBytes);
+          = createBudgetedMetadataProto(metadata);
 
       io.grpc.binarylog.v1.Trailer.Builder trailerBuilder
           = io.grpc.binarylog.v1.Trailer.newBuilder()
@@ -248,7 +308,12 @@ final class BinlogHelper {
       if (marshaller != BYTEARRAY_MARSHALLER) {
         throw new IllegalStateException("Expected the BinaryLog's ByteArrayMarshaller");
       }
-      MaybeTruncated<Message.Builder> pair = createMessageProto((byte[]) message, maxMessageBytes);
+      byte[] bytes = (byte[]) message;
+      int limit = budgetedLimit(maxMessageBytes);
+      MaybeTruncated<Message.Builder> pair = createMessageProto(bytes, limit);
+      if (budget != null) {
+        budget.consume(Math.min(limit, bytes.length));
+      }
       GrpcLogEntry.Builder entryBuilder = newTimestampedBuilder()
           .setSequenceIdWithinCall(seq)
           .setType(eventType)
@@ -390,6 +455,85 @@ final class BinlogHelper {
     };
   }
 
+  /**
+   * A token bucket refilled at a fixed rate, holding at most one second worth of tokens. It starts
+   * full.
+   */
+  @ThreadSafe
+  static final class TokenBucket {
+    private final long tokensPerSecond;
+    private final double tokensPerNano;
+    private final Ticker ticker;
+    @GuardedBy("this")
+    private double tokens;
+    @GuardedBy("this")
+    private long lastRefillNanos;
+
+    TokenBucket(long tokensPerSecond, Ticker ticker) {
+      checkArgument(tokensPerSecond > 0, "tokensPerSecond must be positive");
+      this.tokensPerSecond = tokensPerSecond;
+      this.tokensPerNano = tokensPerSecond / (double) TimeUnit.SECONDS.toNanos(1);
+      this.ticker = checkNotNull(ticker, "ticker");
+      this.tokens = tokensPerSecond;
+      this.lastRefillNanos = ticker.read();
+    }
+
+    /** Takes one token if there is one. */
+    synchronized boolean tryAcquire() {
+      refill();
+      if (tokens < 1) {
+        return false;
+      }
+      tokens--;
+      return true;
+    }
+
+    /** Returns the number of whole tokens left. */
+    synchronized long available() {
+      refill();
+      return Math.max(0, (long) tokens);
+    }
+
+    /**
+     * Takes {@code count} tokens. Concurrent callers may together take more than {@link
+     * #available}, in which case the debt is paid off by later refills.
+     */
+    synchronized void consume(long count) {
+      tokens -= count;
+    }
+
+    @GuardedBy("this")
+    private void refill() {
+      long now = ticker.read();
+      tokens = Math.min(tokensPerSecond, tokens + (now - lastRefillNanos) * tokensPerNano);
+      lastRefillNanos = now;
+    }
+  }
+
+  /**
+   * Decides which calls are logged: each call with a fixed probability, and then no more than a
+   * maximum number of calls per second.
+   */
+  @ThreadSafe
+  static final class Sampler {
+    private final double probability;
+    @Nullable
+    private final TokenBucket rateLimit;
+
+    Sampler(double probability, @Nullable TokenBucket rateLimit) {
+      checkArgument(probability >= 0 && probability <= 1, "probability must be in [0, 1]");
+      this.probability = probability;
+      this.rateLimit = rateLimit;
+    }
+
+    boolean sample() {
+      if (probability < 1 && ThreadLocalRandom.current().nextDouble() >= probability) {
+        return false;
+      }
+      return rateLimit == null || rateLimit.tryAcquire();
+    }
+  }
+
 
   public ClientInterceptor getClientInterceptor(final long callId) {
     return new ClientInterceptor() {
@@ -502,6 +646,9 @@ final class BinlogHelper {
           final ServerCall<ReqT, RespT> call,
           Metadata headers,
           ServerCallHandler<ReqT, RespT> next) {
+        if (!shouldLog()) {
+          return next.startCall(call, headers);
+        }
         final AtomicLong seq = new AtomicLong(1);
         SocketAddress peer = getPeerSocket(call.getAttributes());
         String methodName = call.getMethodDescriptor().getFullMethodName();
@@ -603,17 +750,38 @@ final class BinlogHelper {
     private final Set<String> blacklistedMethods;
 
     /**
-     * Accepts a string in the format specified by the binary log spec.
+     * Accepts a string in the format specified by the binary log spec, extended with sampling
+     * options (see {@link #createBinaryLog}) and an optional {@code {b:<bytes>}} entry. That entry
+     * sets a budget of payload bytes per second shared by all methods; once it is used up, headers
+     * and messages are logged truncated until it refills.
      */
     @VisibleForTesting
     FactoryImpl(BinaryLogSink sink, String configurationString) {
+      this(sink, configurationString, Ticker.systemTicker());
+    }
+
+    @VisibleForTesting
+    FactoryImpl(BinaryLogSink sink, String configurationString, Ticker ticker) {
       checkNotNull(sink, "sink");
+      checkNotNull(ticker, "ticker");
       BinlogHelper globalLog = null;
       Map<String, BinlogHelper> perServiceLogs = new HashMap<>();
       Map<String, BinlogHelper> perMethodLogs = new HashMap<>();
       Set<String> blacklistedMethods = new HashSet<>();
       if (configurationString != null && configurationString.length() > 0) {
+        // The budget is shared by every log, so it must be known before creating any of them.
+        TokenBucket budget = null;
+        List<String> configurations = new ArrayList<>();
         for (String configuration : Splitter.on(',').split(configurationString)) {
+          if (configuration.startsWith("{b")) {
+            checkState(budget == null, "Duplicate entry, this is fatal: " + configuration);
+            budget = createBudget(configuration, ticker);
+            logger.log(Level.INFO, "Binlog budget: {0}", configuration);
+          } else {
+            configurations.add(configuration);
+          }
+        }
+        for (String configuration : configurations) {
           int leftCurly = configuration.indexOf('{');
           // '*' for global, 'service/*' for service glob, or 'service/method' for fully qualified
           String methodOrSvc;
@@ -639,7 +807,7 @@ final class BinlogHelper {
             checkState(
                 globalLog == null,
                 "Duplicate entry, this is fatal: " + configuration);
-            globalLog = createBinaryLog(sink, binlogOptionStr);
+            globalLog = createBinaryLog(sink, binlogOptionStr, budget, ticker);
             logger.log(Level.INFO, "Global binlog: {0}", binlogOptionStr);
           } else if (isServiceGlob(methodOrSvc)) {
             // parse config for a service, e.g. "service/*"
@@ -647,7 +815,7 @@ final class BinlogHelper {
             checkState(
                 !perServiceLogs.containsKey(service),
                 "Duplicate entry, this is fatal: " + configuration);
-            perServiceLogs.put(service, createBinaryLog(sink, binlogOptionStr));
+            perServiceLogs.put(service, createBinaryLog(sink, binlogOptionStr, budget, ticker));
             logger.log(
                 Level.INFO,
                 "Service binlog: service={0} config={1}",
@@ -673,7 +841,7 @@ final class BinlogHelper {
             checkState(
                 !blacklistedMethods.contains(methodOrSvc),
                 "Duplicate entry, this method was blacklisted: " + configuration);
-            perMethodLogs.put(methodOrSvc, createBinaryLog(sink, binlogOptionStr));
+            perMethodLogs.put(methodOrSvc, createBinaryLog(sink, binlogOptionStr, budget, ticker));
             logger.log(
                 Level.INFO,
                 "Method binlog: method={0} config={1}",
@@ -713,44 +881,108 @@ final class BinlogHelper {
      *
      * <p>{@code {h(:\d+)?}, {m(:\d+)?}, {h(:\d+)?,m(:\d+)?}}
      *
-     * <p>If the {@code logConfig} is null, the returned binlog will have a limit of
-     * Integer.MAX_VALUE.
+     * <p>Either form may be followed by sampling options, which may also be used alone:
+     * {@code s:<probability>} logs each call with the given probability, and {@code r:<calls>}
+     * logs at most that many calls per second, shared by all methods the entry matches. For
+     * example {@code {h:256;m:256;s:0.01;r:10}} or {@code {r:10}}.
+     *
+     * <p>If the {@code logConfig} is null, or only has sampling options, the returned binlog will
+     * have a limit of Integer.MAX_VALUE.
      */
     @VisibleForTesting
     @Nullable
     static BinlogHelper createBinaryLog(BinaryLogSink sink, @Nullable String logConfig) {
+      return createBinaryLog(sink, logConfig, null, Ticker.systemTicker());
+    }
+
+    @VisibleForTesting
+    @Nullable
+    static BinlogHelper createBinaryLog(
+        BinaryLogSink sink, @Nullable String logConfig, @Nullable TokenBucket budget,
+        Ticker ticker) {
       if (logConfig == null) {
         return new BinlogHelper(
             new SinkWriterImpl(
-                sink, TimeProvider.SYSTEM_TIME_PROVIDER, Integer.MAX_VALUE, Integer.MAX_VALUE));
+                sink, TimeProvider.SYSTEM_TIME_PROVIDER, Integer.MAX_VALUE, Integer.MAX_VALUE,
+                budget));
       }
       try {
-        final int maxHeaderBytes;
-        final int maxMsgBytes;
-        String[] parts = logConfig.split(";", 2);
-        if (parts.length == 2) {
-          if (!(parts[0].startsWith("h") && parts[1].startsWith("m"))) {
+        int maxHeaderBytes = 0;
+        int maxMsgBytes = 0;
+        double probability = 1;
+        TokenBucket rateLimit = null;
+        String[] parts = logConfig.split(";", -1);
+        int i = 0;
+        // The grammar specifies that the options, when present, come in this order
+        if (i < parts.length && parts[i].startsWith("h")) {
+          maxHeaderBytes = optionalInt(parts[i++].substring(1));
+        }
+        if (i < parts.length && parts[i].startsWith("m")) {
+          maxMsgBytes = optionalInt(parts[i++].substring(1));
+        }
+        if (i == 0) {
+          maxHeaderBytes = Integer.MAX_VALUE;
+          maxMsgBytes = Integer.MAX_VALUE;
+        }
+        int samplingStart = i;
+        if (i < parts.length && parts[i].startsWith("s:")) {
+          probability = parseProbability(parts[i++].substring(2));
+        }
+        if (i < parts.length && parts[i].startsWith("r:")) {
+          long callsPerSecond = Long.parseLong(checkDigits(parts[i++].substring(2)));
+          if (callsPerSecond == 0) {
             throw new IllegalArgumentException("Illegal log config pattern");
           }
-          maxHeaderBytes = optionalInt(parts[0].substring(1));
-          maxMsgBytes = optionalInt(parts[1].substring(1));
-        } else if (parts[0].startsWith("h")) {
-          maxHeaderBytes = optionalInt(parts[0].substring(1));
-          maxMsgBytes = 0;
-        } else if (parts[0].startsWith("m")) {
-          maxHeaderBytes = 0;
-          maxMsgBytes = optionalInt(parts[0].substring(1));
-        } else {
+          rateLimit = new TokenBucket(callsPerSecond, ticker);
+        }
+        if (i == 0 || i != parts.length) {
           throw new IllegalArgumentException("Illegal log config pattern");
         }
+        Sampler sampler = i == samplingStart ? null : new Sampler(probability, rateLimit);
         return new BinlogHelper(
             new SinkWriterImpl(
-                sink, TimeProvider.SYSTEM_TIME_PROVIDER, maxHeaderBytes, maxMsgBytes));
+                sink, TimeProvider.SYSTEM_TIME_PROVIDER, maxHeaderBytes, maxMsgBytes, budget),
+            sampler);
       } catch (NumberFormatException e) {
         throw new IllegalArgumentException("Illegal log config pattern");
       }
     }
 
+    /** Parses a budget entry of the form {@code {b:<bytes per second>}}. */
+    static TokenBucket createBudget(String configuration, Ticker ticker) {
+      if (!configuration.startsWith("{b:") || !configuration.endsWith("}")) {
+        throw new IllegalArgumentException("Illegal log config pattern: " + configuration);
+      }
+      try {
+        long bytesPerSecond =
+            Long.parseLong(checkDigits(configuration.substring(3, configuration.length() - 1)));
+        if (bytesPerSecond == 0) {
+          throw new IllegalArgumentException("Illegal log config pattern: " + configuration);
+        }
+        return new TokenBucket(bytesPerSecond, ticker);
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Illegal log config pattern: " + configuration);
+      }
+    }
+
+    /** Parses a probability of the form "0.25", rejecting exponents and values above one. */
+    static double parseProbability(String s) {
+      boolean seenDot = false;
+      for (int i = 0; i < s.length(); i++) {
+        char c = s.charAt(i);
+        if (c == '.' && !seenDot) {
+          seenDot = true;
+        } else if (c < '0' || '9' < c) {
+          throw new IllegalArgumentException("Illegal log config pattern");
+        }
+      }
+      double probability = Double.parseDouble(s);
+      if (probability > 1) {
+        throw new IllegalArgumentException("Illegal log config pattern");
+      }
+      return probability;
+    }
+
     /** Returns {@code s}, after verifying it contains only digits. */
     static String checkDigits(String s) {
       for (int i = 0; i < s.length(); i++) {
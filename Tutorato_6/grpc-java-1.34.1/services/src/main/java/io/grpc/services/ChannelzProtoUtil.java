@@ -27,8 +27,6 @@ import io.grpc.ConnectivityState;
 import io.grpc.InternalChannelz;
 import io.grpc.InternalChannelz.ChannelStats;
 import io.grpc.InternalChannelz.ChannelTrace.Event;
-import io.grpc.InternalChannelz.RootChannelList;
-import io.grpc.InternalChannelz.ServerList;
 import io.grpc.InternalChannelz.ServerSocketsList;
 import io.grpc.InternalChannelz.ServerStats;
 import io.grpc.InternalChannelz.SocketStats;
@@ -49,8 +47,6 @@ import io.grpc.channelz.v1.ChannelTrace;
 import io.grpc.channelz.v1.ChannelTraceEvent;
 import io.grpc.channelz.v1.ChannelTraceEvent.Severity;
 import io.grpc.channelz.v1.GetServerSocketsResponse;
-import io.grpc.channelz.v1.GetServersResponse;
-import io.grpc.channelz.v1.GetTopChannelsResponse;
 import io.grpc.channelz.v1.Security;
 import io.grpc.channelz.v1.Security.OtherSecurity;
 import io.grpc.channelz.v1.Security.Tls;
@@ -358,7 +354,11 @@ final class ChannelzProtoUtil {
         .setCallsStarted(stats.callsStarted)
         .setCallsSucceeded(stats.callsSucceeded)
         .setCallsFailed(stats.callsFailed)
-        .setLastCallStartedTimestamp(Timestamps.fromNanos(stats.lastCallStartedNanos));
+        .setLastCallStartedTimestamp(Timestamps.fromNanos(stats.lastCallStartedNanos))
+        .setRetryBufferedBytes(stats.retryBufferedBytes)
+        .setRetryCommitsDueToBufferLimit(stats.retryCommitsDueToBufferLimit)
+        .setHedgedCallsCommitted(stats.hedgedCallsCommitted)
+        .setHedgeWins(stats.hedgeWins);
     if (stats.channelTrace != null) {
       builder.setTrace(toChannelTrace(stats.channelTrace));
     }
@@ -422,26 +422,6 @@ final class ChannelzProtoUtil {
     return subchannelBuilder.build();
   }
 
-  static GetTopChannelsResponse toGetTopChannelResponse(RootChannelList rootChannels) {
-    GetTopChannelsResponse.Builder responseBuilder = GetTopChannelsResponse
-        .newBuilder()
-        .setEnd(rootChannels.end);
-    for (InternalInstrumented<ChannelStats> c : rootChannels.channels) {
-      responseBuilder.addChannel(ChannelzProtoUtil.toChannel(c));
-    }
-    return responseBuilder.build();
-  }
-
-  static GetServersResponse toGetServersResponse(ServerList servers) {
-    GetServersResponse.Builder responseBuilder = GetServersResponse
-        .newBuilder()
-        .setEnd(servers.end);
-    for (InternalInstrumented<ServerStats> s : servers.servers) {
-      responseBuilder.addServer(ChannelzProtoUtil.toServer(s));
-    }
-    return responseBuilder.build();
-  }
-
   static GetServerSocketsResponse toGetServerSocketsResponse(ServerSocketsList serverSockets) {
     GetServerSocketsResponse.Builder responseBuilder = GetServerSocketsResponse
         .newBuilder()
@@ -16,12 +16,16 @@
 
 package io.grpc.services;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
 import io.grpc.ExperimentalApi;
 import io.grpc.InternalChannelz;
 import io.grpc.InternalChannelz.ChannelStats;
 import io.grpc.InternalChannelz.ServerList;
 import io.grpc.InternalChannelz.ServerSocketsList;
+import io.grpc.InternalChannelz.ServerStats;
 import io.grpc.InternalChannelz.SocketStats;
 import io.grpc.InternalInstrumented;
 import io.grpc.Status;
@@ -40,6 +44,7 @@ import io.grpc.channelz.v1.GetSubchannelResponse;
 import io.grpc.channelz.v1.GetTopChannelsRequest;
 import io.grpc.channelz.v1.GetTopChannelsResponse;
 import io.grpc.stub.StreamObserver;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The channelz service provides stats about a running gRPC process.
@@ -48,6 +53,7 @@ import io.grpc.stub.StreamObserver;
 public final class ChannelzService extends ChannelzGrpc.ChannelzImplBase {
   private final InternalChannelz channelz;
   private final int maxPageSize;
+  private final ChannelzStatsCache statsCache;
 
   /**
    * Creates an instance.
@@ -56,22 +62,57 @@ public final class ChannelzService extends ChannelzGrpc.ChannelzImplBase {
     return new ChannelzService(InternalChannelz.instance(), maxPageSize);
   }
 
+  /**
+   * Creates an instance that reuses the stats of each channel, server and socket for up to {@code
+   * maxStatsAge}, so that frequent scraping does not slow down the RPCs of the entities scraped.
+   * Requests may ask for smaller pages than {@code maxPageSize} with {@code max_results}.
+   *
+   * @since 1.35.0
+   */
+  public static ChannelzService newInstance(int maxPageSize, long maxStatsAge, TimeUnit unit) {
+    return new ChannelzService(
+        InternalChannelz.instance(), maxPageSize, unit.toNanos(maxStatsAge),
+        Ticker.systemTicker());
+  }
+
   @VisibleForTesting
   ChannelzService(InternalChannelz channelz, int maxPageSize) {
+    this(channelz, maxPageSize, 0, Ticker.systemTicker());
+  }
+
+  @VisibleForTesting
+  ChannelzService(
+      InternalChannelz channelz, int maxPageSize, long maxStatsAgeNanos, Ticker ticker) {
+    checkArgument(maxPageSize > 0, "maxPageSize must be positive");
     this.channelz = channelz;
     this.maxPageSize = maxPageSize;
+    this.statsCache = new ChannelzStatsCache(maxStatsAgeNanos, ticker);
+  }
+
+  /** Returns the page size for {@code maxResults}, where zero lets the server choose. */
+  private int pageSize(long maxResults) {
+    if (maxResults <= 0) {
+      return maxPageSize;
+    }
+    return (int) Math.min(maxResults, maxPageSize);
   }
 
   /** Returns top level channel aka {@link io.grpc.ManagedChannel}. */
   @Override
   public void getTopChannels(
       GetTopChannelsRequest request, StreamObserver<GetTopChannelsResponse> responseObserver) {
-    InternalChannelz.RootChannelList rootChannels
-        = channelz.getRootChannels(request.getStartChannelId(), maxPageSize);
+    InternalChannelz.RootChannelList rootChannels = channelz.getRootChannels(
+        request.getStartChannelId(), pageSize(request.getMaxResults()));
 
     GetTopChannelsResponse resp;
     try {
-      resp = ChannelzProtoUtil.toGetTopChannelResponse(rootChannels);
+      GetTopChannelsResponse.Builder responseBuilder = GetTopChannelsResponse
+          .newBuilder()
+          .setEnd(rootChannels.end);
+      for (InternalInstrumented<ChannelStats> c : rootChannels.channels) {
+        responseBuilder.addChannel(statsCache.getChannel(c));
+      }
+      resp = responseBuilder.build();
     } catch (StatusRuntimeException e) {
       responseObserver.onError(e);
       return;
@@ -97,7 +138,7 @@ public final class ChannelzService extends ChannelzGrpc.ChannelzImplBase {
     try {
       resp = GetChannelResponse
           .newBuilder()
-          .setChannel(ChannelzProtoUtil.toChannel(s))
+          .setChannel(statsCache.getChannel(s))
           .build();
     } catch (StatusRuntimeException e) {
       responseObserver.onError(e);
@@ -112,11 +153,18 @@ public final class ChannelzService extends ChannelzGrpc.ChannelzImplBase {
   @Override
   public void getServers(
       GetServersRequest request, StreamObserver<GetServersResponse> responseObserver) {
-    ServerList servers = channelz.getServers(request.getStartServerId(), maxPageSize);
+    ServerList servers =
+        channelz.getServers(request.getStartServerId(), pageSize(request.getMaxResults()));
 
     GetServersResponse resp;
     try {
-      resp = ChannelzProtoUtil.toGetServersResponse(servers);
+      GetServersResponse.Builder responseBuilder = GetServersResponse
+          .newBuilder()
+          .setEnd(servers.end);
+      for (InternalInstrumented<ServerStats> server : servers.servers) {
+        responseBuilder.addServer(statsCache.getServer(server));
+      }
+      resp = responseBuilder.build();
     } catch (StatusRuntimeException e) {
       responseObserver.onError(e);
       return;
@@ -142,7 +190,7 @@ public final class ChannelzService extends ChannelzGrpc.ChannelzImplBase {
     try {
       resp = GetSubchannelResponse
           .newBuilder()
-          .setSubchannel(ChannelzProtoUtil.toSubchannel(s))
+          .setSubchannel(statsCache.getSubchannel(s))
           .build();
     } catch (StatusRuntimeException e) {
       responseObserver.onError(e);
@@ -168,7 +216,7 @@ public final class ChannelzService extends ChannelzGrpc.ChannelzImplBase {
     GetSocketResponse resp;
     try {
       resp =
-          GetSocketResponse.newBuilder().setSocket(ChannelzProtoUtil.toSocket(s)).build();
+          GetSocketResponse.newBuilder().setSocket(statsCache.getSocket(s)).build();
     } catch (StatusRuntimeException e) {
       responseObserver.onError(e);
       return;
@@ -181,8 +229,8 @@ public final class ChannelzService extends ChannelzGrpc.ChannelzImplBase {
   @Override
   public void getServerSockets(
       GetServerSocketsRequest request, StreamObserver<GetServerSocketsResponse> responseObserver) {
-    ServerSocketsList serverSockets
-        = channelz.getServerSockets(request.getServerId(), request.getStartSocketId(), maxPageSize);
+    ServerSocketsList serverSockets = channelz.getServerSockets(
+        request.getServerId(), request.getStartSocketId(), pageSize(request.getMaxResults()));
     if (serverSockets == null) {
       responseObserver.onError(
           Status.NOT_FOUND.withDescription("Can't find server " + request.getServerId())
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.services;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import io.grpc.InternalChannelz.ChannelStats;
+import io.grpc.InternalChannelz.ServerStats;
+import io.grpc.InternalChannelz.SocketStats;
+import io.grpc.InternalInstrumented;
+import io.grpc.channelz.v1.Channel;
+import io.grpc.channelz.v1.Server;
+import io.grpc.channelz.v1.Socket;
+import io.grpc.channelz.v1.Subchannel;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Keeps the protos built from the stats of channelz entities for a while, so that frequent
+ * scraping does not query the stats of every channel and socket each time. Querying the stats of
+ * a channel runs on its synchronization context and competes with RPCs, so the cost of a scrape
+ * is bounded to one query per entity per {@code maxAge}. Entities are refreshed individually
+ * when their snapshot expires, so a page only queries the entities whose snapshots expired.
+ *
+ * <p>A max age of zero disables caching.
+ */
+@ThreadSafe
+final class ChannelzStatsCache {
+  private final long maxAgeNanos;
+  private final Ticker ticker;
+  private final AtomicLong lastPruneNanos;
+  private final SnapshotMap<ChannelStats, Channel> channels =
+      new SnapshotMap<ChannelStats, Channel>() {
+        @Override
+        Channel toProto(InternalInstrumented<ChannelStats> channel) {
+          return ChannelzProtoUtil.toChannel(channel);
+        }
+      };
+  private final SnapshotMap<ChannelStats, Subchannel> subchannels =
+      new SnapshotMap<ChannelStats, Subchannel>() {
+        @Override
+        Subchannel toProto(InternalInstrumented<ChannelStats> subchannel) {
+          return ChannelzProtoUtil.toSubchannel(subchannel);
+        }
+      };
+  private final SnapshotMap<ServerStats, Server> servers =
+      new SnapshotMap<ServerStats, Server>() {
+        @Override
+        Server toProto(InternalInstrumented<ServerStats> server) {
+          return ChannelzProtoUtil.toServer(server);
+        }
+      };
+  private final SnapshotMap<SocketStats, Socket> sockets =
+      new SnapshotMap<SocketStats, Socket>() {
+        @Override
+        Socket toProto(InternalInstrumented<SocketStats> socket) {
+          return ChannelzProtoUtil.toSocket(socket);
+        }
+      };
+
+  ChannelzStatsCache(long maxAgeNanos, Ticker ticker) {
+    checkArgument(maxAgeNanos >= 0, "maxAgeNanos must be non-negative");
+    this.maxAgeNanos = maxAgeNanos;
+    this.ticker = checkNotNull(ticker, "ticker");
+    this.lastPruneNanos = new AtomicLong(ticker.read());
+  }
+
+  Channel getChannel(InternalInstrumented<ChannelStats> channel) {
+    return channels.get(channel);
+  }
+
+  Subchannel getSubchannel(InternalInstrumented<ChannelStats> subchannel) {
+    return subchannels.get(subchannel);
+  }
+
+  Server getServer(InternalInstrumented<ServerStats> server) {
+    return servers.get(server);
+  }
+
+  Socket getSocket(InternalInstrumented<SocketStats> socket) {
+    return sockets.get(socket);
+  }
+
+  @VisibleForTesting
+  int size() {
+    return channels.snapshots.size() + subchannels.snapshots.size()
+        + servers.snapshots.size() + sockets.snapshots.size();
+  }
+
+  /**
+   * Drops the expired snapshots, at most once per max age, so that the snapshots of removed
+   * entities do not accumulate.
+   */
+  private void maybePrune(long nowNanos) {
+    long lastPrune = lastPruneNanos.get();
+    if (nowNanos - lastPrune < maxAgeNanos || !lastPruneNanos.compareAndSet(lastPrune, nowNanos)) {
+      return;
+    }
+    channels.prune(nowNanos);
+    subchannels.prune(nowNanos);
+    servers.prune(nowNanos);
+    sockets.prune(nowNanos);
+  }
+
+  private abstract class SnapshotMap<T, P> {
+    final ConcurrentMap<Long, Snapshot<P>> snapshots = new ConcurrentHashMap<>();
+
+    abstract P toProto(InternalInstrumented<T> instrumented);
+
+    P get(InternalInstrumented<T> instrumented) {
+      if (maxAgeNanos == 0) {
+        return toProto(instrumented);
+      }
+      long nowNanos = ticker.read();
+      maybePrune(nowNanos);
+      Long id = instrumented.getLogId().getId();
+      Snapshot<P> snapshot = snapshots.get(id);
+      if (snapshot != null && !snapshot.isExpired(nowNanos)) {
+        return snapshot.proto;
+      }
+      // Failures are not cached. Concurrent scrapes may both build the proto, which is harmless.
+      P proto = toProto(instrumented);
+      snapshots.put(id, new Snapshot<>(proto, nowNanos));
+      return proto;
+    }
+
+    void prune(long nowNanos) {
+      Iterator<Snapshot<P>> iterator = snapshots.values().iterator();
+      while (iterator.hasNext()) {
+        if (iterator.next().isExpired(nowNanos)) {
+          iterator.remove();
+        }
+      }
+    }
+  }
+
+  private final class Snapshot<P> {
+    final P proto;
+    final long createdNanos;
+
+    Snapshot(P proto, long createdNanos) {
+      this.proto = proto;
+      this.createdNanos = createdNanos;
+    }
+
+    boolean isExpired(long nowNanos) {
+      return nowNanos - createdNanos >= maxAgeNanos;
+    }
+  }
+}
@@ -26,9 +26,12 @@ import io.grpc.health.v1.HealthCheckRequest;
 import io.grpc.health.v1.HealthCheckResponse;
 import io.grpc.health.v1.HealthCheckResponse.ServingStatus;
 import io.grpc.health.v1.HealthGrpc;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
@@ -39,6 +42,7 @@ import javax.annotation.concurrent.GuardedBy;
 final class HealthServiceImpl extends HealthGrpc.HealthImplBase {
 
   private static final Logger logger = Logger.getLogger(HealthServiceImpl.class.getName());
+  private static final Watcher[] NO_WATCHERS = new Watcher[0];
 
   // Due to the latency of rpc calls, synchronization of the map does not help with consistency.
   // However, need use ConcurrentHashMap to allow concurrent reading by check().
@@ -50,14 +54,15 @@ final class HealthServiceImpl extends HealthGrpc.HealthImplBase {
   @GuardedBy("watchLock")
   private boolean terminal;
 
-  // Technically a Multimap<String, StreamObserver<HealthCheckResponse>>.  The Boolean value is not
-  // used.  The StreamObservers need to be kept in a identity-equality set, to make sure
-  // user-defined equals() doesn't confuse our book-keeping of the StreamObservers.  Constructing
-  // such Multimap would require extra lines and the end result is not significantly simpler, thus I
-  // would rather not have the Guava collections dependency.
+  // Incremented on every status change, so that watchers notified concurrently by several changes
+  // keep the latest one.
   @GuardedBy("watchLock")
-  private final HashMap<String, IdentityHashMap<StreamObserver<HealthCheckResponse>, Boolean>>
-      watchers = new HashMap<>();
+  private long version;
+
+  // The arrays are never modified, but replaced, so that they can be notified without holding the
+  // lock. Watchers are compared by identity.
+  @GuardedBy("watchLock")
+  private final HashMap<String, Watcher[]> watchers = new HashMap<>();
 
   HealthServiceImpl() {
     // Copy of what Go and C++ do.
@@ -82,56 +87,100 @@ final class HealthServiceImpl extends HealthGrpc.HealthImplBase {
   public void watch(HealthCheckRequest request,
       final StreamObserver<HealthCheckResponse> responseObserver) {
     final String service = request.getService();
+    final Watcher watcher = new Watcher(responseObserver);
+    Runnable removeWatcher = new Runnable() {
+      @Override
+      public void run() {
+        removeWatcher(service, watcher);
+      }
+    };
+    if (responseObserver instanceof ServerCallStreamObserver) {
+      ServerCallStreamObserver<HealthCheckResponse> callObserver =
+          (ServerCallStreamObserver<HealthCheckResponse>) responseObserver;
+      callObserver.setOnReadyHandler(watcher);
+      // Also keeps notifications racing with the cancellation from throwing.
+      callObserver.setOnCancelHandler(removeWatcher);
+    } else {
+      addCancellationListener(removeWatcher);
+    }
+    long currentVersion;
+    ServingStatus status;
     synchronized (watchLock) {
-      ServingStatus status = statusMap.get(service);
-      responseObserver.onNext(getResponseForWatch(status));
-      IdentityHashMap<StreamObserver<HealthCheckResponse>, Boolean> serviceWatchers =
-          watchers.get(service);
+      currentVersion = version;
+      status = statusMap.get(service);
+      Watcher[] serviceWatchers = watchers.get(service);
       if (serviceWatchers == null) {
-        serviceWatchers = new IdentityHashMap<>();
-        watchers.put(service, serviceWatchers);
+        serviceWatchers = NO_WATCHERS;
       }
-      serviceWatchers.put(responseObserver, Boolean.TRUE);
+      Watcher[] newWatchers = Arrays.copyOf(serviceWatchers, serviceWatchers.length + 1);
+      newWatchers[serviceWatchers.length] = watcher;
+      watchers.put(service, newWatchers);
     }
+    watcher.update(currentVersion, getResponseForWatch(status));
+  }
+
+  private static void addCancellationListener(final Runnable removeWatcher) {
     Context.current().addListener(
         new CancellationListener() {
           @Override
           // Called when the client has closed the stream
           public void cancelled(Context context) {
-            synchronized (watchLock) {
-              IdentityHashMap<StreamObserver<HealthCheckResponse>, Boolean> serviceWatchers =
-                  watchers.get(service);
-              if (serviceWatchers != null) {
-                serviceWatchers.remove(responseObserver);
-                if (serviceWatchers.isEmpty()) {
-                  watchers.remove(service);
-                }
-              }
-            }
+            removeWatcher.run();
           }
         },
         MoreExecutors.directExecutor());
   }
 
+  private void removeWatcher(String service, Watcher watcher) {
+    synchronized (watchLock) {
+      Watcher[] serviceWatchers = watchers.get(service);
+      if (serviceWatchers == null) {
+        return;
+      }
+      for (int i = 0; i < serviceWatchers.length; i++) {
+        if (serviceWatchers[i] != watcher) {
+          continue;
+        }
+        if (serviceWatchers.length == 1) {
+          watchers.remove(service);
+          return;
+        }
+        Watcher[] newWatchers = new Watcher[serviceWatchers.length - 1];
+        System.arraycopy(serviceWatchers, 0, newWatchers, 0, i);
+        System.arraycopy(
+            serviceWatchers, i + 1, newWatchers, i, serviceWatchers.length - i - 1);
+        watchers.put(service, newWatchers);
+        return;
+      }
+    }
+  }
+
   void setStatus(String service, ServingStatus status) {
+    Notification notification;
     synchronized (watchLock) {
       if (terminal) {
         logger.log(Level.FINE, "Ignoring status {} for {}", new Object[]{status, service});
         return;
       }
-      setStatusInternal(service, status);
+      notification = setStatusInternal(service, status);
+    }
+    if (notification != null) {
+      notification.run();
     }
   }
 
   @GuardedBy("watchLock")
-  private void setStatusInternal(String service, ServingStatus status) {
+  @Nullable
+  private Notification setStatusInternal(String service, ServingStatus status) {
     ServingStatus prevStatus = statusMap.put(service, status);
     if (prevStatus != status) {
-      notifyWatchers(service, status);
+      return newNotification(service, status);
     }
+    return null;
   }
 
   void clearStatus(String service) {
+    Notification notification = null;
     synchronized (watchLock) {
       if (terminal) {
         logger.log(Level.FINE, "Ignoring status clearing for {}", new Object[]{service});
@@ -139,12 +188,16 @@ final class HealthServiceImpl extends HealthGrpc.HealthImplBase {
       }
       ServingStatus prevStatus = statusMap.remove(service);
       if (prevStatus != null) {
-        notifyWatchers(service, null);
+        notification = newNotification(service, null);
       }
     }
+    if (notification != null) {
+      notification.run();
+    }
   }
 
   void enterTerminalState() {
+    List<Notification> notifications = new ArrayList<>();
     synchronized (watchLock) {
       if (terminal) {
         logger.log(Level.WARNING, "Already terminating", new RuntimeException());
@@ -152,37 +205,132 @@ final class HealthServiceImpl extends HealthGrpc.HealthImplBase {
       }
       terminal = true;
       for (String service : statusMap.keySet()) {
-        setStatusInternal(service, ServingStatus.NOT_SERVING);
+        Notification notification = setStatusInternal(service, ServingStatus.NOT_SERVING);
+        if (notification != null) {
+          notifications.add(notification);
+        }
       }
     }
+    for (Notification notification : notifications) {
+      notification.run();
+    }
   }
 
   @VisibleForTesting
   int numWatchersForTest(String service) {
     synchronized (watchLock) {
-      IdentityHashMap<StreamObserver<HealthCheckResponse>, Boolean> serviceWatchers =
-          watchers.get(service);
+      Watcher[] serviceWatchers = watchers.get(service);
       if (serviceWatchers == null) {
         return 0;
       }
-      return serviceWatchers.size();
+      return serviceWatchers.length;
     }
   }
 
+  /**
+   * Returns the notification of the new status to the current watchers of the service, which is
+   * run after releasing the lock, so that slow watchers do not hold up status changes.
+   */
   @GuardedBy("watchLock")
-  private void notifyWatchers(String service, @Nullable ServingStatus status) {
-    HealthCheckResponse response = getResponseForWatch(status);
-    IdentityHashMap<StreamObserver<HealthCheckResponse>, Boolean> serviceWatchers =
-        watchers.get(service);
-    if (serviceWatchers != null) {
-      for (StreamObserver<HealthCheckResponse> responseObserver : serviceWatchers.keySet()) {
-        responseObserver.onNext(response);
-      }
-    }
+  private Notification newNotification(String service, @Nullable ServingStatus status) {
+    Watcher[] serviceWatchers = watchers.get(service);
+    return new Notification(
+        serviceWatchers == null ? NO_WATCHERS : serviceWatchers,
+        ++version,
+        getResponseForWatch(status));
   }
 
   private static HealthCheckResponse getResponseForWatch(@Nullable ServingStatus recordedStatus) {
     return HealthCheckResponse.newBuilder().setStatus(
         recordedStatus == null ? ServingStatus.SERVICE_UNKNOWN : recordedStatus).build();
   }
+
+  private static final class Notification implements Runnable {
+    private final Watcher[] watchers;
+    private final long version;
+    private final HealthCheckResponse response;
+
+    Notification(Watcher[] watchers, long version, HealthCheckResponse response) {
+      this.watchers = watchers;
+      this.version = version;
+      this.response = response;
+    }
+
+    @Override
+    public void run() {
+      for (Watcher watcher : watchers) {
+        watcher.update(version, response);
+      }
+    }
+  }
+
+  /**
+   * Sends the status changes to one watch stream. Only the latest status is kept while a response
+   * is being sent or the stream is not ready, so a slow client receives fewer updates instead of
+   * having them buffered.
+   */
+  private static final class Watcher implements Runnable {
+    private final StreamObserver<HealthCheckResponse> responseObserver;
+    @Nullable
+    private final ServerCallStreamObserver<HealthCheckResponse> callObserver;
+    private final Object lock = new Object();
+    @GuardedBy("lock")
+    private long version = -1;
+    @GuardedBy("lock")
+    @Nullable
+    private HealthCheckResponse pending;
+    @GuardedBy("lock")
+    private boolean sending;
+    @GuardedBy("lock")
+    private boolean sentAny;
+
+    Watcher(StreamObserver<HealthCheckResponse> responseObserver) {
+      this.responseObserver = responseObserver;
+      this.callObserver = responseObserver instanceof ServerCallStreamObserver
+          ? (ServerCallStreamObserver<HealthCheckResponse>) responseObserver : null;
+    }
+
+    void update(long version, HealthCheckResponse response) {
+      synchronized (lock) {
+        if (version <= this.version) {
+          return;
+        }
+        this.version = version;
+        pending = response;
+      }
+      drain();
+    }
+
+    /** Called when the stream becomes ready. */
+    @Override
+    public void run() {
+      drain();
+    }
+
+    private void drain() {
+      while (true) {
+        HealthCheckResponse response;
+        boolean ready = callObserver == null || callObserver.isReady();
+        synchronized (lock) {
+          // The current status is always sent right away, later ones only with flow control.
+          if (sending || pending == null || (sentAny && !ready)) {
+            return;
+          }
+          response = pending;
+          pending = null;
+          sending = true;
+          sentAny = true;
+        }
+        try {
+          if (callObserver == null || !callObserver.isCancelled()) {
+            responseObserver.onNext(response);
+          }
+        } finally {
+          synchronized (lock) {
+            sending = false;
+          }
+        }
+      }
+    }
+  }
 }
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.services;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import io.grpc.binarylog.v1.GrpcLogEntry;
+import io.grpc.internal.FakeClock;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Tests for {@link AsyncFileSink}.
+ */
+@RunWith(JUnit4.class)
+public class AsyncFileSinkTest {
+  @Rule
+  public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private final FakeClock fakeClock = new FakeClock();
+
+  @Test
+  public void readMyWrites() throws Exception {
+    AsyncFileSink sink = AsyncFileSink.newBuilder(tempFolder.getRoot(), "binlog").build();
+    List<GrpcLogEntry> entries = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      GrpcLogEntry entry = GrpcLogEntry.newBuilder().setCallId(i).build();
+      entries.add(entry);
+      sink.write(entry);
+    }
+    sink.close();
+
+    assertThat(sink.getWrittenCount()).isEqualTo(100);
+    assertThat(sink.getDroppedCount()).isEqualTo(0);
+    assertThat(listFiles()).hasLength(1);
+    assertThat(readAll()).containsExactlyElementsIn(entries).inOrder();
+  }
+
+  @Test
+  public void rotatesBySize() throws Exception {
+    GrpcLogEntry entry = GrpcLogEntry.newBuilder().setCallId(1234).build();
+    AsyncFileSink sink = AsyncFileSink.newBuilder(tempFolder.getRoot(), "binlog")
+        .setMaxFileBytes(entry.getSerializedSize() * 2 + 2)
+        .build();
+    for (int i = 0; i < 5; i++) {
+      sink.write(entry);
+    }
+    sink.close();
+
+    assertThat(listFiles()).hasLength(3);
+    assertThat(readAll()).hasSize(5);
+  }
+
+  @Test
+  public void rotatesByAge() throws Exception {
+    AsyncFileSink sink = AsyncFileSink.newBuilder(tempFolder.getRoot(), "binlog")
+        .setMaxFileAge(1, TimeUnit.MINUTES)
+        .setTicker(fakeClock.getTicker())
+        .build();
+    GrpcLogEntry e1 = GrpcLogEntry.newBuilder().setCallId(1).build();
+    GrpcLogEntry e2 = GrpcLogEntry.newBuilder().setCallId(2).build();
+    sink.write(e1);
+    awaitWritten(sink, 1);
+    fakeClock.forwardTime(1, TimeUnit.MINUTES);
+    sink.write(e2);
+    sink.close();
+
+    assertThat(listFiles()).hasLength(2);
+    assertThat(readAll()).containsExactly(e1, e2).inOrder();
+  }
+
+  @Test
+  public void ringBuffer_rejectsWhenFull() {
+    AsyncFileSink.RingBuffer buffer = new AsyncFileSink.RingBuffer(3);
+    GrpcLogEntry[] entries = new GrpcLogEntry[5];
+    for (int i = 0; i < entries.length; i++) {
+      entries[i] = GrpcLogEntry.newBuilder().setCallId(i).build();
+    }
+    // Rounded up to a capacity of 4.
+    for (int i = 0; i < 4; i++) {
+      assertThat(buffer.offer(entries[i])).isTrue();
+    }
+    assertThat(buffer.offer(entries[4])).isFalse();
+
+    assertThat(buffer.poll()).isSameInstanceAs(entries[0]);
+    assertThat(buffer.offer(entries[4])).isTrue();
+    for (int i = 1; i < 5; i++) {
+      assertThat(buffer.poll()).isSameInstanceAs(entries[i]);
+    }
+    assertThat(buffer.poll()).isNull();
+    assertThat(buffer.isEmpty()).isTrue();
+  }
+
+  @Test
+  public void writeAfterCloseIsSilent() throws IOException {
+    AsyncFileSink sink = AsyncFileSink.newBuilder(tempFolder.getRoot(), "binlog").build();
+    sink.close();
+    sink.write(GrpcLogEntry.newBuilder().setCallId(1234).build());
+    sink.close();
+    assertThat(sink.getWrittenCount()).isEqualTo(0);
+  }
+
+  private static void awaitWritten(AsyncFileSink sink, long count) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (sink.getWrittenCount() < count) {
+      assertThat(System.nanoTime() - deadline).isLessThan(0L);
+      Thread.sleep(1);
+    }
+  }
+
+  private File[] listFiles() {
+    File[] files = tempFolder.getRoot().listFiles();
+    // Sort by the sequence number after the last dot.
+    Arrays.sort(files, new Comparator<File>() {
+      @Override
+      public int compare(File f1, File f2) {
+        return Long.compare(sequenceNumber(f1), sequenceNumber(f2));
+      }
+    });
+    return files;
+  }
+
+  private static long sequenceNumber(File file) {
+    String name = file.getName();
+    return Long.parseLong(name.substring(name.lastIndexOf('.') + 1));
+  }
+
+  private List<GrpcLogEntry> readAll() throws IOException {
+    List<GrpcLogEntry> entries = new ArrayList<>();
+    for (File file : listFiles()) {
+      DataInputStream input = new DataInputStream(new FileInputStream(file));
+      try {
+        GrpcLogEntry entry;
+        while ((entry = GrpcLogEntry.parseDelimitedFrom(input)) != null) {
+          entries.add(entry);
+        }
+      } finally {
+        input.close();
+      }
+    }
+    return entries;
+  }
+}
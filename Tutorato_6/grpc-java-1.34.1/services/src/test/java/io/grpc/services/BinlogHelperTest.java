@@ -33,7 +33,9 @@ import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 
 import com.google.common.collect.Iterables;
@@ -67,6 +69,7 @@ import io.grpc.binarylog.v1.Message;
 import io.grpc.binarylog.v1.MetadataEntry;
 import io.grpc.binarylog.v1.ServerHeader;
 import io.grpc.binarylog.v1.Trailer;
+import io.grpc.internal.FakeClock;
 import io.grpc.internal.NoopClientCall;
 import io.grpc.internal.NoopServerCall;
 import io.grpc.protobuf.StatusProto;
@@ -75,6 +78,7 @@ import io.grpc.services.BinlogHelper.MaybeTruncated;
 import io.grpc.services.BinlogHelper.SinkWriter;
 import io.grpc.services.BinlogHelper.SinkWriterImpl;
 import io.grpc.services.BinlogHelper.TimeProvider;
+import io.grpc.services.BinlogHelper.TokenBucket;
 import io.netty.channel.unix.DomainSocketAddress;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
@@ -152,6 +156,7 @@ public final class BinlogHelperTest {
           MESSAGE_LIMIT);
   private final SinkWriter mockSinkWriter = mock(SinkWriter.class);
   private final byte[] message = new byte[100];
+  private final FakeClock fakeClock = new FakeClock();
   private SocketAddress peer;
 
   @Before
@@ -239,6 +244,39 @@ public final class BinlogHelperTest {
         makeOptions("h:256;m"));
   }
 
+  @Test
+  public void createLogFromOptionString_sampling() throws Exception {
+    assertSameLimits(BOTH_FULL, makeOptions("s:0.5"));
+    assertSameLimits(BOTH_FULL, makeOptions("r:10"));
+    assertSameLimits(BOTH_256, makeOptions("h:256;m:256;s:0.5;r:10"));
+    assertSameLimits(MSG_256, makeOptions("m:256;r:10"));
+
+    assertTrue(makeOptions("h:256;m:256").shouldLog());
+    assertTrue(makeOptions("s:1").shouldLog());
+    assertFalse(makeOptions("s:0").shouldLog());
+    assertFalse(makeOptions("s:0.0").shouldLog());
+  }
+
+  @Test
+  public void createLogFromOptionString_rateLimited() throws Exception {
+    BinlogHelper log = FactoryImpl.createBinaryLog(sink, "r:2", null, fakeClock.getTicker());
+    assertTrue(log.shouldLog());
+    assertTrue(log.shouldLog());
+    assertFalse(log.shouldLog());
+
+    fakeClock.forwardTime(499, TimeUnit.MILLISECONDS);
+    assertFalse(log.shouldLog());
+    fakeClock.forwardTime(2, TimeUnit.MILLISECONDS);
+    assertTrue(log.shouldLog());
+    assertFalse(log.shouldLog());
+
+    // At most one second worth of calls accumulates
+    fakeClock.forwardTime(1, TimeUnit.MINUTES);
+    assertTrue(log.shouldLog());
+    assertTrue(log.shouldLog());
+    assertFalse(log.shouldLog());
+  }
+
   private void assertIllegalPatternDetected(String perSvcOrMethodConfig) {
     try {
       FactoryImpl.createBinaryLog(sink, perSvcOrMethodConfig);
@@ -282,6 +320,84 @@ public final class BinlogHelperTest {
     assertIllegalPatternDetected("m:123;h:123");
     // NumberFormatException
     assertIllegalPatternDetected("h:99999999999999");
+    assertIllegalPatternDetected("h;");
+    assertIllegalPatternDetected("s");
+    assertIllegalPatternDetected("s:");
+    assertIllegalPatternDetected("s:.");
+    assertIllegalPatternDetected("s:1.5");
+    assertIllegalPatternDetected("s:1e-3");
+    assertIllegalPatternDetected("s:-0.5");
+    assertIllegalPatternDetected("r:");
+    assertIllegalPatternDetected("r:0");
+    assertIllegalPatternDetected("r:-1");
+    // Sampling options come after the limits, s before r
+    assertIllegalPatternDetected("s:0.5;h");
+    assertIllegalPatternDetected("h;s:0.5;m");
+    assertIllegalPatternDetected("r:10;s:0.5");
+  }
+
+  @Test
+  public void configBinLog_budget() throws Exception {
+    BinlogHelper log =
+        new FactoryImpl(sink, "*{m},{b:150}", fakeClock.getTicker()).getLog("p.s/m");
+    assertSameLimits(MSG_FULL, log);
+
+    logMessage(log);
+    logMessage(log);
+    logMessage(log);
+    fakeClock.forwardTime(1, TimeUnit.SECONDS);
+    logMessage(log);
+
+    ArgumentCaptor<GrpcLogEntry> entries = ArgumentCaptor.forClass(GrpcLogEntry.class);
+    verify(sink, times(4)).write(entries.capture());
+    assertThat(entries.getAllValues().get(0).getMessage().getData().size()).isEqualTo(100);
+    assertFalse(entries.getAllValues().get(0).getPayloadTruncated());
+    assertThat(entries.getAllValues().get(1).getMessage().getData().size()).isEqualTo(50);
+    assertTrue(entries.getAllValues().get(1).getPayloadTruncated());
+    assertThat(entries.getAllValues().get(2).getMessage().getData().size()).isEqualTo(0);
+    assertThat(entries.getAllValues().get(2).getMessage().getLength()).isEqualTo(100);
+    assertTrue(entries.getAllValues().get(2).getPayloadTruncated());
+    assertThat(entries.getAllValues().get(3).getMessage().getData().size()).isEqualTo(100);
+  }
+
+  @Test
+  public void configBinLog_budget_sharedByAllLogs() throws Exception {
+    FactoryImpl factory =
+        new FactoryImpl(sink, "{b:100},p.s1/*{m},p.s2/m{m}", fakeClock.getTicker());
+    logMessage(factory.getLog("p.s1/m"));
+    logMessage(factory.getLog("p.s2/m"));
+
+    ArgumentCaptor<GrpcLogEntry> entries = ArgumentCaptor.forClass(GrpcLogEntry.class);
+    verify(sink, times(2)).write(entries.capture());
+    assertThat(entries.getAllValues().get(0).getMessage().getData().size()).isEqualTo(100);
+    assertThat(entries.getAllValues().get(1).getMessage().getData().size()).isEqualTo(0);
+  }
+
+  @Test
+  public void configBinLog_budget_malformed() throws Exception {
+    for (String configStr : new String[] {"*,{b}", "*,{b:}", "*,{b:0}", "*,{b:1k}", "*,{b:1"}) {
+      try {
+        new FactoryImpl(sink, configStr);
+        fail(configStr);
+      } catch (IllegalArgumentException expected) {
+        assertThat(expected).hasMessageThat().startsWith("Illegal log config pattern");
+      }
+    }
+    assertDuplicatelPatternDetected("{b:1},*,{b:2}");
+  }
+
+  @Test
+  public void tokenBucket_debtIsPaidByRefills() {
+    TokenBucket bucket = new TokenBucket(10, fakeClock.getTicker());
+    assertThat(bucket.available()).isEqualTo(10);
+    bucket.consume(25);
+    assertThat(bucket.available()).isEqualTo(0);
+    assertFalse(bucket.tryAcquire());
+
+    fakeClock.forwardTime(1500, TimeUnit.MILLISECONDS);
+    assertThat(bucket.available()).isEqualTo(0);
+    fakeClock.forwardTime(150, TimeUnit.MILLISECONDS);
+    assertTrue(bucket.tryAcquire());
   }
 
   @Test
@@ -985,6 +1101,34 @@ public final class BinlogHelperTest {
         .isAtMost(TimeUnit.MILLISECONDS.toNanos(250));
   }
 
+  @Test
+  public void serverInterceptor_unsampledCallIsNotLogged() {
+    final ServerCall<byte[], byte[]> call = new NoopServerCall<>();
+    @SuppressWarnings("unchecked")
+    final ServerCall.Listener<byte[]> mockListener = mock(ServerCall.Listener.class);
+    final AtomicReference<ServerCall<byte[], byte[]>> interceptedCall = new AtomicReference<>();
+
+    ServerCall.Listener<byte[]> listener =
+        new BinlogHelper(mockSinkWriter, new BinlogHelper.Sampler(0, null))
+            .getServerInterceptor(CALL_ID)
+            .interceptCall(
+                call,
+                new Metadata(),
+                new ServerCallHandler<byte[], byte[]>() {
+                  @Override
+                  public ServerCall.Listener<byte[]> startCall(
+                      ServerCall<byte[], byte[]> call,
+                      Metadata headers) {
+                    interceptedCall.set(call);
+                    return mockListener;
+                  }
+                });
+
+    assertSame(call, interceptedCall.get());
+    assertSame(mockListener, listener);
+    verifyNoInteractions(mockSinkWriter);
+  }
+
   @Test
   public void clientDeadlineLogged_deadlineSetViaCallOption() {
     MethodDescriptor<byte[], byte[]> method =
@@ -1543,6 +1687,16 @@ public final class BinlogHelperTest {
     return new BinlogHelper.FactoryImpl(sink, factoryConfigStr).getLog(lookup);
   }
 
+  private void logMessage(BinlogHelper log) {
+    log.writer.logRpcMessage(
+        /*seq=*/ 1,
+        EventType.EVENT_TYPE_CLIENT_MESSAGE,
+        BYTEARRAY_MARSHALLER,
+        message,
+        Logger.LOGGER_CLIENT,
+        CALL_ID);
+  }
+
   private BinlogHelper makeOptions(String logConfigStr) {
     return FactoryImpl.createBinaryLog(sink, logConfigStr);
   }
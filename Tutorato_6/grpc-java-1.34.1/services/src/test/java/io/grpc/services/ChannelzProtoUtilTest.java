@@ -36,8 +36,6 @@ import io.grpc.InternalChannelz;
 import io.grpc.InternalChannelz.ChannelStats;
 import io.grpc.InternalChannelz.ChannelTrace.Event;
 import io.grpc.InternalChannelz.ChannelTrace.Event.Severity;
-import io.grpc.InternalChannelz.RootChannelList;
-import io.grpc.InternalChannelz.ServerList;
 import io.grpc.InternalChannelz.ServerSocketsList;
 import io.grpc.InternalChannelz.ServerStats;
 import io.grpc.InternalChannelz.SocketOptions;
@@ -57,8 +55,6 @@ import io.grpc.channelz.v1.ChannelTrace;
 import io.grpc.channelz.v1.ChannelTraceEvent;
 import io.grpc.channelz.v1.GetChannelRequest;
 import io.grpc.channelz.v1.GetServerSocketsResponse;
-import io.grpc.channelz.v1.GetServersResponse;
-import io.grpc.channelz.v1.GetTopChannelsResponse;
 import io.grpc.channelz.v1.Security;
 import io.grpc.channelz.v1.Security.OtherSecurity;
 import io.grpc.channelz.v1.Security.Tls;
@@ -601,6 +597,25 @@ public final class ChannelzProtoUtilTest {
     assertEquals(channelData, ChannelzProtoUtil.extractChannelData(channel.stats));
   }
 
+  @Test
+  public void extractChannelData_retryStats() {
+    ChannelStats stats = toBuilder(channel.stats)
+        .setRetryBufferedBytes(5)
+        .setRetryCommitsDueToBufferLimit(6)
+        .setHedgedCallsCommitted(7)
+        .setHedgeWins(8)
+        .build();
+
+    ChannelData protoStats = channelData
+        .toBuilder()
+        .setRetryBufferedBytes(5)
+        .setRetryCommitsDueToBufferLimit(6)
+        .setHedgedCallsCommitted(7)
+        .setHedgeWins(8)
+        .build();
+    assertEquals(protoStats, ChannelzProtoUtil.extractChannelData(stats));
+  }
+
   @Test
   public void toSubchannel_noChildren() throws Exception {
     assertEquals(
@@ -658,91 +673,6 @@ public final class ChannelzProtoUtilTest {
         ChannelzProtoUtil.toSubchannel(subchannel));
   }
 
-  @Test
-  public void toGetTopChannelsResponse() {
-    // empty results
-    assertEquals(
-        GetTopChannelsResponse.newBuilder().setEnd(true).build(),
-        ChannelzProtoUtil.toGetTopChannelResponse(
-            new RootChannelList(
-                Collections.<InternalInstrumented<ChannelStats>>emptyList(), true)));
-
-    // 1 result, paginated
-    assertEquals(
-        GetTopChannelsResponse
-            .newBuilder()
-            .addChannel(channelProto)
-            .build(),
-        ChannelzProtoUtil.toGetTopChannelResponse(
-            new RootChannelList(
-                ImmutableList.<InternalInstrumented<ChannelStats>>of(channel), false)));
-
-    // 1 result, end
-    assertEquals(
-        GetTopChannelsResponse
-            .newBuilder()
-            .addChannel(channelProto)
-            .setEnd(true)
-            .build(),
-        ChannelzProtoUtil.toGetTopChannelResponse(
-            new RootChannelList(
-                ImmutableList.<InternalInstrumented<ChannelStats>>of(channel), true)));
-
-    // 2 results, end
-    TestChannel channel2 = new TestChannel();
-    assertEquals(
-        GetTopChannelsResponse
-            .newBuilder()
-            .addChannel(channelProto)
-            .addChannel(ChannelzProtoUtil.toChannel(channel2))
-            .setEnd(true)
-            .build(),
-        ChannelzProtoUtil.toGetTopChannelResponse(
-            new RootChannelList(
-                ImmutableList.<InternalInstrumented<ChannelStats>>of(channel, channel2), true)));
-  }
-
-  @Test
-  public void toGetServersResponse() {
-    // empty results
-    assertEquals(
-        GetServersResponse.getDefaultInstance(),
-        ChannelzProtoUtil.toGetServersResponse(
-            new ServerList(Collections.<InternalInstrumented<ServerStats>>emptyList(), false)));
-
-    // 1 result, paginated
-    assertEquals(
-        GetServersResponse
-            .newBuilder()
-            .addServer(serverProto)
-            .build(),
-        ChannelzProtoUtil.toGetServersResponse(
-            new ServerList(ImmutableList.<InternalInstrumented<ServerStats>>of(server), false)));
-
-    // 1 result, end
-    assertEquals(
-        GetServersResponse
-            .newBuilder()
-            .addServer(serverProto)
-            .setEnd(true)
-            .build(),
-        ChannelzProtoUtil.toGetServersResponse(
-            new ServerList(ImmutableList.<InternalInstrumented<ServerStats>>of(server), true)));
-
-    TestServer server2 = new TestServer();
-    // 2 results, end
-    assertEquals(
-        GetServersResponse
-            .newBuilder()
-            .addServer(serverProto)
-            .addServer(ChannelzProtoUtil.toServer(server2))
-            .setEnd(true)
-            .build(),
-        ChannelzProtoUtil.toGetServersResponse(
-            new ServerList(
-                ImmutableList.<InternalInstrumented<ServerStats>>of(server, server2), true)));
-  }
-
   @Test
   public void toGetServerSocketsResponse() {
     // empty results
@@ -16,15 +16,19 @@
 
 package io.grpc.services;
 
+import static com.google.common.truth.Truth.assertThat;
 import static com.google.common.truth.Truth.assertWithMessage;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 
 import io.grpc.InternalChannelz;
+import io.grpc.InternalChannelz.ChannelStats;
 import io.grpc.Status;
 import io.grpc.channelz.v1.GetChannelRequest;
 import io.grpc.channelz.v1.GetChannelResponse;
+import io.grpc.channelz.v1.GetServerSocketsRequest;
+import io.grpc.channelz.v1.GetServerSocketsResponse;
 import io.grpc.channelz.v1.GetServersRequest;
 import io.grpc.channelz.v1.GetServersResponse;
 import io.grpc.channelz.v1.GetSocketRequest;
@@ -33,11 +37,13 @@ import io.grpc.channelz.v1.GetSubchannelRequest;
 import io.grpc.channelz.v1.GetSubchannelResponse;
 import io.grpc.channelz.v1.GetTopChannelsRequest;
 import io.grpc.channelz.v1.GetTopChannelsResponse;
+import io.grpc.internal.FakeClock;
 import io.grpc.services.ChannelzTestHelper.TestChannel;
 import io.grpc.services.ChannelzTestHelper.TestServer;
 import io.grpc.services.ChannelzTestHelper.TestSocket;
 import io.grpc.stub.StreamObserver;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -144,6 +150,113 @@ public class ChannelzServiceTest {
     assertSocketNotFound(socket.getLogId().getId());
   }
 
+  @Test
+  public void getServerSockets_maxResultsBoundedByMaxPageSize() {
+    service = new ChannelzService(channelz, 2);
+    TestServer server = new TestServer();
+    channelz.addServer(server);
+    TestSocket socket1 = new TestSocket();
+    TestSocket socket2 = new TestSocket();
+    TestSocket socket3 = new TestSocket();
+    channelz.addServerSocket(server, socket1);
+    channelz.addServerSocket(server, socket2);
+    channelz.addServerSocket(server, socket3);
+    long serverId = server.getLogId().getId();
+
+    GetServerSocketsResponse page = getServerSocketsHelper(serverId, 0, 1);
+    assertThat(page.getSocketRefList()).containsExactly(ChannelzProtoUtil.toSocketRef(socket1));
+    assertThat(page.getEnd()).isFalse();
+
+    page = getServerSocketsHelper(serverId, socket2.getLogId().getId(), 10);
+    assertThat(page.getSocketRefList()).containsExactly(
+        ChannelzProtoUtil.toSocketRef(socket2), ChannelzProtoUtil.toSocketRef(socket3)).inOrder();
+    assertThat(page.getEnd()).isTrue();
+
+    // Zero lets the server choose
+    page = getServerSocketsHelper(serverId, 0, 0);
+    assertThat(page.getSocketRefCount()).isEqualTo(2);
+    assertThat(page.getEnd()).isFalse();
+  }
+
+  @Test
+  public void getTopChannels_maxResults() {
+    service = new ChannelzService(channelz, 10);
+    TestChannel root1 = new TestChannel();
+    TestChannel root2 = new TestChannel();
+    channelz.addRootChannel(root1);
+    channelz.addRootChannel(root2);
+
+    @SuppressWarnings("unchecked")
+    StreamObserver<GetTopChannelsResponse> observer = mock(StreamObserver.class);
+    ArgumentCaptor<GetTopChannelsResponse> responseCaptor
+        = ArgumentCaptor.forClass(GetTopChannelsResponse.class);
+    service.getTopChannels(GetTopChannelsRequest.newBuilder().setMaxResults(1).build(), observer);
+    verify(observer).onNext(responseCaptor.capture());
+    assertThat(responseCaptor.getValue().getChannelCount()).isEqualTo(1);
+    assertThat(responseCaptor.getValue().getEnd()).isFalse();
+  }
+
+  @Test
+  public void statsReusedUntilMaxAge() throws Exception {
+    FakeClock fakeClock = new FakeClock();
+    service = new ChannelzService(
+        channelz, MAX_PAGE_SIZE, TimeUnit.SECONDS.toNanos(10), fakeClock.getTicker());
+    TestChannel root = new TestChannel();
+    channelz.addRootChannel(root);
+    long id = root.getLogId().getId();
+    GetChannelResponse first = getChannelHelper(id);
+
+    ChannelStats oldStats = root.stats;
+    root.stats = new ChannelStats.Builder()
+        .setTarget(oldStats.target)
+        .setState(oldStats.state)
+        .setCallsStarted(oldStats.callsStarted + 1)
+        .setSubchannels(oldStats.subchannels)
+        .setSockets(oldStats.sockets)
+        .build();
+    fakeClock.forwardTime(9, TimeUnit.SECONDS);
+    assertEquals(first, getChannelHelper(id));
+    assertEquals(first.getChannel(), getTopChannelHelper(0).getChannel(0));
+
+    fakeClock.forwardTime(1, TimeUnit.SECONDS);
+    GetChannelResponse refreshed = getChannelHelper(id);
+    assertThat(refreshed.getChannel().getData().getCallsStarted())
+        .isEqualTo(oldStats.callsStarted + 1);
+  }
+
+  @Test
+  public void statsCache_prunesExpiredSnapshots() {
+    FakeClock fakeClock = new FakeClock();
+    ChannelzStatsCache cache = new ChannelzStatsCache(10, fakeClock.getTicker());
+    TestChannel channel = new TestChannel();
+    cache.getChannel(channel);
+    cache.getSocket(new TestSocket());
+    assertThat(cache.size()).isEqualTo(2);
+
+    fakeClock.forwardNanos(10);
+    cache.getChannel(channel);
+    // The socket is gone, the channel was refreshed
+    assertThat(cache.size()).isEqualTo(1);
+  }
+
+  private GetServerSocketsResponse getServerSocketsHelper(
+      long serverId, long startId, long maxResults) {
+    @SuppressWarnings("unchecked")
+    StreamObserver<GetServerSocketsResponse> observer = mock(StreamObserver.class);
+    ArgumentCaptor<GetServerSocketsResponse> responseCaptor
+        = ArgumentCaptor.forClass(GetServerSocketsResponse.class);
+    service.getServerSockets(
+        GetServerSocketsRequest.newBuilder()
+            .setServerId(serverId)
+            .setStartSocketId(startId)
+            .setMaxResults(maxResults)
+            .build(),
+        observer);
+    verify(observer).onNext(responseCaptor.capture());
+    verify(observer).onCompleted();
+    return responseCaptor.getValue();
+  }
+
   private GetTopChannelsResponse getTopChannelHelper(long startId) {
     @SuppressWarnings("unchecked")
     StreamObserver<GetTopChannelsResponse> observer = mock(StreamObserver.class);
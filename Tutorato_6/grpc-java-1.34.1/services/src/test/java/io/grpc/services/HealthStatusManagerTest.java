@@ -28,6 +28,7 @@ import io.grpc.health.v1.HealthCheckRequest;
 import io.grpc.health.v1.HealthCheckResponse;
 import io.grpc.health.v1.HealthCheckResponse.ServingStatus;
 import io.grpc.health.v1.HealthGrpc;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 import io.grpc.testing.GrpcServerRule;
 import java.util.ArrayDeque;
@@ -293,6 +294,54 @@ public class HealthStatusManagerTest {
     assertThat(respObs2.responses).isEmpty();
   }
 
+  @Test
+  public void watch_notReadyStreamOnlyGetsLatestStatus() throws Exception {
+    manager.setStatus(SERVICE1, ServingStatus.SERVING);
+    FlowControlledRespObserver obs = new FlowControlledRespObserver();
+    obs.ready = false;
+    service.watch(HealthCheckRequest.newBuilder().setService(SERVICE1).build(), obs);
+    // The current status is sent regardless of flow control
+    assertThat(obs.responses).containsExactly(
+        HealthCheckResponse.newBuilder().setStatus(ServingStatus.SERVING).build());
+    obs.responses.clear();
+
+    manager.setStatus(SERVICE1, ServingStatus.NOT_SERVING);
+    manager.setStatus(SERVICE1, ServingStatus.UNKNOWN);
+    manager.clearStatus(SERVICE1);
+    assertThat(obs.responses).isEmpty();
+
+    obs.ready = true;
+    obs.onReadyHandler.run();
+    assertThat(obs.responses).containsExactly(
+        HealthCheckResponse.newBuilder().setStatus(ServingStatus.SERVICE_UNKNOWN).build());
+    obs.responses.clear();
+
+    manager.setStatus(SERVICE1, ServingStatus.SERVING);
+    assertThat(obs.responses).containsExactly(
+        HealthCheckResponse.newBuilder().setStatus(ServingStatus.SERVING).build());
+  }
+
+  @Test
+  public void watch_removedByCancelHandler() throws Exception {
+    FlowControlledRespObserver obs = new FlowControlledRespObserver();
+    service.watch(HealthCheckRequest.newBuilder().setService(SERVICE1).build(), obs);
+    FlowControlledRespObserver obs2 = new FlowControlledRespObserver();
+    service.watch(HealthCheckRequest.newBuilder().setService(SERVICE1).build(), obs2);
+    assertThat(service.numWatchersForTest(SERVICE1)).isEqualTo(2);
+    obs.responses.clear();
+    obs2.responses.clear();
+
+    obs.cancelled = true;
+    obs.onCancelHandler.run();
+    assertThat(service.numWatchersForTest(SERVICE1)).isEqualTo(1);
+    manager.setStatus(SERVICE1, ServingStatus.SERVING);
+    assertThat(obs.responses).isEmpty();
+    assertThat(obs2.responses).hasSize(1);
+
+    obs2.onCancelHandler.run();
+    assertThat(service.numWatchersForTest(SERVICE1)).isEqualTo(0);
+  }
+
   private static class RespObserver implements StreamObserver<HealthCheckResponse> {
     final ArrayDeque<Object> responses = new ArrayDeque<>();
 
@@ -311,4 +360,60 @@ public class HealthStatusManagerTest {
       responses.add("onCompleted");
     }
   }
+
+  private static class FlowControlledRespObserver
+      extends ServerCallStreamObserver<HealthCheckResponse> {
+    final ArrayDeque<Object> responses = new ArrayDeque<>();
+    boolean ready = true;
+    boolean cancelled;
+    Runnable onReadyHandler;
+    Runnable onCancelHandler;
+
+    @Override
+    public boolean isCancelled() {
+      return cancelled;
+    }
+
+    @Override
+    public void setOnCancelHandler(Runnable onCancelHandler) {
+      this.onCancelHandler = onCancelHandler;
+    }
+
+    @Override
+    public void setCompression(String compression) {}
+
+    @Override
+    public boolean isReady() {
+      return ready;
+    }
+
+    @Override
+    public void setOnReadyHandler(Runnable onReadyHandler) {
+      this.onReadyHandler = onReadyHandler;
+    }
+
+    @Override
+    public void disableAutoInboundFlowControl() {}
+
+    @Override
+    public void request(int count) {}
+
+    @Override
+    public void setMessageCompression(boolean enable) {}
+
+    @Override
+    public void onNext(HealthCheckResponse value) {
+      responses.add(value);
+    }
+
+    @Override
+    public void onError(Throwable t) {
+      responses.add(t);
+    }
+
+    @Override
+    public void onCompleted() {
+      responses.add("onCompleted");
+    }
+  }
 }
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.xds;
+
+import io.grpc.xds.ClientLoadCounter.ClientLoadSnapshot;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Benchmark for recording backend metrics into a {@link ClientLoadCounter} shared by many RPC
+ * completion threads, as done for ORCA reports of a locality.
+ */
+@State(Scope.Benchmark)
+public class ClientLoadCounterBenchmark {
+
+  /** Distinct named metrics in each report, in addition to cpu and memory utilization. */
+  @Param({"1", "16"})
+  public int namedMetrics;
+
+  private ClientLoadCounter counter;
+  private String[] metricNames;
+
+  /**
+   * Creates the counter and the metric names.
+   */
+  @Setup
+  public void setUp() {
+    counter = new ClientLoadCounter();
+    metricNames = new String[namedMetrics + 2];
+    metricNames[0] = "cpu_utilization";
+    metricNames[1] = "mem_utilization";
+    for (int i = 0; i < namedMetrics; i++) {
+      metricNames[i + 2] = "named-cost-" + i;
+    }
+  }
+
+  /**
+   * Records one report from each of 64 threads.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  @Threads(64)
+  public void recordReport() {
+    for (String name : metricNames) {
+      counter.recordMetric(name, 0.5);
+    }
+  }
+
+  /**
+   * Records reports from 63 threads while another takes snapshots, as the load reporter does.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  @Group("recordWhileSnapshotting")
+  @GroupThreads(63)
+  public void recordReportWhileSnapshotting() {
+    recordReport();
+  }
+
+  /**
+   * Takes snapshots while the other threads of the group record reports.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  @Group("recordWhileSnapshotting")
+  @GroupThreads(1)
+  public ClientLoadSnapshot snapshot() {
+    return counter.snapshot();
+  }
+}
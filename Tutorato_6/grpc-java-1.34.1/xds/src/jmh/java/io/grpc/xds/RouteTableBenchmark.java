@@ -0,0 +1,105 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.xds;
+
+import io.grpc.Metadata;
+import io.grpc.xds.EnvoyProtoData.Route;
+import io.grpc.xds.RouteMatch.HeaderMatcher;
+import io.grpc.xds.RouteMatch.PathMatcher;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmark for selecting the route of an RPC, comparing {@link RouteTable} with evaluating every
+ * {@link RouteMatch} in order.
+ *
+ * <p>The routes are one exact-path route per method, followed by a per-service prefix route with a
+ * header rule and a catch-all prefix route. The selected method matches the last exact route.
+ */
+@State(Scope.Benchmark)
+public class RouteTableBenchmark {
+
+  @Param({"10", "300"})
+  public int routeCount;
+
+  private List<Route> routes;
+  private RouteTable routeTable;
+  private String fullMethodName;
+  private final Metadata headers = new Metadata();
+
+  /**
+   * Creates the routes.
+   */
+  @Setup
+  public void setUp() {
+    routes = new ArrayList<>(routeCount);
+    for (int i = 0; i < routeCount - 2; i++) {
+      routes.add(route(PathMatcher.fromPath("/Service" + (i % 10) + "/Method" + i, true),
+          Collections.<HeaderMatcher>emptyList()));
+    }
+    routes.add(route(PathMatcher.fromPrefix("/Service0/", true), Collections.singletonList(
+        new HeaderMatcher("x-user", "alice", null, null, null, null, null, false))));
+    routes.add(route(PathMatcher.fromPrefix("/", true), Collections.<HeaderMatcher>emptyList()));
+    routeTable = new RouteTable(routes);
+    int last = routeCount - 3;
+    fullMethodName = "Service" + (last % 10) + "/Method" + last;
+    headers.put(Metadata.Key.of("user-agent", Metadata.ASCII_STRING_MARSHALLER), "grpc-java");
+  }
+
+  /**
+   * Selection as done before {@link RouteTable}.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public Route linearSelection() {
+    Map<String, Iterable<String>> asciiHeaders = new HashMap<>();
+    for (String headerName : headers.keys()) {
+      Metadata.Key<String> key = Metadata.Key.of(headerName, Metadata.ASCII_STRING_MARSHALLER);
+      asciiHeaders.put(headerName, headers.getAll(key));
+    }
+    for (Route route : routes) {
+      if (route.getRouteMatch().matches("/" + fullMethodName, asciiHeaders)) {
+        return route;
+      }
+    }
+    return null;
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public Route routeTableSelection() {
+    return routeTable.selectRoute(fullMethodName, headers);
+  }
+
+  private static Route route(PathMatcher pathMatcher, List<HeaderMatcher> headerMatchers) {
+    return new Route(new RouteMatch(pathMatcher, headerMatchers, null), null);
+  }
+}
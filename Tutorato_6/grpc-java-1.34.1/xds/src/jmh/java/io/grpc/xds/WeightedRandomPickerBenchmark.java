@@ -0,0 +1,74 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.xds;
+
+import io.grpc.LoadBalancer.PickResult;
+import io.grpc.LoadBalancer.PickSubchannelArgs;
+import io.grpc.LoadBalancer.SubchannelPicker;
+import io.grpc.xds.WeightedRandomPicker.WeightedChildPicker;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmark for {@link WeightedRandomPicker}, as used by the weighted_target policy to pick among
+ * localities.
+ */
+@State(Scope.Benchmark)
+public class WeightedRandomPickerBenchmark {
+
+  @Param({"2", "50", "1000"})
+  public int childCount;
+
+  private WeightedRandomPicker picker;
+
+  /**
+   * Creates a picker over children with random weights.
+   */
+  @Setup
+  public void setUp() {
+    Random random = new Random(1);
+    List<WeightedChildPicker> weightedChildPickers = new ArrayList<>(childCount);
+    for (int i = 0; i < childCount; i++) {
+      final PickResult pickResult = PickResult.withNoResult();
+      weightedChildPickers.add(new WeightedChildPicker(1 + random.nextInt(100),
+          new SubchannelPicker() {
+            @Override
+            public PickResult pickSubchannel(PickSubchannelArgs args) {
+              return pickResult;
+            }
+          }));
+    }
+    picker = new WeightedRandomPicker(weightedChildPickers);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public PickResult pickSubchannel() {
+    return picker.pickSubchannel(null);
+  }
+}
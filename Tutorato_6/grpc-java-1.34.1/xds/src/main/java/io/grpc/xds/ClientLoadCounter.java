@@ -31,10 +31,14 @@ import io.grpc.Status;
 import io.grpc.util.ForwardingClientStreamTracer;
 import io.grpc.xds.OrcaOobUtil.OrcaOobReportListener;
 import io.grpc.xds.OrcaPerRequestUtil.OrcaPerRequestReportListener;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 import javax.annotation.concurrent.Immutable;
 import javax.annotation.concurrent.ThreadSafe;
 
@@ -45,18 +49,12 @@ import javax.annotation.concurrent.ThreadSafe;
 @ThreadSafe
 final class ClientLoadCounter {
 
-  private static final int THREAD_BALANCING_FACTOR = 64;
   private final AtomicLong callsInProgress = new AtomicLong();
   private final AtomicLong callsSucceeded = new AtomicLong();
   private final AtomicLong callsFailed = new AtomicLong();
   private final AtomicLong callsIssued = new AtomicLong();
-  private final MetricRecorder[] metricRecorders = new MetricRecorder[THREAD_BALANCING_FACTOR];
-
-  ClientLoadCounter() {
-    for (int i = 0; i < THREAD_BALANCING_FACTOR; i++) {
-      metricRecorders[i] = new MetricRecorder();
-    }
-  }
+  private final ConcurrentMap<String, MetricAccumulator> metricAccumulators =
+      new ConcurrentHashMap<>();
 
   void recordCallStarted() {
     callsIssued.getAndIncrement();
@@ -73,9 +71,23 @@ final class ClientLoadCounter {
   }
 
   void recordMetric(String name, double value) {
-    MetricRecorder recorder =
-        metricRecorders[(int) (Thread.currentThread().getId() % THREAD_BALANCING_FACTOR)];
-    recorder.addValue(name, value);
+    while (true) {
+      MetricAccumulator accumulator = metricAccumulators.get(name);
+      if (accumulator == null) {
+        accumulator = new MetricAccumulator();
+        MetricAccumulator existing = metricAccumulators.putIfAbsent(name, accumulator);
+        if (existing != null) {
+          accumulator = existing;
+        }
+      }
+      if (accumulator.add(value)) {
+        return;
+      }
+      if (accumulator.isRetired()) {
+        // Dropped by a concurrent snapshot as idle, record in a new accumulator.
+        metricAccumulators.remove(name, accumulator);
+      }
+    }
   }
 
   /**
@@ -84,17 +96,13 @@ final class ClientLoadCounter {
    */
   synchronized ClientLoadSnapshot snapshot() {
     Map<String, MetricValue> aggregatedValues = new HashMap<>();
-    for (MetricRecorder recorder : metricRecorders) {
-      Map<String, MetricValue> map = recorder.takeAll();
-      for (Map.Entry<String, MetricValue> entry : map.entrySet()) {
-        MetricValue curr = aggregatedValues.get(entry.getKey());
-        if (curr == null) {
-          curr = new MetricValue();
-          aggregatedValues.put(entry.getKey(), curr);
-        }
-        MetricValue diff = entry.getValue();
-        curr.numReports += diff.numReports;
-        curr.totalValue += diff.totalValue;
+    for (Map.Entry<String, MetricAccumulator> entry : metricAccumulators.entrySet()) {
+      MetricAccumulator accumulator = entry.getValue();
+      MetricValue value = accumulator.takeAll();
+      if (value.numReports > 0) {
+        aggregatedValues.put(entry.getKey(), value);
+      } else if (accumulator.retire()) {
+        metricAccumulators.remove(entry.getKey(), accumulator);
       }
     }
     return new ClientLoadSnapshot(callsSucceeded.getAndSet(0),
@@ -104,6 +112,11 @@ final class ClientLoadCounter {
         aggregatedValues);
   }
 
+  @VisibleForTesting
+  int getMetricCount() {
+    return metricAccumulators.size();
+  }
+
   @VisibleForTesting
   void setCallsIssued(long callsIssued) {
     this.callsIssued.set(callsIssued);
@@ -189,17 +202,9 @@ final class ClientLoadCounter {
    */
   @Immutable
   static final class MetricValue {
-    private int numReports;
-    private double totalValue;
-
-    private MetricValue() {
-      this(0, 0);
-    }
+    private final int numReports;
+    private final double totalValue;
 
-    /**
-     * Must only be used for testing.
-     */
-    @VisibleForTesting
     MetricValue(int numReports, double totalValue) {
       this.numReports = numReports;
       this.totalValue = totalValue;
@@ -223,26 +228,132 @@ final class ClientLoadCounter {
   }
 
   /**
-   * Single contention-balanced bucket for recording metric data.
+   * Striped accumulator of the values recorded for one metric. Values are added to one of several
+   * cells picked by thread, and the cells are only summed up when taking a snapshot. There is a
+   * single cell until recording threads contend on it, after which the cells are doubled up to
+   * {@link #MAX_CELLS}.
+   *
+   * <p>Each cell is guarded by its own lock, which is uncontended unless there are more recording
+   * threads than cells, so recording neither blocks in the common case nor allocates. A snapshot
+   * takes a cell's report count and total under its lock, so it always takes a report's count and
+   * value together. No reports or values are lost.
+   *
+   * <p>An accumulator that is idle can be {@linkplain #retire retired} so that it can be dropped.
+   * Adding to a retired accumulator fails, and the caller is expected to add to a new one instead.
    */
   @ThreadSafe
-  private static class MetricRecorder {
-    private Map<String, MetricValue> metricValues = new HashMap<>();
+  @VisibleForTesting
+  static final class MetricAccumulator {
+    @VisibleForTesting
+    static final int MAX_CELLS = 64;
+
+    private volatile Cell[] cells = {new Cell()};
+    private boolean retired;  // Guarded by this
+
+    /** Adds {@code value}, or returns {@code false} if this accumulator has been retired. */
+    boolean add(double value) {
+      int hash = spread(Thread.currentThread().getId());
+      Cell[] cs = cells;
+      Cell cell = cs[hash & (cs.length - 1)];
+      if (!cell.lock.tryLock()) {
+        Cell[] grown = grow(cs);
+        cell = grown[hash & (grown.length - 1)];
+        cell.lock.lock();
+      }
+      try {
+        if (cell.retired) {
+          return false;
+        }
+        cell.numReports++;
+        cell.totalValue += value;
+        return true;
+      } finally {
+        cell.lock.unlock();
+      }
+    }
 
-    synchronized void addValue(String metricName, double value) {
-      MetricValue currValue = metricValues.get(metricName);
-      if (currValue == null) {
-        currValue = new MetricValue();
+    /**
+     * Doubles the number of cells if no other thread did so since {@code seen} was read, and
+     * returns the current cells.
+     */
+    private synchronized Cell[] grow(Cell[] seen) {
+      Cell[] cs = cells;
+      if (!retired && cs == seen && cs.length < MAX_CELLS) {
+        Cell[] grown = Arrays.copyOf(cs, cs.length * 2);
+        for (int i = cs.length; i < grown.length; i++) {
+          grown[i] = new Cell();
+        }
+        cells = cs = grown;
+      }
+      return cs;
+    }
+
+    MetricValue takeAll() {
+      long numReports = 0;
+      double totalValue = 0;
+      for (Cell cell : cells) {
+        cell.lock.lock();
+        try {
+          numReports += cell.numReports;
+          totalValue += cell.totalValue;
+          cell.numReports = 0;
+          cell.totalValue = 0;
+        } finally {
+          cell.lock.unlock();
+        }
+      }
+      return new MetricValue((int) numReports, totalValue);
+    }
+
+    /**
+     * Retires this accumulator if no value has been added since the last {@link #takeAll}, and
+     * returns whether it is now retired.
+     */
+    synchronized boolean retire() {
+      // Recording threads hold at most one cell lock, so taking all of them in order is safe.
+      Cell[] cs = cells;
+      int locked = 0;
+      try {
+        for (Cell cell : cs) {
+          cell.lock.lock();
+          locked++;
+          if (cell.numReports != 0) {
+            return false;
+          }
+        }
+        for (Cell cell : cs) {
+          cell.retired = true;
+        }
+        retired = true;
+        return true;
+      } finally {
+        for (int i = 0; i < locked; i++) {
+          cs[i].lock.unlock();
+        }
       }
-      currValue.numReports++;
-      currValue.totalValue += value;
-      metricValues.put(metricName, currValue);
     }
 
-    synchronized Map<String, MetricValue> takeAll() {
-      Map<String, MetricValue> ret = metricValues;
-      metricValues = new HashMap<>();
-      return ret;
+    synchronized boolean isRetired() {
+      return retired;
+    }
+
+    @VisibleForTesting
+    int getCellCount() {
+      return cells.length;
+    }
+
+    private static int spread(long threadId) {
+      int h = (int) (threadId ^ (threadId >>> 32));
+      h *= 0x9E3779B9;
+      return h ^ (h >>> 16);
+    }
+
+    private static final class Cell {
+      final ReentrantLock lock = new ReentrantLock();
+      // Guarded by lock
+      long numReports;
+      double totalValue;
+      boolean retired;
     }
   }
 
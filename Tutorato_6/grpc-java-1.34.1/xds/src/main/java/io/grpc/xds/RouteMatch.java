@@ -60,9 +60,14 @@ final class RouteMatch {
    * <p>Match is not deterministic if a runtime fraction match rule presents in this RouteMatch.
    */
   boolean matches(String path, Map<String, Iterable<String>> headers) {
-    if (!pathMatch.matches(path)) {
-      return false;
-    }
+    return pathMatch.matches(path) && matchesHeadersAndFraction(headers);
+  }
+
+  /**
+   * Returns {@code true} if a request with the given headers passes all the rules other than the
+   * path rule.
+   */
+  boolean matchesHeadersAndFraction(Map<String, Iterable<String>> headers) {
     for (HeaderMatcher headerMatcher : headerMatchers) {
       Iterable<String> headerValues = headers.get(headerMatcher.getName());
       // Special cases for hiding headers: "grpc-previous-rpc-attempts".
@@ -80,6 +85,20 @@ final class RouteMatch {
     return fractionMatch == null || fractionMatch.matches();
   }
 
+  PathMatcher getPathMatcher() {
+    return pathMatch;
+  }
+
+  /** Returns {@code true} if matching requires the request's headers. */
+  boolean hasHeaderMatchers() {
+    return !headerMatchers.isEmpty();
+  }
+
+  /** Returns {@code true} if every request whose path matches also matches this RouteMatch. */
+  boolean isPathOnly() {
+    return headerMatchers.isEmpty() && fractionMatch == null;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
@@ -150,6 +169,25 @@ final class RouteMatch {
       return regEx.matches(fullMethodName);
     }
 
+    @Nullable
+    String getPath() {
+      return path;
+    }
+
+    @Nullable
+    String getPrefix() {
+      return prefix;
+    }
+
+    @Nullable
+    Pattern getRegEx() {
+      return regEx;
+    }
+
+    boolean isCaseSensitive() {
+      return caseSensitive;
+    }
+
     @Override
     public boolean equals(Object o) {
       if (this == o) {
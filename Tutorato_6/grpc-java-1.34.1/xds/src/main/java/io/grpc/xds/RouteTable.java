@@ -0,0 +1,206 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.xds;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.grpc.Metadata;
+import io.grpc.xds.EnvoyProtoData.Route;
+import io.grpc.xds.RouteMatch.PathMatcher;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.Nullable;
+
+/**
+ * Routes of a virtual host, compiled for selecting the route of each RPC. Selection has the same
+ * first-match semantics as evaluating {@link RouteMatch#matches} on each route in order.
+ *
+ * <p>The routes whose path rule can match a given path are found through an index: a hash map for
+ * case-sensitive exact paths, a trie for case-sensitive prefixes, and an ordered list of the
+ * remaining routes, which are evaluated one by one. Since the path rule only depends on the path,
+ * the resulting candidates are cached per method. Candidates after the first route that matches on
+ * path alone are dropped, as they can never be selected. Only the header and fraction rules of the
+ * remaining candidates are evaluated per RPC, and the request headers are only indexed if one of
+ * them has header rules.
+ */
+final class RouteTable {
+  @VisibleForTesting
+  static final int MAX_CACHED_METHODS = 1024;
+
+  private static final int[] NO_CANDIDATES = new int[0];
+
+  static final RouteTable EMPTY = new RouteTable(Collections.<Route>emptyList());
+
+  private final List<Route> routes;
+  private final Map<String, int[]> exactPaths = new HashMap<>();
+  private final PrefixNode prefixes = new PrefixNode();
+  private final int[] unindexed;
+  private final ConcurrentMap<String, int[]> candidatesCache = new ConcurrentHashMap<>();
+
+  RouteTable(List<Route> routes) {
+    this.routes = Collections.unmodifiableList(new ArrayList<>(checkNotNull(routes, "routes")));
+    Map<String, List<Integer>> exactPathRoutes = new HashMap<>();
+    List<Integer> unindexedRoutes = new ArrayList<>();
+    for (int idx = 0; idx < this.routes.size(); idx++) {
+      PathMatcher pathMatcher = this.routes.get(idx).getRouteMatch().getPathMatcher();
+      if (pathMatcher.isCaseSensitive() && pathMatcher.getPath() != null) {
+        List<Integer> indices = exactPathRoutes.get(pathMatcher.getPath());
+        if (indices == null) {
+          indices = new ArrayList<>(1);
+          exactPathRoutes.put(pathMatcher.getPath(), indices);
+        }
+        indices.add(idx);
+      } else if (pathMatcher.isCaseSensitive() && pathMatcher.getPrefix() != null) {
+        prefixes.add(pathMatcher.getPrefix(), idx);
+      } else {
+        unindexedRoutes.add(idx);
+      }
+    }
+    for (Map.Entry<String, List<Integer>> entry : exactPathRoutes.entrySet()) {
+      exactPaths.put(entry.getKey(), toArray(entry.getValue()));
+    }
+    unindexed = toArray(unindexedRoutes);
+  }
+
+  /**
+   * Returns the first route matching an RPC of the given method with the given headers, or
+   * {@code null} if there is none.
+   */
+  @Nullable
+  Route selectRoute(String fullMethodName, Metadata headers) {
+    Map<String, Iterable<String>> asciiHeaders = null;
+    for (int idx : candidates(fullMethodName)) {
+      Route route = routes.get(idx);
+      RouteMatch routeMatch = route.getRouteMatch();
+      if (asciiHeaders == null && routeMatch.hasHeaderMatchers()) {
+        asciiHeaders = indexAsciiHeaders(headers);
+      }
+      if (routeMatch.matchesHeadersAndFraction(
+          asciiHeaders != null ? asciiHeaders : Collections.<String, Iterable<String>>emptyMap())) {
+        return route;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns, in order, the indices of the routes whose path rule matches the path of the given
+   * method, up to and including the first one that matches on path alone.
+   */
+  @VisibleForTesting
+  int[] candidates(String fullMethodName) {
+    int[] candidates = candidatesCache.get(fullMethodName);
+    if (candidates == null) {
+      candidates = computeCandidates("/" + fullMethodName);
+      // Methods come from the application, so their number is not bounded by the route
+      // configuration. Stop caching rather than evicting once the cache is full.
+      if (candidatesCache.size() < MAX_CACHED_METHODS) {
+        candidatesCache.put(fullMethodName, candidates);
+      }
+    }
+    return candidates;
+  }
+
+  private int[] computeCandidates(String path) {
+    List<Integer> matched = new ArrayList<>();
+    int[] exact = exactPaths.get(path);
+    if (exact != null) {
+      for (int idx : exact) {
+        matched.add(idx);
+      }
+    }
+    prefixes.collect(path, matched);
+    for (int idx : unindexed) {
+      if (routes.get(idx).getRouteMatch().getPathMatcher().matches(path)) {
+        matched.add(idx);
+      }
+    }
+    if (matched.isEmpty()) {
+      return NO_CANDIDATES;
+    }
+    int[] sorted = toArray(matched);
+    Arrays.sort(sorted);
+    for (int i = 0; i < sorted.length; i++) {
+      if (routes.get(sorted[i]).getRouteMatch().isPathOnly()) {
+        return Arrays.copyOf(sorted, i + 1);
+      }
+    }
+    return sorted;
+  }
+
+  private static Map<String, Iterable<String>> indexAsciiHeaders(Metadata headers) {
+    Map<String, Iterable<String>> asciiHeaders = new HashMap<>();
+    for (String headerName : headers.keys()) {
+      if (headerName.endsWith(Metadata.BINARY_HEADER_SUFFIX)) {
+        continue;
+      }
+      Metadata.Key<String> key = Metadata.Key.of(headerName, Metadata.ASCII_STRING_MARSHALLER);
+      asciiHeaders.put(headerName, headers.getAll(key));
+    }
+    return asciiHeaders;
+  }
+
+  private static int[] toArray(List<Integer> list) {
+    int[] array = new int[list.size()];
+    for (int i = 0; i < array.length; i++) {
+      array[i] = list.get(i);
+    }
+    return array;
+  }
+
+  /** Trie of case-sensitive path prefixes. */
+  private static final class PrefixNode {
+    private final Map<Character, PrefixNode> children = new HashMap<>();
+    private final List<Integer> routes = new ArrayList<>(0);
+
+    void add(String prefix, int route) {
+      PrefixNode node = this;
+      for (int i = 0; i < prefix.length(); i++) {
+        Character c = prefix.charAt(i);
+        PrefixNode child = node.children.get(c);
+        if (child == null) {
+          child = new PrefixNode();
+          node.children.put(c, child);
+        }
+        node = child;
+      }
+      node.routes.add(route);
+    }
+
+    /** Adds the routes of all prefixes of {@code path} to {@code matched}. */
+    void collect(String path, List<Integer> matched) {
+      PrefixNode node = this;
+      for (int i = 0; ; i++) {
+        matched.addAll(node.routes);
+        if (i == path.length()) {
+          return;
+        }
+        node = node.children.get(path.charAt(i));
+        if (node == null) {
+          return;
+        }
+      }
+    }
+  }
+}
@@ -35,6 +35,10 @@ final class WeightedRandomPicker extends SubchannelPicker {
 
   private final ThreadSafeRandom random;
   private final int totalWeight;
+  // cumulativeWeights[idx] is the sum of the weights of children 0..idx, so child idx is picked
+  // for the random values in [cumulativeWeights[idx - 1], cumulativeWeights[idx]).
+  private final int[] cumulativeWeights;
+  private final SubchannelPicker[] childPickers;
 
   static final class WeightedChildPicker {
     private final int weight;
@@ -93,10 +97,15 @@ final class WeightedRandomPicker extends SubchannelPicker {
 
     this.weightedChildPickers = Collections.unmodifiableList(weightedChildPickers);
 
+    int size = weightedChildPickers.size();
+    cumulativeWeights = new int[size];
+    childPickers = new SubchannelPicker[size];
     int totalWeight = 0;
-    for (WeightedChildPicker weightedChildPicker : weightedChildPickers) {
-      int weight = weightedChildPicker.getWeight();
-      totalWeight += weight;
+    for (int idx = 0; idx < size; idx++) {
+      WeightedChildPicker weightedChildPicker = weightedChildPickers.get(idx);
+      totalWeight += weightedChildPicker.getWeight();
+      cumulativeWeights[idx] = totalWeight;
+      childPickers[idx] = weightedChildPicker.getPicker();
     }
     this.totalWeight = totalWeight;
 
@@ -105,25 +114,26 @@ final class WeightedRandomPicker extends SubchannelPicker {
 
   @Override
   public final PickResult pickSubchannel(PickSubchannelArgs args) {
-    SubchannelPicker childPicker = null;
+    SubchannelPicker childPicker;
 
     if (totalWeight == 0) {
-      childPicker =
-          weightedChildPickers.get(random.nextInt(weightedChildPickers.size())).getPicker();
+      childPicker = childPickers[random.nextInt(childPickers.length)];
     } else {
       int rand = random.nextInt(totalWeight);
 
-      // Find the first idx such that rand < accumulatedWeights[idx]
-      // Not using Arrays.binarySearch for better readability.
-      int accumulatedWeight = 0;
-      for (int idx = 0; idx < weightedChildPickers.size(); idx++) {
-        accumulatedWeight += weightedChildPickers.get(idx).getWeight();
-        if (rand < accumulatedWeight) {
-          childPicker = weightedChildPickers.get(idx).getPicker();
-          break;
+      // Binary search for the first idx such that rand < cumulativeWeights[idx]. Children with
+      // zero weight share their predecessor's cumulative weight and so are never found.
+      int low = 0;
+      int high = cumulativeWeights.length - 1;
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (rand < cumulativeWeights[mid]) {
+          high = mid;
+        } else {
+          low = mid + 1;
         }
       }
-      checkNotNull(childPicker, "childPicker not found");
+      childPicker = childPickers[low];
     }
 
     return childPicker.pickSubchannel(args);
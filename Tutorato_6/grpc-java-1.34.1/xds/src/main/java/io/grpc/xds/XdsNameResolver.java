@@ -27,7 +27,6 @@ import io.grpc.CallOptions;
 import io.grpc.InternalConfigSelector;
 import io.grpc.InternalLogId;
 import io.grpc.LoadBalancer.PickSubchannelArgs;
-import io.grpc.Metadata;
 import io.grpc.NameResolver;
 import io.grpc.Status;
 import io.grpc.SynchronizationContext;
@@ -296,26 +295,11 @@ final class XdsNameResolver extends NameResolver {
   private final class ConfigSelector extends InternalConfigSelector {
     @Override
     public Result selectConfig(PickSubchannelArgs args) {
-      // Index ASCII headers by keys.
-      Map<String, Iterable<String>> asciiHeaders = new HashMap<>();
-      Metadata headers = args.getHeaders();
-      for (String headerName : headers.keys()) {
-        if (headerName.endsWith(Metadata.BINARY_HEADER_SUFFIX)) {
-          continue;
-        }
-        Metadata.Key<String> key = Metadata.Key.of(headerName, Metadata.ASCII_STRING_MARSHALLER);
-        asciiHeaders.put(headerName, headers.getAll(key));
-      }
       String cluster = null;
-      Route selectedRoute = null;
+      Route selectedRoute;
       do {
-        for (Route route : routingConfig.routes) {
-          if (route.getRouteMatch().matches(
-              "/" + args.getMethodDescriptor().getFullMethodName(), asciiHeaders)) {
-            selectedRoute = route;
-            break;
-          }
-        }
+        selectedRoute = routingConfig.routeTable.selectRoute(
+            args.getMethodDescriptor().getFullMethodName(), args.getHeaders());
         if (selectedRoute == null) {
           return Result.forError(
               Status.UNAVAILABLE.withDescription("Could not find xDS route matching RPC"));
@@ -533,7 +517,7 @@ final class XdsNameResolver extends NameResolver {
       }
       // Make newly added clusters selectable by config selector and deleted clusters no longer
       // selectable.
-      routingConfig = new RoutingConfig(httpMaxStreamDurationNano, routes);
+      routingConfig = new RoutingConfig(httpMaxStreamDurationNano, new RouteTable(routes));
       shouldUpdateResult = false;
       for (String cluster : deletedClusters) {
         int count = clusterRefs.get(cluster).decrementAndGet();
@@ -608,13 +592,13 @@ final class XdsNameResolver extends NameResolver {
    */
   private static class RoutingConfig {
     private long fallbackTimeoutNano;
-    private List<Route> routes;
+    private RouteTable routeTable;
 
-    private static RoutingConfig empty = new RoutingConfig(0L, Collections.<Route>emptyList());
+    private static RoutingConfig empty = new RoutingConfig(0L, RouteTable.EMPTY);
 
-    private RoutingConfig(long fallbackTimeoutNano, List<Route> routes) {
+    private RoutingConfig(long fallbackTimeoutNano, RouteTable routeTable) {
       this.fallbackTimeoutNano = fallbackTimeoutNano;
-      this.routes = routes;
+      this.routeTable = routeTable;
     }
   }
 }
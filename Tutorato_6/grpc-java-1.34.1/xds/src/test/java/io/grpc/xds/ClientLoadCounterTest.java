@@ -35,11 +35,19 @@ import io.grpc.Status;
 import io.grpc.xds.ClientLoadCounter.ClientLoadSnapshot;
 import io.grpc.xds.ClientLoadCounter.LoadRecordingStreamTracerFactory;
 import io.grpc.xds.ClientLoadCounter.LoadRecordingSubchannelPicker;
+import io.grpc.xds.ClientLoadCounter.MetricAccumulator;
 import io.grpc.xds.ClientLoadCounter.MetricValue;
 import io.grpc.xds.ClientLoadCounter.MetricsObservingSubchannelPicker;
 import io.grpc.xds.ClientLoadCounter.MetricsRecordingListener;
 import io.grpc.xds.ClientLoadCounter.TracerWrappingSubchannelPicker;
 import io.grpc.xds.OrcaPerRequestUtil.OrcaPerRequestReportListener;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ThreadLocalRandom;
 import org.junit.Before;
 import org.junit.Test;
@@ -215,6 +223,107 @@ public class ClientLoadCounterTest {
     assertThat(namedMetric.getTotalValue()).isEqualTo(0.7563 + 0.7563);
   }
 
+  @Test
+  public void recordMetric_concurrentWithSnapshots_noReportsLost() throws Exception {
+    final int threads = 16;
+    final int reportsPerThread = 10000;
+    final CyclicBarrier start = new CyclicBarrier(threads + 1);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    List<Future<?>> futures = new ArrayList<>();
+    try {
+      for (int i = 0; i < threads; i++) {
+        futures.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws Exception {
+            start.await();
+            for (int j = 0; j < reportsPerThread; j++) {
+              counter.recordMetric("named-cost", 2);
+            }
+            return null;
+          }
+        }));
+      }
+      start.await();
+      long numReports = 0;
+      double totalValue = 0;
+      while (!allDone(futures)) {
+        MetricValue value = counter.snapshot().getMetricValues().get("named-cost");
+        if (value != null) {
+          numReports += value.getNumReports();
+          totalValue += value.getTotalValue();
+        }
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+      MetricValue value = counter.snapshot().getMetricValues().get("named-cost");
+      if (value != null) {
+        numReports += value.getNumReports();
+        totalValue += value.getTotalValue();
+      }
+      assertThat(numReports).isEqualTo(threads * reportsPerThread);
+      assertThat(totalValue).isEqualTo(2.0 * threads * reportsPerThread);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void metricAccumulator_singleCellUntilContended() {
+    MetricAccumulator accumulator = new MetricAccumulator();
+    assertThat(accumulator.getCellCount()).isEqualTo(1);
+    accumulator.add(1);
+    accumulator.add(2.5);
+    assertThat(accumulator.getCellCount()).isEqualTo(1);
+
+    MetricValue value = accumulator.takeAll();
+    assertThat(value.getNumReports()).isEqualTo(2);
+    assertThat(value.getTotalValue()).isEqualTo(3.5);
+    value = accumulator.takeAll();
+    assertThat(value.getNumReports()).isEqualTo(0);
+    assertThat(value.getTotalValue()).isEqualTo(0);
+  }
+
+  @Test
+  public void metricAccumulator_retiresOnlyWhenIdle() {
+    MetricAccumulator accumulator = new MetricAccumulator();
+    assertThat(accumulator.add(1)).isTrue();
+    assertThat(accumulator.retire()).isFalse();
+    assertThat(accumulator.isRetired()).isFalse();
+    assertThat(accumulator.add(2)).isTrue();
+
+    MetricValue value = accumulator.takeAll();
+    assertThat(value.getNumReports()).isEqualTo(2);
+    assertThat(value.getTotalValue()).isEqualTo(3);
+    assertThat(accumulator.retire()).isTrue();
+    assertThat(accumulator.isRetired()).isTrue();
+    assertThat(accumulator.add(4)).isFalse();
+    assertThat(accumulator.takeAll().getNumReports()).isEqualTo(0);
+  }
+
+  @Test
+  public void snapshot_dropsIdleMetrics() {
+    counter.recordMetric("named-cost", 1);
+    assertThat(counter.snapshot().getMetricValues()).containsKey("named-cost");
+    assertThat(counter.getMetricCount()).isEqualTo(1);
+    assertThat(counter.snapshot().getMetricValues()).isEmpty();
+    assertThat(counter.getMetricCount()).isEqualTo(0);
+
+    counter.recordMetric("named-cost", 2);
+    MetricValue value = counter.snapshot().getMetricValues().get("named-cost");
+    assertThat(value.getNumReports()).isEqualTo(1);
+    assertThat(value.getTotalValue()).isEqualTo(2);
+  }
+
+  private static boolean allDone(List<Future<?>> futures) {
+    for (Future<?> future : futures) {
+      if (!future.isDone()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   @Test
   public void tracerWrappingSubchannelPicker_interceptPickResult_invalidPickResultNotIntercepted() {
     final SubchannelPicker picker = mock(SubchannelPicker.class);
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.xds;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.re2j.Pattern;
+import io.grpc.Metadata;
+import io.grpc.xds.EnvoyProtoData.Route;
+import io.grpc.xds.RouteMatch.HeaderMatcher;
+import io.grpc.xds.RouteMatch.PathMatcher;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link RouteTable}. */
+@RunWith(JUnit4.class)
+public class RouteTableTest {
+  private static final Metadata.Key<String> USER_KEY =
+      Metadata.Key.of("x-user", Metadata.ASCII_STRING_MARSHALLER);
+
+  @Test
+  public void selectRoute_firstMatchWins() {
+    Route userFoo = route(PathMatcher.fromPrefix("/Foo/", true), userHeader("alice"));
+    Route fooBar = route(PathMatcher.fromPath("/Foo/bar", true));
+    Route regex = route(PathMatcher.fromRegEx(Pattern.compile("/Foo/.*z")));
+    Route any = route(PathMatcher.fromPrefix("/", true));
+    RouteTable table = new RouteTable(Arrays.asList(userFoo, fooBar, regex, any));
+
+    Metadata alice = new Metadata();
+    alice.put(USER_KEY, "alice");
+    assertThat(table.selectRoute("Foo/bar", alice)).isSameInstanceAs(userFoo);
+    assertThat(table.selectRoute("Foo/bar", new Metadata())).isSameInstanceAs(fooBar);
+    assertThat(table.selectRoute("Foo/baz", new Metadata())).isSameInstanceAs(regex);
+    assertThat(table.selectRoute("Bar/baz", alice)).isSameInstanceAs(any);
+  }
+
+  @Test
+  public void selectRoute_noMatch() {
+    RouteTable table = new RouteTable(Arrays.asList(
+        route(PathMatcher.fromPath("/Foo/bar", true)),
+        route(PathMatcher.fromPrefix("/Foo/", true), userHeader("alice"))));
+
+    assertThat(table.selectRoute("Foo/baz", new Metadata())).isNull();
+    assertThat(table.selectRoute("Bar/baz", new Metadata())).isNull();
+    assertThat(RouteTable.EMPTY.selectRoute("Foo/bar", new Metadata())).isNull();
+  }
+
+  @Test
+  public void selectRoute_caseInsensitive() {
+    Route exact = route(PathMatcher.fromPath("/foo/BAR", false));
+    Route prefix = route(PathMatcher.fromPrefix("/FOO/", false));
+    RouteTable table = new RouteTable(Arrays.asList(exact, prefix));
+
+    assertThat(table.selectRoute("Foo/bar", new Metadata())).isSameInstanceAs(exact);
+    assertThat(table.selectRoute("Foo/baz", new Metadata())).isSameInstanceAs(prefix);
+  }
+
+  @Test
+  public void candidates_stopAtFirstPathOnlyRoute() {
+    RouteTable table = new RouteTable(Arrays.asList(
+        route(PathMatcher.fromPrefix("/Foo/", true), userHeader("alice")),
+        route(PathMatcher.fromPath("/Bar/baz", true)),
+        route(PathMatcher.fromPrefix("/Foo/b", true)),
+        route(PathMatcher.fromPrefix("/", true))));
+
+    assertThat(table.candidates("Foo/bar")).asList().containsExactly(0, 2).inOrder();
+    assertThat(table.candidates("Bar/baz")).asList().containsExactly(1);
+    assertThat(table.candidates("Baz/baz")).asList().containsExactly(3);
+  }
+
+  @Test
+  public void candidates_cachedPerMethod() {
+    RouteTable table = new RouteTable(Arrays.asList(route(PathMatcher.fromPrefix("/", true))));
+
+    assertThat(table.candidates("Foo/bar")).isSameInstanceAs(table.candidates("Foo/bar"));
+    for (int i = 0; i < RouteTable.MAX_CACHED_METHODS; i++) {
+      table.candidates("Foo/bar" + i);
+    }
+    // Once full, the cache no longer grows but lookups still succeed.
+    assertThat(table.candidates("Foo/baz")).asList().containsExactly(0);
+    assertThat(table.candidates("Foo/baz")).isNotSameInstanceAs(table.candidates("Foo/baz"));
+  }
+
+  @Test
+  public void selectRoute_sameAsLinearEvaluation() {
+    Random random = new Random(1);
+    String[] services = {"Foo", "Bar", "Baz", "foo"};
+    String[] methods = {"get", "Get", "list", "getAll"};
+    List<Route> routes = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      String service = services[random.nextInt(services.length)];
+      String method = methods[random.nextInt(methods.length)];
+      boolean caseSensitive = random.nextInt(4) != 0;
+      PathMatcher pathMatcher;
+      switch (random.nextInt(4)) {
+        case 0:
+          pathMatcher = PathMatcher.fromPath("/" + service + "/" + method, caseSensitive);
+          break;
+        case 1:
+          pathMatcher = PathMatcher.fromPrefix("/" + service + "/" + method, caseSensitive);
+          break;
+        case 2:
+          pathMatcher = PathMatcher.fromPrefix("/" + service.substring(0, 2), caseSensitive);
+          break;
+        default:
+          pathMatcher = PathMatcher.fromRegEx(Pattern.compile("/" + service + "/.*t"));
+          break;
+      }
+      routes.add(random.nextBoolean()
+          ? route(pathMatcher)
+          : route(pathMatcher, userHeader(random.nextBoolean() ? "alice" : "bob")));
+    }
+    RouteTable table = new RouteTable(routes);
+
+    Metadata noUser = new Metadata();
+    Metadata alice = new Metadata();
+    alice.put(USER_KEY, "alice");
+    Metadata bob = new Metadata();
+    bob.put(USER_KEY, "bob");
+    for (String service : services) {
+      for (String method : methods) {
+        String fullMethodName = service + "/" + method;
+        for (Metadata headers : Arrays.asList(noUser, alice, bob)) {
+          assertThat(table.selectRoute(fullMethodName, headers))
+              .isSameInstanceAs(selectLinearly(routes, "/" + fullMethodName, headers));
+        }
+      }
+    }
+  }
+
+  private static Route selectLinearly(List<Route> routes, String path, Metadata headers) {
+    Map<String, Iterable<String>> asciiHeaders = new HashMap<>();
+    for (String headerName : headers.keys()) {
+      asciiHeaders.put(headerName,
+          headers.getAll(Metadata.Key.of(headerName, Metadata.ASCII_STRING_MARSHALLER)));
+    }
+    for (Route route : routes) {
+      if (route.getRouteMatch().matches(path, asciiHeaders)) {
+        return route;
+      }
+    }
+    return null;
+  }
+
+  private static HeaderMatcher userHeader(String user) {
+    return new HeaderMatcher("x-user", user, null, null, null, null, null, false);
+  }
+
+  private static Route route(PathMatcher pathMatcher, HeaderMatcher... headerMatchers) {
+    return new Route(
+        new RouteMatch(pathMatcher, Arrays.asList(headerMatchers), null), null);
+  }
+}
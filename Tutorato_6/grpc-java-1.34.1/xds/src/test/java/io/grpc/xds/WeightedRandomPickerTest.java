@@ -182,4 +182,35 @@ public class WeightedRandomPickerTest {
     assertThat(xdsPicker.pickSubchannel(pickSubchannelArgs)).isSameInstanceAs(pickResult3);
     assertThat(fakeRandom.bound).isEqualTo(4);
   }
+
+  @Test
+  public void pickWithManyChildren_matchesAccumulatedWeights() {
+    List<WeightedChildPicker> weightedChildPickers = new ArrayList<>();
+    List<PickResult> pickResults = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      final PickResult pickResult = PickResult.withSubchannel(mock(Subchannel.class));
+      pickResults.add(pickResult);
+      // Mix in zero weights, including at both ends.
+      int weight = i % 7 == 0 ? 0 : i % 5 + 1;
+      weightedChildPickers.add(new WeightedChildPicker(weight, new SubchannelPicker() {
+        @Override
+        public PickResult pickSubchannel(PickSubchannelArgs args) {
+          return pickResult;
+        }
+      }));
+    }
+    WeightedRandomPicker xdsPicker = new WeightedRandomPicker(weightedChildPickers, fakeRandom);
+
+    int accumulatedWeight = 0;
+    for (int idx = 0; idx < weightedChildPickers.size(); idx++) {
+      int weight = weightedChildPickers.get(idx).getWeight();
+      for (int rand = accumulatedWeight; rand < accumulatedWeight + weight; rand++) {
+        fakeRandom.nextInt = rand;
+        assertThat(xdsPicker.pickSubchannel(pickSubchannelArgs))
+            .isSameInstanceAs(pickResults.get(idx));
+      }
+      accumulatedWeight += weight;
+    }
+    assertThat(fakeRandom.bound).isEqualTo(accumulatedWeight);
+  }
 }